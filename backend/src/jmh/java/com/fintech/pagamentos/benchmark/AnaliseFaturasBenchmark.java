@@ -0,0 +1,64 @@
+package com.fintech.pagamentos.benchmark;
+
+import com.fintech.pagamentos.analise.ColunasFaturas;
+import com.fintech.pagamentos.analise.ColunasFaturas.Dimensao;
+import com.fintech.pagamentos.analise.ColunasFaturas.Filtro;
+import com.fintech.pagamentos.analise.LinhaAnaliseFatura;
+import com.fintech.pagamentos.dto.FaturaResponseDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Agregação por status e por mês de vencimento (GET /analytics/faturas): colunas fora do heap (ColunasFaturas)
+// contra o agrupamento com streams sobre uma lista de DTOs no heap, como seria com as faturas carregadas pelo JPA.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class AnaliseFaturasBenchmark {
+
+    @Param({"1000000", "3000000"})
+    private int quantidade;
+
+    private List<FaturaResponseDTO> faturas;
+    private ColunasFaturas colunas;
+
+    @Setup
+    public void setUp() {
+        faturas = DadosBenchmark.faturasResponse(quantidade);
+        colunas = new ColunasFaturas();
+        for (FaturaResponseDTO fatura : faturas) {
+            colunas.adicionar(new LinhaAnaliseFatura(fatura.getId(), fatura.getClienteId(), 'A', fatura.getDataVencimento(),
+                    fatura.getValor(), fatura.getStatus()));
+        }
+    }
+
+    @Benchmark
+    public Map<Character, BigDecimal> objetosPorStatus() {
+        return faturas.stream().collect(Collectors.groupingBy(FaturaResponseDTO::getStatus,
+                Collectors.reducing(BigDecimal.ZERO, FaturaResponseDTO::getValor, BigDecimal::add)));
+    }
+
+    @Benchmark
+    public List<ColunasFaturas.Grupo> colunasPorStatus() {
+        return colunas.agregar(Dimensao.STATUS, Filtro.TODAS);
+    }
+
+    @Benchmark
+    public Map<YearMonth, BigDecimal> objetosPorMes() {
+        return faturas.stream().collect(Collectors.groupingBy(fatura -> YearMonth.from(fatura.getDataVencimento()),
+                Collectors.reducing(BigDecimal.ZERO, FaturaResponseDTO::getValor, BigDecimal::add)));
+    }
+
+    @Benchmark
+    public List<ColunasFaturas.Grupo> colunasPorMes() {
+        return colunas.agregar(Dimensao.MES, Filtro.TODAS);
+    }
+}
@@ -0,0 +1,69 @@
+package com.fintech.pagamentos.benchmark;
+
+import com.fintech.pagamentos.autorizacao.TabelaExposicao;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Autorizações de compra (POST /clientes/{id}/autorizacoes) na TabelaExposicao, com compare-and-set por cliente,
+// contra um mapa protegido por uma única trava. Rodar com várias threads (ex: -t 1, -t 4, -t 8) para ver a escala:
+// clientes sorteados entre muitos não disputam nada na tabela; um cliente só concentra todos os compare-and-set.
+// Mede a aprovação dentro da cota da réplica, que no serviço não vai ao banco (a compra é gravada depois, em lote).
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AutorizacaoCreditoBenchmark {
+
+    @Param({"100000"})
+    private int quantidadeClientes;
+
+    private UUID[] clientes;
+    private TabelaExposicao tabela;
+    private Map<UUID, long[]> travaUnica;
+
+    @Setup
+    public void setUp() {
+        clientes = new UUID[quantidadeClientes];
+        tabela = new TabelaExposicao();
+        travaUnica = new HashMap<>();
+        for (int i = 0; i < quantidadeClientes; i++) {
+            clientes[i] = UUID.randomUUID();
+            tabela.creditar(clientes[i], UUID.randomUUID(), Long.MAX_VALUE / 2, 0, Long.MAX_VALUE); // Cota que não se esgota nem vence
+            travaUnica.put(clientes[i], new long[]{Long.MAX_VALUE / 2});
+        }
+    }
+
+    private UUID sortear() {
+        return clientes[ThreadLocalRandom.current().nextInt(quantidadeClientes)];
+    }
+
+    @Benchmark
+    public TabelaExposicao.Decisao tabelaClientesSorteados() {
+        return tabela.autorizar(sortear(), 1, System.currentTimeMillis());
+    }
+
+    @Benchmark
+    public TabelaExposicao.Decisao tabelaMesmoCliente() {
+        return tabela.autorizar(clientes[0], 1, System.currentTimeMillis());
+    }
+
+    @Benchmark
+    public boolean travaUnicaClientesSorteados() {
+        UUID clienteId = sortear();
+        synchronized (travaUnica) {
+            long[] disponivel = travaUnica.get(clienteId);
+            if (disponivel[0] < 1) {
+                return false;
+            }
+            disponivel[0] -= 1;
+            return true;
+        }
+    }
+}
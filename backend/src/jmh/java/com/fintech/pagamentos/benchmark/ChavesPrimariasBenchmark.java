@@ -0,0 +1,105 @@
+package com.fintech.pagamentos.benchmark;
+
+import com.fintech.pagamentos.id.GeradorUuidV7;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Carga de milhões de faturas com chave primária UUID v4 (aleatória, como gen_random_uuid) e v7 (ordenada pelo instante).
+// Cada medição recria a tabela e a carrega do zero em lotes JDBC, como o pagamento em lote e a importação fazem.
+// O tamanho do índice da chave primária ao fim da carga é informado no contador "bytesIndice".
+// Por padrão usa um H2 em arquivo com cache pequeno, para que as páginas do índice disputem a memória como no buffer pool.
+// No PostgreSQL: -p url=jdbc:postgresql://localhost:5432/pagamentosdb -p usuario=postgres -p senha=postgres
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1) // Cada carga já leva segundos; o contador de tamanho é somado entre as medições
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ChavesPrimariasBenchmark {
+
+    private static final int TAMANHO_LOTE = 1000;
+
+    @Param({"V4", "V7"})
+    private String tipoChave;
+
+    @Param({"1000000", "5000000"})
+    private int quantidadeLinhas;
+
+    @Param({"jdbc:h2:./target/benchmark-chaves;CACHE_SIZE=16384"})
+    private String url;
+
+    @Param({"sa"})
+    private String usuario;
+
+    @Param({""})
+    private String senha;
+
+    private Connection conexao;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Tamanhos {
+        public long bytesIndice;
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() throws SQLException {
+        conexao = DriverManager.getConnection(url, usuario, senha);
+        try (Statement statement = conexao.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS fatura_chave");
+            statement.execute("CREATE TABLE fatura_chave (id UUID PRIMARY KEY, cliente_id UUID NOT NULL, "
+                    + "data_vencimento DATE NOT NULL, valor NUMERIC(10,2) NOT NULL, status CHAR(1) NOT NULL)");
+        }
+        conexao.setAutoCommit(false);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws SQLException {
+        try (Statement statement = conexao.createStatement()) {
+            statement.execute("DROP TABLE fatura_chave");
+        }
+        conexao.commit();
+        conexao.close();
+    }
+
+    @Benchmark
+    public int carregar(Tamanhos tamanhos) throws SQLException {
+        boolean v7 = "V7".equals(tipoChave);
+        UUID clienteId = UUID.randomUUID();
+        java.sql.Date vencimento = java.sql.Date.valueOf(DadosBenchmark.DATA_BASE);
+        try (PreparedStatement insert = conexao.prepareStatement(
+                "INSERT INTO fatura_chave (id, cliente_id, data_vencimento, valor, status) VALUES (?, ?, ?, 100.00, 'B')")) {
+            for (int i = 1; i <= quantidadeLinhas; i++) {
+                insert.setObject(1, v7 ? GeradorUuidV7.gerar() : UUID.randomUUID());
+                insert.setObject(2, clienteId);
+                insert.setDate(3, vencimento);
+                insert.addBatch();
+                if (i % TAMANHO_LOTE == 0 || i == quantidadeLinhas) {
+                    insert.executeBatch();
+                    conexao.commit(); // Uma transação por lote
+                }
+            }
+        }
+        tamanhos.bytesIndice = tamanhoIndice();
+        return quantidadeLinhas;
+    }
+
+    // No H2 o tamanho por índice não é exposto: usa o espaço da tabela inteira (linhas + índice da chave primária)
+    private long tamanhoIndice() throws SQLException {
+        String sql = url.startsWith("jdbc:postgresql")
+                ? "SELECT pg_relation_size(i.indexrelid) FROM pg_index i WHERE i.indrelid = 'fatura_chave'::regclass AND i.indisprimary"
+                : "SELECT DISK_SPACE_USED('FATURA_CHAVE')";
+        try (Statement statement = conexao.createStatement(); ResultSet resultado = statement.executeQuery(sql)) {
+            resultado.next();
+            return resultado.getLong(1);
+        }
+    }
+}
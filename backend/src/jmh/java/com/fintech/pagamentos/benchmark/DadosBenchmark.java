@@ -0,0 +1,60 @@
+package com.fintech.pagamentos.benchmark;
+
+import com.fintech.pagamentos.dto.FaturaResponseDTO;
+import com.fintech.pagamentos.entity.Cliente;
+import com.fintech.pagamentos.entity.Fatura;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+// Geração de dados sintéticos determinísticos (semente fixa) para os benchmarks.
+final class DadosBenchmark {
+
+    static final LocalDate DATA_BASE = LocalDate.of(2025, 1, 1);
+    private static final char[] STATUS_FATURA = {'P', 'A', 'B'};
+
+    private DadosBenchmark() {
+    }
+
+    static Cliente cliente(int indice) {
+        return new Cliente(
+                UUID.nameUUIDFromBytes(("cliente-" + indice).getBytes()),
+                "Cliente Benchmark " + indice,
+                String.format("%011d", indice),
+                LocalDate.of(1970, 1, 1).plusDays(indice % 15000),
+                indice % 10 == 0 ? 'B' : 'A',
+                indice % 10 == 0 ? BigDecimal.ZERO : BigDecimal.valueOf(1000 + indice % 9000, 0),
+                indice % 10 == 0 ? Character.valueOf('M') : null, null, 0L
+        );
+    }
+
+    static Fatura fatura(Cliente cliente, int indice, Random random) {
+        char status = STATUS_FATURA[random.nextInt(STATUS_FATURA.length)];
+        LocalDate vencimento = DATA_BASE.plusDays(random.nextInt(730));
+        return new Fatura(
+                UUID.randomUUID(),
+                cliente,
+                vencimento,
+                status == 'P' ? vencimento : null,
+                BigDecimal.valueOf(1 + random.nextInt(500_000), 2),
+                status, 0L
+        );
+    }
+
+    static List<FaturaResponseDTO> faturasResponse(int quantidade) {
+        Random random = new Random(42);
+        List<FaturaResponseDTO> faturas = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            Fatura fatura = fatura(cliente(i % 1000), i, random);
+            faturas.add(new FaturaResponseDTO(
+                    fatura.getId(), fatura.getCliente().getId(), fatura.getCliente().getNome(),
+                    fatura.getDataVencimento(), fatura.getDataPagamento(), fatura.getValor(), fatura.getStatus()
+            ));
+        }
+        return faturas;
+    }
+}
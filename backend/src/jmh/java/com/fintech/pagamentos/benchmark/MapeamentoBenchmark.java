@@ -0,0 +1,72 @@
+package com.fintech.pagamentos.benchmark;
+
+import com.fintech.pagamentos.dto.ClienteRequestDTO;
+import com.fintech.pagamentos.dto.ClienteResponseDTO;
+import com.fintech.pagamentos.dto.FaturaResponseDTO;
+import com.fintech.pagamentos.entity.Cliente;
+import com.fintech.pagamentos.entity.Fatura;
+import com.fintech.pagamentos.mapper.ClienteMapper;
+import com.fintech.pagamentos.mapper.FaturaMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Mapeamento Entidade <-> DTO usado por ClienteService e FaturaService (mappers manuais).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapeamentoBenchmark {
+
+    private final ClienteMapper clienteMapper = new ClienteMapper();
+    private final FaturaMapper faturaMapper = new FaturaMapper();
+
+    private ClienteRequestDTO clienteRequest;
+    private Cliente cliente;
+    private Fatura fatura;
+    private List<Cliente> paginaClientes; // Uma página do tamanho máximo da API
+
+    @Setup
+    public void setUp() {
+        clienteRequest = new ClienteRequestDTO("Cliente Benchmark", "12345678901", LocalDate.of(1990, 1, 1), 'A', BigDecimal.valueOf(5000));
+        cliente = DadosBenchmark.cliente(1);
+        fatura = DadosBenchmark.fatura(cliente, 1, new Random(42));
+        paginaClientes = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            paginaClientes.add(DadosBenchmark.cliente(i));
+        }
+    }
+
+    @Benchmark
+    public Cliente clienteToEntity() {
+        return clienteMapper.toEntity(clienteRequest);
+    }
+
+    @Benchmark
+    public Cliente clienteAtualizarEntity() {
+        clienteMapper.atualizarEntity(clienteRequest, cliente);
+        return cliente;
+    }
+
+    @Benchmark
+    public ClienteResponseDTO clienteToResponseDTO() {
+        return clienteMapper.toResponseDTO(cliente);
+    }
+
+    @Benchmark
+    public List<ClienteResponseDTO> paginaClientesToResponseDTO() {
+        return paginaClientes.stream().map(clienteMapper::toResponseDTO).toList();
+    }
+
+    @Benchmark
+    public FaturaResponseDTO faturaToResponseDTO() {
+        return faturaMapper.toResponseDTO(fatura);
+    }
+}
@@ -0,0 +1,172 @@
+package com.fintech.pagamentos.benchmark;
+
+import com.fintech.pagamentos.PagamentosApplication;
+import com.fintech.pagamentos.dto.ClienteResponseDTO;
+import com.fintech.pagamentos.dto.FaturaResponseDTO;
+import com.fintech.pagamentos.dto.PaginaDTO;
+import com.fintech.pagamentos.dto.RelatorioAgingDTO;
+import com.fintech.pagamentos.entity.Cliente;
+import com.fintech.pagamentos.entity.Fatura;
+import com.fintech.pagamentos.pagination.CursorFatura;
+import com.fintech.pagamentos.repository.FaturaRepository;
+import com.fintech.pagamentos.service.ClienteService;
+import com.fintech.pagamentos.service.RelatorioAgingService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Consultas dos repositórios contra um H2 em memória (modo PostgreSQL) populado com 10k, 100k e 1M faturas.
+// Os índices são lidos de database/01_schema.sql para que o plano de acesso acompanhe o esquema real.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class RepositorioFaturasBenchmark {
+
+    private static final Path SCHEMA = Path.of("../database/01_schema.sql"); // Relativo a backend/, onde o Maven executa
+    private static final int TAMANHO_LOTE = 1000;
+    private static final Limit LIMITE_PAGINA = Limit.of(51); // Limite padrão da API + 1 (detecção da próxima página)
+
+    @Param({"10000", "100000", "1000000"})
+    private int quantidadeFaturas;
+
+    private ConfigurableApplicationContext contexto;
+    private FaturaRepository faturaRepository;
+    private ClienteService clienteService;
+    private RelatorioAgingService relatorioAgingService;
+
+    private UUID clienteId; // Cliente usado na listagem por cliente
+    private UUID faturaId; // Fatura usada na busca por ID
+    private CursorFatura cursorMeio; // Cursor no meio do intervalo de vencimentos (página "profunda")
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        contexto = new SpringApplicationBuilder(PagamentosApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--spring.jpa.show-sql=false",
+                        "--pagamentos.faturas.particoes.habilitado=false", // O H2 usa a tabela criada pelo Hibernate, sem partições
+                        "--pagamentos.cache.versoes-compartilhadas=false", // Sem as sequências de versão do schema
+                        "--logging.level.root=WARN"
+                );
+        faturaRepository = contexto.getBean(FaturaRepository.class);
+        clienteService = contexto.getBean(ClienteService.class);
+        relatorioAgingService = contexto.getBean(RelatorioAgingService.class);
+
+        JdbcTemplate jdbcTemplate = contexto.getBean(JdbcTemplate.class);
+        criarIndices(jdbcTemplate);
+        popular(jdbcTemplate);
+        cursorMeio = new CursorFatura(DadosBenchmark.DATA_BASE.plusDays(365), new UUID(0, 0));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        contexto.close();
+    }
+
+    private void criarIndices(JdbcTemplate jdbcTemplate) throws IOException {
+        for (String linha : Files.readAllLines(SCHEMA)) {
+            if (linha.startsWith("CREATE INDEX")) {
+                jdbcTemplate.execute(linha);
+            }
+        }
+    }
+
+    private void popular(JdbcTemplate jdbcTemplate) {
+        int quantidadeClientes = quantidadeFaturas / 10; // Em média 10 faturas por cliente
+        List<Cliente> clientes = new ArrayList<>(quantidadeClientes);
+        for (int i = 0; i < quantidadeClientes; i++) {
+            clientes.add(DadosBenchmark.cliente(i));
+        }
+        for (int inicio = 0; inicio < clientes.size(); inicio += TAMANHO_LOTE) {
+            List<Object[]> lote = clientes.subList(inicio, Math.min(inicio + TAMANHO_LOTE, clientes.size())).stream()
+                    .map(c -> new Object[]{c.getId(), c.getNome(), c.getCpf(), Date.valueOf(c.getDataNascimento()),
+                            String.valueOf(c.getStatusBloqueio()), c.getLimiteCredito(), c.getVersao()})
+                    .toList();
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO cliente (id, nome, cpf, data_nascimento, status_bloqueio, limite_credito, versao) VALUES (?, ?, ?, ?, ?, ?, ?)", lote);
+        }
+
+        Random random = new Random(42);
+        List<Object[]> lote = new ArrayList<>(TAMANHO_LOTE);
+        for (int i = 0; i < quantidadeFaturas; i++) {
+            Fatura fatura = DadosBenchmark.fatura(clientes.get(random.nextInt(quantidadeClientes)), i, random);
+            lote.add(new Object[]{fatura.getId(), fatura.getCliente().getId(), Date.valueOf(fatura.getDataVencimento()),
+                    fatura.getDataPagamento() != null ? Date.valueOf(fatura.getDataPagamento()) : null,
+                    fatura.getValor(), String.valueOf(fatura.getStatus()), fatura.getVersao()});
+            if (i == quantidadeFaturas / 2) {
+                clienteId = fatura.getCliente().getId();
+                faturaId = fatura.getId();
+            }
+            if (lote.size() == TAMANHO_LOTE || i == quantidadeFaturas - 1) {
+                jdbcTemplate.batchUpdate(
+                        "INSERT INTO fatura (id, cliente_id, data_vencimento, data_pagamento, valor, status, versao) VALUES (?, ?, ?, ?, ?, ?, ?)", lote);
+                lote.clear();
+            }
+        }
+    }
+
+    @Benchmark
+    public List<FaturaResponseDTO> primeiraPagina() {
+        return faturaRepository.findPagina(CursorFatura.INICIO.dataVencimento(), CursorFatura.INICIO.id(), LIMITE_PAGINA);
+    }
+
+    @Benchmark
+    public List<FaturaResponseDTO> paginaIntermediaria() {
+        // Com keyset o custo não deve crescer com a profundidade da página
+        return faturaRepository.findPagina(cursorMeio.dataVencimento(), cursorMeio.id(), LIMITE_PAGINA);
+    }
+
+    @Benchmark
+    public List<FaturaResponseDTO> paginaAtrasadas() {
+        return faturaRepository.findPaginaByStatus('A', CursorFatura.INICIO.dataVencimento(), CursorFatura.INICIO.id(), LIMITE_PAGINA);
+    }
+
+    @Benchmark
+    public List<FaturaResponseDTO> paginaPorCliente() {
+        return faturaRepository.findPaginaByClienteId(clienteId, CursorFatura.INICIO.dataVencimento(), CursorFatura.INICIO.id(), LIMITE_PAGINA);
+    }
+
+    @Benchmark
+    public Optional<Fatura> buscarPorIdComCliente() {
+        return faturaRepository.findByIdWithCliente(faturaId);
+    }
+
+    @Benchmark
+    public PaginaDTO<ClienteResponseDTO> paginaClientesBloqueados() {
+        return clienteService.listarClientesBloqueados(null, null);
+    }
+
+    // Aging por cliente: agregação com FILTER no banco contra a projeção de todas as faturas não pagas num stream paralelo
+    @Benchmark
+    public RelatorioAgingDTO agingBanco() {
+        return relatorioAgingService.gerar(RelatorioAgingService.Modo.BANCO, true, DadosBenchmark.DATA_BASE.plusDays(365));
+    }
+
+    @Benchmark
+    public RelatorioAgingDTO agingStream() {
+        return relatorioAgingService.gerar(RelatorioAgingService.Modo.STREAM, true, DadosBenchmark.DATA_BASE.plusDays(365));
+    }
+}
@@ -0,0 +1,45 @@
+package com.fintech.pagamentos.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintech.pagamentos.dto.FaturaResponseDTO;
+import com.fintech.pagamentos.dto.PaginaDTO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Serialização Jackson de listas grandes de FaturaResponseDTO, com o mesmo ObjectMapper padrão do Spring MVC.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class SerializacaoFaturasBenchmark {
+
+    @Param({"50", "500", "10000", "100000"})
+    private int quantidade;
+
+    private ObjectMapper objectMapper;
+    private List<FaturaResponseDTO> faturas;
+    private PaginaDTO<FaturaResponseDTO> pagina;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build(); // Registra JavaTimeModule e as features padrão do Spring
+        faturas = DadosBenchmark.faturasResponse(quantidade);
+        pagina = new PaginaDTO<>(faturas, "cursor-da-proxima-pagina");
+    }
+
+    @Benchmark
+    public byte[] serializarLista() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(faturas);
+    }
+
+    @Benchmark
+    public byte[] serializarPagina() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(pagina);
+    }
+}
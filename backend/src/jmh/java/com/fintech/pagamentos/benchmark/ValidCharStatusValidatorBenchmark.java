@@ -0,0 +1,76 @@
+package com.fintech.pagamentos.benchmark;
+
+import com.fintech.pagamentos.dto.ClienteRequestDTO;
+import com.fintech.pagamentos.entity.Fatura;
+import com.fintech.pagamentos.validation.ValidCharStatus;
+import com.fintech.pagamentos.validation.ValidCharStatusValidator;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Custo do validador customizado de status, isolado (isValid) e dentro do Bean Validation completo.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidCharStatusValidatorBenchmark {
+
+    private ValidCharStatusValidator validadorCliente; // Valores permitidos {'A', 'B'}
+    private ValidCharStatusValidator validadorFatura; // Valores permitidos {'P', 'A', 'B'}
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+
+    // Campos não finais para evitar que o JIT trate os valores como constantes
+    private Character statusValido = 'B';
+    private Character statusInvalido = 'X';
+
+    @Setup
+    public void setUp() throws NoSuchFieldException {
+        validadorCliente = new ValidCharStatusValidator();
+        validadorCliente.initialize(ClienteRequestDTO.class.getDeclaredField("statusBloqueio").getAnnotation(ValidCharStatus.class));
+
+        validadorFatura = new ValidCharStatusValidator();
+        validadorFatura.initialize(Fatura.class.getDeclaredField("status").getAnnotation(ValidCharStatus.class));
+
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public boolean isValidStatusCliente() {
+        return validadorCliente.isValid(statusValido, null); // Caminho válido não usa o contexto
+    }
+
+    @Benchmark
+    public boolean isValidStatusFatura() {
+        return validadorFatura.isValid(statusValido, null); // 'B' é o último valor permitido: percorre todo o array
+    }
+
+    @Benchmark
+    public boolean isValidNulo() {
+        return validadorCliente.isValid(null, null);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<ClienteRequestDTO>> beanValidationStatusValido() {
+        return validator.validateValue(ClienteRequestDTO.class, "statusBloqueio", statusValido);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<ClienteRequestDTO>> beanValidationStatusInvalido() {
+        // Caminho de erro: monta a mensagem com os valores permitidos
+        return validator.validateValue(ClienteRequestDTO.class, "statusBloqueio", statusInvalido);
+    }
+}
@@ -0,0 +1,281 @@
+package com.fintech.pagamentos.analise;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+// Cópia colunar das faturas para as agregações de GET /analytics/faturas, fora do heap (ByteBuffer direto).
+// Cada coluna é um vetor contíguo de um tipo primitivo: vencimento em dias desde 1970-01-01 (int), valor em centavos (long),
+// status (byte) e o índice do cliente (int), que aponta para a coluna de situação de bloqueio dos clientes (byte).
+// A agregação lê só essas colunas, em sequência, sem um objeto por fatura: milhões de linhas ocupam poucas dezenas de MB
+// fora do heap e não pesam no GC. Os mapas de ID para linha (no heap) só são usados pelas atualizações incrementais.
+// Escritas são sincronizadas; leituras não travam. Depois da carga, só bytes (status e bloqueio) são alterados,
+// então uma agregação simultânea vê cada fatura com o status antigo ou o novo.
+public class ColunasFaturas {
+
+    public enum Dimensao {
+        STATUS, MES, BLOQUEIO;
+
+        public static Dimensao de(String valor) {
+            for (Dimensao dimensao : values()) {
+                if (dimensao.name().equalsIgnoreCase(valor.trim())) {
+                    return dimensao;
+                }
+            }
+            throw new IllegalArgumentException("Agrupamento inválido: " + valor + ". Valores permitidos: status, mes, bloqueio.");
+        }
+    }
+
+    // status = 0 aceita todos; vencimentos em dias desde 1970-01-01, inclusivos
+    public record Filtro(byte status, int vencimentoDe, int vencimentoAte) {
+
+        public static final Filtro TODAS = new Filtro((byte) 0, Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+        public static Filtro de(Character status, LocalDate vencimentoDe, LocalDate vencimentoAte) {
+            return new Filtro(status == null ? 0 : (byte) status.charValue(),
+                    vencimentoDe == null ? Integer.MIN_VALUE : (int) vencimentoDe.toEpochDay(),
+                    vencimentoAte == null ? Integer.MAX_VALUE : (int) vencimentoAte.toEpochDay());
+        }
+    }
+
+    public record Grupo(String chave, long quantidade, long centavos) {
+    }
+
+    static final int LINHAS_POR_BLOCO = 1 << 16; // Unidade de trabalho da varredura paralela
+
+    private static final int CAPACIDADE_INICIAL = 1024;
+    private static final byte[] STATUS = {'B', 'A', 'P'};
+    private static final byte[] BLOQUEIO = {'A', 'B'};
+    private static final int[] GRUPO_STATUS = new int[256]; // Byte do status -> posição em STATUS
+
+    static {
+        for (int g = 0; g < STATUS.length; g++) {
+            GRUPO_STATUS[STATUS[g]] = g;
+        }
+    }
+
+    private ByteBuffer vencimentos = alocar(CAPACIDADE_INICIAL * Integer.BYTES);
+    private ByteBuffer centavos = alocar(CAPACIDADE_INICIAL * Long.BYTES);
+    private ByteBuffer status = alocar(CAPACIDADE_INICIAL);
+    private ByteBuffer clientes = alocar(CAPACIDADE_INICIAL * Integer.BYTES);
+    private ByteBuffer bloqueioClientes = alocar(CAPACIDADE_INICIAL);
+    private volatile int linhas; // Publicada depois das colunas: a leitura de linhas torna as colunas visíveis
+    private int quantidadeClientes;
+    private int menorVencimento = Integer.MAX_VALUE;
+    private int maiorVencimento = Integer.MIN_VALUE;
+
+    private final Map<UUID, Integer> linhaPorFatura = new HashMap<>();
+    private final Map<UUID, Integer> indicePorCliente = new HashMap<>();
+
+    private static ByteBuffer alocar(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    private static ByteBuffer crescer(ByteBuffer atual, int bytes) {
+        ByteBuffer novo = alocar(bytes);
+        novo.put(0, atual, 0, atual.capacity());
+        return novo;
+    }
+
+    public int getLinhas() {
+        return linhas;
+    }
+
+    public synchronized void adicionar(LinhaAnaliseFatura linha) {
+        int cliente = indiceCliente(linha.clienteId(), (byte) linha.statusBloqueio().charValue());
+        int dia = (int) linha.dataVencimento().toEpochDay();
+        int i = linhas;
+        if (i == status.capacity()) {
+            int capacidade = i * 2;
+            vencimentos = crescer(vencimentos, capacidade * Integer.BYTES);
+            centavos = crescer(centavos, capacidade * Long.BYTES);
+            status = crescer(status, capacidade);
+            clientes = crescer(clientes, capacidade * Integer.BYTES);
+        }
+        vencimentos.putInt(i * Integer.BYTES, dia);
+        centavos.putLong(i * Long.BYTES, emCentavos(linha.valor()));
+        status.put(i, (byte) linha.status().charValue());
+        clientes.putInt(i * Integer.BYTES, cliente);
+        menorVencimento = Math.min(menorVencimento, dia);
+        maiorVencimento = Math.max(maiorVencimento, dia);
+        linhaPorFatura.put(linha.faturaId(), i);
+        linhas = i + 1;
+    }
+
+    private int indiceCliente(UUID clienteId, byte bloqueio) {
+        Integer existente = indicePorCliente.get(clienteId);
+        if (existente != null) {
+            return existente;
+        }
+        int indice = quantidadeClientes;
+        if (indice == bloqueioClientes.capacity()) {
+            bloqueioClientes = crescer(bloqueioClientes, indice * 2);
+        }
+        bloqueioClientes.put(indice, bloqueio);
+        indicePorCliente.put(clienteId, indice);
+        quantidadeClientes = indice + 1;
+        return indice;
+    }
+
+    static long emCentavos(BigDecimal valor) {
+        return valor.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    // Retorna false se a fatura não estiver nas colunas (ex: carregada depois da última carga completa)
+    public synchronized boolean alterarStatus(UUID faturaId, char novoStatus) {
+        Integer linha = linhaPorFatura.get(faturaId);
+        if (linha == null) {
+            return false;
+        }
+        status.put(linha, (byte) novoStatus);
+        return true;
+    }
+
+    public synchronized boolean contemCliente(UUID clienteId) {
+        return indicePorCliente.containsKey(clienteId);
+    }
+
+    // Clientes sem faturas não estão nas colunas e não afetam nenhuma agregação
+    public synchronized void alterarBloqueio(UUID clienteId, char statusBloqueio) {
+        Integer indice = indicePorCliente.get(clienteId);
+        if (indice != null) {
+            bloqueioClientes.put(indice, (byte) statusBloqueio);
+        }
+    }
+
+    // Mesma regra da transição diária: faturas em aberto com vencimento anterior à data passam a atrasadas
+    public synchronized int marcarAtrasadasAntesDe(LocalDate data) {
+        int dia = (int) data.toEpochDay();
+        int alteradas = 0;
+        for (int i = 0; i < linhas; i++) {
+            if (status.get(i) == 'B' && vencimentos.getInt(i * Integer.BYTES) < dia) {
+                status.put(i, (byte) 'A');
+                alteradas++;
+            }
+        }
+        return alteradas;
+    }
+
+    // Varredura em blocos de LINHAS_POR_BLOCO linhas, em paralelo (ForkJoinPool comum); cada bloco soma em vetores
+    // próprios, indexados pelo grupo, e os parciais são somados no fim. Grupos sem faturas não aparecem no resultado.
+    public List<Grupo> agregar(Dimensao dimensao, Filtro filtro) {
+        int total = linhas;
+        ByteBuffer vencimentos = this.vencimentos;
+        ByteBuffer centavos = this.centavos;
+        ByteBuffer status = this.status;
+        ByteBuffer clientes = this.clientes;
+        ByteBuffer bloqueioClientes = this.bloqueioClientes;
+        int primeiroMes = total == 0 ? 0 : mesDoDia(menorVencimento);
+        int quantidadeGrupos = switch (dimensao) {
+            case STATUS -> STATUS.length;
+            case BLOQUEIO -> BLOQUEIO.length;
+            case MES -> total == 0 ? 0 : mesDoDia(maiorVencimento) - primeiroMes + 1;
+        };
+
+        // Mês de cada dia entre o menor e o maior vencimento, calculado uma vez por consulta em vez de uma vez por linha
+        int primeiroDia = menorVencimento;
+        int[] grupoPorDia = new int[dimensao == Dimensao.MES && total > 0 ? maiorVencimento - primeiroDia + 1 : 0];
+        for (int d = 0; d < grupoPorDia.length; d++) {
+            grupoPorDia[d] = mesDoDia(primeiroDia + d) - primeiroMes;
+        }
+
+        int blocos = (total + LINHAS_POR_BLOCO - 1) / LINHAS_POR_BLOCO;
+        long[][] parcial = IntStream.range(0, blocos).parallel()
+                .mapToObj(bloco -> agregarBloco(dimensao, filtro, vencimentos, centavos, status, clientes, bloqueioClientes,
+                        primeiroDia, grupoPorDia, quantidadeGrupos, bloco * LINHAS_POR_BLOCO, Math.min(total, (bloco + 1) * LINHAS_POR_BLOCO)))
+                .reduce(new long[2][quantidadeGrupos], ColunasFaturas::somar);
+
+        List<Grupo> grupos = new ArrayList<>();
+        for (int g = 0; g < quantidadeGrupos; g++) {
+            if (parcial[0][g] > 0) {
+                grupos.add(new Grupo(chave(dimensao, g, primeiroMes), parcial[0][g], parcial[1][g]));
+            }
+        }
+        return grupos;
+    }
+
+    // Um laço por dimensão, sem chamadas nem objetos: o grupo de cada linha é um índice calculado só com aritmética
+    // e tabelas, e as colunas não usadas pela dimensão não são lidas
+    private static long[][] agregarBloco(Dimensao dimensao, Filtro filtro, ByteBuffer vencimentos, ByteBuffer centavos,
+                                         ByteBuffer status, ByteBuffer clientes, ByteBuffer bloqueioClientes,
+                                         int primeiroDia, int[] grupoPorDia, int quantidadeGrupos, int inicio, int fim) {
+        long[] quantidades = new long[quantidadeGrupos];
+        long[] somas = new long[quantidadeGrupos];
+        byte filtroStatus = filtro.status();
+        int de = filtro.vencimentoDe();
+        int ate = filtro.vencimentoAte();
+        switch (dimensao) {
+            case STATUS -> {
+                for (int i = inicio; i < fim; i++) {
+                    int dia = vencimentos.getInt(i * Integer.BYTES);
+                    byte s = status.get(i);
+                    if (dia < de | dia > ate | (filtroStatus != 0 & s != filtroStatus)) {
+                        continue;
+                    }
+                    int grupo = GRUPO_STATUS[s & 0xFF];
+                    quantidades[grupo]++;
+                    somas[grupo] += centavos.getLong(i * Long.BYTES);
+                }
+            }
+            case BLOQUEIO -> {
+                for (int i = inicio; i < fim; i++) {
+                    int dia = vencimentos.getInt(i * Integer.BYTES);
+                    byte s = status.get(i);
+                    if (dia < de | dia > ate | (filtroStatus != 0 & s != filtroStatus)) {
+                        continue;
+                    }
+                    int grupo = bloqueioClientes.get(clientes.getInt(i * Integer.BYTES)) == 'A' ? 0 : 1;
+                    quantidades[grupo]++;
+                    somas[grupo] += centavos.getLong(i * Long.BYTES);
+                }
+            }
+            case MES -> {
+                for (int i = inicio; i < fim; i++) {
+                    int dia = vencimentos.getInt(i * Integer.BYTES);
+                    byte s = status.get(i);
+                    if (dia < de | dia > ate | (filtroStatus != 0 & s != filtroStatus)) {
+                        continue;
+                    }
+                    int grupo = grupoPorDia[dia - primeiroDia];
+                    quantidades[grupo]++;
+                    somas[grupo] += centavos.getLong(i * Long.BYTES);
+                }
+            }
+        }
+        return new long[][]{quantidades, somas};
+    }
+
+    private static long[][] somar(long[][] a, long[][] b) {
+        long[][] soma = new long[2][a[0].length];
+        for (int g = 0; g < a[0].length; g++) {
+            soma[0][g] = a[0][g] + b[0][g];
+            soma[1][g] = a[1][g] + b[1][g];
+        }
+        return soma;
+    }
+
+    private static String chave(Dimensao dimensao, int grupo, int primeiroMes) {
+        return switch (dimensao) {
+            case STATUS -> String.valueOf((char) STATUS[grupo]);
+            case BLOQUEIO -> String.valueOf((char) BLOQUEIO[grupo]);
+            case MES -> {
+                int mes = primeiroMes + grupo;
+                yield String.format("%04d-%02d", Math.floorDiv(mes, 12), Math.floorMod(mes, 12) + 1);
+            }
+        };
+    }
+
+    // Ano * 12 + (mês - 1) de um dia desde 1970-01-01
+    static int mesDoDia(int dia) {
+        LocalDate data = LocalDate.ofEpochDay(dia);
+        return data.getYear() * 12 + data.getMonthValue() - 1;
+    }
+}
@@ -0,0 +1,10 @@
+package com.fintech.pagamentos.analise;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+// Colunas de uma fatura (e do seu cliente) lidas do banco na carga das colunas de análise.
+public record LinhaAnaliseFatura(UUID faturaId, UUID clienteId, Character statusBloqueio, LocalDate dataVencimento,
+                                 BigDecimal valor, Character status) {
+}
@@ -0,0 +1,30 @@
+package com.fintech.pagamentos.autorizacao;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+// Limite de crédito, totais em aberto e compras reservadas (de resumo_cliente, nulos se o cliente ainda não tem resumo)
+// de um cliente
+public record LimiteCliente(UUID clienteId, Character statusBloqueio, BigDecimal limiteCredito,
+                            BigDecimal totalAberto, BigDecimal totalAtrasado, BigDecimal totalReservado) {
+
+    public boolean bloqueado() {
+        return statusBloqueio != null && statusBloqueio == 'B';
+    }
+
+    // Limite menos as faturas em aberto e atrasadas e as compras reservadas, em centavos (negativo se a exposição já
+    // passou do limite)
+    public long baseEmCentavos() {
+        BigDecimal base = limiteCredito;
+        if (totalAberto != null) {
+            base = base.subtract(totalAberto);
+        }
+        if (totalAtrasado != null) {
+            base = base.subtract(totalAtrasado);
+        }
+        if (totalReservado != null) {
+            base = base.subtract(totalReservado);
+        }
+        return TabelaExposicao.emCentavos(base);
+    }
+}
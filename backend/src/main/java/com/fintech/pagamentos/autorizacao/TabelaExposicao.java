@@ -0,0 +1,179 @@
+package com.fintech.pagamentos.autorizacao;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Cotas do limite de crédito desta réplica, em centavos, de onde saem as compras aprovadas sem ir ao banco.
+// A autorização só lê o mapa (sem trava) e desconta do saldo da cota com compare-and-set: clientes diferentes não
+// disputam nenhuma trava, e autorizações simultâneas do mesmo cliente nunca aprovam juntas mais que o saldo.
+// Cada cota corresponde a uma linha de cota_credito (id). Uma cota nova do banco substitui o objeto da anterior: as
+// compras aprovadas com a anterior continuam atribuídas a ela, então o saldo de uma linha nunca é usado duas vezes.
+// A cota só vale até validaAte (renovada junto com a linha no banco); depois disso a autorização pede outra ao banco.
+public class TabelaExposicao {
+
+    public enum Resultado {
+        APROVADA, COTA_INSUFICIENTE, CLIENTE_BLOQUEADO
+    }
+
+    // cotaId: cota de que a compra aprovada saiu; saldo: saldo da cota depois da decisão (0 se a cota venceu ou o cliente
+    // está bloqueado); restanteBanco: disponível do cliente no banco na última concessão
+    public record Decisao(Resultado resultado, UUID cotaId, long saldo, long restanteBanco) {
+    }
+
+    // Saldo tirado de uma cota para voltar ao limite no banco
+    public record Retirada(UUID clienteId, UUID cotaId, long centavos) {
+    }
+
+    public static final class Cota {
+        private final UUID id;
+        private final AtomicLong saldo;
+        private volatile long validaAte; // Em milissegundos (System.currentTimeMillis)
+        private volatile long ultimoUso;
+        private volatile long restanteBanco;
+        private volatile boolean bloqueada; // Cliente bloqueado nesta réplica: as compras vão ao banco, que recusa
+
+        private Cota(UUID id, long saldo, long restanteBanco, long validaAte) {
+            this.id = id;
+            this.saldo = new AtomicLong(saldo);
+            this.restanteBanco = restanteBanco;
+            this.validaAte = validaAte;
+            this.ultimoUso = System.currentTimeMillis();
+        }
+
+        public UUID getId() {
+            return id;
+        }
+    }
+
+    private final ConcurrentHashMap<UUID, Cota> cotas = new ConcurrentHashMap<>();
+
+    public Decisao autorizar(UUID clienteId, long centavos, long agora) {
+        Cota cota = cotas.get(clienteId);
+        if (cota == null) {
+            return new Decisao(Resultado.COTA_INSUFICIENTE, null, 0, 0);
+        }
+        if (cota.bloqueada) {
+            return new Decisao(Resultado.CLIENTE_BLOQUEADO, null, 0, 0);
+        }
+        if (agora >= cota.validaAte) {
+            return new Decisao(Resultado.COTA_INSUFICIENTE, cota.id, 0, cota.restanteBanco);
+        }
+        AtomicLong saldo = cota.saldo;
+        while (true) {
+            long atual = saldo.get();
+            if (atual < centavos) {
+                return new Decisao(Resultado.COTA_INSUFICIENTE, cota.id, atual, cota.restanteBanco);
+            }
+            if (saldo.compareAndSet(atual, atual - centavos)) {
+                cota.ultimoUso = agora;
+                return new Decisao(Resultado.APROVADA, cota.id, atual - centavos, cota.restanteBanco);
+            }
+        }
+    }
+
+    // Valor concedido pelo banco (que só concede a cliente ativo): somado à cota se a linha é a mesma, senão a cota
+    // anterior (apagada no banco) é substituída
+    public void creditar(UUID clienteId, UUID cotaId, long centavos, long restanteBanco, long validaAte) {
+        cotas.compute(clienteId, (id, atual) -> {
+            if (atual != null && cotaId.equals(atual.id)) {
+                atual.saldo.addAndGet(centavos);
+                atual.restanteBanco = restanteBanco;
+                atual.validaAte = Math.max(atual.validaAte, validaAte);
+                atual.bloqueada = false;
+                return atual;
+            }
+            return new Cota(cotaId, centavos, restanteBanco, validaAte);
+        });
+    }
+
+    // A cota continua na tabela (a linha no banco só é apagada no commit do bloqueio) e volta a valer se ele for desfeito
+    public void bloquear(UUID clienteId) {
+        cotas.compute(clienteId, (id, atual) -> {
+            Cota cota = atual != null ? atual : new Cota(null, 0, 0, 0);
+            cota.bloqueada = true;
+            return cota;
+        });
+    }
+
+    public void desbloquear(UUID clienteId) {
+        Cota cota = cotas.get(clienteId);
+        if (cota != null) {
+            cota.bloqueada = false;
+        }
+    }
+
+    // Cópia das cotas antes da renovação no banco, para renovar (ou descartar) exatamente os objetos vistos aqui
+    public Map<UUID, Cota> cotas() {
+        Map<UUID, Cota> copia = new HashMap<>();
+        cotas.forEach((clienteId, cota) -> {
+            if (cota.id != null) {
+                copia.put(clienteId, cota);
+            }
+        });
+        return copia;
+    }
+
+    // Estende a validade das cotas renovadas no banco e descarta as que não existem mais lá (revogadas, expiradas ou
+    // devolvidas sem saldo). Uma cota concedida depois da cópia é outro objeto e não é descartada. Retorna a quantidade
+    // descartada.
+    public int renovar(Map<UUID, Cota> copia, Set<UUID> renovadas, long validaAte) {
+        int descartadas = 0;
+        for (Map.Entry<UUID, Cota> entrada : copia.entrySet()) {
+            Cota cota = entrada.getValue();
+            if (renovadas.contains(cota.id)) {
+                cota.validaAte = Math.max(cota.validaAte, validaAte);
+            } else if (cotas.remove(entrada.getKey(), cota)) {
+                descartadas++;
+            }
+        }
+        return descartadas;
+    }
+
+    // Zera o saldo das cotas sem compras desde o instante informado (Long.MAX_VALUE: todas)
+    public List<Retirada> retirarOciosas(long semUsoDesde) {
+        List<Retirada> retiradas = new ArrayList<>();
+        cotas.forEach((clienteId, cota) -> {
+            if (cota.id != null && cota.ultimoUso < semUsoDesde) {
+                long saldo = cota.saldo.getAndSet(0);
+                if (saldo > 0) {
+                    retiradas.add(new Retirada(clienteId, cota.id, saldo));
+                }
+            }
+        });
+        return retiradas;
+    }
+
+    // O banco não recebeu a devolução: o saldo volta à cota de onde saiu (se ela ainda está na tabela)
+    public void desfazerRetirada(Retirada retirada) {
+        Cota cota = cotas.get(retirada.clienteId());
+        if (cota != null && retirada.cotaId().equals(cota.id)) {
+            cota.saldo.addAndGet(retirada.centavos());
+        }
+    }
+
+    public OptionalLong saldo(UUID clienteId) {
+        Cota cota = cotas.get(clienteId);
+        return cota == null || cota.bloqueada ? OptionalLong.empty() : OptionalLong.of(cota.saldo.get());
+    }
+
+    public int getClientes() {
+        return cotas.size();
+    }
+
+    public static long emCentavos(BigDecimal valor) {
+        return valor.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal emReais(long centavos) {
+        return BigDecimal.valueOf(centavos, 2);
+    }
+}
@@ -0,0 +1,63 @@
+package com.fintech.pagamentos.batch;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+// Agenda em memória das faturas em aberto, ordenada por data de vencimento.
+// Retirar as faturas vencidas custa proporcional à quantidade de faturas que vencem, e não ao total da tabela.
+// Todos os métodos são sincronizados: a agenda é alterada pelo job diário e pelos eventos de pagamento.
+public class AgendaVencimentos {
+
+    private final NavigableMap<LocalDate, Set<UUID>> porVencimento = new TreeMap<>();
+    private final Map<UUID, LocalDate> vencimentoPorFatura = new HashMap<>(); // Índice reverso para remoção em O(log n)
+
+    public synchronized void adicionar(UUID faturaId, LocalDate dataVencimento) {
+        remover(faturaId); // Reagendar caso o vencimento tenha mudado
+        porVencimento.computeIfAbsent(dataVencimento, data -> new HashSet<>()).add(faturaId);
+        vencimentoPorFatura.put(faturaId, dataVencimento);
+    }
+
+    public synchronized boolean remover(UUID faturaId) {
+        LocalDate dataVencimento = vencimentoPorFatura.remove(faturaId);
+        if (dataVencimento == null) {
+            return false;
+        }
+        Set<UUID> faturas = porVencimento.get(dataVencimento);
+        faturas.remove(faturaId);
+        if (faturas.isEmpty()) {
+            porVencimento.remove(dataVencimento);
+        }
+        return true;
+    }
+
+    // Remove e devolve as faturas com vencimento anterior à data informada, em ordem de vencimento
+    public synchronized List<VencimentoFatura> retirarVencidasAntesDe(LocalDate data) {
+        List<VencimentoFatura> vencidas = new ArrayList<>();
+        NavigableMap<LocalDate, Set<UUID>> anteriores = porVencimento.headMap(data, false);
+        for (Map.Entry<LocalDate, Set<UUID>> entrada : anteriores.entrySet()) {
+            for (UUID faturaId : entrada.getValue()) {
+                vencidas.add(new VencimentoFatura(faturaId, entrada.getKey()));
+                vencimentoPorFatura.remove(faturaId);
+            }
+        }
+        anteriores.clear(); // Remove as entradas do mapa original (headMap é uma visão)
+        return vencidas;
+    }
+
+    public synchronized void limpar() {
+        porVencimento.clear();
+        vencimentoPorFatura.clear();
+    }
+
+    public synchronized int tamanho() {
+        return vencimentoPorFatura.size();
+    }
+}
@@ -0,0 +1,55 @@
+package com.fintech.pagamentos.batch;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Intervalo fechado [inicio, fim] do espaço de UUIDs, usado para dividir uma tabela em partições por faixa de ID.
+// A ordem é a do PostgreSQL (e do H2): comparação byte a byte, sem sinal, diferente de UUID.compareTo.
+public record IntervaloUuid(UUID inicio, UUID fim) {
+
+    private static final BigInteger TAMANHO_ESPACO = BigInteger.ONE.shiftLeft(128);
+    private static final BigInteger MASCARA_64_BITS = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+
+    // Divide todo o espaço de 128 bits em faixas contíguas de mesmo tamanho.
+    // Só distribui as linhas de forma uniforme com UUIDs aleatórios (v4); com UUIDs v7 os IDs se concentram
+    // na faixa do período em que foram criados, e as faixas devem vir dos IDs existentes (particionar(List)).
+    public static List<IntervaloUuid> particionar(int quantidade) {
+        if (quantidade < 1) {
+            throw new IllegalArgumentException("A quantidade de partições deve ser maior que zero.");
+        }
+        List<IntervaloUuid> intervalos = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            BigInteger inicio = TAMANHO_ESPACO.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(quantidade));
+            BigInteger proximo = TAMANHO_ESPACO.multiply(BigInteger.valueOf(i + 1L)).divide(BigInteger.valueOf(quantidade));
+            intervalos.add(new IntervaloUuid(paraUuid(inicio), paraUuid(proximo.subtract(BigInteger.ONE))));
+        }
+        return intervalos;
+    }
+
+    // Faixas contíguas terminando em cada limite (em ordem crescente): a primeira começa no menor UUID e a última
+    // vai até o maior, cobrindo também os IDs criados depois que os limites foram calculados
+    public static List<IntervaloUuid> particionar(List<UUID> limites) {
+        if (limites.isEmpty()) {
+            return particionar(1);
+        }
+        List<IntervaloUuid> intervalos = new ArrayList<>(limites.size());
+        BigInteger inicio = BigInteger.ZERO;
+        for (int i = 0; i < limites.size(); i++) {
+            BigInteger fim = i == limites.size() - 1 ? TAMANHO_ESPACO.subtract(BigInteger.ONE) : paraValor(limites.get(i));
+            intervalos.add(new IntervaloUuid(paraUuid(inicio), paraUuid(fim)));
+            inicio = fim.add(BigInteger.ONE);
+        }
+        return intervalos;
+    }
+
+    private static BigInteger paraValor(UUID uuid) {
+        return new BigInteger(Long.toUnsignedString(uuid.getMostSignificantBits())).shiftLeft(64)
+                .or(new BigInteger(Long.toUnsignedString(uuid.getLeastSignificantBits())));
+    }
+
+    private static UUID paraUuid(BigInteger valor) {
+        return new UUID(valor.shiftRight(64).longValue(), valor.and(MASCARA_64_BITS).longValue());
+    }
+}
@@ -0,0 +1,5 @@
+package com.fintech.pagamentos.batch;
+
+// Métricas devolvidas pelo trabalho de uma partição: linhas lidas na faixa e linhas efetivamente alteradas.
+public record ResultadoParticao(long linhasLidas, long linhasAlteradas) {
+}
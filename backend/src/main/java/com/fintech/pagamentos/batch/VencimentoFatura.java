@@ -0,0 +1,8 @@
+package com.fintech.pagamentos.batch;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+// Par (fatura, vencimento) mantido na agenda de vencimentos das faturas em aberto.
+public record VencimentoFatura(UUID faturaId, LocalDate dataVencimento) {
+}
@@ -0,0 +1,35 @@
+package com.fintech.pagamentos.controller;
+
+import com.fintech.pagamentos.dto.AnaliseFaturasDTO;
+import com.fintech.pagamentos.service.AnaliseFaturasService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/analytics/faturas")
+public class AnaliseFaturasController {
+
+    private final AnaliseFaturasService analiseFaturasService;
+
+    public AnaliseFaturasController(AnaliseFaturasService analiseFaturasService) {
+        this.analiseFaturasService = analiseFaturasService;
+    }
+
+    // Quantidade e total das faturas agrupados por status, mês de vencimento ou situação de bloqueio do cliente,
+    // com filtros opcionais de status e intervalo de vencimento. Ex: /analytics/faturas?agruparPor=mes&status=A
+    @GetMapping
+    public ResponseEntity<AnaliseFaturasDTO> agregar(@RequestParam(value = "agruparPor", defaultValue = "status") String agruparPor,
+                                                     @RequestParam(value = "status", required = false) Character status,
+                                                     @RequestParam(value = "vencimentoDe", required = false)
+                                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate vencimentoDe,
+                                                     @RequestParam(value = "vencimentoAte", required = false)
+                                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate vencimentoAte) {
+        return ResponseEntity.ok(analiseFaturasService.agregar(agruparPor, status, vencimentoDe, vencimentoAte));
+    }
+}
@@ -1,13 +1,23 @@
 package com.fintech.pagamentos.controller;
+import com.fintech.pagamentos.dto.AutorizacaoRequestDTO;
+import com.fintech.pagamentos.dto.AutorizacaoResponseDTO;
+import com.fintech.pagamentos.dto.ClienteFiltroDTO;
 import com.fintech.pagamentos.dto.ClienteRequestDTO;
 import com.fintech.pagamentos.dto.ClienteResponseDTO;
+import com.fintech.pagamentos.dto.PaginaDTO;
+import com.fintech.pagamentos.dto.ReconstrucaoResumoDTO;
+import com.fintech.pagamentos.dto.ResumoClienteDTO;
+import com.fintech.pagamentos.service.AutorizacaoCreditoService;
 import com.fintech.pagamentos.service.ClienteService;
+import com.fintech.pagamentos.service.RespostasVersionadasService;
+import com.fintech.pagamentos.service.ResumoClienteService;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -15,14 +25,24 @@ import java.util.UUID;
 public class ClienteController {
 
     private final ClienteService clienteService;
+    private final ResumoClienteService resumoClienteService;
+    private final RespostasVersionadasService respostasVersionadas;
+    private final AutorizacaoCreditoService autorizacaoCreditoService;
 
-    public ClienteController(ClienteService clienteService) {
+    public ClienteController(ClienteService clienteService, ResumoClienteService resumoClienteService,
+                             RespostasVersionadasService respostasVersionadas, AutorizacaoCreditoService autorizacaoCreditoService) {
         this.clienteService = clienteService;
+        this.resumoClienteService = resumoClienteService;
+        this.respostasVersionadas = respostasVersionadas;
+        this.autorizacaoCreditoService = autorizacaoCreditoService;
     }
 
+    // Filtros opcionais: ?statusBloqueio=, ?limiteCreditoMin=, ?limiteCreditoMax=, ?dataNascimentoDe=, ?dataNascimentoAte=
     @GetMapping
-    public ResponseEntity<List<ClienteResponseDTO>> listarTodosClientes() {
-        List<ClienteResponseDTO> clientes = clienteService.listarTodosClientes();
+    public ResponseEntity<PaginaDTO<ClienteResponseDTO>> listarTodosClientes(@Valid @ModelAttribute ClienteFiltroDTO filtro,
+                                                                             @RequestParam(value = "next", required = false) String next,
+                                                                             @RequestParam(value = "limit", required = false) Integer limit) {
+        PaginaDTO<ClienteResponseDTO> clientes = clienteService.listarClientes(filtro, next, limit);
         return ResponseEntity.ok(clientes);
     }
 
@@ -39,6 +59,30 @@ public class ClienteController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    // Total em aberto, total atrasado e próximo vencimento, sem percorrer as faturas do cliente
+    @GetMapping("/{id}/resumo")
+    public ResponseEntity<ResumoClienteDTO> consultarResumo(@PathVariable UUID id) {
+        return resumoClienteService.buscarResumo(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Aprova ou recusa uma compra no limite de crédito disponível (200 nos dois casos, com o motivo da recusa);
+    // a compra aprovada fica descontada do limite
+    @PostMapping("/{id}/autorizacoes")
+    public ResponseEntity<AutorizacaoResponseDTO> autorizarCompra(@PathVariable UUID id,
+                                                                  @Valid @RequestBody AutorizacaoRequestDTO autorizacaoDto) {
+        return autorizacaoCreditoService.autorizar(id, autorizacaoDto.getValor())
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Recalcula os resumos a partir das faturas e informa os clientes que estavam divergentes
+    @PostMapping("/resumos/reconstrucao")
+    public ResponseEntity<ReconstrucaoResumoDTO> reconstruirResumos() {
+        return ResponseEntity.ok(resumoClienteService.reconstruir());
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ClienteResponseDTO> atualizaCliente(
             @PathVariable UUID id,
@@ -51,10 +95,18 @@ public class ClienteController {
     }
 
 
+    // Com If-None-Match igual à ETag atual a resposta é 304, sem consultar o banco nem serializar a página
     @GetMapping("/bloqueados")
-    public ResponseEntity<List<ClienteResponseDTO>> listarClientesBloqueados() {
-        List<ClienteResponseDTO> clientesBloqueados = clienteService.listarClientesBloqueados();
-        return ResponseEntity.ok(clientesBloqueados);
+    public ResponseEntity<byte[]> listarClientesBloqueados(@RequestParam(value = "next", required = false) String next,
+                                                           @RequestParam(value = "limit", required = false) Integer limit,
+                                                           WebRequest request) {
+        String etag = respostasVersionadas.etagClientes();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        byte[] clientesBloqueados = respostasVersionadas.serializar(etag, "/clientes/bloqueados?next=" + next + "&limit=" + limit,
+                () -> clienteService.listarClientesBloqueados(next, limit));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(clientesBloqueados);
     }
 
 }
@@ -3,48 +3,120 @@ package com.fintech.pagamentos.controller;
 import com.fintech.pagamentos.dto.ClienteResponseDTO;
 import com.fintech.pagamentos.dto.FaturaPaymentRequestDTO;
 import com.fintech.pagamentos.dto.FaturaResponseDTO;
+import com.fintech.pagamentos.dto.PagamentoLoteRequestDTO;
+import com.fintech.pagamentos.dto.PaginaDTO;
+import com.fintech.pagamentos.dto.ResultadoPagamentoLoteDTO;
 import com.fintech.pagamentos.entity.Fatura;
+import com.fintech.pagamentos.service.ExportacaoFaturasService;
 import com.fintech.pagamentos.service.FaturaService;
+import com.fintech.pagamentos.service.IdempotenciaPagamentoService;
+import com.fintech.pagamentos.service.IngestaoPagamentosService;
+import com.fintech.pagamentos.service.PagamentoLoteService;
+import com.fintech.pagamentos.service.RespostasVersionadasService;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/faturas")
 public class FaturaController {
 
     private final FaturaService faturaService;
+    private final ExportacaoFaturasService exportacaoFaturasService;
+    private final PagamentoLoteService pagamentoLoteService;
+    private final IdempotenciaPagamentoService idempotenciaPagamentoService;
+    private final IngestaoPagamentosService ingestaoPagamentosService;
+    private final RespostasVersionadasService respostasVersionadas;
 
-    public FaturaController(FaturaService faturaService) {
+    public FaturaController(FaturaService faturaService, ExportacaoFaturasService exportacaoFaturasService,
+                            PagamentoLoteService pagamentoLoteService, IdempotenciaPagamentoService idempotenciaPagamentoService,
+                            IngestaoPagamentosService ingestaoPagamentosService, RespostasVersionadasService respostasVersionadas) {
         this.faturaService = faturaService;
+        this.exportacaoFaturasService = exportacaoFaturasService;
+        this.pagamentoLoteService = pagamentoLoteService;
+        this.idempotenciaPagamentoService = idempotenciaPagamentoService;
+        this.ingestaoPagamentosService = ingestaoPagamentosService;
+        this.respostasVersionadas = respostasVersionadas;
     }
 
+    // Listagens com ETag: If-None-Match com a versão atual das tabelas recebe 304 sem consulta ao banco
     @GetMapping
-    public ResponseEntity<List<FaturaResponseDTO>> listarTodasFaturas() {
-        List<FaturaResponseDTO> faturas = faturaService.listarTodasFaturas();
-        return ResponseEntity.ok(faturas);
+    public ResponseEntity<byte[]> listarTodasFaturas(@RequestParam(value = "next", required = false) String next,
+                                                     @RequestParam(value = "limit", required = false) Integer limit,
+                                                     WebRequest request) {
+        String etag = respostasVersionadas.etagFaturas();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        byte[] faturas = respostasVersionadas.serializar(etag, "/faturas?next=" + next + "&limit=" + limit,
+                () -> faturaService.listarTodasFaturas(next, limit));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(faturas);
+    }
+
+    // Exporta todas as faturas em NDJSON (padrão) ou CSV, escrevendo as linhas conforme são lidas do banco
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportarFaturas(@RequestParam(value = "format", defaultValue = "ndjson") String format) {
+        ExportacaoFaturasService.Formato formato = ExportacaoFaturasService.Formato.de(format);
+        StreamingResponseBody corpo = saida -> exportacaoFaturasService.exportar(formato, saida);
+        return ResponseEntity.ok()
+                .contentType(formato.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"faturas." + formato.getExtensao() + "\"")
+                .body(corpo);
     }
 
+    // Por padrão só as faturas correntes; ?incluirArquivadas=true inclui o histórico de faturas pagas arquivadas
     @GetMapping("/{clienteId}")
-    public ResponseEntity<List<FaturaResponseDTO>> listarFaturasDoCliente(@PathVariable("clienteId") UUID clienteId) {
-        List<FaturaResponseDTO> faturas = faturaService.listarFaturasPorClienteId(clienteId);
+    public ResponseEntity<PaginaDTO<FaturaResponseDTO>> listarFaturasDoCliente(@PathVariable("clienteId") UUID clienteId,
+                                                                              @RequestParam(value = "next", required = false) String next,
+                                                                              @RequestParam(value = "limit", required = false) Integer limit,
+                                                                              @RequestParam(value = "incluirArquivadas", defaultValue = "false") boolean incluirArquivadas) {
+        PaginaDTO<FaturaResponseDTO> faturas = faturaService.listarFaturasPorClienteId(clienteId, next, limit, incluirArquivadas);
         return ResponseEntity.ok(faturas);
     }
 
+    // Com o header Idempotency-Key, repetições da mesma requisição (ex: retentativa após timeout) recebem a resposta original;
+    // a primeira segue o mesmo caminho das requisições sem chave, inclusive o pagamento em grupo.
+    // No modo de pagamento em grupo, a resposta é enviada quando a transação do grupo do pagamento for confirmada.
     @PutMapping("/{faturaId}/pagamento")
-    public ResponseEntity<FaturaResponseDTO> registrarPagamentoFatura(@PathVariable("faturaId") UUID faturaId,
+    public CompletableFuture<ResponseEntity<FaturaResponseDTO>> registrarPagamentoFatura(@PathVariable("faturaId") UUID faturaId,
+                                                           @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
                                                            @Valid @RequestBody FaturaPaymentRequestDTO paymentDto) {
+        if (idempotencyKey != null) {
+            return idempotenciaPagamentoService.registrarPagamento(idempotencyKey, faturaId, paymentDto).thenApply(ResponseEntity::ok);
+        }
+        if (ingestaoPagamentosService.isHabilitado()) {
+            return ingestaoPagamentosService.enviar(faturaId, paymentDto.getDataPagamento()).thenApply(ResponseEntity::ok);
+        }
         FaturaResponseDTO faturaPaga = faturaService.registrarPagamento(faturaId, paymentDto);
-        return ResponseEntity.ok(faturaPaga);
+        return CompletableFuture.completedFuture(ResponseEntity.ok(faturaPaga));
+    }
+
+    // Registra vários pagamentos de uma vez (ex: arquivo de liquidação do banco), com o resultado de cada item
+    @PostMapping("/pagamentos/lote")
+    public ResponseEntity<List<ResultadoPagamentoLoteDTO>> registrarPagamentosEmLote(@Valid @RequestBody PagamentoLoteRequestDTO loteDto) {
+        List<ResultadoPagamentoLoteDTO> resultados = pagamentoLoteService.registrarPagamentos(loteDto.getPagamentos());
+        return ResponseEntity.ok(resultados);
     }
 
     @GetMapping("/atrasadas")
-    public ResponseEntity<List<FaturaResponseDTO>> listarFaturasAtrasadas() {
-        List<FaturaResponseDTO> faturasAtradas = faturaService.listarFaturasAtrasadas();
-        return ResponseEntity.ok(faturasAtradas);
+    public ResponseEntity<byte[]> listarFaturasAtrasadas(@RequestParam(value = "next", required = false) String next,
+                                                         @RequestParam(value = "limit", required = false) Integer limit,
+                                                         WebRequest request) {
+        String etag = respostasVersionadas.etagFaturas();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        byte[] faturasAtradas = respostasVersionadas.serializar(etag, "/faturas/atrasadas?next=" + next + "&limit=" + limit,
+                () -> faturaService.listarFaturasAtrasadas(next, limit));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(faturasAtradas);
     }
 
 }
@@ -0,0 +1,35 @@
+package com.fintech.pagamentos.controller;
+
+import com.fintech.pagamentos.dto.RelatorioAgingDTO;
+import com.fintech.pagamentos.service.RelatorioAgingService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/relatorios")
+public class RelatorioController {
+
+    private final RelatorioAgingService relatorioAgingService;
+
+    public RelatorioController(RelatorioAgingService relatorioAgingService) {
+        this.relatorioAgingService = relatorioAgingService;
+    }
+
+    // Aging das faturas não pagas (a vencer, 1-30, 31-60, 61-90 e mais de 90 dias), geral e, com porCliente=true, por cliente.
+    // modo=stream agrega na aplicação em vez de no banco (comparação de desempenho); dataReferencia padrão é hoje.
+    @GetMapping("/aging")
+    public ResponseEntity<RelatorioAgingDTO> gerarAging(@RequestParam(value = "porCliente", defaultValue = "false") boolean porCliente,
+                                                        @RequestParam(value = "modo", defaultValue = "banco") String modo,
+                                                        @RequestParam(value = "dataReferencia", required = false)
+                                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataReferencia) {
+        RelatorioAgingDTO relatorio = relatorioAgingService.gerar(RelatorioAgingService.Modo.de(modo), porCliente,
+                dataReferencia != null ? dataReferencia : LocalDate.now());
+        return ResponseEntity.ok(relatorio);
+    }
+}
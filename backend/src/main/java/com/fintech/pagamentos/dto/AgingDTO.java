@@ -0,0 +1,20 @@
+package com.fintech.pagamentos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+@Data @NoArgsConstructor @AllArgsConstructor
+public class AgingDTO {
+
+    private UUID clienteId; // Nulo no total geral
+    private String clienteNome;
+    private long quantidade; // Todas as faturas não pagas
+    private BigDecimal valor;
+    private List<FaixaAgingDTO> faixas;
+
+}
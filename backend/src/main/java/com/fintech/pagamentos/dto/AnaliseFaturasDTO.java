@@ -0,0 +1,18 @@
+package com.fintech.pagamentos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data @NoArgsConstructor @AllArgsConstructor
+public class AnaliseFaturasDTO {
+
+    private String agrupamento;
+    private long faturasNaBase; // Faturas nas colunas em memória (antes dos filtros)
+    private LocalDateTime carregadaEm; // Última carga completa; alterações posteriores são aplicadas incrementalmente
+    private List<GrupoAnaliseFaturasDTO> grupos;
+
+}
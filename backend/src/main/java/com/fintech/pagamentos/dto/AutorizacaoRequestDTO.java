@@ -0,0 +1,23 @@
+package com.fintech.pagamentos.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// Para POST /clientes/{id}/autorizacoes: valor da compra a autorizar no limite de crédito do cliente
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AutorizacaoRequestDTO {
+
+    @NotNull(message = "O valor é obrigatório.")
+    @DecimalMin(value = "0.01", message = "O valor deve ser maior que zero.")
+    @Digits(integer = 10, fraction = 2, message = "O valor deve ter no máximo 2 casas decimais.")
+    private BigDecimal valor;
+
+}
@@ -0,0 +1,19 @@
+package com.fintech.pagamentos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Data @NoArgsConstructor @AllArgsConstructor
+public class AutorizacaoResponseDTO {
+
+    private UUID clienteId;
+    private BigDecimal valor;
+    private boolean aprovada;
+    private String motivo; // null se aprovada; LIMITE_INSUFICIENTE ou CLIENTE_BLOQUEADO se recusada
+    private BigDecimal limiteDisponivel; // Depois da decisão
+
+}
@@ -0,0 +1,33 @@
+package com.fintech.pagamentos.dto;
+
+import com.fintech.pagamentos.validation.ValidCharStatus;
+import jakarta.validation.constraints.DecimalMin;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Para GET /clientes
+// Filtros opcionais da listagem de clientes, recebidos como query params. Filtros nulos são ignorados.
+@Data @NoArgsConstructor @AllArgsConstructor
+public class ClienteFiltroDTO {
+
+    @ValidCharStatus(allowedValues = {'A', 'B'}, message = "O status de bloqueio deve ser 'A' (Ativo) ou 'B' (Bloqueado).")
+    private Character statusBloqueio;
+
+    @DecimalMin(value = "0.00", inclusive = true, message = "O limite de crédito mínimo não pode ser negativo.")
+    private BigDecimal limiteCreditoMin;
+
+    @DecimalMin(value = "0.00", inclusive = true, message = "O limite de crédito máximo não pode ser negativo.")
+    private BigDecimal limiteCreditoMax;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate dataNascimentoDe;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate dataNascimentoAte;
+
+}
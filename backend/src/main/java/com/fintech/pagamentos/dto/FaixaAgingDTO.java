@@ -0,0 +1,16 @@
+package com.fintech.pagamentos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data @NoArgsConstructor @AllArgsConstructor
+public class FaixaAgingDTO {
+
+    private String faixa; // A_VENCER, DE_1_A_30, DE_31_A_60, DE_61_A_90 ou MAIS_DE_90
+    private long quantidade;
+    private BigDecimal valor;
+
+}
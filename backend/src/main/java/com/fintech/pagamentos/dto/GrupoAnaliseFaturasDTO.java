@@ -0,0 +1,16 @@
+package com.fintech.pagamentos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data @NoArgsConstructor @AllArgsConstructor
+public class GrupoAnaliseFaturasDTO {
+
+    private String grupo; // Status, mês de vencimento (AAAA-MM) ou situação de bloqueio do cliente
+    private long quantidade;
+    private BigDecimal total;
+
+}
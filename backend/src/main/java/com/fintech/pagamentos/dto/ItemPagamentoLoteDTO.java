@@ -0,0 +1,24 @@
+package com.fintech.pagamentos.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PastOrPresent;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemPagamentoLoteDTO {
+
+    @NotNull(message = "O ID da fatura é obrigatório.")
+    private UUID faturaId;
+
+    @NotNull(message = "A data de pagamento é obrigatória.")
+    @PastOrPresent(message = "A data de pagamento não pode ser uma data futura.")
+    private LocalDate dataPagamento;
+
+}
@@ -0,0 +1,23 @@
+package com.fintech.pagamentos.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Para POST /faturas/pagamentos/lote
+// Lista de pagamentos (ex: arquivo de liquidação do banco) registrados em uma única requisição.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PagamentoLoteRequestDTO {
+
+    @NotEmpty(message = "A lista de pagamentos não pode ser vazia.")
+    @Size(max = 50000, message = "O lote pode ter no máximo 50000 pagamentos.")
+    private List<@Valid ItemPagamentoLoteDTO> pagamentos;
+
+}
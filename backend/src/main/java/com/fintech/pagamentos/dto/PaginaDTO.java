@@ -0,0 +1,18 @@
+package com.fintech.pagamentos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Página de resultados para listagens paginadas por cursor.
+// O campo "next" é um token opaco que deve ser repassado no parâmetro ?next= para buscar a próxima página
+// (null quando não há mais resultados).
+@Data @NoArgsConstructor @AllArgsConstructor
+public class PaginaDTO<T> {
+
+    private List<T> itens;
+    private String next;
+
+}
@@ -0,0 +1,17 @@
+package com.fintech.pagamentos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+// Resultado da reconstrução dos resumos: clientes cujo resumo divergia do recalculado a partir das faturas
+@Data @NoArgsConstructor @AllArgsConstructor
+public class ReconstrucaoResumoDTO {
+
+    private int clientesCorrigidos;
+    private List<UUID> clienteIds;
+
+}
@@ -0,0 +1,18 @@
+package com.fintech.pagamentos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data @NoArgsConstructor @AllArgsConstructor
+public class RelatorioAgingDTO {
+
+    private LocalDate dataReferencia; // Os dias de atraso são contados até esta data
+    private String modo;
+    private AgingDTO total;
+    private List<AgingDTO> clientes; // Só com porCliente=true, do maior para o menor valor em aberto
+
+}
@@ -0,0 +1,25 @@
+package com.fintech.pagamentos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+// Resultado de cada item do lote, na mesma ordem da requisição. Cada bloco de itens é gravado na sua própria transação:
+// FALHA indica que o bloco do item foi desfeito (nenhum item dele gravado) e pode ser reenviado.
+@Data @NoArgsConstructor @AllArgsConstructor
+public class ResultadoPagamentoLoteDTO {
+
+    public enum Resultado {
+        PAGA,
+        JA_PAGA,
+        NAO_ENCONTRADA,
+        FALHA
+    }
+
+    private UUID faturaId;
+    private Resultado resultado;
+    private int bloco; // Índice do bloco (transação) em que o item foi processado, a partir de 0
+
+}
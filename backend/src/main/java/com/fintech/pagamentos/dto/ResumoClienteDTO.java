@@ -0,0 +1,19 @@
+package com.fintech.pagamentos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Data @NoArgsConstructor @AllArgsConstructor
+public class ResumoClienteDTO {
+
+    private UUID clienteId;
+    private BigDecimal totalAberto;
+    private BigDecimal totalAtrasado;
+    private LocalDate proximoVencimento; // Menor vencimento entre as faturas em aberto (null se não houver)
+
+}
@@ -0,0 +1,38 @@
+package com.fintech.pagamentos.entity;
+
+import com.fintech.pagamentos.id.GeradorUuidV7;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UuidGenerator;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Compra aprovada no limite de crédito. O valor fica somado em resumo_cliente.total_reservado até expiraEm, quando a
+// reserva é apagada e o valor volta ao limite.
+@Entity
+@Table(name = "autorizacao_credito")
+@Data @NoArgsConstructor @AllArgsConstructor
+public class AutorizacaoCredito {
+
+    @Id
+    @UuidGenerator(algorithm = GeradorUuidV7.class) // Ordenado pelo instante de criação
+    @Column(name = "id", columnDefinition = "UUID")
+    private UUID id;
+
+    @Column(name = "cliente_id", columnDefinition = "uuid", nullable = false)
+    private UUID clienteId;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal valor;
+
+    @Column(name = "criada_em", nullable = false)
+    private LocalDateTime criadaEm;
+
+    @Column(name = "expira_em", nullable = false)
+    private LocalDateTime expiraEm;
+
+}
@@ -1,5 +1,6 @@
 package com.fintech.pagamentos.entity;
 
+import com.fintech.pagamentos.id.GeradorUuidV7;
 import com.fintech.pagamentos.validation.ValidCharStatus;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
@@ -8,6 +9,7 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.UuidGenerator;
 import org.hibernate.type.SqlTypes;
 
 import java.math.BigDecimal;
@@ -19,7 +21,7 @@ import java.util.UUID;
 public class Cliente {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @UuidGenerator(algorithm = GeradorUuidV7.class) // Ordenado pelo instante de criação
     @Column(name = "id", columnDefinition = "uuid", updatable = false, nullable = false)
     private UUID id;
 
@@ -49,4 +51,18 @@ public class Cliente {
     @Column(name = "limite_credito", nullable = false, precision = 10, scale = 2)
     private BigDecimal limiteCredito;
 
+    // 'J' bloqueado pelo job de atraso, 'M' bloqueado pelo operador (nulo se ativo): o desbloqueio automático,
+    // ao quitar as faturas atrasadas, só desfaz os bloqueios do job
+    @Column(name = "origem_bloqueio", length = 1)
+    private Character origemBloqueio;
+
+    // Limite de crédito de antes do bloqueio pelo job, devolvido no desbloqueio automático
+    @Column(name = "limite_anterior", precision = 10, scale = 2)
+    private BigDecimal limiteAnterior;
+
+    // Versão para o controle otimista: a atualização do cliente falha se a linha mudou desde a leitura (ex: bloqueio pelo job)
+    @Version
+    @Column(nullable = false)
+    private Long versao;
+
 }
@@ -0,0 +1,39 @@
+package com.fintech.pagamentos.entity;
+
+import com.fintech.pagamentos.id.GeradorUuidV7;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UuidGenerator;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Parte do limite de crédito de um cliente reservada por uma réplica (somada em resumo_cliente.total_reservado).
+// A réplica aprova compras em memória até o saldo acabar e desconta do saldo as compras quando as grava.
+@Entity
+@Table(name = "cota_credito", uniqueConstraints = @UniqueConstraint(name = "uk_cota_credito_cliente_replica",
+        columnNames = {"cliente_id", "replica"}))
+@Data @NoArgsConstructor @AllArgsConstructor
+public class CotaCredito {
+
+    @Id
+    @UuidGenerator(algorithm = GeradorUuidV7.class) // Ordenado pelo instante de criação
+    @Column(name = "id", columnDefinition = "UUID")
+    private UUID id;
+
+    @Column(name = "cliente_id", columnDefinition = "uuid", nullable = false)
+    private UUID clienteId;
+
+    @Column(nullable = false, length = 100)
+    private String replica;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal saldo;
+
+    @Column(name = "expira_em", nullable = false)
+    private LocalDateTime expiraEm; // Renovado pela réplica; depois dele, o saldo volta ao limite
+
+}
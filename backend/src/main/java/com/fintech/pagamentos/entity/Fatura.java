@@ -1,5 +1,6 @@
 package com.fintech.pagamentos.entity;
 
+import com.fintech.pagamentos.id.GeradorUuidV7;
 import com.fintech.pagamentos.validation.ValidCharStatus;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
@@ -7,6 +8,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.PartitionKey;
+import org.hibernate.annotations.UuidGenerator;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -17,7 +20,7 @@ import java.util.UUID;
 public class Fatura {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @UuidGenerator(algorithm = GeradorUuidV7.class) // Ordenado pelo instante de criação
     @Column(name = "id", columnDefinition = "UUID")
     private UUID id;
 
@@ -26,7 +29,10 @@ public class Fatura {
     @JoinColumn(name = "cliente_id", nullable = false)
     private Cliente cliente;
 
+    // Coluna de particionamento da tabela: incluída pelo Hibernate no WHERE dos UPDATEs e DELETEs da entidade
+    // (inclusive os do @Version), que assim alcançam só a partição da fatura em vez de procurar o id em todas
     @NotNull(message = "A data de vencimento é obrigatória.")
+    @PartitionKey
     @Column(name = "data_vencimento", nullable = false)
     private LocalDate dataVencimento;
 
@@ -44,4 +50,9 @@ public class Fatura {
     @Column(nullable = false, length = 1)
     private Character status;
 
+    // Incrementada a cada alteração, inclusive nas instruções em lote, para o controle de concorrência otimista
+    @Version
+    @Column(nullable = false)
+    private Long versao;
+
 }
@@ -0,0 +1,43 @@
+package com.fintech.pagamentos.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Fatura paga movida para o histórico pelo arquivamento. Mantém o ID e os dados da fatura original;
+// as linhas só são inseridas (pelo próprio arquivamento, em SQL), nunca alteradas.
+@Entity
+@Table(name = "fatura_arquivada")
+@Data @NoArgsConstructor @AllArgsConstructor
+public class FaturaArquivada {
+
+    @Id
+    @Column(name = "id", columnDefinition = "UUID")
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "cliente_id", nullable = false)
+    private Cliente cliente;
+
+    @Column(name = "data_vencimento", nullable = false)
+    private LocalDate dataVencimento;
+
+    @Column(name = "data_pagamento", nullable = false)
+    private LocalDate dataPagamento;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal valor;
+
+    @Column(nullable = false, length = 1)
+    private Character status;
+
+    @Column(name = "arquivada_em", nullable = false)
+    private LocalDateTime arquivadaEm;
+
+}
@@ -0,0 +1,35 @@
+package com.fintech.pagamentos.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Resposta de um pagamento registrado com o header Idempotency-Key. Uma repetição da mesma requisição
+// (mesma chave, fatura e data de pagamento) recebe a resposta gravada, sem registrar o pagamento de novo.
+@Entity
+@Table(name = "idempotencia_pagamento")
+@Data @NoArgsConstructor @AllArgsConstructor
+public class IdempotenciaPagamento {
+
+    @Id
+    @Column(nullable = false, length = 100)
+    private String chave;
+
+    @Column(name = "fatura_id", columnDefinition = "uuid", nullable = false)
+    private UUID faturaId;
+
+    @Column(name = "data_pagamento", nullable = false)
+    private LocalDate dataPagamento;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String resposta; // FaturaResponseDTO em JSON
+
+    @Column(name = "criada_em", nullable = false)
+    private LocalDateTime criadaEm;
+
+}
@@ -0,0 +1,39 @@
+package com.fintech.pagamentos.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Execução de um job em lote para uma data de referência. O progresso fica nas partições (JobParticao),
+// o que permite retomar uma execução interrompida sem refazer o que já foi concluído.
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_job_execucao_nome_data", columnNames = {"nome", "data_referencia"}))
+@Data @NoArgsConstructor @AllArgsConstructor
+public class JobExecucao {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "id", columnDefinition = "uuid", updatable = false, nullable = false)
+    private UUID id;
+
+    @Column(nullable = false, length = 50)
+    private String nome;
+
+    @Column(name = "data_referencia", nullable = false)
+    private LocalDate dataReferencia;
+
+    @Column(nullable = false, length = 1)
+    private Character status; // 'E' = Em andamento, 'C' = Concluída, 'F' = Falhou
+
+    @Column(name = "iniciada_em", nullable = false)
+    private LocalDateTime iniciadaEm;
+
+    @Column(name = "finalizada_em")
+    private LocalDateTime finalizadaEm;
+
+}
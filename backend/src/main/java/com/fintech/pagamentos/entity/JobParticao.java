@@ -0,0 +1,66 @@
+package com.fintech.pagamentos.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Faixa de IDs processada em uma transação curta. O status 'C' é gravado na mesma transação do trabalho,
+// funcionando como checkpoint: uma partição concluída nunca é processada de novo.
+// Também é a unidade de divisão do job entre as réplicas da aplicação (shard), reivindicada por lease.
+@Entity
+@Data @NoArgsConstructor @AllArgsConstructor
+public class JobParticao {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "id", columnDefinition = "uuid", updatable = false, nullable = false)
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "job_id", nullable = false)
+    private JobExecucao job;
+
+    @Column(nullable = false)
+    private Integer indice;
+
+    @Column(name = "id_inicio", columnDefinition = "uuid", nullable = false)
+    private UUID idInicio;
+
+    @Column(name = "id_fim", columnDefinition = "uuid", nullable = false)
+    private UUID idFim;
+
+    @Column(nullable = false, length = 1)
+    private Character status; // 'P' = Pendente, 'C' = Concluída, 'F' = Falhou
+
+    // Lease: nó que reivindicou a partição e até quando a reivindicação vale (renovada pelo heartbeat do nó).
+    // Com o lease expirado (nó parado), a partição pode ser reivindicada por outro nó.
+    @Column(length = 100)
+    private String dono;
+
+    @Column(name = "lease_expira_em")
+    private LocalDateTime leaseExpiraEm;
+
+    @Column(nullable = false)
+    private Integer tentativas;
+
+    // Métricas da partição
+    @Column(name = "linhas_lidas")
+    private Long linhasLidas;
+
+    @Column(name = "linhas_alteradas")
+    private Long linhasAlteradas;
+
+    @Column(name = "duracao_ms")
+    private Long duracaoMs;
+
+    @Column(name = "processada_em")
+    private LocalDateTime processadaEm;
+
+    @Column(length = 500)
+    private String erro;
+
+}
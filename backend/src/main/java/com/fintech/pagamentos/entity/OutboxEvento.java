@@ -0,0 +1,41 @@
+package com.fintech.pagamentos.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Evento de domínio gravado na mesma transação da alteração que o originou (transactional outbox).
+// O relay publica os pendentes para os sistemas externos e preenche publicadoEm.
+@Entity
+@Table(name = "outbox_evento")
+@Data @NoArgsConstructor @AllArgsConstructor
+public class OutboxEvento {
+
+    // Um nextval por evento, chamado no persist, dentro da transação que já trava a fatura ou o cliente: os ids de um
+    // mesmo agregado seguem a ordem dos commits em qualquer réplica. Com blocos pré-alocados (pooled), cada réplica
+    // usaria a sua faixa de ids e o relay, que publica em ordem de id, poderia inverter eventos do mesmo agregado.
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_evento_seq")
+    @SequenceGenerator(name = "outbox_evento_seq", sequenceName = "outbox_evento_seq", allocationSize = 1)
+    private Long id;
+
+    @Column(nullable = false, length = 50)
+    private String tipo; // Ex: FATURA_PAGA, CLIENTE_BLOQUEADO
+
+    @Column(name = "agregado_id", columnDefinition = "uuid", nullable = false)
+    private UUID agregadoId; // ID da fatura ou do cliente
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload; // Evento em JSON
+
+    @Column(name = "criado_em", nullable = false)
+    private LocalDateTime criadoEm;
+
+    @Column(name = "publicado_em")
+    private LocalDateTime publicadoEm;
+
+}
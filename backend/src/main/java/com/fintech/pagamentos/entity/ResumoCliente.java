@@ -0,0 +1,31 @@
+package com.fintech.pagamentos.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+// Totais das faturas de um cliente, atualizados com deltas a cada mudança de status das faturas, e das compras
+// aprovadas no limite de crédito
+@Entity
+@Table(name = "resumo_cliente")
+@Data @NoArgsConstructor @AllArgsConstructor
+public class ResumoCliente {
+
+    @Id
+    @Column(name = "cliente_id", columnDefinition = "uuid")
+    private UUID clienteId;
+
+    @Column(name = "total_aberto", nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalAberto; // Faturas com status 'B'
+
+    @Column(name = "total_atrasado", nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalAtrasado; // Faturas com status 'A'
+
+    @Column(name = "total_reservado", nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalReservado; // Compras aprovadas no limite e ainda não faturadas
+
+}
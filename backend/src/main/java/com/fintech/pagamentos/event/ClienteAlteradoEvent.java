@@ -0,0 +1,7 @@
+package com.fintech.pagamentos.event;
+
+import java.util.UUID;
+
+// Publicado quando um cliente é cadastrado ou atualizado pela API.
+public record ClienteAlteradoEvent(UUID clienteId) {
+}
@@ -0,0 +1,7 @@
+package com.fintech.pagamentos.event;
+
+import java.util.UUID;
+
+// Publicado, dentro da transação da alteração, quando um cliente é bloqueado por fatura atrasada.
+public record ClienteBloqueadoEvent(UUID clienteId) {
+}
@@ -0,0 +1,7 @@
+package com.fintech.pagamentos.event;
+
+import java.util.UUID;
+
+// Publicado, dentro da transação do pagamento, quando o cliente quita a última fatura que o mantinha bloqueado.
+public record ClienteDesbloqueadoEvent(UUID clienteId) {
+}
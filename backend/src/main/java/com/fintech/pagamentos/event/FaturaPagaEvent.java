@@ -0,0 +1,9 @@
+package com.fintech.pagamentos.event;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+// Publicado quando um pagamento é registrado. Os ouvintes que mantêm estruturas em memória
+// devem reagir apenas após o commit (@TransactionalEventListener).
+public record FaturaPagaEvent(UUID faturaId, UUID clienteId, BigDecimal valor, Character statusAnterior) {
+}
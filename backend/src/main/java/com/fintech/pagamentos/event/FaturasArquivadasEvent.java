@@ -0,0 +1,5 @@
+package com.fintech.pagamentos.event;
+
+// Publicado depois que o arquivamento move faturas pagas antigas para o histórico (fatura_arquivada).
+public record FaturasArquivadasEvent(int quantidade) {
+}
@@ -0,0 +1,5 @@
+package com.fintech.pagamentos.event;
+
+// Publicado depois que a transição da virada do dia marca faturas em aberto como atrasadas.
+public record FaturasAtrasadasEvent(int quantidade) {
+}
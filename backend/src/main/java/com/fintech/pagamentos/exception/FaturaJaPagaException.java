@@ -0,0 +1,11 @@
+package com.fintech.pagamentos.exception;
+
+import java.util.UUID;
+
+// Pagamento de uma fatura que já estava paga (ou arquivada): respondido com 409, o estado atual da fatura impede o pagamento
+public class FaturaJaPagaException extends RuntimeException {
+
+    public FaturaJaPagaException(UUID faturaId) {
+        super("Fatura já está paga.");
+    }
+}
@@ -0,0 +1,12 @@
+package com.fintech.pagamentos.exception;
+
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+// Fatura inexistente (nem entre as ativas, nem no histórico de arquivadas): respondida com 404
+public class FaturaNaoEncontradaException extends NoSuchElementException {
+
+    public FaturaNaoEncontradaException(UUID faturaId) {
+        super("Fatura não encontrada com ID: " + faturaId);
+    }
+}
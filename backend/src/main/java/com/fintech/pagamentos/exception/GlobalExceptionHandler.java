@@ -1,5 +1,7 @@
 package com.fintech.pagamentos.exception;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -11,6 +13,7 @@ import org.springframework.web.method.annotation.MethodArgumentTypeMismatchExcep
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 @ControllerAdvice
@@ -40,7 +43,82 @@ public class GlobalExceptionHandler {
 
     }
 
-    // Tratamento para recursos não encontrados (usado com Optional.orElseThrow(RuntimeException))
+    // Tratamento para parâmetros inválidos (ex: cursor de paginação corrompido)
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ErrorResponse> handleIllegalArgument(
+            IllegalArgumentException ex, WebRequest request) {
+
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.BAD_REQUEST.value(),
+                "Bad Request",
+                ex.getMessage(),
+                request.getDescription(false).replace("uri=", ""),
+                null
+        );
+
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+
+    }
+
+    // Tratamento para conflitos de concorrência otimista (@Version): o registro mudou entre a leitura e a gravação
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLocking(
+            OptimisticLockingFailureException ex, WebRequest request) {
+
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.CONFLICT.value(),
+                "Conflict",
+                "O registro foi alterado por outra operação. Tente novamente.",
+                request.getDescription(false).replace("uri=", ""),
+                null
+        );
+
+        return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+
+    }
+
+    // Tratamento para pagamento de fatura já paga: o estado atual da fatura impede a operação
+    @ExceptionHandler(FaturaJaPagaException.class)
+    public ResponseEntity<ErrorResponse> handleFaturaJaPaga(
+            FaturaJaPagaException ex, WebRequest request) {
+
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.CONFLICT.value(),
+                "Conflict",
+                ex.getMessage(),
+                request.getDescription(false).replace("uri=", ""),
+                null
+        );
+
+        return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+
+    }
+
+    // Tratamento para pedidos recusados por falta de capacidade (ex: fila do pagamento em grupo cheia)
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<ErrorResponse> handleRejectedExecution(
+            RejectedExecutionException ex, WebRequest request) {
+
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                "Too Many Requests",
+                ex.getMessage(),
+                request.getDescription(false).replace("uri=", ""),
+                null
+        );
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);
+
+    }
+
+    // Tratamento para recursos não encontrados (NoSuchElementException, como FaturaNaoEncontradaException,
+    // ou usado com Optional.orElseThrow(RuntimeException))
     @ExceptionHandler({NoSuchElementException.class, RuntimeException.class})
     public ResponseEntity<ErrorResponse> handleNotFoundException(
             RuntimeException ex, WebRequest request ) {
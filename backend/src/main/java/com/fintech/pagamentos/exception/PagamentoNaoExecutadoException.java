@@ -0,0 +1,12 @@
+package com.fintech.pagamentos.exception;
+
+import java.util.UUID;
+
+// Pagamento em grupo recusado antes de pagar a fatura (ex: Idempotency-Key já gravada por outra requisição).
+// Só esse pedido falha; os demais pagamentos do grupo seguem na mesma transação.
+public class PagamentoNaoExecutadoException extends RuntimeException {
+
+    public PagamentoNaoExecutadoException(UUID faturaId) {
+        super("Pagamento da fatura " + faturaId + " não executado.");
+    }
+}
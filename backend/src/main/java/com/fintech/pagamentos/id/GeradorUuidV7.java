@@ -0,0 +1,42 @@
+package com.fintech.pagamentos.id;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.uuid.UuidValueGenerator;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+// UUID versão 7 (RFC 9562): os 48 bits mais significativos são o instante em milissegundos e os demais são aleatórios.
+// IDs gerados em sequência ficam próximos no índice da chave primária, então as inserções vão para o fim da B-tree
+// em vez de espalhar páginas pelo índice inteiro. Mesmo formato da função uuid_generate_v7() de 01_schema.sql.
+public class GeradorUuidV7 implements UuidValueGenerator {
+
+    private static final long VERSAO_7 = 0x7000L; // Bits 48-51
+    private static final long MASCARA_RAND_A = 0x0FFFL; // 12 bits após a versão
+
+    // Metade mais significativa do último UUID gerado nesta JVM
+    private static final AtomicLong ULTIMO = new AtomicLong();
+
+    @Override
+    public UUID generateUuid(SharedSessionContractImplementor session) {
+        return gerar();
+    }
+
+    // Parte aleatória do UUID v4 (SecureRandom, variante RFC já definida), com o instante nos 48 bits iniciais.
+    // Vários IDs no mesmo milissegundo seriam inseridos fora de ordem e dividiriam páginas no meio do índice:
+    // nesse caso os 12 bits após a versão funcionam como contador (método 1 da RFC), e ao esgotá-lo o ID passa
+    // para o milissegundo seguinte. Assim os IDs desta JVM são estritamente crescentes.
+    public static UUID gerar() {
+        UUID aleatorio = UUID.randomUUID();
+        long candidato = (System.currentTimeMillis() << 16) | VERSAO_7 | (aleatorio.getMostSignificantBits() & MASCARA_RAND_A);
+        long maisSignificativos = ULTIMO.accumulateAndGet(candidato, (ultimo, novo) -> novo > ultimo ? novo : proximo(ultimo));
+        return new UUID(maisSignificativos, aleatorio.getLeastSignificantBits());
+    }
+
+    private static long proximo(long ultimo) {
+        if ((ultimo & MASCARA_RAND_A) == MASCARA_RAND_A) {
+            return (((ultimo >>> 16) + 1) << 16) | VERSAO_7;
+        }
+        return ultimo + 1;
+    }
+}
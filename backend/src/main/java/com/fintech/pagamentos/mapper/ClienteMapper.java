@@ -0,0 +1,51 @@
+package com.fintech.pagamentos.mapper;
+
+import com.fintech.pagamentos.dto.ClienteRequestDTO;
+import com.fintech.pagamentos.dto.ClienteResponseDTO;
+import com.fintech.pagamentos.entity.Cliente;
+import org.springframework.stereotype.Component;
+
+// Conversões entre a entidade Cliente e seus DTOs, escritas campo a campo (sem reflexão).
+@Component
+public class ClienteMapper {
+
+    public Cliente toEntity(ClienteRequestDTO dto) {
+        Cliente cliente = new Cliente();
+        cliente.setNome(dto.getNome());
+        cliente.setCpf(dto.getCpf());
+        cliente.setDataNascimento(dto.getDataNascimento());
+        cliente.setStatusBloqueio(dto.getStatusBloqueio());
+        cliente.setLimiteCredito(dto.getLimiteCredito());
+        return cliente;
+    }
+
+    // Atualização parcial: apenas os campos informados (não nulos) no DTO sobrescrevem a entidade existente
+    public void atualizarEntity(ClienteRequestDTO dto, Cliente cliente) {
+        if (dto.getNome() != null) {
+            cliente.setNome(dto.getNome());
+        }
+        if (dto.getCpf() != null) {
+            cliente.setCpf(dto.getCpf());
+        }
+        if (dto.getDataNascimento() != null) {
+            cliente.setDataNascimento(dto.getDataNascimento());
+        }
+        if (dto.getStatusBloqueio() != null) {
+            cliente.setStatusBloqueio(dto.getStatusBloqueio());
+        }
+        if (dto.getLimiteCredito() != null) {
+            cliente.setLimiteCredito(dto.getLimiteCredito());
+        }
+    }
+
+    public ClienteResponseDTO toResponseDTO(Cliente cliente) {
+        return new ClienteResponseDTO(
+                cliente.getId(),
+                cliente.getNome(),
+                cliente.getCpf(),
+                cliente.getDataNascimento(),
+                cliente.getStatusBloqueio(),
+                cliente.getLimiteCredito()
+        );
+    }
+}
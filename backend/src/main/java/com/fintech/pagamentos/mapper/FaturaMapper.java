@@ -0,0 +1,36 @@
+package com.fintech.pagamentos.mapper;
+
+import com.fintech.pagamentos.dto.FaturaResponseDTO;
+import com.fintech.pagamentos.entity.Fatura;
+import com.fintech.pagamentos.repository.FaturaRepository.PagamentoRegistrado;
+import org.springframework.stereotype.Component;
+
+// Conversão da entidade Fatura para o DTO de resposta, escrita campo a campo (sem reflexão).
+// As listagens somente leitura já recebem o DTO pronto do repositório (projeção); este mapper atende as escritas.
+@Component
+public class FaturaMapper {
+
+    public FaturaResponseDTO toResponseDTO(Fatura fatura) {
+        return new FaturaResponseDTO(
+                fatura.getId(),
+                fatura.getCliente().getId(),
+                fatura.getCliente().getNome(),
+                fatura.getDataVencimento(),
+                fatura.getDataPagamento(),
+                fatura.getValor(),
+                fatura.getStatus()
+        );
+    }
+
+    public FaturaResponseDTO toResponseDTO(PagamentoRegistrado pagamento) {
+        return new FaturaResponseDTO(
+                pagamento.getId(),
+                pagamento.getClienteId(),
+                pagamento.getClienteNome(),
+                pagamento.getDataVencimento(),
+                pagamento.getDataPagamento(),
+                pagamento.getValor(),
+                pagamento.getStatus()
+        );
+    }
+}
@@ -0,0 +1,61 @@
+package com.fintech.pagamentos.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fintech.pagamentos.entity.OutboxEvento;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// Acrescenta os eventos publicados num arquivo local, um JSON por linha (NDJSON): pagamentos.outbox.sink=arquivo (padrão).
+// O lote só é considerado publicado depois que as linhas são gravadas em disco (force).
+// Sem trava: os trabalhadores do relay gravam em paralelo, cada um com o seu canal em modo APPEND, e cada lote vai
+// numa única escrita no fim do arquivo, sem intercalar com as linhas de outro lote.
+@Component
+@ConditionalOnProperty(name = "pagamentos.outbox.sink", havingValue = "arquivo", matchIfMissing = true)
+public class ArquivoOutboxSink implements OutboxSink {
+
+    private final Path arquivo;
+    private final ObjectMapper objectMapper;
+
+    public ArquivoOutboxSink(@Value("${pagamentos.outbox.arquivo:outbox-eventos.ndjson}") Path arquivo, ObjectMapper objectMapper) {
+        this.arquivo = arquivo;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void publicar(List<OutboxEvento> eventos) {
+        StringBuilder linhas = new StringBuilder();
+        try {
+            for (OutboxEvento evento : eventos) {
+                ObjectNode linha = objectMapper.createObjectNode();
+                linha.put("id", evento.getId());
+                linha.put("tipo", evento.getTipo());
+                linha.put("agregadoId", evento.getAgregadoId().toString());
+                linha.put("criadoEm", evento.getCriadoEm().toString());
+                linha.set("payload", objectMapper.readTree(evento.getPayload()));
+                linhas.append(objectMapper.writeValueAsString(linha)).append('\n');
+            }
+
+            try (FileChannel canal = FileChannel.open(arquivo,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer conteudo = ByteBuffer.wrap(linhas.toString().getBytes(StandardCharsets.UTF_8));
+                while (conteudo.hasRemaining()) {
+                    canal.write(conteudo);
+                }
+                canal.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao gravar eventos no arquivo " + arquivo, e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.fintech.pagamentos.outbox;
+
+import com.fintech.pagamentos.entity.OutboxEvento;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Guarda os eventos publicados em memória (testes e desenvolvimento): pagamentos.outbox.sink=memoria
+@Component
+@ConditionalOnProperty(name = "pagamentos.outbox.sink", havingValue = "memoria")
+public class MemoriaOutboxSink implements OutboxSink {
+
+    private final List<OutboxEvento> publicados = new ArrayList<>();
+
+    @Override
+    public synchronized void publicar(List<OutboxEvento> eventos) {
+        publicados.addAll(eventos);
+    }
+
+    public synchronized List<OutboxEvento> getPublicados() {
+        return List.copyOf(publicados);
+    }
+
+    public synchronized void limpar() {
+        publicados.clear();
+    }
+}
@@ -0,0 +1,14 @@
+package com.fintech.pagamentos.outbox;
+
+import com.fintech.pagamentos.entity.OutboxEvento;
+
+import java.util.List;
+
+// Destino dos eventos publicados pelo relay do outbox (ex: broker de mensagens).
+// Deve lançar exceção se não conseguir publicar o lote: os eventos continuam pendentes e são reenviados
+// no ciclo seguinte, então um mesmo evento pode ser entregue mais de uma vez (at-least-once; o ID identifica o evento).
+public interface OutboxSink {
+
+    void publicar(List<OutboxEvento> eventos);
+
+}
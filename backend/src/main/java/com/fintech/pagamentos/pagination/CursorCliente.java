@@ -0,0 +1,26 @@
+package com.fintech.pagamentos.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+// Posição do último cliente retornado em uma página, ordenada por id.
+// Assim como o CursorFatura, é opaco para o cliente da API.
+public record CursorCliente(UUID id) {
+
+    public String codificar() {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Retorna null quando o token não é informado (primeira página)
+    public static CursorCliente decodificar(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            return new CursorCliente(UUID.fromString(new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8)));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor de paginação inválido: " + token);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.fintech.pagamentos.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+// Posição da última fatura retornada em uma página, ordenada por (data_vencimento, id).
+// Para o cliente da API o cursor é opaco: apenas uma string Base64 que deve ser devolvida no ?next=
+public record CursorFatura(LocalDate dataVencimento, UUID id) {
+
+    // Cursor anterior a qualquer fatura, usado para buscar a primeira página
+    public static final CursorFatura INICIO = new CursorFatura(LocalDate.of(1, 1, 1), new UUID(0L, 0L));
+
+    private static final String SEPARADOR = "|";
+
+    public String codificar() {
+        String valor = dataVencimento + SEPARADOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Retorna o cursor de início quando o token não é informado
+    public static CursorFatura decodificar(String token) {
+        if (token == null || token.isBlank()) {
+            return INICIO;
+        }
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separador = valor.indexOf(SEPARADOR);
+            return new CursorFatura(LocalDate.parse(valor.substring(0, separador)), UUID.fromString(valor.substring(separador + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | StringIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Cursor de paginação inválido: " + token);
+        }
+    }
+}
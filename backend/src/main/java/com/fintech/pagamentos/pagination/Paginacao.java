@@ -0,0 +1,36 @@
+package com.fintech.pagamentos.pagination;
+
+import com.fintech.pagamentos.dto.PaginaDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+// Regras comuns às listagens paginadas por cursor (keyset pagination).
+// As consultas buscam "limite + 1" linhas: a linha extra só indica que existe uma próxima página.
+public final class Paginacao {
+
+    public static final int LIMITE_PADRAO = 50;
+    public static final int LIMITE_MAXIMO = 500;
+
+    private Paginacao() {
+    }
+
+    public static int normalizarLimite(Integer limite) {
+        if (limite == null) {
+            return LIMITE_PADRAO;
+        }
+        if (limite < 1) {
+            throw new IllegalArgumentException("O parâmetro limit deve ser maior que zero.");
+        }
+        return Math.min(limite, LIMITE_MAXIMO);
+    }
+
+    public static <T> PaginaDTO<T> montarPagina(List<T> resultados, int limite, Function<T, String> cursorDoItem) {
+        if (resultados.size() <= limite) {
+            return new PaginaDTO<>(resultados, null);
+        }
+        List<T> itens = new ArrayList<>(resultados.subList(0, limite));
+        return new PaginaDTO<>(itens, cursorDoItem.apply(itens.get(limite - 1)));
+    }
+}
@@ -0,0 +1,61 @@
+package com.fintech.pagamentos.relatorio;
+
+import com.fintech.pagamentos.dto.AgingDTO;
+import com.fintech.pagamentos.dto.FaixaAgingDTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collector;
+
+// Quantidade e valor por faixa de aging, somados fatura a fatura. Não é thread-safe: no stream paralelo de cada bloco
+// do relatório, cada thread acumula num objeto próprio e os parciais são combinados (Collector); os resultados dos
+// blocos são combinados um de cada vez.
+public class AcumuladorAging {
+
+    private final long[] quantidades = new long[FaixaAging.values().length];
+    private final BigDecimal[] valores = new BigDecimal[FaixaAging.values().length];
+
+    public AcumuladorAging() {
+        Arrays.fill(valores, BigDecimal.ZERO);
+    }
+
+    public static Collector<FaturaEmAberto, AcumuladorAging, AcumuladorAging> coletor(LocalDate referencia) {
+        return Collector.of(AcumuladorAging::new, (acumulador, fatura) -> acumulador.adicionar(fatura, referencia),
+                AcumuladorAging::combinar);
+    }
+
+    public void adicionar(FaturaEmAberto fatura, LocalDate referencia) {
+        int faixa = FaixaAging.de(fatura.dataVencimento(), referencia).ordinal();
+        quantidades[faixa]++;
+        valores[faixa] = valores[faixa].add(fatura.valor());
+    }
+
+    public void adicionar(FaixaAging faixa, long quantidade, BigDecimal valor) {
+        quantidades[faixa.ordinal()] += quantidade;
+        valores[faixa.ordinal()] = valores[faixa.ordinal()].add(valor);
+    }
+
+    public AcumuladorAging combinar(AcumuladorAging outro) {
+        for (int faixa = 0; faixa < quantidades.length; faixa++) {
+            quantidades[faixa] += outro.quantidades[faixa];
+            valores[faixa] = valores[faixa].add(outro.valores[faixa]);
+        }
+        return this;
+    }
+
+    public AgingDTO paraDTO(UUID clienteId, String clienteNome) {
+        List<FaixaAgingDTO> faixas = new ArrayList<>(quantidades.length);
+        long quantidade = 0;
+        BigDecimal valor = BigDecimal.ZERO;
+        for (FaixaAging faixa : FaixaAging.values()) {
+            faixas.add(new FaixaAgingDTO(faixa.name(), quantidades[faixa.ordinal()], valores[faixa.ordinal()]));
+            quantidade += quantidades[faixa.ordinal()];
+            valor = valor.add(valores[faixa.ordinal()]);
+        }
+        return new AgingDTO(clienteId, clienteNome, quantidade, valor, faixas);
+    }
+}
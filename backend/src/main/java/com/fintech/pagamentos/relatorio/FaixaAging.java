@@ -0,0 +1,25 @@
+package com.fintech.pagamentos.relatorio;
+
+import java.time.LocalDate;
+
+// Faixas do relatório de aging pelos dias desde o vencimento, na data de referência.
+// Os mesmos limites são usados nas cláusulas FILTER de FaturaRepository.agingPorCliente/agingTotal.
+public enum FaixaAging {
+    A_VENCER, DE_1_A_30, DE_31_A_60, DE_61_A_90, MAIS_DE_90;
+
+    public static FaixaAging de(LocalDate dataVencimento, LocalDate referencia) {
+        if (!dataVencimento.isBefore(referencia)) {
+            return A_VENCER;
+        }
+        if (!dataVencimento.isBefore(referencia.minusDays(30))) {
+            return DE_1_A_30;
+        }
+        if (!dataVencimento.isBefore(referencia.minusDays(60))) {
+            return DE_31_A_60;
+        }
+        if (!dataVencimento.isBefore(referencia.minusDays(90))) {
+            return DE_61_A_90;
+        }
+        return MAIS_DE_90;
+    }
+}
@@ -0,0 +1,9 @@
+package com.fintech.pagamentos.relatorio;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+// Colunas de uma fatura não paga lidas pelo modo "stream" do relatório de aging.
+public record FaturaEmAberto(UUID clienteId, String clienteNome, LocalDate dataVencimento, BigDecimal valor) {
+}
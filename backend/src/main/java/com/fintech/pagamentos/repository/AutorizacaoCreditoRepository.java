@@ -0,0 +1,28 @@
+package com.fintech.pagamentos.repository;
+
+import com.fintech.pagamentos.entity.AutorizacaoCredito;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public interface AutorizacaoCreditoRepository extends JpaRepository<AutorizacaoCredito, UUID> {
+
+    // Uma réplica de cada vez apaga as reservas vencidas (advisory lock liberado no fim da transação): duas réplicas
+    // somando nos mesmos resumos em ordens diferentes poderiam travar uma à outra
+    @Query(value = "SELECT pg_try_advisory_xact_lock(hashtext('autorizacao_credito_expiracao'))", nativeQuery = true)
+    boolean travarExpiracao();
+
+    // Apaga um lote de reservas vencidas, devolve o valor ao limite (total_reservado) de cada cliente e retorna a
+    // quantidade apagada. Não usa @Modifying porque a instrução retorna linhas.
+    @Query(value = "WITH expiradas AS (DELETE FROM autorizacao_credito WHERE id IN (" +
+            "SELECT id FROM autorizacao_credito WHERE expira_em < :agora ORDER BY expira_em LIMIT :lote) RETURNING cliente_id, valor), " +
+            "somas AS (SELECT cliente_id, SUM(valor) AS valor FROM expiradas GROUP BY cliente_id), " +
+            "devolvidas AS (UPDATE resumo_cliente r SET total_reservado = r.total_reservado - s.valor FROM somas s " +
+            "WHERE r.cliente_id = s.cliente_id) " +
+            "SELECT COUNT(*) FROM expiradas", nativeQuery = true)
+    long expirar(@Param("agora") LocalDateTime agora, @Param("lote") int lote);
+
+}
@@ -1,14 +1,81 @@
 package com.fintech.pagamentos.repository;
 
 
+import com.fintech.pagamentos.autorizacao.LimiteCliente;
 import com.fintech.pagamentos.entity.Cliente;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
-public interface ClienteRepository extends JpaRepository<Cliente, UUID> {
+public interface ClienteRepository extends JpaRepository<Cliente, UUID>, JpaSpecificationExecutor<Cliente> {
 
-    List<Cliente> findByStatusBloqueio(Character statusBloqueio);
+    // Bloqueio em lote (uma única instrução por faixa de IDs): clientes ativos com ao menos uma fatura atrasada vencida
+    // antes da data limite têm o status alterado para 'B' e o limite zerado, guardado em limite_anterior para o desbloqueio.
+    // O RETURNING devolve apenas os IDs efetivamente bloqueados.
+    // Não usa @Modifying porque a instrução retorna linhas (executada como consulta).
+    @Query(value = "UPDATE cliente c SET status_bloqueio = 'B', origem_bloqueio = 'J', limite_anterior = c.limite_credito, " +
+            "limite_credito = 0, versao = c.versao + 1 " +
+            "WHERE c.id BETWEEN :idInicio AND :idFim AND c.status_bloqueio = 'A' " +
+            "AND EXISTS (SELECT 1 FROM fatura f WHERE f.cliente_id = c.id AND f.status = 'A' AND f.data_vencimento < :dataLimite) " +
+            "RETURNING c.id", nativeQuery = true)
+    List<UUID> bloquearClientesComFaturasAtrasadas(@Param("dataLimite") LocalDate dataLimite,
+                                                   @Param("idInicio") UUID idInicio, @Param("idFim") UUID idFim);
+
+    long countByIdBetween(UUID idInicio, UUID idFim);
+
+    // Maior ID de cada uma das faixas com a mesma quantidade de clientes, em ordem. Lê apenas o índice da chave primária
+    // e vale para qualquer distribuição dos IDs (UUIDs v7 concentrados no período de criação ou v4 aleatórios).
+    // (O PostgreSQL 17 não tem MAX(uuid): o último ID de cada faixa é o que vem antes da troca de faixa.)
+    @Query(value = "SELECT t.id FROM (SELECT s.id, s.faixa, LEAD(s.faixa) OVER (ORDER BY s.id) AS proxima " +
+            "FROM (SELECT c.id, NTILE(:quantidade) OVER (ORDER BY c.id) AS faixa FROM cliente c) s) t " +
+            "WHERE t.proxima IS NULL OR t.proxima <> t.faixa ORDER BY t.id", nativeQuery = true)
+    List<UUID> findLimitesDeFaixas(@Param("quantidade") int quantidade);
+
+    // Clientes ativos com faturas atrasadas vencidas no intervalo [inicio, dataLimite), em ordem de ID (sem travar).
+    // Usa o índice (status, data_vencimento): só as faturas que passaram do limite no intervalo são lidas.
+    @Query(value = "SELECT c.id FROM cliente c WHERE c.status_bloqueio = 'A' AND c.id IN (" +
+            "SELECT f.cliente_id FROM fatura f WHERE f.status = 'A' AND f.data_vencimento >= :inicio AND f.data_vencimento < :dataLimite) " +
+            "ORDER BY c.id", nativeQuery = true)
+    List<UUID> findAtivosComFaturasAtrasadasVencidasEntre(@Param("inicio") LocalDate inicio, @Param("dataLimite") LocalDate dataLimite);
+
+    // Trava as linhas dos clientes informados até o fim da transação, em ordem de ID (a mesma de outros lotes)
+    @Query(value = "SELECT c.id FROM cliente c WHERE c.id IN (:ids) ORDER BY c.id FOR UPDATE", nativeQuery = true)
+    List<UUID> travarPorIds(@Param("ids") Collection<UUID> ids);
+
+    // Mesmo bloqueio da instrução por faixa de IDs, restrito aos clientes informados
+    @Query(value = "UPDATE cliente c SET status_bloqueio = 'B', origem_bloqueio = 'J', limite_anterior = c.limite_credito, " +
+            "limite_credito = 0, versao = c.versao + 1 " +
+            "WHERE c.id IN (:ids) AND c.status_bloqueio = 'A' " +
+            "AND EXISTS (SELECT 1 FROM fatura f WHERE f.cliente_id = c.id AND f.status = 'A' AND f.data_vencimento < :dataLimite) " +
+            "RETURNING c.id", nativeQuery = true)
+    List<UUID> bloquearClientesComFaturasAtrasadas(@Param("dataLimite") LocalDate dataLimite, @Param("ids") Collection<UUID> ids);
+
+    // Trava a linha do cliente até o fim da transação e devolve o status de bloqueio atual
+    @Query(value = "SELECT c.status_bloqueio FROM cliente c WHERE c.id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Character> travarStatusBloqueio(@Param("id") UUID id);
+
+    // Desbloqueia o cliente se não restar fatura atrasada vencida antes da data limite, devolvendo o limite de antes do bloqueio.
+    // Só desfaz bloqueios do job de atraso: um bloqueio feito pelo operador (origem 'M') continua.
+    @Modifying
+    @Query(value = "UPDATE cliente c SET status_bloqueio = 'A', origem_bloqueio = NULL, " +
+            "limite_credito = COALESCE(c.limite_anterior, c.limite_credito), limite_anterior = NULL, versao = c.versao + 1 " +
+            "WHERE c.id = :id AND c.status_bloqueio = 'B' AND c.origem_bloqueio = 'J' " +
+            "AND NOT EXISTS (SELECT 1 FROM fatura f WHERE f.cliente_id = c.id AND f.status = 'A' AND f.data_vencimento < :dataLimite)",
+            nativeQuery = true)
+    int desbloquearSemFaturasAtrasadas(@Param("id") UUID id, @Param("dataLimite") LocalDate dataLimite);
+
+    // Limite, totais e reservas de um cliente: motivo da recusa quando o banco não concede cota para uma compra
+    @Query("SELECT new com.fintech.pagamentos.autorizacao.LimiteCliente(c.id, c.statusBloqueio, c.limiteCredito, " +
+            "r.totalAberto, r.totalAtrasado, r.totalReservado) FROM Cliente c LEFT JOIN ResumoCliente r ON r.clienteId = c.id " +
+            "WHERE c.id = :id")
+    Optional<LimiteCliente> findLimite(@Param("id") UUID id);
 
 }
@@ -0,0 +1,46 @@
+package com.fintech.pagamentos.repository;
+
+import com.fintech.pagamentos.dto.ClienteFiltroDTO;
+import com.fintech.pagamentos.entity.Cliente;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Monta a cláusula WHERE da listagem de clientes apenas com os filtros informados,
+// para que cada combinação vire uma consulta simples que o banco consiga atender pelos índices.
+public final class ClienteSpecifications {
+
+    private ClienteSpecifications() {
+    }
+
+    public static Specification<Cliente> porFiltro(ClienteFiltroDTO filtro, UUID aposId) {
+        return (root, query, cb) -> {
+            List<Predicate> predicados = new ArrayList<>();
+
+            if (filtro.getStatusBloqueio() != null) {
+                predicados.add(cb.equal(root.get("statusBloqueio"), filtro.getStatusBloqueio()));
+            }
+            if (filtro.getLimiteCreditoMin() != null) {
+                predicados.add(cb.greaterThanOrEqualTo(root.get("limiteCredito"), filtro.getLimiteCreditoMin()));
+            }
+            if (filtro.getLimiteCreditoMax() != null) {
+                predicados.add(cb.lessThanOrEqualTo(root.get("limiteCredito"), filtro.getLimiteCreditoMax()));
+            }
+            if (filtro.getDataNascimentoDe() != null) {
+                predicados.add(cb.greaterThanOrEqualTo(root.get("dataNascimento"), filtro.getDataNascimentoDe()));
+            }
+            if (filtro.getDataNascimentoAte() != null) {
+                predicados.add(cb.lessThanOrEqualTo(root.get("dataNascimento"), filtro.getDataNascimentoAte()));
+            }
+            // Cursor da paginação: continua a partir do último id retornado
+            if (aposId != null) {
+                predicados.add(cb.greaterThan(root.get("id"), aposId));
+            }
+
+            return cb.and(predicados.toArray(new Predicate[0]));
+        };
+    }
+}
@@ -0,0 +1,81 @@
+package com.fintech.pagamentos.repository;
+
+import com.fintech.pagamentos.entity.CotaCredito;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+// Cotas do limite de crédito reservadas pelas réplicas. Ordem das travas em todas as instruções: cliente, resumo_cliente
+// e só então cota_credito (as que começam pelo resumo recebem a linha já travada por ResumoClienteRepository.travar).
+public interface CotaCreditoRepository extends JpaRepository<CotaCredito, UUID> {
+
+    interface CotaConcedida {
+        UUID getId();
+        BigDecimal getConcedido();
+        BigDecimal getRestante(); // Disponível do cliente no banco depois da concessão
+    }
+
+    // Reserva no limite do cliente ativo até :desejado (no mínimo :minimo) e soma o valor à cota da réplica, criando-a se
+    // preciso. O cliente fica travado em modo compartilhado: o bloqueio espera a concessão terminar, ou a concessão espera
+    // o bloqueio e não encontra mais o cliente ativo. A linha do resumo serializa as concessões do mesmo cliente em todas as
+    // réplicas. Vazio se o disponível não cobre :minimo. Não usa @Modifying porque retorna linhas.
+    @Query(value = "WITH ativo AS (SELECT id, limite_credito FROM cliente WHERE id = :clienteId AND status_bloqueio = 'A' FOR SHARE), " +
+            "atual AS (SELECT r.cliente_id, a.limite_credito - r.total_aberto - r.total_atrasado - r.total_reservado AS disponivel " +
+            "FROM resumo_cliente r JOIN ativo a ON a.id = r.cliente_id FOR UPDATE OF r), " +
+            "reserva AS (UPDATE resumo_cliente r SET total_reservado = r.total_reservado + LEAST(:desejado, a.disponivel) FROM atual a " +
+            "WHERE r.cliente_id = a.cliente_id AND a.disponivel >= :minimo " +
+            "RETURNING LEAST(:desejado, a.disponivel) AS valor, a.disponivel - LEAST(:desejado, a.disponivel) AS restante) " +
+            "INSERT INTO cota_credito AS q (cliente_id, replica, saldo, expira_em) SELECT :clienteId, :replica, valor, :expiraEm FROM reserva " +
+            "ON CONFLICT (cliente_id, replica) DO UPDATE SET saldo = q.saldo + EXCLUDED.saldo, expira_em = EXCLUDED.expira_em " +
+            "RETURNING q.id AS id, (SELECT valor FROM reserva) AS concedido, (SELECT restante FROM reserva) AS restante", nativeQuery = true)
+    Optional<CotaConcedida> conceder(@Param("clienteId") UUID clienteId, @Param("replica") String replica,
+                                     @Param("minimo") BigDecimal minimo, @Param("desejado") BigDecimal desejado,
+                                     @Param("expiraEm") LocalDateTime expiraEm);
+
+    // Compras aprovadas com a cota e gravadas: o valor passa do saldo para autorizacao_credito (o total reservado não muda).
+    // Zero se a cota já não existe (revogada ou expirada): o valor saiu do total reservado e precisa voltar a ele.
+    @Modifying
+    @Query(value = "UPDATE cota_credito SET saldo = saldo - :valor WHERE id = :id", nativeQuery = true)
+    int consumir(@Param("id") UUID id, @Param("valor") BigDecimal valor);
+
+    // Heartbeat da réplica: as cotas que não aparecem no retorno foram revogadas ou expiraram
+    @Query(value = "UPDATE cota_credito SET expira_em = :expiraEm WHERE replica = :replica RETURNING id", nativeQuery = true)
+    List<UUID> renovar(@Param("replica") String replica, @Param("expiraEm") LocalDateTime expiraEm);
+
+    // Saldo que a réplica não vai mais usar (cota ociosa ou encerramento) volta ao limite. Resumo já travado.
+    @Modifying
+    @Query(value = "WITH devolvida AS (UPDATE cota_credito SET saldo = saldo - :valor WHERE id = :id RETURNING cliente_id) " +
+            "UPDATE resumo_cliente r SET total_reservado = r.total_reservado - :valor FROM devolvida d WHERE r.cliente_id = d.cliente_id",
+            nativeQuery = true)
+    int devolver(@Param("id") UUID id, @Param("valor") BigDecimal valor);
+
+    @Modifying
+    @Query(value = "DELETE FROM cota_credito WHERE id = :id AND saldo = 0", nativeQuery = true)
+    int apagarSemSaldo(@Param("id") UUID id);
+
+    // Bloqueio ou alteração do cliente: as cotas de todas as réplicas são apagadas e o saldo volta ao limite. Resumo já travado.
+    @Modifying
+    @Query(value = "WITH apagadas AS (DELETE FROM cota_credito WHERE cliente_id = :clienteId RETURNING saldo) " +
+            "UPDATE resumo_cliente SET total_reservado = total_reservado - (SELECT SUM(saldo) FROM apagadas) " +
+            "WHERE cliente_id = :clienteId AND EXISTS (SELECT 1 FROM apagadas)", nativeQuery = true)
+    int revogar(@Param("clienteId") UUID clienteId);
+
+    @Query("SELECT q FROM CotaCredito q WHERE q.expiraEm < :agora ORDER BY q.expiraEm")
+    List<CotaCredito> findExpiradas(@Param("agora") LocalDateTime agora, Limit limite);
+
+    // Cota de uma réplica que parou de renová-la. Resumo já travado.
+    @Modifying
+    @Query(value = "WITH apagada AS (DELETE FROM cota_credito WHERE id = :id AND expira_em < :agora RETURNING cliente_id, saldo) " +
+            "UPDATE resumo_cliente r SET total_reservado = r.total_reservado - a.saldo FROM apagada a WHERE r.cliente_id = a.cliente_id",
+            nativeQuery = true)
+    int apagarExpirada(@Param("id") UUID id, @Param("agora") LocalDateTime agora);
+
+}
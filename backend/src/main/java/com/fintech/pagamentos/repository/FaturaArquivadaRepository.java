@@ -0,0 +1,48 @@
+package com.fintech.pagamentos.repository;
+
+import com.fintech.pagamentos.dto.FaturaResponseDTO;
+import com.fintech.pagamentos.entity.FaturaArquivada;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface FaturaArquivadaRepository extends JpaRepository<FaturaArquivada, UUID> {
+
+    // Mesma projeção e cursor de FaturaRepository.findPaginaByClienteId, para juntar as duas listagens em ordem
+    @Query("SELECT new com.fintech.pagamentos.dto.FaturaResponseDTO(" +
+            "f.id, c.id, c.nome, f.dataVencimento, f.dataPagamento, f.valor, f.status) " +
+            "FROM FaturaArquivada f JOIN f.cliente c " +
+            "WHERE c.id = :clienteId AND (f.dataVencimento, f.id) > (:dataVencimento, :id) " +
+            "ORDER BY f.dataVencimento, f.id")
+    List<FaturaResponseDTO> findPaginaByClienteId(@Param("clienteId") UUID clienteId, @Param("dataVencimento") LocalDate dataVencimento,
+                                                  @Param("id") UUID id, Limit limit);
+
+    // IDs já arquivados dentre os informados (pagamento de uma fatura que saiu da tabela fatura)
+    @Query("SELECT f.id FROM FaturaArquivada f WHERE f.id IN :ids")
+    List<UUID> findIdsArquivados(@Param("ids") Collection<UUID> ids);
+
+    // Move um lote de faturas pagas com vencimento anterior ao limite para o histórico, em uma única instrução:
+    // o DELETE ... RETURNING da tabela fatura alimenta o INSERT em fatura_arquivada na mesma transação.
+    // SKIP LOCKED ignora as linhas travadas por outra transação (ou por outra réplica arquivando ao mesmo tempo);
+    // elas ficam para o lote seguinte. A condição de vencimento restringe a instrução às partições antigas.
+    // Não usa @Modifying porque a instrução retorna linhas (quantidade de faturas arquivadas).
+    @Transactional
+    @Query(value = "WITH selecionadas AS (" +
+            "SELECT id, data_vencimento FROM fatura WHERE status = 'P' AND data_vencimento < :limite " +
+            "ORDER BY data_vencimento, id LIMIT :lote FOR UPDATE SKIP LOCKED), " +
+            "movidas AS (DELETE FROM fatura f USING selecionadas s " +
+            "WHERE f.id = s.id AND f.data_vencimento = s.data_vencimento AND f.data_vencimento < :limite " +
+            "RETURNING f.id, f.cliente_id, f.data_vencimento, f.data_pagamento, f.valor, f.status), " +
+            "arquivadas AS (INSERT INTO fatura_arquivada (id, cliente_id, data_vencimento, data_pagamento, valor, status, arquivada_em) " +
+            "SELECT id, cliente_id, data_vencimento, data_pagamento, valor, status, LOCALTIMESTAMP FROM movidas RETURNING 1) " +
+            "SELECT CAST(COUNT(*) AS INTEGER) FROM arquivadas", nativeQuery = true)
+    int arquivarLote(@Param("limite") LocalDate limite, @Param("lote") int lote);
+
+}
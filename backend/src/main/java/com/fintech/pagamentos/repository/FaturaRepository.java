@@ -1,30 +1,194 @@
 package com.fintech.pagamentos.repository;
 
+import com.fintech.pagamentos.analise.LinhaAnaliseFatura;
+import com.fintech.pagamentos.batch.VencimentoFatura;
+import com.fintech.pagamentos.dto.FaturaResponseDTO;
 import com.fintech.pagamentos.entity.Fatura;
+import com.fintech.pagamentos.relatorio.FaturaEmAberto;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface FaturaRepository extends JpaRepository<Fatura, UUID> {
 
-    @Query("SELECT f FROM Fatura f JOIN FETCH f.cliente")
-    List<Fatura> findAllWithCliente();
+    // Projeção usada nas consultas somente leitura: busca apenas as colunas do FaturaResponseDTO
+    // e monta o DTO direto do ResultSet, sem entidades gerenciadas pelo contexto de persistência.
+    String PROJECAO_FATURA_RESPONSE = "SELECT new com.fintech.pagamentos.dto.FaturaResponseDTO(" +
+            "f.id, c.id, c.nome, f.dataVencimento, f.dataPagamento, f.valor, f.status) " +
+            "FROM Fatura f JOIN f.cliente c ";
+
+    // Consultas paginadas por cursor: retornam as faturas posteriores a (dataVencimento, id),
+    // na mesma ordem dos índices idx_fatura_*_vencimento_id, limitadas pelo parâmetro Limit.
+    // A condição redundante dataVencimento >= :dataVencimento permite ao PostgreSQL descartar as partições
+    // dos meses anteriores ao cursor (a comparação de linha sozinha não é usada no pruning).
+
+    @Query(PROJECAO_FATURA_RESPONSE +
+            "WHERE f.dataVencimento >= :dataVencimento AND (f.dataVencimento, f.id) > (:dataVencimento, :id) " +
+            "ORDER BY f.dataVencimento, f.id")
+    List<FaturaResponseDTO> findPagina(@Param("dataVencimento") LocalDate dataVencimento, @Param("id") UUID id, Limit limit);
+
+    @Query(PROJECAO_FATURA_RESPONSE +
+            "WHERE c.id = :clienteId AND f.dataVencimento >= :dataVencimento AND (f.dataVencimento, f.id) > (:dataVencimento, :id) " +
+            "ORDER BY f.dataVencimento, f.id")
+    List<FaturaResponseDTO> findPaginaByClienteId(@Param("clienteId") UUID clienteId, @Param("dataVencimento") LocalDate dataVencimento,
+                                                  @Param("id") UUID id, Limit limit);
+
+    @Query(PROJECAO_FATURA_RESPONSE +
+            "WHERE f.status = :status AND f.dataVencimento >= :dataVencimento AND (f.dataVencimento, f.id) > (:dataVencimento, :id) " +
+            "ORDER BY f.dataVencimento, f.id")
+    List<FaturaResponseDTO> findPaginaByStatus(@Param("status") Character status, @Param("dataVencimento") LocalDate dataVencimento,
+                                               @Param("id") UUID id, Limit limit);
+
+    // Percorre todas as faturas com um cursor do banco (fetch size), sem carregar a tabela inteira na memória.
+    // Deve ser consumido dentro de uma transação e fechado ao final (try-with-resources).
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(PROJECAO_FATURA_RESPONSE + "ORDER BY f.dataVencimento, f.id")
+    Stream<FaturaResponseDTO> streamAll();
+
+    // Carga das colunas de análise (GET /analytics/faturas): só as colunas agregadas, lidas com cursor do banco
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.fintech.pagamentos.analise.LinhaAnaliseFatura(f.id, c.id, c.statusBloqueio, f.dataVencimento, f.valor, f.status) " +
+            "FROM Fatura f JOIN f.cliente c")
+    Stream<LinhaAnaliseFatura> streamParaAnalise();
 
     @Query("SELECT f FROM Fatura f JOIN FETCH f.cliente WHERE f.id = :faturaId")
     Optional<Fatura> findByIdWithCliente(@Param("faturaId") UUID faturaId);
 
-    @Query("SELECT f FROM Fatura f JOIN FETCH f.cliente WHERE f.cliente.id = :clienteId")
-    List<Fatura> findByClienteIdWithCliente(@Param("clienteId") UUID clienteId);
+    // Dados retornados pelo pagamento (colunas do FaturaResponseDTO e o status anterior, usado no FaturaPagaEvent)
+    interface PagamentoRegistrado {
+        UUID getId();
+        UUID getClienteId();
+        String getClienteNome();
+        LocalDate getDataVencimento();
+        LocalDate getDataPagamento();
+        BigDecimal getValor();
+        Character getStatus();
+        Character getStatusAnterior();
+    }
+
+    // Pagamento em uma única instrução. A CTE "alvo" trava a fatura (FOR UPDATE) e lê o status que vai ser alterado:
+    // com um pagamento ou uma transição 'B' -> 'A' simultâneos, ela espera o commit do outro e reavalia status <> 'P'
+    // e o status sobre a versão mais recente da linha, então apenas um pagamento altera a fatura e o status anterior
+    // retornado é o que foi de fato substituído. Sem retorno, a fatura não existe ou já está paga.
+    // Só o ID é conhecido, então a busca passa pelo índice da chave primária de cada partição mensal; o UPDATE usa
+    // a chave completa (id, data_vencimento) lida em "alvo" para alterar só a partição da fatura.
+    // Não usa @Modifying porque a instrução retorna linhas (executada como consulta).
+    @Query(value = "WITH alvo AS (SELECT id, data_vencimento, status FROM fatura WHERE id = :faturaId AND status <> 'P' FOR UPDATE) " +
+            "UPDATE fatura f SET status = 'P', data_pagamento = :dataPagamento, versao = f.versao + 1 " +
+            "FROM alvo, cliente c " +
+            "WHERE f.id = alvo.id AND f.data_vencimento = alvo.data_vencimento AND c.id = f.cliente_id " +
+            "RETURNING f.id AS \"id\", f.cliente_id AS \"clienteId\", c.nome AS \"clienteNome\", " +
+            "f.data_vencimento AS \"dataVencimento\", f.data_pagamento AS \"dataPagamento\", f.valor AS \"valor\", " +
+            "f.status AS \"status\", alvo.status AS \"statusAnterior\"", nativeQuery = true)
+    Optional<PagamentoRegistrado> registrarPagamento(@Param("faturaId") UUID faturaId, @Param("dataPagamento") LocalDate dataPagamento);
+
+    // Leitura das faturas de um bloco do pagamento em lote, bloqueadas até o fim da transação (SELECT ... FOR UPDATE).
+    // A ordenação por ID faz lotes concorrentes travarem as linhas na mesma ordem, evitando deadlock.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM Fatura f WHERE f.id IN :ids ORDER BY f.id")
+    List<Fatura> findAllByIdParaAtualizacao(@Param("ids") Collection<UUID> ids);
+
+    // Carga da agenda de vencimentos: apenas (id, vencimento) das faturas em aberto, lidas com cursor do banco.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.fintech.pagamentos.batch.VencimentoFatura(f.id, f.dataVencimento) FROM Fatura f WHERE f.status = 'B'")
+    Stream<VencimentoFatura> streamVencimentosEmAberto();
+
+    // Faturas em aberto já vencidas, em ordem de vencimento, pelo índice (status, data_vencimento, id): recupera as que
+    // não estavam na agenda da transição (inseridas ou com vencimento alterado depois da carga, ou agendadas em outro nó)
+    @Query("SELECT new com.fintech.pagamentos.batch.VencimentoFatura(f.id, f.dataVencimento) FROM Fatura f " +
+            "WHERE f.status = 'B' AND f.dataVencimento < :data ORDER BY f.dataVencimento, f.id")
+    List<VencimentoFatura> findVencimentosEmAbertoAntesDe(@Param("data") LocalDate data, Limit limit);
+
+    // Transição Aberta -> Atrasada de um lote de faturas, em uma única instrução e transação.
+    // O intervalo de vencimentos do lote [inicio, fim] restringe a instrução às partições desses meses.
+    // A condição status = 'B' ignora as faturas pagas depois que a agenda foi montada. Os valores das faturas
+    // efetivamente alteradas passam de total_aberto para total_atrasado no resumo de cada cliente, na mesma instrução.
+    // Não usa @Modifying porque a instrução retorna linhas (quantidade de faturas alteradas).
+    @Transactional
+    @Query(value = "WITH atualizadas AS (" +
+            "UPDATE fatura SET status = 'A', versao = versao + 1 " +
+            "WHERE id IN (:ids) AND data_vencimento BETWEEN :inicio AND :fim AND status = 'B' RETURNING cliente_id, valor), " +
+            "deltas AS (SELECT cliente_id, SUM(valor) AS valor FROM atualizadas GROUP BY cliente_id), " +
+            "resumos AS (UPDATE resumo_cliente r SET total_aberto = r.total_aberto - d.valor, total_atrasado = r.total_atrasado + d.valor " +
+            "FROM deltas d WHERE r.cliente_id = d.cliente_id) " +
+            "SELECT CAST(COUNT(*) AS INTEGER) FROM atualizadas", nativeQuery = true)
+    int marcarComoAtrasadas(@Param("ids") Collection<UUID> ids, @Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim);
+
+    @Query("SELECT MIN(f.dataVencimento) FROM Fatura f WHERE f.cliente.id = :clienteId AND f.status = 'B'")
+    Optional<LocalDate> findProximoVencimentoEmAberto(@Param("clienteId") UUID clienteId);
+
+    // Relatório de aging (GET /relatorios/aging): quantidade e valor das faturas não pagas por faixa de dias desde o vencimento,
+    // numa única passada pela tabela, com uma cláusula FILTER por faixa. Os limites são datas calculadas na aplicação
+    // (referência menos 30, 60 e 90 dias), com as mesmas regras de FaixaAging.
+    String COLUNAS_AGING =
+            "COUNT(*) FILTER (WHERE f.data_vencimento >= :referencia) AS \"quantidadeAVencer\", " +
+            "COALESCE(SUM(f.valor) FILTER (WHERE f.data_vencimento >= :referencia), 0) AS \"valorAVencer\", " +
+            "COUNT(*) FILTER (WHERE f.data_vencimento < :referencia AND f.data_vencimento >= :limite30) AS \"quantidade1a30\", " +
+            "COALESCE(SUM(f.valor) FILTER (WHERE f.data_vencimento < :referencia AND f.data_vencimento >= :limite30), 0) AS \"valor1a30\", " +
+            "COUNT(*) FILTER (WHERE f.data_vencimento < :limite30 AND f.data_vencimento >= :limite60) AS \"quantidade31a60\", " +
+            "COALESCE(SUM(f.valor) FILTER (WHERE f.data_vencimento < :limite30 AND f.data_vencimento >= :limite60), 0) AS \"valor31a60\", " +
+            "COUNT(*) FILTER (WHERE f.data_vencimento < :limite60 AND f.data_vencimento >= :limite90) AS \"quantidade61a90\", " +
+            "COALESCE(SUM(f.valor) FILTER (WHERE f.data_vencimento < :limite60 AND f.data_vencimento >= :limite90), 0) AS \"valor61a90\", " +
+            "COUNT(*) FILTER (WHERE f.data_vencimento < :limite90) AS \"quantidadeMais90\", " +
+            "COALESCE(SUM(f.valor) FILTER (WHERE f.data_vencimento < :limite90), 0) AS \"valorMais90\" ";
+
+    interface LinhaAging {
+        long getQuantidadeAVencer();
+        BigDecimal getValorAVencer();
+        long getQuantidade1a30();
+        BigDecimal getValor1a30();
+        long getQuantidade31a60();
+        BigDecimal getValor31a60();
+        long getQuantidade61a90();
+        BigDecimal getValor61a90();
+        long getQuantidadeMais90();
+        BigDecimal getValorMais90();
+    }
+
+    // ID como texto: a conversão de UUID em consultas nativas não é a mesma em todos os bancos (ex: H2 do benchmark)
+    interface LinhaAgingCliente extends LinhaAging {
+        String getClienteId();
+        String getClienteNome();
+    }
+
+    @Query(value = "SELECT " + COLUNAS_AGING + "FROM fatura f WHERE f.status <> 'P'", nativeQuery = true)
+    LinhaAging agingTotal(@Param("referencia") LocalDate referencia, @Param("limite30") LocalDate limite30,
+                          @Param("limite60") LocalDate limite60, @Param("limite90") LocalDate limite90);
+
+    // Agrupado por cliente; o nome é buscado depois da agregação, uma vez por cliente
+    @Query(value = "SELECT CAST(c.id AS VARCHAR) AS \"clienteId\", c.nome AS \"clienteNome\", a.* FROM (" +
+            "SELECT f.cliente_id, " + COLUNAS_AGING + "FROM fatura f WHERE f.status <> 'P' GROUP BY f.cliente_id) a " +
+            "JOIN cliente c ON c.id = a.cliente_id", nativeQuery = true)
+    List<LinhaAgingCliente> agingPorCliente(@Param("referencia") LocalDate referencia, @Param("limite30") LocalDate limite30,
+                                            @Param("limite60") LocalDate limite60, @Param("limite90") LocalDate limite90);
 
-    @Query("SELECT f FROM Fatura f JOIN FETCH f.cliente WHERE f.status = :status")
-    List<Fatura> findByStatusWithCliente(@Param("status") Character status);
+    // Modo "stream" do relatório de aging: as faturas não pagas projetadas e agregadas na aplicação, lidas com cursor do
+    // banco (o stream deve ser consumido e fechado dentro de uma transação)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.fintech.pagamentos.relatorio.FaturaEmAberto(c.id, c.nome, f.dataVencimento, f.valor) " +
+            "FROM Fatura f JOIN f.cliente c WHERE f.status <> 'P'")
+    Stream<FaturaEmAberto> streamFaturasEmAberto();
 
-    @Query("SELECT f FROM Fatura f JOIN FETCH f.cliente WHERE f.status = :status AND f.dataVencimento < :dataVencimento")
-    List<Fatura> findByStatusAndDataVencimentoBefore(@Param("status") Character status, @Param("dataVencimento") LocalDate dataVencimento);
+    // Cria as partições mensais que faltam entre os meses de inicio e fim (função criar_particoes_fatura de 01_schema.sql).
+    // Executa DDL, então precisa de uma transação de escrita.
+    @Transactional
+    @Query(value = "SELECT criar_particoes_fatura(:inicio, :fim)", nativeQuery = true)
+    int criarParticoes(@Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim);
 
 }
@@ -0,0 +1,35 @@
+package com.fintech.pagamentos.repository;
+
+import com.fintech.pagamentos.entity.IdempotenciaPagamento;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public interface IdempotenciaPagamentoRepository extends JpaRepository<IdempotenciaPagamento, String> {
+
+    // INSERT explícito (o save() faria merge e sobrescreveria a chave gravada por outra requisição).
+    // Gravado com a chave travada (travarChave); uma chave repetida ainda assim viola a chave primária e desfaz a transação.
+    @Modifying
+    @Query(value = "INSERT INTO idempotencia_pagamento (chave, fatura_id, data_pagamento, resposta, criada_em) " +
+            "VALUES (:chave, :faturaId, :dataPagamento, :resposta, :criadaEm)", nativeQuery = true)
+    void inserir(@Param("chave") String chave, @Param("faturaId") UUID faturaId, @Param("dataPagamento") LocalDate dataPagamento,
+                 @Param("resposta") String resposta, @Param("criadaEm") LocalDateTime criadaEm);
+
+    // Trava a chave até o fim da transação (advisory lock, sem depender de a linha existir): requisições com a mesma chave,
+    // em qualquer réplica, verificam e gravam a chave uma de cada vez. Quem espera a trava enxerga, na consulta seguinte,
+    // a chave gravada por quem a tinha.
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock(hashtextextended(:chave, 0))) t", nativeQuery = true)
+    Integer travarChave(@Param("chave") String chave);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotenciaPagamento i WHERE i.criadaEm < :limite")
+    int removerCriadasAntesDe(@Param("limite") LocalDateTime limite);
+
+}
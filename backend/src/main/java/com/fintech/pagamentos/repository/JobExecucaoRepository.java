@@ -0,0 +1,17 @@
+package com.fintech.pagamentos.repository;
+
+import com.fintech.pagamentos.entity.JobExecucao;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface JobExecucaoRepository extends JpaRepository<JobExecucao, UUID> {
+
+    Optional<JobExecucao> findByNomeAndDataReferencia(String nome, LocalDate dataReferencia);
+
+    // Execução mais recente do job com o status diferente do informado (ex: a última não concluída)
+    Optional<JobExecucao> findFirstByNomeAndStatusNotOrderByDataReferenciaDesc(String nome, Character status);
+
+}
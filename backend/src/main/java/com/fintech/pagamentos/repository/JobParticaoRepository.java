@@ -0,0 +1,55 @@
+package com.fintech.pagamentos.repository;
+
+import com.fintech.pagamentos.entity.JobParticao;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+// Consultas de lease em JPQL simples (sem SKIP LOCKED ou sintaxe específica do PostgreSQL), compatíveis também com o H2.
+public interface JobParticaoRepository extends JpaRepository<JobParticao, UUID> {
+
+    // Condição de partição disponível: não concluída, com tentativas restantes e sem lease válido de outro nó
+    String DISPONIVEL = "p.status <> 'C' AND p.tentativas < :maxTentativas AND (p.dono IS NULL OR p.leaseExpiraEm < :agora)";
+
+    @Query("SELECT p FROM JobParticao p WHERE p.job.id = :jobId AND " + DISPONIVEL + " ORDER BY p.indice")
+    List<JobParticao> findDisponiveis(@Param("jobId") UUID jobId, @Param("maxTentativas") int maxTentativas,
+                                      @Param("agora") LocalDateTime agora, Limit limit);
+
+    // Reivindicação atômica (compare-and-set): retorna 1 apenas para o nó que conseguiu o lease
+    @Modifying
+    @Query("UPDATE JobParticao p SET p.dono = :dono, p.leaseExpiraEm = :expiraEm, p.tentativas = p.tentativas + 1 " +
+            "WHERE p.id = :id AND " + DISPONIVEL)
+    int reivindicar(@Param("id") UUID id, @Param("dono") String dono, @Param("expiraEm") LocalDateTime expiraEm,
+                    @Param("agora") LocalDateTime agora, @Param("maxTentativas") int maxTentativas);
+
+    // Heartbeat: estende os leases de todas as partições em andamento do nó
+    @Modifying
+    @Query("UPDATE JobParticao p SET p.leaseExpiraEm = :expiraEm WHERE p.dono = :dono AND p.status <> 'C'")
+    int renovarLeases(@Param("dono") String dono, @Param("expiraEm") LocalDateTime expiraEm);
+
+    // Partições ainda em andamento em algum nó (lease válido): podem concluir ou expirar e voltar a ficar disponíveis
+    @Query("SELECT COUNT(p) FROM JobParticao p WHERE p.job.id = :jobId AND p.status <> 'C' AND p.tentativas < :maxTentativas " +
+            "AND p.dono IS NOT NULL AND p.leaseExpiraEm >= :agora")
+    long countComLeaseAtivo(@Param("jobId") UUID jobId, @Param("maxTentativas") int maxTentativas, @Param("agora") LocalDateTime agora);
+
+    // Bloqueia a linha durante o processamento: outro nó que tente reivindicá-la espera o commit e a encontra concluída
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM JobParticao p WHERE p.id = :id")
+    Optional<JobParticao> findByIdParaAtualizacao(@Param("id") UUID id);
+
+    @Modifying
+    @Query("UPDATE JobParticao p SET p.tentativas = 0 WHERE p.job.id = :jobId AND p.status = 'F'")
+    int reiniciarTentativasDasFalhas(@Param("jobId") UUID jobId);
+
+    long countByJobIdAndStatusNot(UUID jobId, Character status);
+
+}
@@ -0,0 +1,38 @@
+package com.fintech.pagamentos.repository;
+
+import com.fintech.pagamentos.entity.OutboxEvento;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxEventoRepository extends JpaRepository<OutboxEvento, Long> {
+
+    // Os pendentes são divididos em partições por agregado (hash do agregado_id): todos os eventos de uma fatura ou
+    // de um cliente caem na mesma partição, publicada por um trabalhador de cada vez. O advisory lock (liberado no fim
+    // da transação) impede que trabalhadores de outras réplicas publiquem a mesma partição ao mesmo tempo.
+    @Query(value = "SELECT pg_try_advisory_xact_lock(hashtext('outbox_evento'), :particao)", nativeQuery = true)
+    boolean travarParticao(@Param("particao") int particao);
+
+    // Próximo lote de eventos pendentes da partição, em ordem de id, travados até o fim da transação do relay
+    @Query(value = "SELECT * FROM outbox_evento WHERE publicado_em IS NULL " +
+            "AND (hashtext(CAST(agregado_id AS TEXT)) & 2147483647) % :particoes = :particao " +
+            "ORDER BY id LIMIT :limite FOR UPDATE", nativeQuery = true)
+    List<OutboxEvento> findPendentesParaPublicacao(@Param("particoes") int particoes, @Param("particao") int particao,
+                                                   @Param("limite") int limite);
+
+    @Modifying
+    @Query("UPDATE OutboxEvento e SET e.publicadoEm = :publicadoEm WHERE e.id IN :ids")
+    int marcarComoPublicados(@Param("ids") Collection<Long> ids, @Param("publicadoEm") LocalDateTime publicadoEm);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OutboxEvento e WHERE e.publicadoEm < :limite")
+    int removerPublicadosAntesDe(@Param("limite") LocalDateTime limite);
+
+}
@@ -0,0 +1,60 @@
+package com.fintech.pagamentos.repository;
+
+import com.fintech.pagamentos.entity.ResumoCliente;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface ResumoClienteRepository extends JpaRepository<ResumoCliente, UUID> {
+
+    // Nada se o cliente não existe
+    @Modifying
+    @Query(value = "INSERT INTO resumo_cliente (cliente_id, total_aberto, total_atrasado, total_reservado) " +
+            "SELECT id, 0, 0, 0 FROM cliente WHERE id = :clienteId ON CONFLICT (cliente_id) DO NOTHING", nativeQuery = true)
+    int criarSeNaoExistir(@Param("clienteId") UUID clienteId);
+
+    // Soma relativa: transações concorrentes do mesmo cliente se serializam na linha e nenhuma soma se perde
+    @Modifying
+    @Query(value = "UPDATE resumo_cliente SET total_aberto = total_aberto + :deltaAberto, " +
+            "total_atrasado = total_atrasado + :deltaAtrasado WHERE cliente_id = :clienteId", nativeQuery = true)
+    int aplicarDelta(@Param("clienteId") UUID clienteId, @Param("deltaAberto") BigDecimal deltaAberto,
+                     @Param("deltaAtrasado") BigDecimal deltaAtrasado);
+
+    // Compras aprovadas com uma cota que já não existe: o valor volta a ser somado às reservas (a compra já foi aprovada)
+    @Modifying
+    @Query(value = "UPDATE resumo_cliente SET total_reservado = total_reservado + :valor WHERE cliente_id = :clienteId", nativeQuery = true)
+    int somarReserva(@Param("clienteId") UUID clienteId, @Param("valor") BigDecimal valor);
+
+    // Trava a linha do resumo até o fim da transação, antes das alterações em cota_credito (CotaCreditoRepository)
+    @Query(value = "SELECT 1 FROM resumo_cliente WHERE cliente_id = :clienteId FOR UPDATE", nativeQuery = true)
+    Integer travar(@Param("clienteId") UUID clienteId);
+
+    // Bloqueia as alterações de resumo até o fim da transação; os pagamentos em andamento terminam antes
+    @Modifying
+    @Query(value = "LOCK TABLE resumo_cliente IN SHARE ROW EXCLUSIVE MODE", nativeQuery = true)
+    void travarParaReconstrucao();
+
+    // Recalcula os totais de todos os clientes a partir das faturas, das reservas (compras aprovadas e saldos das cotas)
+    // e grava apenas os que divergem (ou faltam). O RETURNING devolve os clientes corrigidos. Não usa @Modifying porque a
+    // instrução retorna linhas.
+    @Query(value = "INSERT INTO resumo_cliente (cliente_id, total_aberto, total_atrasado, total_reservado) " +
+            "SELECT c.id, COALESCE(SUM(f.valor) FILTER (WHERE f.status = 'B'), 0), " +
+            "COALESCE(SUM(f.valor) FILTER (WHERE f.status = 'A'), 0), COALESCE(MAX(rs.valor), 0) " +
+            "FROM cliente c LEFT JOIN fatura f ON f.cliente_id = c.id " +
+            "LEFT JOIN (SELECT cliente_id, SUM(valor) AS valor FROM (SELECT cliente_id, valor FROM autorizacao_credito " +
+            "UNION ALL SELECT cliente_id, saldo FROM cota_credito) reservas GROUP BY cliente_id) rs ON rs.cliente_id = c.id " +
+            "GROUP BY c.id " +
+            "ON CONFLICT (cliente_id) DO UPDATE SET total_aberto = EXCLUDED.total_aberto, total_atrasado = EXCLUDED.total_atrasado, " +
+            "total_reservado = EXCLUDED.total_reservado " +
+            "WHERE (resumo_cliente.total_aberto, resumo_cliente.total_atrasado, resumo_cliente.total_reservado) " +
+            "IS DISTINCT FROM (EXCLUDED.total_aberto, EXCLUDED.total_atrasado, EXCLUDED.total_reservado) " +
+            "RETURNING cliente_id", nativeQuery = true)
+    List<UUID> reconstruir();
+
+}
@@ -0,0 +1,169 @@
+package com.fintech.pagamentos.service;
+
+import com.fintech.pagamentos.analise.ColunasFaturas;
+import com.fintech.pagamentos.analise.ColunasFaturas.Dimensao;
+import com.fintech.pagamentos.analise.ColunasFaturas.Filtro;
+import com.fintech.pagamentos.analise.LinhaAnaliseFatura;
+import com.fintech.pagamentos.dto.AnaliseFaturasDTO;
+import com.fintech.pagamentos.dto.GrupoAnaliseFaturasDTO;
+import com.fintech.pagamentos.event.ClienteAlteradoEvent;
+import com.fintech.pagamentos.event.ClienteBloqueadoEvent;
+import com.fintech.pagamentos.event.ClienteDesbloqueadoEvent;
+import com.fintech.pagamentos.event.FaturaPagaEvent;
+import com.fintech.pagamentos.event.FaturasArquivadasEvent;
+import com.fintech.pagamentos.event.FaturasAtrasadasEvent;
+import com.fintech.pagamentos.repository.ClienteRepository;
+import com.fintech.pagamentos.repository.FaturaRepository;
+import com.fintech.pagamentos.service.VersoesTabelasService.Tabela;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Agregações de GET /analytics/faturas, respondidas pelas colunas em memória (ColunasFaturas), sem consultar o banco.
+// As colunas são carregadas por inteiro na inicialização, depois do arquivamento e no cron de recarga, e mantidas
+// entre as cargas pelos eventos de pagamento, transição para atrasada e bloqueio/desbloqueio, depois do commit.
+// Esses eventos só chegam ao nó onde a alteração aconteceu: as alterações feitas em outras réplicas (inclusive a transição
+// diária, que roda num único nó) aparecem nas versões compartilhadas de clientes e faturas, e a verificação periódica
+// recarrega as colunas quando elas avançam.
+@Service
+public class AnaliseFaturasService {
+
+    private final FaturaRepository faturaRepository;
+    private final ClienteRepository clienteRepository;
+    private final VersoesTabelasService versoesTabelasService;
+    private final TransactionTemplate leitura;
+
+    private volatile ColunasFaturas colunas = new ColunasFaturas();
+    private volatile LocalDateTime carregadaEm;
+    // Alterações de outras réplicas já contidas nas colunas (lidas antes da última carga)
+    private volatile long externasFaturas;
+    private volatile long externasClientes;
+
+    // Alterações recebidas durante uma carga: aplicadas também às colunas novas antes da troca, já que a leitura
+    // do banco pode ter acontecido antes do commit delas. Todas são idempotentes.
+    private final Object recarga = new Object();
+    private final List<Consumer<ColunasFaturas>> pendentes = new ArrayList<>();
+    private boolean carregando;
+
+    public AnaliseFaturasService(FaturaRepository faturaRepository, ClienteRepository clienteRepository,
+                                 VersoesTabelasService versoesTabelasService, PlatformTransactionManager transactionManager) {
+        this.faturaRepository = faturaRepository;
+        this.clienteRepository = clienteRepository;
+        this.versoesTabelasService = versoesTabelasService;
+        this.leitura = new TransactionTemplate(transactionManager);
+        this.leitura.setReadOnly(true);
+    }
+
+    public AnaliseFaturasDTO agregar(String agruparPor, Character status, LocalDate vencimentoDe, LocalDate vencimentoAte) {
+        Dimensao dimensao = Dimensao.de(agruparPor);
+        if (status != null && status != 'B' && status != 'A' && status != 'P') {
+            throw new IllegalArgumentException("Status inválido: " + status + ". Valores permitidos: B, A, P.");
+        }
+        ColunasFaturas atuais = colunas;
+        List<GrupoAnaliseFaturasDTO> grupos = atuais.agregar(dimensao, Filtro.de(status, vencimentoDe, vencimentoAte)).stream()
+                .map(grupo -> new GrupoAnaliseFaturasDTO(grupo.chave(), grupo.quantidade(), BigDecimal.valueOf(grupo.centavos(), 2)))
+                .toList();
+        return new AnaliseFaturasDTO(dimensao.name().toLowerCase(), atuais.getLinhas(), carregadaEm, grupos);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${pagamentos.analise.recarga-cron:0 45 4 * * *}")
+    public void recarregar() {
+        synchronized (recarga) {
+            synchronized (this) {
+                carregando = true;
+                pendentes.clear();
+            }
+            try {
+                ColunasFaturas novas = new ColunasFaturas();
+                LocalDateTime inicio = LocalDateTime.now();
+                // Lidos antes da consulta: uma alteração externa durante a carga provoca outra recarga na próxima verificação
+                long faturas = versoesTabelasService.alteracoesExternas(Tabela.FATURAS);
+                long clientes = versoesTabelasService.alteracoesExternas(Tabela.CLIENTES);
+                leitura.executeWithoutResult(transacao -> {
+                    try (Stream<LinhaAnaliseFatura> linhas = faturaRepository.streamParaAnalise()) {
+                        linhas.forEach(novas::adicionar);
+                    }
+                });
+                synchronized (this) {
+                    pendentes.forEach(alteracao -> alteracao.accept(novas));
+                    colunas = novas;
+                    carregadaEm = inicio;
+                    externasFaturas = faturas;
+                    externasClientes = clientes;
+                }
+                System.out.println("Colunas de análise carregadas com " + novas.getLinhas() + " fatura(s).");
+            } finally {
+                synchronized (this) {
+                    carregando = false;
+                    pendentes.clear();
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${pagamentos.analise.sincronizacao-ms:30000}")
+    public void sincronizarComOutrasReplicas() {
+        if (versoesTabelasService.alteracoesExternas(Tabela.FATURAS) != externasFaturas
+                || versoesTabelasService.alteracoesExternas(Tabela.CLIENTES) != externasClientes) {
+            recarregar();
+        }
+    }
+
+    private synchronized void aplicar(Consumer<ColunasFaturas> alteracao) {
+        alteracao.accept(colunas);
+        if (carregando) {
+            pendentes.add(alteracao);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void aoPagarFatura(FaturaPagaEvent evento) {
+        aplicar(c -> c.alterarStatus(evento.faturaId(), 'P'));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void aoBloquearCliente(ClienteBloqueadoEvent evento) {
+        aplicar(c -> c.alterarBloqueio(evento.clienteId(), 'B'));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void aoDesbloquearCliente(ClienteDesbloqueadoEvent evento) {
+        aplicar(c -> c.alterarBloqueio(evento.clienteId(), 'A'));
+    }
+
+    // O evento não traz a situação do cliente: lida do banco só se o cliente tiver faturas nas colunas
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void aoAlterarCliente(ClienteAlteradoEvent evento) {
+        if (colunas.contemCliente(evento.clienteId())) {
+            clienteRepository.findById(evento.clienteId())
+                    .ifPresent(cliente -> aplicar(c -> c.alterarBloqueio(cliente.getId(), cliente.getStatusBloqueio())));
+        }
+    }
+
+    // O evento não traz as faturas: aplica a regra da transição (em aberto e vencida antes de hoje) às colunas
+    @EventListener
+    public void aoMarcarFaturasAtrasadas(FaturasAtrasadasEvent evento) {
+        LocalDate hoje = LocalDate.now();
+        aplicar(c -> c.marcarAtrasadasAntesDe(hoje));
+    }
+
+    // Faturas arquivadas saem das colunas: recarga completa, uma vez por execução do arquivamento
+    @EventListener
+    public void aoArquivarFaturas(FaturasArquivadasEvent evento) {
+        recarregar();
+    }
+}
@@ -0,0 +1,51 @@
+package com.fintech.pagamentos.service;
+
+import com.fintech.pagamentos.event.FaturasArquivadasEvent;
+import com.fintech.pagamentos.repository.FaturaArquivadaRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Arquivamento das faturas pagas com vencimento há mais de N meses: saem da tabela fatura (e dos seus índices)
+// para fatura_arquivada, em lotes com uma transação cada, para não manter muitas linhas travadas de uma vez.
+// As listagens do dia a dia leem só a tabela fatura; o histórico é lido quando pedido (?incluirArquivadas=true).
+@Service
+public class ArquivamentoFaturasService {
+
+    private final FaturaArquivadaRepository faturaArquivadaRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int meses;
+    private final int tamanhoLote;
+
+    public ArquivamentoFaturasService(FaturaArquivadaRepository faturaArquivadaRepository, ApplicationEventPublisher eventPublisher,
+                                      @Value("${pagamentos.arquivamento.meses:12}") int meses,
+                                      @Value("${pagamentos.arquivamento.tamanho-lote:1000}") int tamanhoLote) {
+        this.faturaArquivadaRepository = faturaArquivadaRepository;
+        this.eventPublisher = eventPublisher;
+        this.meses = meses;
+        this.tamanhoLote = tamanhoLote;
+    }
+
+    // Um lote menor que o tamanho configurado indica que não restam faturas a arquivar
+    // (ou que as restantes estão travadas por outra transação e ficam para a próxima execução)
+    @Scheduled(cron = "${pagamentos.arquivamento.cron:0 0 4 * * *}")
+    public int arquivarFaturasPagas() {
+        LocalDate limite = LocalDate.now().minusMonths(meses);
+        int arquivadas = 0;
+        int lote;
+        do {
+            lote = faturaArquivadaRepository.arquivarLote(limite, tamanhoLote);
+            arquivadas += lote;
+        } while (lote == tamanhoLote);
+
+        System.out.println(arquivadas + " fatura(s) paga(s) com vencimento anterior a " + limite + " arquivada(s) em: " + LocalDateTime.now());
+        if (arquivadas > 0) {
+            eventPublisher.publishEvent(new FaturasArquivadasEvent(arquivadas));
+        }
+        return arquivadas;
+    }
+}
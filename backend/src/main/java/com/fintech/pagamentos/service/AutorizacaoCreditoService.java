@@ -0,0 +1,282 @@
+package com.fintech.pagamentos.service;
+
+import com.fintech.pagamentos.autorizacao.LimiteCliente;
+import com.fintech.pagamentos.autorizacao.TabelaExposicao;
+import com.fintech.pagamentos.autorizacao.TabelaExposicao.Cota;
+import com.fintech.pagamentos.autorizacao.TabelaExposicao.Decisao;
+import com.fintech.pagamentos.autorizacao.TabelaExposicao.Resultado;
+import com.fintech.pagamentos.autorizacao.TabelaExposicao.Retirada;
+import com.fintech.pagamentos.dto.AutorizacaoResponseDTO;
+import com.fintech.pagamentos.entity.AutorizacaoCredito;
+import com.fintech.pagamentos.entity.CotaCredito;
+import com.fintech.pagamentos.event.ClienteAlteradoEvent;
+import com.fintech.pagamentos.event.ClienteBloqueadoEvent;
+import com.fintech.pagamentos.repository.AutorizacaoCreditoRepository;
+import com.fintech.pagamentos.repository.ClienteRepository;
+import com.fintech.pagamentos.repository.CotaCreditoRepository;
+import com.fintech.pagamentos.repository.CotaCreditoRepository.CotaConcedida;
+import com.fintech.pagamentos.repository.ResumoClienteRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+// Autorização de compras no limite de crédito (POST /clientes/{id}/autorizacoes). O disponível de cada cliente é o
+// limite menos as faturas em aberto e atrasadas e as reservas (resumo_cliente.total_reservado).
+// Cada réplica reserva do disponível uma cota por cliente (cota_credito, somada às reservas) e aprova as compras em
+// memória, na TabelaExposicao, até o saldo acabar; só então pede outra cota ao banco, num UPDATE condicional ao disponível.
+// O limite vale uma vez para todas as réplicas, e a aprovação comum não escreve no banco: as compras aprovadas são
+// gravadas em lote (autorizacao_credito) a cada pagamentos.autorizacao.gravacao-ms, descontadas do saldo da cota.
+// Se a réplica parar, as aprovadas ainda não gravadas se perdem e a cota dela expira (volta ao limite).
+// A réplica renova as próprias cotas e devolve o saldo das ociosas; o bloqueio e a alteração do cliente apagam as cotas
+// de todas as réplicas, que deixam de aprovar com elas na renovação seguinte (pagamentos.autorizacao.renovacao-ms).
+// O faturamento das compras não faz parte desta aplicação: cada reserva vale por pagamentos.autorizacao.validade-dias e,
+// vencida, é apagada e devolve o valor ao limite.
+@Service
+public class AutorizacaoCreditoService {
+
+    private static final int TAMANHO_LOTE = 1000;
+
+    private record Aprovada(UUID clienteId, UUID cotaId, BigDecimal valor, LocalDateTime criadaEm) {
+    }
+
+    private final ClienteRepository clienteRepository;
+    private final ResumoClienteRepository resumoClienteRepository;
+    private final CotaCreditoRepository cotaCreditoRepository;
+    private final AutorizacaoCreditoRepository autorizacaoCreditoRepository;
+    private final TransactionTemplate transacao;
+    private final long cotaCentavos;
+    private final int cotaValidadeSegundos;
+    private final long cotaOciosaMs;
+    private final int validadeDias;
+    private final String replica;
+    private final TabelaExposicao tabela = new TabelaExposicao();
+    private final ConcurrentLinkedQueue<Aprovada> aprovadas = new ConcurrentLinkedQueue<>();
+
+    public AutorizacaoCreditoService(ClienteRepository clienteRepository, ResumoClienteRepository resumoClienteRepository,
+                                     CotaCreditoRepository cotaCreditoRepository,
+                                     AutorizacaoCreditoRepository autorizacaoCreditoRepository,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${pagamentos.autorizacao.cota:100.00}") BigDecimal cota,
+                                     @Value("${pagamentos.autorizacao.cota-validade-segundos:30}") int cotaValidadeSegundos,
+                                     @Value("${pagamentos.autorizacao.cota-ociosa-ms:60000}") long cotaOciosaMs,
+                                     @Value("${pagamentos.autorizacao.validade-dias:7}") int validadeDias) {
+        this.clienteRepository = clienteRepository;
+        this.resumoClienteRepository = resumoClienteRepository;
+        this.cotaCreditoRepository = cotaCreditoRepository;
+        this.autorizacaoCreditoRepository = autorizacaoCreditoRepository;
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.cotaCentavos = TabelaExposicao.emCentavos(cota);
+        this.cotaValidadeSegundos = cotaValidadeSegundos;
+        this.cotaOciosaMs = cotaOciosaMs;
+        this.validadeDias = validadeDias;
+        this.replica = ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8); // pid@host + sufixo
+    }
+
+    // Vazio se o cliente não existe
+    public Optional<AutorizacaoResponseDTO> autorizar(UUID clienteId, BigDecimal valor) {
+        long centavos = TabelaExposicao.emCentavos(valor);
+        Decisao decisao = tabela.autorizar(clienteId, centavos, System.currentTimeMillis());
+        if (decisao.resultado() != Resultado.APROVADA) {
+            // Sem cota, cota vencida ou bloqueio nesta réplica: o banco concede o que falta para a compra (ou uma cota
+            // inteira, se maior) ou confirma a recusa
+            long saldo = decisao.saldo();
+            long inicio = System.currentTimeMillis();
+            Optional<CotaConcedida> concedida = transacao.execute(status -> conceder(clienteId, centavos - saldo, Math.max(centavos, cotaCentavos)));
+            if (concedida.isEmpty()) {
+                return recusadaPeloBanco(clienteId, valor, saldo);
+            }
+            tabela.creditar(clienteId, concedida.get().getId(), TabelaExposicao.emCentavos(concedida.get().getConcedido()),
+                    TabelaExposicao.emCentavos(concedida.get().getRestante()), validaAte(inicio));
+            decisao = tabela.autorizar(clienteId, centavos, System.currentTimeMillis());
+            if (decisao.resultado() != Resultado.APROVADA) {
+                // Compras simultâneas usaram o saldo concedido (ou o cliente acabou de ser bloqueado)
+                return Optional.of(recusada(clienteId, valor, decisao.resultado(), decisao.saldo() + decisao.restanteBanco()));
+            }
+        }
+        aprovadas.add(new Aprovada(clienteId, decisao.cotaId(), valor, LocalDateTime.now()));
+        return Optional.of(new AutorizacaoResponseDTO(clienteId, valor, true, null,
+                TabelaExposicao.emReais(decisao.saldo() + decisao.restanteBanco())));
+    }
+
+    private Optional<CotaConcedida> conceder(UUID clienteId, long minimo, long desejado) {
+        resumoClienteRepository.criarSeNaoExistir(clienteId);
+        return cotaCreditoRepository.conceder(clienteId, replica, TabelaExposicao.emReais(minimo), TabelaExposicao.emReais(desejado),
+                LocalDateTime.now().plusSeconds(cotaValidadeSegundos));
+    }
+
+    // A validade local vence na metade da validade no banco, antes que outra réplica possa apagar a cota por expiração
+    private long validaAte(long inicio) {
+        return inicio + cotaValidadeSegundos * 500L;
+    }
+
+    private Optional<AutorizacaoResponseDTO> recusadaPeloBanco(UUID clienteId, BigDecimal valor, long saldoCota) {
+        Optional<LimiteCliente> limite = clienteRepository.findLimite(clienteId);
+        if (limite.isEmpty()) {
+            return Optional.empty();
+        }
+        if (limite.get().bloqueado()) {
+            return Optional.of(recusada(clienteId, valor, Resultado.CLIENTE_BLOQUEADO, 0));
+        }
+        return Optional.of(recusada(clienteId, valor, Resultado.COTA_INSUFICIENTE, Math.max(limite.get().baseEmCentavos(), 0) + saldoCota));
+    }
+
+    private static AutorizacaoResponseDTO recusada(UUID clienteId, BigDecimal valor, Resultado resultado, long disponivel) {
+        String motivo = resultado == Resultado.CLIENTE_BLOQUEADO ? "CLIENTE_BLOQUEADO" : "LIMITE_INSUFICIENTE";
+        return new AutorizacaoResponseDTO(clienteId, valor, false, motivo, TabelaExposicao.emReais(disponivel));
+    }
+
+    // Grava as compras aprovadas em lotes, cada um numa transação. Um lote que falha volta para a fila.
+    @Scheduled(fixedDelayString = "${pagamentos.autorizacao.gravacao-ms:100}")
+    public void gravarAutorizacoes() {
+        List<Aprovada> lote;
+        do {
+            lote = new ArrayList<>();
+            for (Aprovada aprovada; lote.size() < TAMANHO_LOTE && (aprovada = aprovadas.poll()) != null; ) {
+                lote.add(aprovada);
+            }
+            if (lote.isEmpty()) {
+                return;
+            }
+            List<Aprovada> gravando = lote;
+            try {
+                transacao.executeWithoutResult(status -> gravar(gravando));
+            } catch (RuntimeException e) {
+                aprovadas.addAll(lote);
+                System.out.println("Falha ao gravar " + lote.size() + " autorização(ões) de crédito: " + e.getMessage());
+                return;
+            }
+        } while (lote.size() == TAMANHO_LOTE);
+    }
+
+    private void gravar(List<Aprovada> lote) {
+        autorizacaoCreditoRepository.saveAll(lote.stream()
+                .map(a -> new AutorizacaoCredito(null, a.clienteId(), a.valor(), a.criadaEm(), a.criadaEm().plusDays(validadeDias)))
+                .toList());
+        Map<UUID, List<Aprovada>> porCota = lote.stream().collect(Collectors.groupingBy(Aprovada::cotaId));
+        porCota.forEach((cotaId, compras) -> {
+            BigDecimal valor = compras.stream().map(Aprovada::valor).reduce(BigDecimal.ZERO, BigDecimal::add);
+            if (cotaCreditoRepository.consumir(cotaId, valor) == 0) {
+                // Cota revogada ou expirada depois das aprovações: o saldo dela já voltou ao limite, e as compras não
+                resumoClienteRepository.somarReserva(compras.get(0).clienteId(), valor);
+            }
+        });
+    }
+
+    // Heartbeat das cotas: devolve o saldo das ociosas, renova as demais no banco e descarta as que não estão mais lá
+    @Scheduled(fixedDelayString = "${pagamentos.autorizacao.renovacao-ms:5000}")
+    public void renovarCotas() {
+        long inicio = System.currentTimeMillis();
+        devolver(tabela.retirarOciosas(inicio - cotaOciosaMs));
+        Map<UUID, Cota> cotas = tabela.cotas();
+        if (cotas.isEmpty()) {
+            return;
+        }
+        List<UUID> renovadas = transacao.execute(status ->
+                cotaCreditoRepository.renovar(replica, LocalDateTime.now().plusSeconds(cotaValidadeSegundos)));
+        int descartadas = tabela.renovar(cotas, new HashSet<>(renovadas), validaAte(inicio));
+        if (descartadas > 0) {
+            System.out.println(descartadas + " cota(s) de crédito que não existem mais no banco descartada(s) da réplica " + replica + ".");
+        }
+    }
+
+    private void devolver(List<Retirada> retiradas) {
+        for (Retirada retirada : retiradas) {
+            try {
+                transacao.executeWithoutResult(status -> {
+                    resumoClienteRepository.travar(retirada.clienteId());
+                    cotaCreditoRepository.devolver(retirada.cotaId(), TabelaExposicao.emReais(retirada.centavos()));
+                    cotaCreditoRepository.apagarSemSaldo(retirada.cotaId());
+                });
+            } catch (RuntimeException e) {
+                tabela.desfazerRetirada(retirada);
+                System.out.println("Falha ao devolver a cota de crédito do cliente ID " + retirada.clienteId() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // Encerramento da réplica: grava as compras aprovadas e devolve o saldo de todas as cotas
+    @PreDestroy
+    public void encerrar() {
+        gravarAutorizacoes();
+        devolver(tabela.retirarOciosas(Long.MAX_VALUE));
+    }
+
+    // Reservas vencidas (uma réplica de cada vez) e cotas de réplicas que pararam voltam ao limite
+    @Scheduled(fixedDelayString = "${pagamentos.autorizacao.expiracao-ms:60000}")
+    public void expirarReservas() {
+        LocalDateTime agora = LocalDateTime.now();
+        long reservas = 0;
+        Long lote;
+        do {
+            lote = transacao.execute(status -> autorizacaoCreditoRepository.travarExpiracao()
+                    ? autorizacaoCreditoRepository.expirar(agora, TAMANHO_LOTE) : null);
+            reservas += lote == null ? 0 : lote;
+        } while (lote != null && lote == TAMANHO_LOTE);
+
+        int cotas = 0;
+        for (CotaCredito cota : cotaCreditoRepository.findExpiradas(agora, Limit.of(TAMANHO_LOTE))) {
+            cotas += transacao.execute(status -> {
+                resumoClienteRepository.travar(cota.getClienteId());
+                return cotaCreditoRepository.apagarExpirada(cota.getId(), agora);
+            });
+        }
+        if (reservas > 0 || cotas > 0) {
+            System.out.println(reservas + " reserva(s) de crédito vencida(s) e " + cotas + " cota(s) expirada(s) devolvida(s) ao limite.");
+        }
+    }
+
+    // Apaga as cotas do cliente em todas as réplicas, na transação da alteração; as outras réplicas percebem na renovação
+    private void revogarCotas(UUID clienteId) {
+        resumoClienteRepository.travar(clienteId);
+        cotaCreditoRepository.revogar(clienteId);
+    }
+
+    // Na publicação, dentro da transação do bloqueio: nenhuma compra é aprovada nesta réplica enquanto o commit acontece
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void aoBloquearCliente(ClienteBloqueadoEvent evento) {
+        tabela.bloquear(evento.clienteId());
+        revogarCotas(evento.clienteId());
+    }
+
+    // Repetido depois do commit, caso uma cota concedida antes do bloqueio tenha chegado à tabela depois dele
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void aoConfirmarBloqueio(ClienteBloqueadoEvent evento) {
+        tabela.bloquear(evento.clienteId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_ROLLBACK)
+    public void aoDesfazerBloqueio(ClienteBloqueadoEvent evento) {
+        tabela.desbloquear(evento.clienteId());
+    }
+
+    // Cadastro ou atualização: o limite de crédito e o status podem ter mudado, e as cotas concedidas antes não valem mais.
+    // Cada réplica, esta inclusive, descarta a sua na renovação; a cota nova espera o commit da alteração (o cliente
+    // fica travado até lá) e já é concedida com o limite novo.
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void aoAlterarCliente(ClienteAlteradoEvent evento) {
+        revogarCotas(evento.clienteId());
+    }
+}
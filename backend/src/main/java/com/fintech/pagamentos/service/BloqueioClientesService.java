@@ -0,0 +1,123 @@
+package com.fintech.pagamentos.service;
+
+import com.fintech.pagamentos.batch.ResultadoParticao;
+import com.fintech.pagamentos.event.ClienteBloqueadoEvent;
+import com.fintech.pagamentos.event.ClienteDesbloqueadoEvent;
+import com.fintech.pagamentos.event.FaturaPagaEvent;
+import com.fintech.pagamentos.repository.ClienteRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+// Bloqueio e desbloqueio incrementais: o status de cada cliente é recalculado quando as faturas dele mudam,
+// sem varrer todos os clientes. Um cliente fica bloqueado enquanto tiver fatura atrasada vencida há mais de 3 dias.
+// - Pagamento de fatura atrasada: se o cliente está bloqueado e não resta outra fatura nessa situação, é desbloqueado.
+// - Virada do dia: são bloqueados apenas os clientes com faturas que acabaram de passar dos 3 dias de atraso.
+// As duas operações travam a linha do cliente antes de consultar as faturas dele, então um pagamento e um bloqueio
+// simultâneos do mesmo cliente são serializados e o segundo enxerga o resultado do primeiro.
+@Service
+public class BloqueioClientesService {
+
+    public static final int DIAS_ATRASO_PARA_BLOQUEIO = 3;
+    private static final int TAMANHO_LOTE = 1000;
+    private static final String JOB_BLOQUEIO_INCREMENTAL = "bloqueio-incremental";
+
+    private final ClienteRepository clienteRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JobParticionadoService jobParticionadoService;
+    private final TransactionTemplate transactionTemplate;
+    private final int recuperacaoDias;
+
+    public BloqueioClientesService(ClienteRepository clienteRepository,
+                                   ApplicationEventPublisher eventPublisher,
+                                   JobParticionadoService jobParticionadoService,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${pagamentos.bloqueio.recuperacao-dias:7}") int recuperacaoDias) {
+        this.clienteRepository = clienteRepository;
+        this.eventPublisher = eventPublisher;
+        this.jobParticionadoService = jobParticionadoService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.recuperacaoDias = recuperacaoDias;
+    }
+
+    public static LocalDate dataLimite(LocalDate hoje) {
+        return hoje.minusDays(DIAS_ATRASO_PARA_BLOQUEIO);
+    }
+
+    // Executa na transação do pagamento; apenas o pagamento de uma fatura atrasada pode desbloquear o cliente
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void desbloquearSeQuitado(FaturaPagaEvent evento) {
+        if (evento.statusAnterior() == null || evento.statusAnterior() != 'A') {
+            return;
+        }
+
+        Optional<Character> status = clienteRepository.travarStatusBloqueio(evento.clienteId());
+        if (status.isEmpty() || status.get() != 'B') {
+            return;
+        }
+
+        if (clienteRepository.desbloquearSemFaturasAtrasadas(evento.clienteId(), dataLimite(LocalDate.now())) > 0) {
+            System.out.println("Cliente ID " + evento.clienteId() + " desbloqueado após quitar as faturas atrasadas.");
+            eventPublisher.publishEvent(new ClienteDesbloqueadoEvent(evento.clienteId()));
+        }
+    }
+
+    // Considera as faturas vencidas nos últimos recuperacao-dias antes da data limite (e não só no último dia),
+    // para cobrir viradas de dia em que a aplicação estava parada. Também executa na inicialização.
+    // Com várias réplicas, só o nó que reivindicar o job do dia executa; os candidatos são lidos sem trava e cada lote
+    // trava e bloqueia os seus clientes numa transação própria, sem segurar as linhas de todos até o último lote.
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 0 0 * * ?")
+    public void bloquearClientesComNovosAtrasos() {
+        LocalDate hoje = LocalDate.now();
+        jobParticionadoService.executarEmUmNo(JOB_BLOQUEIO_INCREMENTAL, hoje, () -> bloquear(dataLimite(hoje)));
+    }
+
+    private ResultadoParticao bloquear(LocalDate dataLimite) {
+        List<UUID> candidatos = clienteRepository.findAtivosComFaturasAtrasadasVencidasEntre(
+                dataLimite.minusDays(recuperacaoDias), dataLimite);
+
+        int bloqueados = 0;
+        int lotesComFalha = 0;
+        for (int inicio = 0; inicio < candidatos.size(); inicio += TAMANHO_LOTE) {
+            List<UUID> lote = candidatos.subList(inicio, Math.min(inicio + TAMANHO_LOTE, candidatos.size()));
+            try {
+                bloqueados += transactionTemplate.execute(status -> bloquearLote(lote, dataLimite));
+            } catch (RuntimeException e) {
+                // Os lotes já confirmados continuam valendo; o job fica com falha e é tentado de novo
+                lotesComFalha++;
+                System.out.println("Falha ao bloquear lote de " + lote.size() + " cliente(s): " + e.getMessage());
+            }
+        }
+        System.out.println("Bloqueio incremental: " + candidatos.size() + " cliente(s) verificado(s), " + bloqueados + " bloqueado(s).");
+        if (lotesComFalha > 0) {
+            throw new RuntimeException(lotesComFalha + " lote(s) do bloqueio incremental falharam.");
+        }
+        return new ResultadoParticao(candidatos.size(), bloqueados);
+    }
+
+    // A trava vem antes do bloqueio: um pagamento em andamento de um dos clientes termina antes e o bloqueio enxerga a fatura paga
+    private int bloquearLote(List<UUID> lote, LocalDate dataLimite) {
+        clienteRepository.travarPorIds(lote);
+        int bloqueados = 0;
+        for (UUID id : clienteRepository.bloquearClientesComFaturasAtrasadas(dataLimite, lote)) {
+            System.out.println("Cliente ID " + id + " bloqueado por fatura atrasada há mais de " + DIAS_ATRASO_PARA_BLOQUEIO + " dias.");
+            eventPublisher.publishEvent(new ClienteBloqueadoEvent(id));
+            bloqueados++;
+        }
+        return bloqueados;
+    }
+}
@@ -0,0 +1,130 @@
+package com.fintech.pagamentos.service;
+
+import com.fintech.pagamentos.dto.ClienteResponseDTO;
+import com.fintech.pagamentos.dto.FaturaResponseDTO;
+import com.fintech.pagamentos.dto.PaginaDTO;
+import com.fintech.pagamentos.event.ClienteAlteradoEvent;
+import com.fintech.pagamentos.event.ClienteBloqueadoEvent;
+import com.fintech.pagamentos.event.ClienteDesbloqueadoEvent;
+import com.fintech.pagamentos.event.FaturaPagaEvent;
+import com.fintech.pagamentos.event.FaturasArquivadasEvent;
+import com.fintech.pagamentos.event.FaturasAtrasadasEvent;
+import com.fintech.pagamentos.service.VersoesTabelasService.Tabela;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Cache em memória das consultas mais frequentes: GET /clientes/{id} (DTO do cliente) e GET /faturas/{clienteId}
+// (páginas de faturas do cliente). Caffeine (W-TinyLFU) com limite de tamanho e TTL; as métricas de acertos, falhas
+// e descartes ficam em /actuator/metrics/cache.gets e cache.evictions (tag cache=clientes ou faturas-cliente).
+// Neste nó, as entradas são invalidadas por cliente depois do commit de cada alteração que muda o resultado da consulta.
+// As chaves incluem também as versões compartilhadas das tabelas (VersoesTabelasService): uma alteração feita em outra
+// réplica troca as chaves de todas as entradas em até dois ciclos de sincronização, em vez de esperar o TTL.
+@Service
+public class CacheConsultasService {
+
+    // A geração do cliente faz parte da chave: invalidar as faturas de um cliente é trocar a geração, sem procurar
+    // as páginas dele no cache. Páginas da geração anterior (inclusive uma carregada durante a alteração) não são
+    // mais encontradas e saem pelo limite de tamanho ou pelo TTL.
+    private record ChavePagina(UUID clienteId, long geracao, long versaoFaturas, long versaoClientes, String next, int limite) {
+    }
+
+    private record ChaveCliente(UUID clienteId, long versaoClientes) {
+    }
+
+    private final VersoesTabelasService versoes;
+    private final Cache<ChaveCliente, ClienteResponseDTO> clientes;
+    private final Cache<ChavePagina, PaginaDTO<FaturaResponseDTO>> paginasFaturas;
+    private final Cache<UUID, Long> geracoes;
+    private final AtomicLong ultimaGeracao = new AtomicLong();
+
+    public CacheConsultasService(VersoesTabelasService versoes, MeterRegistry meterRegistry,
+                                 @Value("${pagamentos.cache.clientes-maximo:100000}") long clientesMaximo,
+                                 @Value("${pagamentos.cache.faturas-maximo-itens:500000}") long faturasMaximoItens,
+                                 @Value("${pagamentos.cache.ttl-minutos:10}") long ttlMinutos) {
+        this.versoes = versoes;
+        Duration ttl = Duration.ofMinutes(ttlMinutos);
+        this.clientes = Caffeine.newBuilder()
+                .maximumSize(clientesMaximo)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.paginasFaturas = Caffeine.newBuilder()
+                .maximumWeight(faturasMaximoItens)
+                .weigher((ChavePagina chave, PaginaDTO<FaturaResponseDTO> pagina) -> pagina.getItens().size() + 1)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.geracoes = Caffeine.newBuilder()
+                .maximumSize(clientesMaximo)
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, clientes, "clientes");
+        CaffeineCacheMetrics.monitor(meterRegistry, paginasFaturas, "faturas-cliente");
+    }
+
+    // Cliente não encontrado não é guardado: o cadastro seguinte já é encontrado na próxima consulta
+    public Optional<ClienteResponseDTO> buscarCliente(UUID clienteId, Function<UUID, Optional<ClienteResponseDTO>> carregar) {
+        return Optional.ofNullable(clientes.get(chaveCliente(clienteId), chave -> carregar.apply(chave.clienteId()).orElse(null)));
+    }
+
+    public PaginaDTO<FaturaResponseDTO> buscarFaturasDoCliente(UUID clienteId, String next, int limite,
+                                                               Supplier<PaginaDTO<FaturaResponseDTO>> carregar) {
+        long geracao = geracoes.get(clienteId, id -> ultimaGeracao.incrementAndGet());
+        ChavePagina chavePagina = new ChavePagina(clienteId, geracao, versoes.versaoBanco(Tabela.FATURAS),
+                versoes.versaoBanco(Tabela.CLIENTES), next, limite);
+        return paginasFaturas.get(chavePagina, chave -> carregar.get());
+    }
+
+    // Entradas de versões anteriores não são mais encontradas: basta invalidar a da versão atual
+    private ChaveCliente chaveCliente(UUID clienteId) {
+        return new ChaveCliente(clienteId, versoes.versaoBanco(Tabela.CLIENTES));
+    }
+
+    // Nome do cliente aparece nas faturas, então o cadastro/atualização também invalida as páginas de faturas
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void aoAlterarCliente(ClienteAlteradoEvent evento) {
+        clientes.invalidate(chaveCliente(evento.clienteId()));
+        geracoes.invalidate(evento.clienteId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void aoBloquearCliente(ClienteBloqueadoEvent evento) {
+        clientes.invalidate(chaveCliente(evento.clienteId()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void aoDesbloquearCliente(ClienteDesbloqueadoEvent evento) {
+        clientes.invalidate(chaveCliente(evento.clienteId()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void aoPagarFatura(FaturaPagaEvent evento) {
+        geracoes.invalidate(evento.clienteId());
+    }
+
+    // A transição diária não informa os clientes afetados: todas as páginas de faturas são descartadas, uma vez por dia
+    @EventListener
+    public void aoMarcarFaturasAtrasadas(FaturasAtrasadasEvent evento) {
+        geracoes.invalidateAll();
+    }
+
+    // As páginas em cache podem conter faturas que acabaram de ir para o histórico
+    @EventListener
+    public void aoArquivarFaturas(FaturasArquivadasEvent evento) {
+        geracoes.invalidateAll();
+    }
+}
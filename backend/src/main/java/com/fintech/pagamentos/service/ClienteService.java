@@ -1,13 +1,23 @@
 package com.fintech.pagamentos.service;
 
+import com.fintech.pagamentos.batch.IntervaloUuid;
+import com.fintech.pagamentos.batch.ResultadoParticao;
+import com.fintech.pagamentos.dto.ClienteFiltroDTO;
 import com.fintech.pagamentos.dto.ClienteRequestDTO;
 import com.fintech.pagamentos.dto.ClienteResponseDTO;
+import com.fintech.pagamentos.dto.PaginaDTO;
 import com.fintech.pagamentos.entity.Cliente;
-import com.fintech.pagamentos.entity.Fatura;
+import com.fintech.pagamentos.event.ClienteAlteradoEvent;
+import com.fintech.pagamentos.event.ClienteBloqueadoEvent;
+import com.fintech.pagamentos.mapper.ClienteMapper;
+import com.fintech.pagamentos.pagination.CursorCliente;
+import com.fintech.pagamentos.pagination.Paginacao;
 import com.fintech.pagamentos.repository.ClienteRepository;
-import com.fintech.pagamentos.repository.FaturaRepository;
-import org.modelmapper.ModelMapper;
-import org.springframework.cglib.core.Local;
+import com.fintech.pagamentos.repository.ClienteSpecifications;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,27 +33,45 @@ import java.util.stream.Collectors;
 @Service
 public class ClienteService {
 
+    public static final String JOB_BLOQUEIO = "BLOQUEIO_CLIENTES_ATRASADOS";
+
     private final ClienteRepository clienteRepository;
-    private final FaturaRepository faturaRepository;
-    private final ModelMapper modelMapper;
+    private final ClienteMapper clienteMapper;
+    private final JobParticionadoService jobParticionadoService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheConsultasService cacheConsultas;
 
-    public ClienteService(ClienteRepository clienteRepository, FaturaRepository faturaRepository, ModelMapper modelMapper) {
+    public ClienteService(ClienteRepository clienteRepository, ClienteMapper clienteMapper, JobParticionadoService jobParticionadoService,
+                          ApplicationEventPublisher eventPublisher, CacheConsultasService cacheConsultas) {
         this.clienteRepository = clienteRepository;
-        this.faturaRepository = faturaRepository;
-        this.modelMapper = modelMapper;
+        this.clienteMapper = clienteMapper;
+        this.jobParticionadoService = jobParticionadoService;
+        this.eventPublisher = eventPublisher;
+        this.cacheConsultas = cacheConsultas;
     }
 
-    @Transactional
-    public List<ClienteResponseDTO> listarTodosClientes() {
-        return clienteRepository.findAll().stream()
-                .map(cliente -> modelMapper.map(cliente, ClienteResponseDTO.class))
+    // Uma única consulta com LIMIT por página, contendo apenas os filtros informados
+    @Transactional(readOnly = true)
+    public PaginaDTO<ClienteResponseDTO> listarClientes(ClienteFiltroDTO filtro, String next, Integer limit) {
+
+        CursorCliente cursor = CursorCliente.decodificar(next);
+        int limite = Paginacao.normalizarLimite(limit);
+
+        List<Cliente> clientes = clienteRepository.findBy(
+                ClienteSpecifications.porFiltro(filtro, cursor != null ? cursor.id() : null),
+                query -> query.sortBy(Sort.by("id")).limit(limite + 1).all());
+
+        List<ClienteResponseDTO> dtos = clientes.stream()
+                .map(clienteMapper::toResponseDTO)
                 .collect(Collectors.toList());
+
+        return Paginacao.montarPagina(dtos, limite, ultimo -> new CursorCliente(ultimo.getId()).codificar());
     }
 
     @Transactional
     public ClienteResponseDTO cadastrarCliente(ClienteRequestDTO clienteDto) {
 
-        Cliente cliente = modelMapper.map(clienteDto, Cliente.class);
+        Cliente cliente = clienteMapper.toEntity(clienteDto);
 
         // Por default os clientes tem statusBloqueio Ativo (A)
         if (cliente.getStatusBloqueio() == null) {
@@ -56,16 +84,18 @@ public class ClienteService {
         if (cliente.getStatusBloqueio() == 'B' && cliente.getLimiteCredito().compareTo(BigDecimal.ZERO) != 0) {
             cliente.setLimiteCredito(BigDecimal.ZERO);
         }
+        cliente.setOrigemBloqueio(cliente.getStatusBloqueio() == 'B' ? Character.valueOf('M') : null);
 
         Cliente salvo = clienteRepository.save(cliente);
+        eventPublisher.publishEvent(new ClienteAlteradoEvent(salvo.getId()));
 
-        return modelMapper.map(salvo, ClienteResponseDTO.class); // Mapeia entidade salva para DTO de resposta
+        return clienteMapper.toResponseDTO(salvo); // Mapeia entidade salva para DTO de resposta
     }
 
-    @Transactional
+    // Sem transação própria: um acerto no cache não ocupa conexão com o banco
     public Optional<ClienteResponseDTO> buscarClientePorId(UUID id) {
-        return clienteRepository.findById(id)
-                .map(cliente -> modelMapper.map(cliente, ClienteResponseDTO.class));
+        return cacheConsultas.buscarCliente(id, chave -> clienteRepository.findById(chave)
+                .map(clienteMapper::toResponseDTO));
     }
 
     @Transactional
@@ -74,42 +104,66 @@ public class ClienteService {
         Cliente clienteExistente = clienteRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Cliente não encontrado com o ID: " + id));
 
-        modelMapper.map(clienteDto, clienteExistente); // Mapeia DTO de requisição para entidade existente
+        Character statusAnterior = clienteExistente.getStatusBloqueio();
+        clienteMapper.atualizarEntity(clienteDto, clienteExistente); // Copia os campos informados no DTO para a entidade existente
         // Regra de Negócio: Se o cliente for bloqueado, limite de crédito vira 0
         if (clienteExistente.getStatusBloqueio() == 'B' && clienteExistente.getLimiteCredito().compareTo(BigDecimal.ZERO) != 0) {
             clienteExistente.setLimiteCredito(BigDecimal.ZERO);
         }
+        // Bloqueio ou desbloqueio pelo operador: o bloqueio passa a ser manual (não é desfeito ao quitar as faturas)
+        // e o limite guardado pelo job deixa de valer. Sem mudança de status, um bloqueio do job continua sendo do job.
+        if (!clienteExistente.getStatusBloqueio().equals(statusAnterior)) {
+            clienteExistente.setOrigemBloqueio(clienteExistente.getStatusBloqueio() == 'B' ? Character.valueOf('M') : null);
+            clienteExistente.setLimiteAnterior(null);
+        }
 
         Cliente atualizado = clienteRepository.save(clienteExistente);
+        eventPublisher.publishEvent(new ClienteAlteradoEvent(id));
 
-        return modelMapper.map(atualizado, ClienteResponseDTO.class);
+        return clienteMapper.toResponseDTO(atualizado);
 
     }
 
-    @Transactional
-    public List<ClienteResponseDTO> listarClientesBloqueados() {
-        return clienteRepository.findByStatusBloqueio('B').stream()
-                .map(cliente -> modelMapper.map(cliente, ClienteResponseDTO.class))
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public PaginaDTO<ClienteResponseDTO> listarClientesBloqueados(String next, Integer limit) {
+        ClienteFiltroDTO filtro = new ClienteFiltroDTO();
+        filtro.setStatusBloqueio('B');
+        return listarClientes(filtro, next, limit);
     }
 
-    @Scheduled(cron = "0 0 0 * * ?")
-    @Transactional
+    // Reconciliação completa (todos os clientes). O bloqueio do dia a dia é incremental (BloqueioClientesService);
+    // esta verificação só corrige clientes que ficaram de fora, por isso roda com menos frequência (padrão: semanal).
+    @Scheduled(cron = "${pagamentos.bloqueio.reconciliacao-cron:0 0 3 * * SUN}")
     public void verificarEBloquearClientesAtrasados() {
         System.out.println("Executando job de verificação e bloqueio de clientes em: " + LocalDateTime.now());
-        LocalDate tresDiasAtras = LocalDate.now().minusDays(3);
-
-        List<Fatura> faturasCriticas = faturaRepository.findByStatusAndDataVencimentoBefore('A', tresDiasAtras);
-
-        for (Fatura fatura : faturasCriticas) {
-            Cliente cliente = fatura.getCliente();
-            if (cliente != null && cliente.getStatusBloqueio() == 'A') {
-                cliente.setStatusBloqueio('B');
-                cliente.setLimiteCredito(BigDecimal.ZERO);
-                clienteRepository.save(cliente);
-                System.out.println("Cliente " + cliente.getNome() + " (CPF: " + cliente.getCpf() + ") bloqueado devido a fatura ID " + fatura.getId() + " atrasada.");
-            }
+        LocalDate hoje = LocalDate.now();
+        jobParticionadoService.executar(JOB_BLOQUEIO, hoje, this::particionarClientes,
+                intervalo -> bloquearNoIntervalo(intervalo, BloqueioClientesService.dataLimite(hoje)));
+    }
+
+    // Se a aplicação parou no meio do job (mesmo que de outro dia), retoma as partições que faltaram com a data limite
+    // da própria execução
+    @EventListener(ApplicationReadyEvent.class)
+    public void retomarBloqueioInterrompido() {
+        jobParticionadoService.retomar(JOB_BLOQUEIO, this::particionarClientes,
+                dataReferencia -> intervalo -> bloquearNoIntervalo(intervalo, BloqueioClientesService.dataLimite(dataReferencia)));
+    }
+
+    // Faixas com a mesma quantidade de clientes, calculadas pelos IDs existentes: com chaves UUID v7 os IDs se concentram
+    // no período de criação e a divisão uniforme do espaço de UUIDs deixaria quase todos numa única partição
+    private List<IntervaloUuid> particionarClientes(int quantidade) {
+        return IntervaloUuid.particionar(clienteRepository.findLimitesDeFaixas(quantidade));
+    }
+
+    // Cada partição (faixa de IDs de clientes) é bloqueada com uma única instrução set-based, na transação da partição
+    private ResultadoParticao bloquearNoIntervalo(IntervaloUuid intervalo, LocalDate dataLimite) {
+        long lidos = clienteRepository.countByIdBetween(intervalo.inicio(), intervalo.fim());
+        List<UUID> bloqueados = clienteRepository.bloquearClientesComFaturasAtrasadas(dataLimite, intervalo.inicio(), intervalo.fim());
+        for (UUID id : bloqueados) {
+            System.out.println("Cliente ID " + id + " bloqueado por fatura atrasada há mais de 3 dias.");
+            eventPublisher.publishEvent(new ClienteBloqueadoEvent(id)); // Gravado no outbox na transação da partição
         }
+        return new ResultadoParticao(lidos, bloqueados.size());
     }
 
 }
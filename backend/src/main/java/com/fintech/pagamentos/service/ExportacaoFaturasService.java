@@ -0,0 +1,125 @@
+package com.fintech.pagamentos.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fintech.pagamentos.dto.FaturaResponseDTO;
+import com.fintech.pagamentos.repository.FaturaRepository;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+// Exportação completa das faturas (GET /faturas/export).
+// As linhas são lidas do banco por um cursor, já projetadas em DTOs (nada fica no contexto de persistência),
+// e escritas direto na resposta, uma a uma, então o uso de memória não depende do tamanho da tabela.
+@Service
+public class ExportacaoFaturasService {
+
+    private static final String CABECALHO_CSV = "id,clienteId,clienteNome,dataVencimento,dataPagamento,valor,status";
+
+    private final FaturaRepository faturaRepository;
+    private final ObjectMapper objectMapper;
+
+    public ExportacaoFaturasService(FaturaRepository faturaRepository, ObjectMapper objectMapper) {
+        this.faturaRepository = faturaRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    public enum Formato {
+        NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+        CSV(MediaType.parseMediaType("text/csv"), "csv");
+
+        private final MediaType mediaType;
+        private final String extensao;
+
+        Formato(MediaType mediaType, String extensao) {
+            this.mediaType = mediaType;
+            this.extensao = extensao;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtensao() {
+            return extensao;
+        }
+
+        public static Formato de(String valor) {
+            try {
+                return Formato.valueOf(valor.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Formato de exportação inválido: " + valor + ". Valores permitidos: ndjson, csv.");
+            }
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public long exportar(Formato formato, OutputStream saida) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+        long linhas = 0;
+
+        try (Stream<FaturaResponseDTO> faturas = faturaRepository.streamAll()) {
+            Iterator<FaturaResponseDTO> iterator = faturas.iterator();
+
+            if (formato == Formato.CSV) {
+                writer.write(CABECALHO_CSV);
+                writer.write('\n');
+                while (iterator.hasNext()) {
+                    escreverLinhaCsv(writer, iterator.next());
+                    linhas++;
+                }
+            } else {
+                SequenceWriter sequenceWriter = objectMapper.writer().withRootValueSeparator("\n").writeValues(writer);
+                while (iterator.hasNext()) {
+                    sequenceWriter.write(iterator.next());
+                    linhas++;
+                }
+                sequenceWriter.flush();
+                if (linhas > 0) {
+                    writer.write('\n'); // O separador só é escrito entre os objetos
+                }
+            }
+        }
+
+        writer.flush();
+        return linhas;
+    }
+
+    private void escreverLinhaCsv(Writer writer, FaturaResponseDTO dto) throws IOException {
+        writer.write(String.valueOf(dto.getId()));
+        writer.write(',');
+        writer.write(String.valueOf(dto.getClienteId()));
+        writer.write(',');
+        writer.write(escaparCsv(dto.getClienteNome()));
+        writer.write(',');
+        writer.write(String.valueOf(dto.getDataVencimento()));
+        writer.write(',');
+        writer.write(dto.getDataPagamento() != null ? dto.getDataPagamento().toString() : "");
+        writer.write(',');
+        writer.write(dto.getValor().toPlainString());
+        writer.write(',');
+        writer.write(dto.getStatus());
+        writer.write('\n');
+    }
+
+    // Campos com vírgula, aspas ou quebra de linha vão entre aspas (RFC 4180)
+    static String escaparCsv(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+}
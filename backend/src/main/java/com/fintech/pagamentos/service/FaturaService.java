@@ -3,101 +3,154 @@ package com.fintech.pagamentos.service;
 import com.fintech.pagamentos.dto.ClienteResponseDTO;
 import com.fintech.pagamentos.dto.FaturaPaymentRequestDTO;
 import com.fintech.pagamentos.dto.FaturaResponseDTO;
-import com.fintech.pagamentos.entity.Fatura;
+import com.fintech.pagamentos.dto.PaginaDTO;
+import com.fintech.pagamentos.event.FaturaPagaEvent;
+import com.fintech.pagamentos.exception.FaturaJaPagaException;
+import com.fintech.pagamentos.exception.FaturaNaoEncontradaException;
+import com.fintech.pagamentos.mapper.FaturaMapper;
+import com.fintech.pagamentos.pagination.CursorFatura;
+import com.fintech.pagamentos.pagination.Paginacao;
+import com.fintech.pagamentos.repository.FaturaArquivadaRepository;
 import com.fintech.pagamentos.repository.FaturaRepository;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Service
 public class FaturaService {
 
+    // Mesma ordem do ORDER BY data_vencimento, id do banco: o PostgreSQL compara os bytes do UUID sem sinal
+    private static final Comparator<FaturaResponseDTO> ORDEM_CURSOR = Comparator
+            .comparing(FaturaResponseDTO::getDataVencimento)
+            .thenComparing(FaturaResponseDTO::getId, Comparator
+                    .comparing((UUID id) -> id.getMostSignificantBits(), Long::compareUnsigned)
+                    .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned));
+
     private final FaturaRepository faturaRepository;
-    private final ModelMapper modelMapper;
+    private final FaturaArquivadaRepository faturaArquivadaRepository;
+    private final FaturaMapper faturaMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheConsultasService cacheConsultas;
 
     @Autowired
-    public FaturaService(FaturaRepository faturaRepository, ModelMapper modelMapper) {
+    public FaturaService(FaturaRepository faturaRepository, FaturaArquivadaRepository faturaArquivadaRepository, FaturaMapper faturaMapper,
+                         ApplicationEventPublisher eventPublisher, CacheConsultasService cacheConsultas) {
         this.faturaRepository = faturaRepository;
-        this.modelMapper = modelMapper;
+        this.faturaArquivadaRepository = faturaArquivadaRepository;
+        this.faturaMapper = faturaMapper;
+        this.eventPublisher = eventPublisher;
+        this.cacheConsultas = cacheConsultas;
     }
 
-    @Transactional
-    public List<FaturaResponseDTO> listarTodasFaturas() {
+    @Transactional(readOnly = true)
+    public PaginaDTO<FaturaResponseDTO> listarTodasFaturas(String next, Integer limit) {
 
-        List<Fatura> faturas = faturaRepository.findAllWithCliente();
+        CursorFatura cursor = CursorFatura.decodificar(next);
+        int limite = Paginacao.normalizarLimite(limit);
 
-        return faturas.stream()
-                .map(fatura -> modelMapper.map(fatura, FaturaResponseDTO.class))
-                .collect(Collectors.toList());
+        List<FaturaResponseDTO> faturas = faturaRepository.findPagina(cursor.dataVencimento(), cursor.id(), Limit.of(limite + 1));
 
+        return montarPagina(faturas, limite);
     }
 
-    @Transactional
-    public List<FaturaResponseDTO> listarFaturasPorClienteId(UUID clienteId) {
-
-        List<Fatura> faturas = faturaRepository.findByClienteIdWithCliente(clienteId);
-
-        return faturas.stream().map(fatura -> {
-            FaturaResponseDTO dto = new FaturaResponseDTO();
-            dto.setId(fatura.getId());
-            dto.setClienteId(fatura.getCliente().getId()); // Acessa o ID do cliente
-            dto.setClienteNome(fatura.getCliente().getNome()); // Acessa o nome do cliente
-            dto.setDataVencimento(fatura.getDataVencimento());
-            dto.setDataPagamento(fatura.getDataPagamento());
-            dto.setValor(fatura.getValor());
-            dto.setStatus(fatura.getStatus());
-            return dto;
-        }).collect(Collectors.toList());
+    // Páginas em cache por cliente; sem transação própria, a consulta ao banco só acontece na falta.
+    // Com incluirArquivadas, a página junta as faturas do histórico (consulta rara, fora do cache).
+    public PaginaDTO<FaturaResponseDTO> listarFaturasPorClienteId(UUID clienteId, String next, Integer limit, boolean incluirArquivadas) {
+
+        CursorFatura cursor = CursorFatura.decodificar(next);
+        int limite = Paginacao.normalizarLimite(limit);
+
+        if (incluirArquivadas) {
+            return listarComArquivadas(clienteId, cursor, limite);
+        }
+
+        return cacheConsultas.buscarFaturasDoCliente(clienteId, next, limite, () -> {
+            List<FaturaResponseDTO> faturas = faturaRepository.findPaginaByClienteId(
+                    clienteId, cursor.dataVencimento(), cursor.id(), Limit.of(limite + 1));
+            return montarPagina(faturas, limite);
+        });
     }
 
 
+    // As duas consultas usam o mesmo cursor e a mesma ordem, então a página é a junção ordenada das duas, cortada em limite + 1.
+    // A tabela fatura é lida primeiro: uma fatura arquivada entre as duas consultas aparece nas duas (e é descartada
+    // na segunda ocorrência), mas nunca em nenhuma.
+    private PaginaDTO<FaturaResponseDTO> listarComArquivadas(UUID clienteId, CursorFatura cursor, int limite) {
+        List<FaturaResponseDTO> faturas = faturaRepository.findPaginaByClienteId(
+                clienteId, cursor.dataVencimento(), cursor.id(), Limit.of(limite + 1));
+        List<FaturaResponseDTO> arquivadas = faturaArquivadaRepository.findPaginaByClienteId(
+                clienteId, cursor.dataVencimento(), cursor.id(), Limit.of(limite + 1));
+
+        List<FaturaResponseDTO> juntas = new ArrayList<>(Math.min(faturas.size() + arquivadas.size(), limite + 1));
+        Set<UUID> ids = new HashSet<>();
+        int i = 0;
+        int j = 0;
+        while (juntas.size() <= limite && (i < faturas.size() || j < arquivadas.size())) {
+            FaturaResponseDTO proxima = j >= arquivadas.size()
+                    || (i < faturas.size() && ORDEM_CURSOR.compare(faturas.get(i), arquivadas.get(j)) <= 0)
+                    ? faturas.get(i++) : arquivadas.get(j++);
+            if (ids.add(proxima.getId())) {
+                juntas.add(proxima);
+            }
+        }
+        return montarPagina(juntas, limite);
+    }
+
     @Transactional
     public FaturaResponseDTO registrarPagamento(UUID faturaId, FaturaPaymentRequestDTO paymentDTO) {
+        return pagarSeEmAberto(faturaId, paymentDTO.getDataPagamento())
+                .orElseThrow(() -> falhaDePagamento(faturaId));
+    }
 
-        Fatura fatura = faturaRepository.findByIdWithCliente(faturaId)
-                .orElseThrow(() -> new RuntimeException("Fatura não encontrada com ID: " + faturaId));
+    // Uma única instrução paga a fatura (se ainda não estiver paga) e retorna os dados da resposta.
+    // Retorna vazio em vez de lançar exceção, para ser usado dentro de uma transação maior (pagamento em grupo)
+    // sem marcá-la para rollback quando uma das faturas já estiver paga.
+    @Transactional
+    public Optional<FaturaResponseDTO> pagarSeEmAberto(UUID faturaId, LocalDate dataPagamento) {
+        return faturaRepository.registrarPagamento(faturaId, dataPagamento)
+                .map(pagamento -> {
+                    eventPublisher.publishEvent(new FaturaPagaEvent(
+                            pagamento.getId(), pagamento.getClienteId(), pagamento.getValor(), pagamento.getStatusAnterior()));
+                    return faturaMapper.toResponseDTO(pagamento);
+                });
+    }
 
-        if (fatura.getStatus() == 'P') {
-            throw new RuntimeException("Fatura já está paga.");
-        }
+    // Erro de um pagamento não realizado: consulta extra só nesse caso, para diferenciar fatura inexistente de já paga
+    // (inclusive as já arquivadas, que só existem no histórico)
+    @Transactional(readOnly = true)
+    public RuntimeException falhaDePagamento(UUID faturaId) {
+        return faturaRepository.existsById(faturaId) || faturaArquivadaRepository.existsById(faturaId)
+                ? new FaturaJaPagaException(faturaId)
+                : new FaturaNaoEncontradaException(faturaId);
+    }
 
-        fatura.setDataPagamento(paymentDTO.getDataPagamento());
-        fatura.setStatus('P');
+    @Transactional(readOnly = true)
+    public PaginaDTO<FaturaResponseDTO> listarFaturasAtrasadas(String next, Integer limit) {
 
-        Fatura faturaAtualizada = faturaRepository.save(fatura);
+        CursorFatura cursor = CursorFatura.decodificar(next);
+        int limite = Paginacao.normalizarLimite(limit);
 
-        FaturaResponseDTO dto = new FaturaResponseDTO();
-        dto.setId(faturaAtualizada.getId());
-        dto.setClienteId(faturaAtualizada.getCliente().getId());
-        dto.setClienteNome(faturaAtualizada.getCliente().getNome());
-        dto.setDataVencimento(faturaAtualizada.getDataVencimento());
-        dto.setDataPagamento(faturaAtualizada.getDataPagamento());
-        dto.setValor(faturaAtualizada.getValor());
-        dto.setStatus(faturaAtualizada.getStatus());
+        List<FaturaResponseDTO> faturas = faturaRepository.findPaginaByStatus(
+                'A', cursor.dataVencimento(), cursor.id(), Limit.of(limite + 1));
 
-        return dto;
+        return montarPagina(faturas, limite);
     }
 
-    @Transactional
-    public List<FaturaResponseDTO> listarFaturasAtrasadas() {
-        List<Fatura> faturas = faturaRepository.findByStatusWithCliente('A');
-
-        return faturas.stream().map(fatura -> {
-            FaturaResponseDTO dto = new FaturaResponseDTO();
-            dto.setId(fatura.getId());
-            dto.setClienteId(fatura.getCliente().getId()); // Acessa o ID do cliente
-            dto.setClienteNome(fatura.getCliente().getNome()); // Acessa o nome do cliente
-            dto.setDataVencimento(fatura.getDataVencimento());
-            dto.setDataPagamento(fatura.getDataPagamento());
-            dto.setValor(fatura.getValor());
-            dto.setStatus(fatura.getStatus());
-            return dto;
-        }).collect(Collectors.toList());
+    // O cursor da próxima página aponta para a última fatura retornada
+    private PaginaDTO<FaturaResponseDTO> montarPagina(List<FaturaResponseDTO> faturas, int limite) {
+        return Paginacao.montarPagina(faturas, limite,
+                ultima -> new CursorFatura(ultima.getDataVencimento(), ultima.getId()).codificar());
     }
 
 }
@@ -0,0 +1,187 @@
+package com.fintech.pagamentos.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintech.pagamentos.dto.FaturaPaymentRequestDTO;
+import com.fintech.pagamentos.dto.FaturaResponseDTO;
+import com.fintech.pagamentos.entity.IdempotenciaPagamento;
+import com.fintech.pagamentos.exception.PagamentoNaoExecutadoException;
+import com.fintech.pagamentos.repository.IdempotenciaPagamentoRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Registro de pagamento com o header Idempotency-Key (PUT /faturas/{id}/pagamento).
+// A primeira resposta de cada chave é gravada na tabela idempotencia_pagamento, na mesma transação do pagamento,
+// e mantida num cache em memória (Caffeine); repetições da requisição recebem a resposta gravada sem acessar as faturas.
+// Requisições simultâneas com a mesma chave recebem o resultado da que está em andamento.
+// O pagamento segue o mesmo caminho das requisições sem chave: no modo de pagamento em grupo, entra na fila e a chave
+// é gravada na transação do grupo.
+@Service
+public class IdempotenciaPagamentoService {
+
+    static final int TAMANHO_MAXIMO_CHAVE = 100;
+
+    // Resposta gravada, com os dados da requisição original para conferir as repetições
+    record RespostaArmazenada(UUID faturaId, LocalDate dataPagamento, FaturaResponseDTO resposta) {
+    }
+
+    private final FaturaService faturaService;
+    private final IngestaoPagamentosService ingestaoPagamentosService;
+    private final IdempotenciaPagamentoRepository idempotenciaRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache<String, RespostaArmazenada> cache;
+    private final ConcurrentHashMap<String, CompletableFuture<RespostaArmazenada>> emAndamento = new ConcurrentHashMap<>();
+    private final Duration retencao;
+
+    public IdempotenciaPagamentoService(FaturaService faturaService,
+                                        IngestaoPagamentosService ingestaoPagamentosService,
+                                        IdempotenciaPagamentoRepository idempotenciaRepository,
+                                        ObjectMapper objectMapper,
+                                        PlatformTransactionManager transactionManager,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${pagamentos.idempotencia.cache-maximo:10000}") int cacheMaximo,
+                                        @Value("${pagamentos.idempotencia.cache-ttl-minutos:60}") long cacheTtlMinutos,
+                                        @Value("${pagamentos.idempotencia.retencao-horas:24}") long retencaoHoras) {
+        this.faturaService = faturaService;
+        this.ingestaoPagamentosService = ingestaoPagamentosService;
+        this.idempotenciaRepository = idempotenciaRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheMaximo)
+                .expireAfterWrite(Duration.ofMinutes(cacheTtlMinutos))
+                .recordStats()
+                .build();
+        this.retencao = Duration.ofHours(retencaoHoras);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "idempotencia-pagamento");
+    }
+
+    public CompletableFuture<FaturaResponseDTO> registrarPagamento(String chave, UUID faturaId, FaturaPaymentRequestDTO paymentDTO) {
+        if (chave.isBlank() || chave.length() > TAMANHO_MAXIMO_CHAVE) {
+            throw new IllegalArgumentException("O header Idempotency-Key deve ter entre 1 e " + TAMANHO_MAXIMO_CHAVE + " caracteres.");
+        }
+
+        RespostaArmazenada armazenada = cache.getIfPresent(chave);
+        CompletableFuture<RespostaArmazenada> resultado = armazenada != null
+                ? CompletableFuture.completedFuture(armazenada)
+                : obterOuExecutar(chave, faturaId, paymentDTO);
+
+        return resultado.thenApply(resposta -> {
+            if (!resposta.faturaId().equals(faturaId) || !resposta.dataPagamento().equals(paymentDTO.getDataPagamento())) {
+                throw new IllegalArgumentException("Idempotency-Key já utilizada em uma requisição diferente.");
+            }
+            return resposta.resposta();
+        });
+    }
+
+    // Apenas uma requisição por chave executa; as demais recebem o mesmo resultado (ou a mesma exceção)
+    private CompletableFuture<RespostaArmazenada> obterOuExecutar(String chave, UUID faturaId, FaturaPaymentRequestDTO paymentDTO) {
+        CompletableFuture<RespostaArmazenada> novo = new CompletableFuture<>();
+        CompletableFuture<RespostaArmazenada> existente = emAndamento.putIfAbsent(chave, novo);
+        if (existente != null) {
+            return existente;
+        }
+
+        CompletableFuture<RespostaArmazenada> execucao;
+        try {
+            execucao = idempotenciaRepository.findById(chave)
+                    .map(registro -> CompletableFuture.completedFuture(converter(registro)))
+                    .orElseGet(() -> executar(chave, faturaId, paymentDTO));
+        } catch (RuntimeException e) {
+            execucao = CompletableFuture.failedFuture(e);
+        }
+
+        execucao.whenComplete((resultado, erro) -> {
+            if (erro == null) {
+                cache.put(chave, resultado);
+            }
+            emAndamento.remove(chave, novo);
+            if (erro == null) {
+                novo.complete(resultado);
+            } else {
+                novo.completeExceptionally(erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro);
+            }
+        });
+        return novo;
+    }
+
+    // Nos dois modos a chave é travada e consultada na transação do pagamento, antes de pagar a fatura: se outra requisição
+    // (em outra réplica) já gravou a chave, esta não paga e devolve a resposta gravada.
+    private CompletableFuture<RespostaArmazenada> executar(String chave, UUID faturaId, FaturaPaymentRequestDTO paymentDTO) {
+        LocalDate dataPagamento = paymentDTO.getDataPagamento();
+        if (ingestaoPagamentosService.isHabilitado()) {
+            // Só o pedido desta chave deixa de ser pago; os demais pagamentos do grupo seguem na mesma transação
+            return ingestaoPagamentosService.enviar(faturaId, dataPagamento, () -> chaveLivre(chave),
+                            resposta -> idempotenciaRepository.inserir(chave, faturaId, dataPagamento, serializar(resposta), LocalDateTime.now()))
+                    .handle((resposta, erro) -> erro == null
+                            ? new RespostaArmazenada(faturaId, dataPagamento, resposta)
+                            : gravadaPorOutraRequisicao(chave, erro instanceof CompletionException c && c.getCause() != null ? c.getCause() : erro));
+        }
+
+        try {
+            return CompletableFuture.completedFuture(transactionTemplate.execute(status -> {
+                if (!chaveLivre(chave)) {
+                    throw new PagamentoNaoExecutadoException(faturaId);
+                }
+                FaturaResponseDTO resposta = faturaService.registrarPagamento(faturaId, paymentDTO);
+                idempotenciaRepository.inserir(chave, faturaId, dataPagamento, serializar(resposta), LocalDateTime.now());
+                return new RespostaArmazenada(faturaId, dataPagamento, resposta);
+            }));
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(gravadaPorOutraRequisicao(chave, e));
+        }
+    }
+
+    private boolean chaveLivre(String chave) {
+        idempotenciaRepository.travarChave(chave);
+        return !idempotenciaRepository.existsById(chave);
+    }
+
+    // Outra réplica pode ter gravado a mesma chave ao mesmo tempo (chave já gravada ou fatura já paga):
+    // nesse caso o pagamento desta requisição não aconteceu e a resposta gravada pela outra é a que vale.
+    private RespostaArmazenada gravadaPorOutraRequisicao(String chave, Throwable erro) {
+        return idempotenciaRepository.findById(chave).map(this::converter).orElseThrow(() -> erro instanceof RuntimeException e
+                ? e : new CompletionException(erro));
+    }
+
+    private RespostaArmazenada converter(IdempotenciaPagamento registro) {
+        try {
+            FaturaResponseDTO resposta = objectMapper.readValue(registro.getResposta(), FaturaResponseDTO.class);
+            return new RespostaArmazenada(registro.getFaturaId(), registro.getDataPagamento(), resposta);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Resposta gravada para a Idempotency-Key " + registro.getChave() + " é inválida.", e);
+        }
+    }
+
+    private String serializar(FaturaResponseDTO resposta) {
+        try {
+            return objectMapper.writeValueAsString(resposta);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Erro ao serializar a resposta do pagamento.", e);
+        }
+    }
+
+    // Remove as chaves mais antigas que o período de retenção; depois disso a mesma chave pode ser usada de novo
+    @Scheduled(cron = "0 30 * * * ?")
+    public void removerExpiradas() {
+        int removidas = idempotenciaRepository.removerCriadasAntesDe(LocalDateTime.now().minus(retencao));
+        System.out.println("Chaves de idempotência removidas: " + removidas);
+    }
+}
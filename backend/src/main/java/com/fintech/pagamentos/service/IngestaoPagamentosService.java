@@ -0,0 +1,223 @@
+package com.fintech.pagamentos.service;
+
+import com.fintech.pagamentos.dto.FaturaResponseDTO;
+import com.fintech.pagamentos.exception.PagamentoNaoExecutadoException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+// Modo assíncrono do registro de pagamento (pagamentos.pagamento-em-grupo.habilitado=true), para picos de pagamentos.
+// As requisições entram numa fila limitada e um único gravador as retira em grupos (até tamanho-maximo ou até a janela
+// de tempo fechar), pagando todas as faturas do grupo em uma só transação: um commit (fsync) por grupo, não por pagamento.
+// O CompletableFuture de cada requisição só é concluído depois do commit do seu grupo.
+// Requisições com Idempotency-Key passam pela mesma fila: a chave é gravada dentro da transação do grupo (aoPagar).
+@Service
+public class IngestaoPagamentosService {
+
+    private static final long ESPERA_FILA_MS = 100; // Intervalo para o gravador verificar se deve parar
+
+    private record PedidoPagamento(UUID faturaId, LocalDate dataPagamento, BooleanSupplier antesDePagar, Consumer<FaturaResponseDTO> aoPagar,
+                                   CompletableFuture<FaturaResponseDTO> resultado, long enfileiradoEmNanos) {
+    }
+
+    private final FaturaService faturaService;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean habilitado;
+    private final int tamanhoMaximo;
+    private final long janelaNanos;
+    private final BlockingQueue<PedidoPagamento> fila;
+
+    private final DistributionSummary tamanhoGrupo;
+    private final Timer esperaNaFila;
+    private final Timer duracaoCommit;
+    private final Counter rejeitados;
+
+    private volatile boolean executando;
+    private Thread gravador;
+
+    public IngestaoPagamentosService(FaturaService faturaService,
+                                     PlatformTransactionManager transactionManager,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${pagamentos.pagamento-em-grupo.habilitado:false}") boolean habilitado,
+                                     @Value("${pagamentos.pagamento-em-grupo.capacidade-fila:10000}") int capacidadeFila,
+                                     @Value("${pagamentos.pagamento-em-grupo.tamanho-maximo:200}") int tamanhoMaximo,
+                                     @Value("${pagamentos.pagamento-em-grupo.janela-ms:5}") long janelaMs) {
+        this.faturaService = faturaService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.habilitado = habilitado;
+        this.tamanhoMaximo = tamanhoMaximo;
+        this.janelaNanos = TimeUnit.MILLISECONDS.toNanos(janelaMs);
+        this.fila = new ArrayBlockingQueue<>(capacidadeFila);
+
+        this.tamanhoGrupo = DistributionSummary.builder("pagamentos.grupo.tamanho")
+                .description("Pagamentos gravados por transação")
+                .register(meterRegistry);
+        this.esperaNaFila = Timer.builder("pagamentos.grupo.espera")
+                .description("Tempo de cada pagamento na fila até entrar em um grupo")
+                .register(meterRegistry);
+        this.duracaoCommit = Timer.builder("pagamentos.grupo.transacao")
+                .description("Duração da transação de cada grupo, incluindo o commit")
+                .register(meterRegistry);
+        this.rejeitados = Counter.builder("pagamentos.grupo.rejeitados")
+                .description("Pagamentos recusados com a fila cheia")
+                .register(meterRegistry);
+        meterRegistry.gauge("pagamentos.grupo.fila", fila, BlockingQueue::size);
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    // Enfileira o pagamento sem bloquear; com a fila cheia o pedido é recusado na hora (429) em vez de aguardar
+    public CompletableFuture<FaturaResponseDTO> enviar(UUID faturaId, LocalDate dataPagamento) {
+        return enviar(faturaId, dataPagamento, null, null);
+    }
+
+    // antesDePagar e aoPagar (opcionais) rodam na transação do grupo, antes e logo depois do pagamento da fatura; não devem
+    // lançar exceção, que desfaria o grupo inteiro. Se antesDePagar retornar false, a fatura não é paga e só este pedido
+    // falha (PagamentoNaoExecutadoException), sem desfazer os demais.
+    public CompletableFuture<FaturaResponseDTO> enviar(UUID faturaId, LocalDate dataPagamento, BooleanSupplier antesDePagar,
+                                                       Consumer<FaturaResponseDTO> aoPagar) {
+        PedidoPagamento pedido = new PedidoPagamento(faturaId, dataPagamento, antesDePagar, aoPagar, new CompletableFuture<>(), System.nanoTime());
+        if (!fila.offer(pedido)) {
+            rejeitados.increment();
+            throw new RejectedExecutionException("Fila de pagamentos cheia. Tente novamente em instantes.");
+        }
+        return pedido.resultado();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void iniciar() {
+        if (!habilitado || executando) {
+            return;
+        }
+        executando = true;
+        gravador = Thread.ofVirtual().name("pagamentos-em-grupo").start(this::processarFila);
+        System.out.println("Pagamento em grupo habilitado (até " + tamanhoMaximo + " por transação).");
+    }
+
+    // Ao desligar, o gravador termina os pedidos que já estão na fila antes de parar
+    @PreDestroy
+    public void parar() throws InterruptedException {
+        Thread atual;
+        synchronized (this) {
+            executando = false;
+            atual = gravador;
+        }
+        if (atual != null) {
+            atual.join(Duration.ofSeconds(30));
+        }
+    }
+
+    private void processarFila() {
+        while (executando || !fila.isEmpty()) {
+            try {
+                List<PedidoPagamento> grupo = proximoGrupo();
+                if (!grupo.isEmpty()) {
+                    gravar(grupo);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // Aguarda o primeiro pedido e junta os seguintes até completar o grupo ou a janela de tempo fechar
+    private List<PedidoPagamento> proximoGrupo() throws InterruptedException {
+        List<PedidoPagamento> grupo = new ArrayList<>();
+        PedidoPagamento primeiro = fila.poll(ESPERA_FILA_MS, TimeUnit.MILLISECONDS);
+        if (primeiro == null) {
+            return grupo;
+        }
+        grupo.add(primeiro);
+
+        long fimJanela = System.nanoTime() + janelaNanos;
+        while (grupo.size() < tamanhoMaximo) {
+            fila.drainTo(grupo, tamanhoMaximo - grupo.size());
+            long restante = fimJanela - System.nanoTime();
+            if (grupo.size() >= tamanhoMaximo || restante <= 0) {
+                break;
+            }
+            PedidoPagamento proximo = fila.poll(restante, TimeUnit.NANOSECONDS);
+            if (proximo == null) {
+                break;
+            }
+            grupo.add(proximo);
+        }
+        return grupo;
+    }
+
+    private void gravar(List<PedidoPagamento> grupo) {
+        long agora = System.nanoTime();
+        for (PedidoPagamento pedido : grupo) {
+            esperaNaFila.record(agora - pedido.enfileiradoEmNanos(), TimeUnit.NANOSECONDS);
+        }
+        tamanhoGrupo.record(grupo.size());
+
+        boolean[] naoExecutados = new boolean[grupo.size()];
+        List<Optional<FaturaResponseDTO>> pagamentos;
+        try {
+            pagamentos = duracaoCommit.record(() -> transactionTemplate.execute(status -> {
+                List<Optional<FaturaResponseDTO>> resultados = new ArrayList<>(grupo.size());
+                for (PedidoPagamento pedido : grupo) {
+                    if (pedido.antesDePagar() != null && !pedido.antesDePagar().getAsBoolean()) {
+                        naoExecutados[resultados.size()] = true;
+                        resultados.add(Optional.empty());
+                        continue;
+                    }
+                    Optional<FaturaResponseDTO> pagamento = faturaService.pagarSeEmAberto(pedido.faturaId(), pedido.dataPagamento());
+                    if (pagamento.isPresent() && pedido.aoPagar() != null) {
+                        pedido.aoPagar().accept(pagamento.get());
+                    }
+                    resultados.add(pagamento);
+                }
+                return resultados;
+            }));
+        } catch (RuntimeException e) {
+            // A transação do grupo foi desfeita: nenhum pagamento do grupo foi registrado
+            System.out.println("Erro ao gravar grupo de " + grupo.size() + " pagamentos: " + e.getMessage());
+            grupo.forEach(pedido -> pedido.resultado().completeExceptionally(e));
+            return;
+        }
+
+        // Após o commit: conclui cada requisição com a fatura paga ou com o motivo da recusa
+        for (int i = 0; i < grupo.size(); i++) {
+            PedidoPagamento pedido = grupo.get(i);
+            Optional<FaturaResponseDTO> pagamento = pagamentos.get(i);
+            if (pagamento.isPresent()) {
+                pedido.resultado().complete(pagamento.get());
+            } else if (naoExecutados[i]) {
+                pedido.resultado().completeExceptionally(new PagamentoNaoExecutadoException(pedido.faturaId()));
+            } else {
+                try {
+                    pedido.resultado().completeExceptionally(faturaService.falhaDePagamento(pedido.faturaId()));
+                } catch (RuntimeException e) {
+                    pedido.resultado().completeExceptionally(e);
+                }
+            }
+        }
+    }
+}
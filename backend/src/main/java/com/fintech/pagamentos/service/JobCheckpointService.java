@@ -0,0 +1,152 @@
+package com.fintech.pagamentos.service;
+
+import com.fintech.pagamentos.batch.IntervaloUuid;
+import com.fintech.pagamentos.batch.ResultadoParticao;
+import com.fintech.pagamentos.entity.JobExecucao;
+import com.fintech.pagamentos.entity.JobParticao;
+import com.fintech.pagamentos.repository.JobExecucaoRepository;
+import com.fintech.pagamentos.repository.JobParticaoRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Passos transacionais dos jobs particionados. Cada método roda na sua própria transação curta,
+// de modo que uma falha afeta apenas a partição em andamento.
+@Service
+public class JobCheckpointService {
+
+    private static final int TAMANHO_MAXIMO_ERRO = 500;
+    private static final Limit CANDIDATAS_POR_REIVINDICACAO = Limit.of(10);
+
+    private final JobExecucaoRepository jobExecucaoRepository;
+    private final JobParticaoRepository jobParticaoRepository;
+
+    public JobCheckpointService(JobExecucaoRepository jobExecucaoRepository, JobParticaoRepository jobParticaoRepository) {
+        this.jobExecucaoRepository = jobExecucaoRepository;
+        this.jobParticaoRepository = jobParticaoRepository;
+    }
+
+    // Cria a execução do dia com suas partições ou, se já existir (criada por outro nó ou interrompida), a reaproveita.
+    // Dois nós criando ao mesmo tempo esbarram na restrição única (nome, data_referencia): quem perde tenta de novo e a encontra.
+    // As faixas das partições só são calculadas quando a execução é criada.
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public JobExecucao iniciarOuRetomar(String nome, LocalDate dataReferencia, Supplier<List<IntervaloUuid>> particionamento) {
+        return jobExecucaoRepository.findByNomeAndDataReferencia(nome, dataReferencia)
+                .map(execucao -> {
+                    if (execucao.getStatus() == 'F') {
+                        execucao.setStatus('E'); // Nova rodada de tentativas para as partições que falharam
+                        execucao.setFinalizadaEm(null);
+                        jobParticaoRepository.reiniciarTentativasDasFalhas(execucao.getId());
+                    }
+                    return execucao;
+                })
+                .orElseGet(() -> criarExecucao(nome, dataReferencia, particionamento.get()));
+    }
+
+    private JobExecucao criarExecucao(String nome, LocalDate dataReferencia, List<IntervaloUuid> intervalos) {
+        JobExecucao execucao = jobExecucaoRepository.saveAndFlush(
+                new JobExecucao(null, nome, dataReferencia, 'E', LocalDateTime.now(), null));
+
+        List<JobParticao> novas = new ArrayList<>();
+        for (int i = 0; i < intervalos.size(); i++) {
+            IntervaloUuid intervalo = intervalos.get(i);
+            novas.add(new JobParticao(null, execucao, i, intervalo.inicio(), intervalo.fim(), 'P',
+                    null, null, 0, null, null, null, null, null));
+        }
+        jobParticaoRepository.saveAll(novas);
+        return execucao;
+    }
+
+    // Execução mais recente do job que não foi concluída (em andamento ou com falha), de qualquer data
+    @Transactional(readOnly = true)
+    public Optional<JobExecucao> buscarUltimaNaoConcluida(String nome) {
+        return jobExecucaoRepository.findFirstByNomeAndStatusNotOrderByDataReferenciaDesc(nome, 'C');
+    }
+
+    // Reivindica a próxima partição disponível para o nó. Várias candidatas são tentadas porque outros nós
+    // (ou outros trabalhadores do mesmo nó) podem ganhar a disputa pela primeira.
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public Optional<JobParticao> reivindicarProxima(UUID jobId, String dono, LocalDateTime expiraEm, int maxTentativas) {
+        LocalDateTime agora = LocalDateTime.now();
+        for (JobParticao candidata : jobParticaoRepository.findDisponiveis(jobId, maxTentativas, agora, CANDIDATAS_POR_REIVINDICACAO)) {
+            if (jobParticaoRepository.reivindicar(candidata.getId(), dono, expiraEm, agora, maxTentativas) == 1) {
+                return Optional.of(candidata);
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Transactional(readOnly = true)
+    public boolean existemParticoesEmAndamento(UUID jobId, int maxTentativas) {
+        return jobParticaoRepository.countComLeaseAtivo(jobId, maxTentativas, LocalDateTime.now()) > 0;
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int renovarLeases(String dono, LocalDateTime expiraEm) {
+        return jobParticaoRepository.renovarLeases(dono, expiraEm);
+    }
+
+    // O trabalho e o checkpoint ('C' + métricas + liberação do lease) são gravados juntos:
+    // ou a partição inteira é confirmada, ou nada muda
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public JobParticao processarParticao(UUID particaoId, String dono, Function<IntervaloUuid, ResultadoParticao> trabalho) {
+        JobParticao particao = jobParticaoRepository.findByIdParaAtualizacao(particaoId)
+                .orElseThrow(() -> new RuntimeException("Partição não encontrada com ID: " + particaoId));
+        if (particao.getStatus() == 'C') {
+            return particao; // Já processada em uma execução anterior
+        }
+        if (!dono.equals(particao.getDono())) {
+            // O lease expirou e outro nó assumiu a partição
+            throw new IllegalStateException("Lease da partição " + particao.getIndice() + " pertence a outro nó: " + particao.getDono());
+        }
+
+        long inicio = System.nanoTime();
+        ResultadoParticao resultado = trabalho.apply(new IntervaloUuid(particao.getIdInicio(), particao.getIdFim()));
+
+        particao.setStatus('C');
+        particao.setDono(null);
+        particao.setLeaseExpiraEm(null);
+        particao.setLinhasLidas(resultado.linhasLidas());
+        particao.setLinhasAlteradas(resultado.linhasAlteradas());
+        particao.setDuracaoMs((System.nanoTime() - inicio) / 1_000_000);
+        particao.setProcessadaEm(LocalDateTime.now());
+        particao.setErro(null);
+        return jobParticaoRepository.save(particao);
+    }
+
+    // Registra a falha e libera o lease, para que a partição possa ser tentada de novo (até o limite de tentativas)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void registrarFalha(UUID particaoId, String dono, String erro) {
+        jobParticaoRepository.findByIdParaAtualizacao(particaoId)
+                .filter(particao -> dono.equals(particao.getDono()))
+                .ifPresent(particao -> {
+                    particao.setStatus('F');
+                    particao.setDono(null);
+                    particao.setLeaseExpiraEm(null);
+                    particao.setProcessadaEm(LocalDateTime.now());
+                    particao.setErro(erro != null && erro.length() > TAMANHO_MAXIMO_ERRO ? erro.substring(0, TAMANHO_MAXIMO_ERRO) : erro);
+                    jobParticaoRepository.save(particao);
+                });
+    }
+
+    // A execução só é concluída quando todas as partições estiverem concluídas
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public JobExecucao finalizar(UUID jobId) {
+        JobExecucao execucao = jobExecucaoRepository.findById(jobId)
+                .orElseThrow(() -> new RuntimeException("Execução de job não encontrada com ID: " + jobId));
+        boolean concluida = jobParticaoRepository.countByJobIdAndStatusNot(jobId, 'C') == 0;
+        execucao.setStatus(concluida ? 'C' : 'F');
+        execucao.setFinalizadaEm(LocalDateTime.now());
+        return jobExecucaoRepository.save(execucao);
+    }
+}
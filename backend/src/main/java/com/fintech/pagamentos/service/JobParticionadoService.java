@@ -0,0 +1,191 @@
+package com.fintech.pagamentos.service;
+
+import com.fintech.pagamentos.batch.IntervaloUuid;
+import com.fintech.pagamentos.batch.ResultadoParticao;
+import com.fintech.pagamentos.entity.JobExecucao;
+import com.fintech.pagamentos.entity.JobParticao;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+// Motor de execução dos jobs em lote: divide os IDs em partições (faixas informadas pelo job), processa cada uma em uma transação curta
+// e registra o checkpoint por partição. Reexecutar o mesmo job para a mesma data retoma apenas as partições que
+// ainda não foram concluídas.
+// Com várias réplicas da aplicação, todas disparam o job e dividem as partições entre si: cada nó reivindica partições
+// por lease (renovado pelo heartbeat) e um nó que para tem suas partições assumidas pelos demais quando o lease expira.
+@Service
+public class JobParticionadoService {
+
+    private static final long ESPERA_LEASE_MS = 2000;
+
+    private final JobCheckpointService jobCheckpointService;
+    private final int particoes;
+    private final int paralelismo;
+    private final int leaseSegundos;
+    private final int maxTentativas;
+    private final long heartbeatMs;
+    private final String noId;
+    private Thread heartbeat;
+
+    public JobParticionadoService(JobCheckpointService jobCheckpointService,
+                                  @Value("${pagamentos.jobs.particoes:64}") int particoes,
+                                  @Value("${pagamentos.jobs.paralelismo:4}") int paralelismo,
+                                  @Value("${pagamentos.jobs.lease-segundos:60}") int leaseSegundos,
+                                  @Value("${pagamentos.jobs.max-tentativas:3}") int maxTentativas,
+                                  @Value("${pagamentos.jobs.heartbeat-ms:20000}") long heartbeatMs) {
+        this.jobCheckpointService = jobCheckpointService;
+        this.particoes = particoes;
+        this.paralelismo = paralelismo;
+        this.leaseSegundos = leaseSegundos;
+        this.maxTentativas = maxTentativas;
+        this.heartbeatMs = heartbeatMs;
+        this.noId = ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8); // pid@host + sufixo
+    }
+
+    // particionamento recebe a quantidade de partições configurada e devolve as faixas de IDs
+    public JobExecucao executar(String nome, LocalDate dataReferencia, IntFunction<List<IntervaloUuid>> particionamento,
+                                Function<IntervaloUuid, ResultadoParticao> trabalho) {
+        JobExecucao execucao = iniciarOuRetomar(nome, dataReferencia, particionamento);
+        if (execucao.getStatus() == 'C') {
+            System.out.println("Job " + nome + " de " + dataReferencia + " já concluído.");
+            return execucao;
+        }
+        System.out.println("Job " + nome + " de " + dataReferencia + " iniciado no nó " + noId + ".");
+        iniciarHeartbeat();
+
+        // Trabalhadores em virtual threads: a quantidade limita quantas partições (e conexões com o banco) ficam ativas ao mesmo tempo
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < paralelismo; i++) {
+                executor.submit(() -> trabalhar(nome, execucao.getId(), trabalho));
+            }
+        } // close() aguarda o término de todos os trabalhadores
+
+        JobExecucao finalizada = jobCheckpointService.finalizar(execucao.getId());
+        System.out.println("Job " + nome + " de " + dataReferencia + " finalizado com status " + finalizada.getStatus() + ".");
+        return finalizada;
+    }
+
+    // Retoma apenas a última execução já iniciada e não concluída (ex: aplicação reiniciada no meio do job), qualquer que seja
+    // a data dela: o trabalho é montado para a data de referência da execução, e não para a data de hoje
+    public Optional<JobExecucao> retomar(String nome, IntFunction<List<IntervaloUuid>> particionamento,
+                                         Function<LocalDate, Function<IntervaloUuid, ResultadoParticao>> trabalhoDaData) {
+        return jobCheckpointService.buscarUltimaNaoConcluida(nome)
+                .map(execucao -> executar(nome, execucao.getDataReferencia(), particionamento,
+                        trabalhoDaData.apply(execucao.getDataReferencia())));
+    }
+
+    // Job sem divisão, executado por um único nó: quem reivindicar a partição única executa o trabalho (nas transações
+    // que o próprio trabalho abrir) e os demais seguem sem esperar. Retorna se o trabalho foi executado neste nó.
+    public boolean executarEmUmNo(String nome, LocalDate dataReferencia, Supplier<ResultadoParticao> trabalho) {
+        JobExecucao execucao = iniciarOuRetomar(nome, dataReferencia, quantidade -> IntervaloUuid.particionar(1));
+        if (execucao.getStatus() == 'C') {
+            return false;
+        }
+        Optional<JobParticao> particao = jobCheckpointService.reivindicarProxima(
+                execucao.getId(), noId, LocalDateTime.now().plusSeconds(leaseSegundos), maxTentativas);
+        if (particao.isEmpty()) {
+            System.out.println("Job " + nome + " de " + dataReferencia + " em execução em outro nó.");
+            return false;
+        }
+        iniciarHeartbeat();
+        try {
+            ResultadoParticao resultado = trabalho.get();
+            jobCheckpointService.processarParticao(particao.get().getId(), noId, intervalo -> resultado);
+        } catch (RuntimeException e) {
+            jobCheckpointService.registrarFalha(particao.get().getId(), noId, e.getMessage());
+            System.out.println("Job " + nome + " de " + dataReferencia + " falhou: " + e.getMessage());
+        }
+        jobCheckpointService.finalizar(execucao.getId());
+        return true;
+    }
+
+    // Heartbeat do nó: mantém válidos os leases das partições que ele está processando.
+    // Roda numa thread própria, iniciada no primeiro job do nó, e não no agendador do Spring: o job é disparado por um
+    // @Scheduled e ocupa a thread do agendador até a última partição terminar.
+    public void renovarLeases() {
+        jobCheckpointService.renovarLeases(noId, LocalDateTime.now().plusSeconds(leaseSegundos));
+    }
+
+    private synchronized void iniciarHeartbeat() {
+        if (heartbeat == null) {
+            heartbeat = Thread.ofVirtual().name("heartbeat-jobs").start(this::manterLeases);
+        }
+    }
+
+    private void manterLeases() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(heartbeatMs);
+                renovarLeases();
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                // Uma falha (ex: banco indisponível) não encerra o heartbeat; a próxima renovação tenta de novo
+                System.out.println("Falha ao renovar os leases do nó " + noId + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public synchronized void pararHeartbeat() {
+        if (heartbeat != null) {
+            heartbeat.interrupt();
+            heartbeat = null;
+        }
+    }
+
+    private JobExecucao iniciarOuRetomar(String nome, LocalDate dataReferencia, IntFunction<List<IntervaloUuid>> particionamento) {
+        try {
+            return jobCheckpointService.iniciarOuRetomar(nome, dataReferencia, () -> particionamento.apply(particoes));
+        } catch (DataIntegrityViolationException e) {
+            // Outro nó criou a mesma execução ao mesmo tempo: passa a participar dela
+            return jobCheckpointService.iniciarOuRetomar(nome, dataReferencia, () -> particionamento.apply(particoes));
+        }
+    }
+
+    // Reivindica e processa partições até não restar nenhuma disponível. Enquanto houver partições com lease ativo
+    // em outros nós, continua aguardando: se algum deles parar, o lease expira e a partição é assumida aqui.
+    private void trabalhar(String nome, UUID jobId, Function<IntervaloUuid, ResultadoParticao> trabalho) {
+        while (true) {
+            Optional<JobParticao> particao = jobCheckpointService.reivindicarProxima(
+                    jobId, noId, LocalDateTime.now().plusSeconds(leaseSegundos), maxTentativas);
+            if (particao.isPresent()) {
+                processarParticao(nome, particao.get(), trabalho);
+            } else if (jobCheckpointService.existemParticoesEmAndamento(jobId, maxTentativas)) {
+                try {
+                    Thread.sleep(ESPERA_LEASE_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void processarParticao(String nome, JobParticao reivindicada, Function<IntervaloUuid, ResultadoParticao> trabalho) {
+        try {
+            JobParticao particao = jobCheckpointService.processarParticao(reivindicada.getId(), noId, trabalho);
+            System.out.println("Job " + nome + " - partição " + particao.getIndice() + ": " + particao.getLinhasLidas() + " linha(s) lida(s), "
+                    + particao.getLinhasAlteradas() + " alterada(s) em " + particao.getDuracaoMs() + " ms.");
+        } catch (RuntimeException e) {
+            // A falha fica registrada na partição e o lease é liberado; as demais continuam
+            jobCheckpointService.registrarFalha(reivindicada.getId(), noId, e.getMessage());
+            System.out.println("Job " + nome + " - falha na partição " + reivindicada.getIndice() + ": " + e.getMessage());
+        }
+    }
+}
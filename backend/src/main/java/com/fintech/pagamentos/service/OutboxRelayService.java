@@ -0,0 +1,105 @@
+package com.fintech.pagamentos.service;
+
+import com.fintech.pagamentos.entity.OutboxEvento;
+import com.fintech.pagamentos.outbox.OutboxSink;
+import com.fintech.pagamentos.repository.OutboxEventoRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Relay do outbox: publica no OutboxSink os eventos pendentes, em lotes.
+// Cada lote é uma transação: trava até tamanho-lote eventos pendentes, publica no sink e marca como publicados.
+// Se o sink falhar a transação é desfeita e o lote volta a ficar pendente (at-least-once).
+// Os eventos são divididos em tantas partições quanto trabalhadores, pelo hash do agregado: cada trabalhador publica
+// a sua partição em ordem de id. O id vem da sequência dentro da transação que trava a fatura ou o cliente (ver
+// OutboxEvento), então os eventos de uma mesma fatura ou cliente nunca saem fora de ordem.
+// Entre réplicas, a partição é travada com advisory lock; todas devem usar o mesmo número de trabalhadores.
+@Service
+public class OutboxRelayService {
+
+    private final OutboxEventoRepository outboxEventoRepository;
+    private final OutboxSink outboxSink;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanhoLote;
+    private final int trabalhadores;
+    private final int retencaoDias;
+
+    public OutboxRelayService(OutboxEventoRepository outboxEventoRepository,
+                              OutboxSink outboxSink,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${pagamentos.outbox.tamanho-lote:500}") int tamanhoLote,
+                              @Value("${pagamentos.outbox.trabalhadores:2}") int trabalhadores,
+                              @Value("${pagamentos.outbox.retencao-dias:7}") int retencaoDias) {
+        this.outboxEventoRepository = outboxEventoRepository;
+        this.outboxSink = outboxSink;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tamanhoLote = tamanhoLote;
+        this.trabalhadores = trabalhadores;
+        this.retencaoDias = retencaoDias;
+    }
+
+    @Scheduled(fixedDelayString = "${pagamentos.outbox.intervalo-ms:1000}")
+    public void publicarPendentes() {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Integer>> resultados = new ArrayList<>(trabalhadores);
+            for (int i = 0; i < trabalhadores; i++) {
+                int particao = i;
+                resultados.add(executor.submit(() -> esvaziar(particao)));
+            }
+
+            int publicados = 0;
+            for (Future<Integer> resultado : resultados) {
+                publicados += resultado.get();
+            }
+            if (publicados > 0) {
+                System.out.println("Eventos do outbox publicados: " + publicados);
+            }
+        } catch (Exception e) {
+            // Os lotes que falharam continuam pendentes e são tentados de novo no próximo ciclo
+            System.out.println("Erro ao publicar eventos do outbox: " + e.getMessage());
+        }
+    }
+
+    // Publica lotes enquanto vierem cheios (ainda pode haver pendentes); um lote incompleto encerra o trabalhador
+    private int esvaziar(int particao) {
+        int total = 0;
+        int publicados;
+        do {
+            publicados = publicarLote(particao);
+            total += publicados;
+        } while (publicados == tamanhoLote);
+        return total;
+    }
+
+    int publicarLote(int particao) {
+        Integer publicados = transactionTemplate.execute(status -> {
+            if (!outboxEventoRepository.travarParticao(particao)) {
+                return 0; // Partição sendo publicada por outra réplica
+            }
+            List<OutboxEvento> lote = outboxEventoRepository.findPendentesParaPublicacao(trabalhadores, particao, tamanhoLote);
+            if (lote.isEmpty()) {
+                return 0;
+            }
+            outboxSink.publicar(lote);
+            outboxEventoRepository.marcarComoPublicados(lote.stream().map(OutboxEvento::getId).toList(), LocalDateTime.now());
+            return lote.size();
+        });
+        return publicados != null ? publicados : 0;
+    }
+
+    // Eventos já publicados não são mais necessários depois do período de retenção
+    @Scheduled(cron = "0 15 3 * * ?")
+    public void removerPublicados() {
+        int removidos = outboxEventoRepository.removerPublicadosAntesDe(LocalDateTime.now().minusDays(retencaoDias));
+        System.out.println("Eventos do outbox removidos: " + removidos);
+    }
+}
@@ -0,0 +1,65 @@
+package com.fintech.pagamentos.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintech.pagamentos.entity.OutboxEvento;
+import com.fintech.pagamentos.event.ClienteBloqueadoEvent;
+import com.fintech.pagamentos.event.ClienteDesbloqueadoEvent;
+import com.fintech.pagamentos.event.FaturaPagaEvent;
+import com.fintech.pagamentos.repository.OutboxEventoRepository;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Grava os eventos de domínio na tabela outbox_evento. O listener é síncrono (não é AFTER_COMMIT) e exige a transação
+// de quem publicou o evento: o registro do outbox é confirmado ou desfeito junto com o pagamento/bloqueio.
+@Service
+public class OutboxService {
+
+    public static final String FATURA_PAGA = "FATURA_PAGA";
+    public static final String CLIENTE_BLOQUEADO = "CLIENTE_BLOQUEADO";
+    public static final String CLIENTE_DESBLOQUEADO = "CLIENTE_DESBLOQUEADO";
+
+    private final OutboxEventoRepository outboxEventoRepository;
+    private final ObjectMapper objectMapper;
+
+    public OutboxService(OutboxEventoRepository outboxEventoRepository, ObjectMapper objectMapper) {
+        this.outboxEventoRepository = outboxEventoRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    // Antes dos demais ouvintes, para o pagamento ficar no outbox antes dos eventos derivados dele (ex: desbloqueio)
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarFaturaPaga(FaturaPagaEvent evento) {
+        registrar(FATURA_PAGA, evento.faturaId(), evento);
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarClienteBloqueado(ClienteBloqueadoEvent evento) {
+        registrar(CLIENTE_BLOQUEADO, evento.clienteId(), evento);
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarClienteDesbloqueado(ClienteDesbloqueadoEvent evento) {
+        registrar(CLIENTE_DESBLOQUEADO, evento.clienteId(), evento);
+    }
+
+    private void registrar(String tipo, UUID agregadoId, Object evento) {
+        try {
+            outboxEventoRepository.save(new OutboxEvento(null, tipo, agregadoId,
+                    objectMapper.writeValueAsString(evento), LocalDateTime.now(), null));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Erro ao serializar o evento " + tipo + ".", e);
+        }
+    }
+}
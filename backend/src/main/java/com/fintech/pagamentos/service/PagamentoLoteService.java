@@ -0,0 +1,118 @@
+package com.fintech.pagamentos.service;
+
+import com.fintech.pagamentos.dto.ItemPagamentoLoteDTO;
+import com.fintech.pagamentos.dto.ResultadoPagamentoLoteDTO;
+import com.fintech.pagamentos.dto.ResultadoPagamentoLoteDTO.Resultado;
+import com.fintech.pagamentos.entity.Fatura;
+import com.fintech.pagamentos.event.FaturaPagaEvent;
+import com.fintech.pagamentos.repository.FaturaArquivadaRepository;
+import com.fintech.pagamentos.repository.FaturaRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+// Registro de pagamentos em lote (POST /faturas/pagamentos/lote).
+// Os itens são processados em blocos: uma leitura (com lock) das faturas do bloco e os UPDATEs enviados
+// em lotes JDBC no flush (hibernate.jdbc.batch_size), em vez de uma leitura, um save e uma transação por fatura.
+// Cada bloco tem a sua transação: os locks das faturas são liberados no commit do bloco, sem segurar pagamentos avulsos
+// e a transição para atrasada até o fim do lote inteiro. Um bloco com falha é desfeito sozinho e os demais seguem.
+@Service
+public class PagamentoLoteService {
+
+    static final int TAMANHO_BLOCO = 1000; // Faturas lidas por consulta (tamanho da lista do IN)
+
+    private final FaturaRepository faturaRepository;
+    private final FaturaArquivadaRepository faturaArquivadaRepository;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    public PagamentoLoteService(FaturaRepository faturaRepository, FaturaArquivadaRepository faturaArquivadaRepository,
+                                EntityManager entityManager, ApplicationEventPublisher eventPublisher,
+                                PlatformTransactionManager transactionManager) {
+        this.faturaRepository = faturaRepository;
+        this.faturaArquivadaRepository = faturaArquivadaRepository;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public List<ResultadoPagamentoLoteDTO> registrarPagamentos(List<ItemPagamentoLoteDTO> itens) {
+        List<ResultadoPagamentoLoteDTO> resultados = new ArrayList<>(itens.size());
+
+        for (int inicio = 0, numero = 0; inicio < itens.size(); inicio += TAMANHO_BLOCO, numero++) {
+            List<ItemPagamentoLoteDTO> bloco = itens.subList(inicio, Math.min(inicio + TAMANHO_BLOCO, itens.size()));
+            int indice = numero;
+            try {
+                resultados.addAll(transactionTemplate.execute(status -> processarBloco(indice, bloco)));
+            } catch (RuntimeException e) {
+                System.out.println("Pagamento em lote - falha no bloco " + indice + " (" + bloco.size() + " item(ns)): " + e.getMessage());
+                bloco.forEach(item -> resultados.add(new ResultadoPagamentoLoteDTO(item.getFaturaId(), Resultado.FALHA, indice)));
+            }
+        }
+
+        return resultados;
+    }
+
+    private List<ResultadoPagamentoLoteDTO> processarBloco(int indice, List<ItemPagamentoLoteDTO> bloco) {
+        Set<UUID> ids = new HashSet<>();
+        for (ItemPagamentoLoteDTO item : bloco) {
+            ids.add(item.getFaturaId());
+        }
+
+        Map<UUID, Fatura> faturas = new HashMap<>();
+        for (Fatura fatura : faturaRepository.findAllByIdParaAtualizacao(ids)) {
+            faturas.put(fatura.getId(), fatura);
+        }
+
+        // IDs que não estão em fatura podem ser de faturas pagas já arquivadas: consulta extra só quando faltar alguma
+        Set<UUID> arquivadas = new HashSet<>();
+        if (faturas.size() < ids.size()) {
+            Set<UUID> faltantes = new HashSet<>(ids);
+            faltantes.removeAll(faturas.keySet());
+            arquivadas.addAll(faturaArquivadaRepository.findIdsArquivados(faltantes));
+        }
+
+        List<ResultadoPagamentoLoteDTO> resultados = new ArrayList<>(bloco.size());
+        List<FaturaPagaEvent> eventos = new ArrayList<>();
+        for (ItemPagamentoLoteDTO item : bloco) {
+            Fatura fatura = faturas.get(item.getFaturaId());
+
+            if (fatura == null && arquivadas.contains(item.getFaturaId())) {
+                resultados.add(new ResultadoPagamentoLoteDTO(item.getFaturaId(), Resultado.JA_PAGA, indice));
+            } else if (fatura == null) {
+                resultados.add(new ResultadoPagamentoLoteDTO(item.getFaturaId(), Resultado.NAO_ENCONTRADA, indice));
+            } else if (fatura.getStatus() == 'P') { // Inclui a mesma fatura repetida no lote
+                resultados.add(new ResultadoPagamentoLoteDTO(item.getFaturaId(), Resultado.JA_PAGA, indice));
+            } else {
+                Character statusAnterior = fatura.getStatus();
+                fatura.setDataPagamento(item.getDataPagamento());
+                fatura.setStatus('P');
+                // O ID do cliente vem da chave estrangeira, sem carregar o cliente
+                eventos.add(new FaturaPagaEvent(fatura.getId(), fatura.getCliente().getId(), fatura.getValor(), statusAnterior));
+                resultados.add(new ResultadoPagamentoLoteDTO(item.getFaturaId(), Resultado.PAGA, indice));
+            }
+        }
+
+        // Faturas alteradas são gravadas pelo dirty checking, em lotes JDBC; o clear mantém o contexto de persistência
+        // limitado a um bloco, e as faturas dos blocos seguintes são relidas já com o status atualizado.
+        entityManager.flush();
+        entityManager.clear();
+        // Ouvintes travam linhas por cliente (resumo, bloqueio): em ordem de cliente, lotes simultâneos não entram em deadlock
+        eventos.sort(Comparator.comparing(FaturaPagaEvent::clienteId));
+        eventos.forEach(eventPublisher::publishEvent);
+
+        return resultados;
+    }
+}
@@ -0,0 +1,37 @@
+package com.fintech.pagamentos.service;
+
+import com.fintech.pagamentos.repository.FaturaRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+
+// Mantém criadas as partições mensais da tabela fatura (particionada por data_vencimento) para os próximos meses,
+// para que faturas novas não caiam na partição padrão. Desabilitado em bancos sem o esquema particionado (ex: H2).
+@Service
+@ConditionalOnProperty(name = "pagamentos.faturas.particoes.habilitado", havingValue = "true", matchIfMissing = true)
+public class ParticoesFaturaService {
+
+    private final FaturaRepository faturaRepository;
+    private final int mesesFuturos;
+
+    public ParticoesFaturaService(FaturaRepository faturaRepository,
+                                  @Value("${pagamentos.faturas.particoes.meses-futuros:3}") int mesesFuturos) {
+        this.faturaRepository = faturaRepository;
+        this.mesesFuturos = mesesFuturos;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${pagamentos.faturas.particoes.cron:0 30 0 * * *}")
+    public void criarParticoesFuturas() {
+        LocalDate hoje = LocalDate.now();
+        int criadas = faturaRepository.criarParticoes(hoje, hoje.plusMonths(mesesFuturos));
+        if (criadas > 0) {
+            System.out.println(criadas + " partição(ões) mensal(is) de fatura criada(s) até " + hoje.plusMonths(mesesFuturos).withDayOfMonth(1) + ".");
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.fintech.pagamentos.service;
+
+import com.fintech.pagamentos.dto.AgingDTO;
+import com.fintech.pagamentos.dto.RelatorioAgingDTO;
+import com.fintech.pagamentos.relatorio.AcumuladorAging;
+import com.fintech.pagamentos.relatorio.FaixaAging;
+import com.fintech.pagamentos.relatorio.FaturaEmAberto;
+import com.fintech.pagamentos.repository.FaturaRepository;
+import com.fintech.pagamentos.repository.FaturaRepository.LinhaAging;
+import com.fintech.pagamentos.repository.FaturaRepository.LinhaAgingCliente;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Relatório de aging das faturas não pagas (GET /relatorios/aging), geral e por cliente.
+// Modo "banco" (padrão): uma consulta agregada com FILTER, que devolve só uma linha por cliente (ou uma linha no total).
+// Modo "stream": as faturas não pagas são projetadas (cliente, vencimento, valor) e agregadas em paralelo, em blocos
+// lidos do cursor do banco, para comparar as duas abordagens (RepositorioFaturasBenchmark.agingBanco/agingStream).
+@Service
+public class RelatorioAgingService {
+
+    // Do maior para o menor valor em aberto; empates pela ordem do ID como texto (a mesma nos dois modos)
+    private static final Comparator<AgingDTO> ORDEM_CLIENTES = Comparator.comparing(AgingDTO::getValor).reversed()
+            .thenComparing(aging -> aging.getClienteId().toString());
+
+    private record Cliente(UUID id, String nome) {
+    }
+
+    static final int TAMANHO_BLOCO = 10_000; // Faturas do cursor agregadas por vez no modo "stream"
+
+    private final FaturaRepository faturaRepository;
+
+    public RelatorioAgingService(FaturaRepository faturaRepository) {
+        this.faturaRepository = faturaRepository;
+    }
+
+    public enum Modo {
+        BANCO, STREAM;
+
+        public static Modo de(String valor) {
+            try {
+                return Modo.valueOf(valor.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Modo inválido: " + valor + ". Valores permitidos: banco, stream.");
+            }
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public RelatorioAgingDTO gerar(Modo modo, boolean porCliente, LocalDate referencia) {
+        return modo == Modo.BANCO ? gerarNoBanco(porCliente, referencia) : gerarComStream(porCliente, referencia);
+    }
+
+    private RelatorioAgingDTO gerarNoBanco(boolean porCliente, LocalDate referencia) {
+        LocalDate limite30 = referencia.minusDays(30);
+        LocalDate limite60 = referencia.minusDays(60);
+        LocalDate limite90 = referencia.minusDays(90);
+        if (!porCliente) {
+            AgingDTO total = acumular(faturaRepository.agingTotal(referencia, limite30, limite60, limite90)).paraDTO(null, null);
+            return new RelatorioAgingDTO(referencia, "banco", total, null);
+        }
+
+        // O total geral é a soma das linhas por cliente, sem outra passada pela tabela
+        AcumuladorAging total = new AcumuladorAging();
+        List<AgingDTO> clientes = new ArrayList<>();
+        for (LinhaAgingCliente linha : faturaRepository.agingPorCliente(referencia, limite30, limite60, limite90)) {
+            AcumuladorAging cliente = acumular(linha);
+            total.combinar(cliente);
+            clientes.add(cliente.paraDTO(UUID.fromString(linha.getClienteId()), linha.getClienteNome()));
+        }
+        clientes.sort(ORDEM_CLIENTES);
+        return new RelatorioAgingDTO(referencia, "banco", total.paraDTO(null, null), clientes);
+    }
+
+    private static AcumuladorAging acumular(LinhaAging linha) {
+        AcumuladorAging acumulador = new AcumuladorAging();
+        acumulador.adicionar(FaixaAging.A_VENCER, linha.getQuantidadeAVencer(), linha.getValorAVencer());
+        acumulador.adicionar(FaixaAging.DE_1_A_30, linha.getQuantidade1a30(), linha.getValor1a30());
+        acumulador.adicionar(FaixaAging.DE_31_A_60, linha.getQuantidade31a60(), linha.getValor31a60());
+        acumulador.adicionar(FaixaAging.DE_61_A_90, linha.getQuantidade61a90(), linha.getValor61a90());
+        acumulador.adicionar(FaixaAging.MAIS_DE_90, linha.getQuantidadeMais90(), linha.getValorMais90());
+        return acumulador;
+    }
+
+    // Todas as faturas não pagas são transferidas, lidas do cursor pela thread da transação de gerar. Cada bloco de
+    // TAMANHO_BLOCO faturas é agregado em paralelo (parallel stream, um acumulador por thread) enquanto o bloco seguinte é lido.
+    // Na memória ficam no máximo dois blocos, além dos acumuladores (um por cliente).
+    private RelatorioAgingDTO gerarComStream(boolean porCliente, LocalDate referencia) {
+        if (!porCliente) {
+            AcumuladorAging total = new AcumuladorAging();
+            agregarEmBlocos(bloco -> bloco.parallelStream().collect(AcumuladorAging.coletor(referencia)), total::combinar);
+            return new RelatorioAgingDTO(referencia, "stream", total.paraDTO(null, null), null);
+        }
+
+        Map<Cliente, AcumuladorAging> acumuladores = new HashMap<>();
+        agregarEmBlocos(bloco -> bloco.parallelStream().collect(Collectors.groupingBy(
+                        fatura -> new Cliente(fatura.clienteId(), fatura.clienteNome()), AcumuladorAging.coletor(referencia))),
+                parcial -> parcial.forEach((cliente, acumulador) -> acumuladores.merge(cliente, acumulador, AcumuladorAging::combinar)));
+        AcumuladorAging total = new AcumuladorAging();
+        List<AgingDTO> clientes = new ArrayList<>(acumuladores.size());
+        acumuladores.forEach((cliente, acumulador) -> {
+            total.combinar(acumulador);
+            clientes.add(acumulador.paraDTO(cliente.id(), cliente.nome()));
+        });
+        clientes.sort(ORDEM_CLIENTES);
+        return new RelatorioAgingDTO(referencia, "stream", total.paraDTO(null, null), clientes);
+    }
+
+    // Um bloco por vez é agregado (no ForkJoinPool comum) e combinado ao resultado: as combinações nunca são simultâneas,
+    // e o join de cada uma, antes de agregar o bloco seguinte e no fim, publica o resultado para a thread da transação
+    private <R> void agregarEmBlocos(Function<List<FaturaEmAberto>, R> agregarBloco, Consumer<R> combinar) {
+        try (Stream<FaturaEmAberto> faturas = faturaRepository.streamFaturasEmAberto()) {
+            Iterator<FaturaEmAberto> cursor = faturas.iterator();
+            CompletableFuture<Void> anterior = CompletableFuture.completedFuture(null);
+            while (cursor.hasNext()) {
+                List<FaturaEmAberto> bloco = new ArrayList<>(TAMANHO_BLOCO);
+                while (bloco.size() < TAMANHO_BLOCO && cursor.hasNext()) {
+                    bloco.add(cursor.next());
+                }
+                anterior.join();
+                anterior = CompletableFuture.supplyAsync(() -> agregarBloco.apply(bloco)).thenAccept(combinar);
+            }
+            anterior.join();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.fintech.pagamentos.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintech.pagamentos.service.VersoesTabelasService.Tabela;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+// ETags das listagens consultadas pelo dashboard (GET /clientes/bloqueados, /faturas e /faturas/atrasadas).
+// A ETag é formada pelas versões das tabelas lidas pela listagem (VersoesTabelasService), que mudam depois do commit de
+// qualquer alteração, neste nó na hora e nas outras réplicas em até dois ciclos de sincronização. Um If-None-Match com a
+// versão atual é respondido com 304 sem consulta, e a mesma ETag vale em qualquer réplica que já leu aquela versão.
+// O JSON de cada página fica em cache por ETag, e só é gerado novamente quando a versão muda.
+@Service
+public class RespostasVersionadasService {
+
+    private record ChaveResposta(String etag, String consulta) {
+    }
+
+    private final VersoesTabelasService versoes;
+    private final ObjectMapper objectMapper;
+    private final Cache<ChaveResposta, byte[]> respostas;
+
+    public RespostasVersionadasService(VersoesTabelasService versoes, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                       @Value("${pagamentos.cache.respostas-maximo-bytes:67108864}") long respostasMaximoBytes,
+                                       @Value("${pagamentos.cache.ttl-minutos:10}") long ttlMinutos) {
+        this.versoes = versoes;
+        this.objectMapper = objectMapper;
+        this.respostas = Caffeine.newBuilder()
+                .maximumWeight(respostasMaximoBytes)
+                .weigher((ChaveResposta chave, byte[] corpo) -> corpo.length)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutos))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, respostas, "respostas-versionadas");
+    }
+
+    public String etagClientes() {
+        return "c" + versoes.versao(Tabela.CLIENTES);
+    }
+
+    // As faturas retornam o nome do cliente, então a listagem também depende da versão de clientes
+    public String etagFaturas() {
+        return "f" + versoes.versao(Tabela.FATURAS) + "-c" + versoes.versao(Tabela.CLIENTES);
+    }
+
+    // A ETag deve ser lida antes da consulta: como a versão só muda depois do commit, o JSON guardado com uma ETag
+    // nunca é mais antigo que ela (no máximo mais novo, e a próxima alteração troca a ETag de qualquer forma)
+    public byte[] serializar(String etag, String consulta, Supplier<?> carregar) {
+        return respostas.get(new ChaveResposta(etag, consulta), chave -> {
+            try {
+                return objectMapper.writeValueAsBytes(carregar.get());
+            } catch (JsonProcessingException e) {
+                throw new RuntimeException("Erro ao serializar a resposta de " + consulta + ".", e);
+            }
+        });
+    }
+}
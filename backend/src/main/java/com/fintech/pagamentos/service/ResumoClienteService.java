@@ -0,0 +1,73 @@
+package com.fintech.pagamentos.service;
+
+import com.fintech.pagamentos.dto.ReconstrucaoResumoDTO;
+import com.fintech.pagamentos.dto.ResumoClienteDTO;
+import com.fintech.pagamentos.event.ClienteAlteradoEvent;
+import com.fintech.pagamentos.event.FaturaPagaEvent;
+import com.fintech.pagamentos.repository.FaturaRepository;
+import com.fintech.pagamentos.repository.ResumoClienteRepository;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+// Resumo financeiro por cliente (GET /clientes/{id}/resumo): totais em aberto e atrasado lidos de uma linha da tabela
+// resumo_cliente e próximo vencimento por uma busca no índice (cliente_id, status, data_vencimento).
+// Os totais recebem deltas na transação de cada mudança de status: pagamentos aqui e a transição para atrasada
+// em FaturaRepository.marcarComoAtrasadas.
+@Service
+public class ResumoClienteService {
+
+    private final ResumoClienteRepository resumoClienteRepository;
+    private final FaturaRepository faturaRepository;
+
+    public ResumoClienteService(ResumoClienteRepository resumoClienteRepository, FaturaRepository faturaRepository) {
+        this.resumoClienteRepository = resumoClienteRepository;
+        this.faturaRepository = faturaRepository;
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<ResumoClienteDTO> buscarResumo(UUID clienteId) {
+        return resumoClienteRepository.findById(clienteId)
+                .map(resumo -> new ResumoClienteDTO(clienteId, resumo.getTotalAberto(), resumo.getTotalAtrasado(),
+                        faturaRepository.findProximoVencimentoEmAberto(clienteId).orElse(null)));
+    }
+
+    // Cliente novo começa com o resumo zerado (na atualização a linha já existe e nada muda)
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void aoAlterarCliente(ClienteAlteradoEvent evento) {
+        resumoClienteRepository.criarSeNaoExistir(evento.clienteId());
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void aoPagarFatura(FaturaPagaEvent evento) {
+        if (evento.statusAnterior() == null) {
+            return;
+        }
+        switch (evento.statusAnterior()) {
+            case 'B' -> resumoClienteRepository.aplicarDelta(evento.clienteId(), evento.valor().negate(), BigDecimal.ZERO);
+            case 'A' -> resumoClienteRepository.aplicarDelta(evento.clienteId(), BigDecimal.ZERO, evento.valor().negate());
+            default -> { }
+        }
+    }
+
+    // Verificação: recalcula os totais de todos os clientes a partir das faturas e das reservas de crédito (compras
+    // aprovadas e cotas das réplicas) e corrige os divergentes. Pagamentos, concessões de cota e expirações ficam
+    // aguardando até o fim da reconstrução, para nenhum delta ser aplicado sobre um total antigo.
+    @Transactional
+    public ReconstrucaoResumoDTO reconstruir() {
+        resumoClienteRepository.travarParaReconstrucao();
+        List<UUID> corrigidos = resumoClienteRepository.reconstruir();
+        for (UUID id : corrigidos) {
+            System.out.println("Resumo do cliente ID " + id + " divergia das faturas e foi recalculado.");
+        }
+        return new ReconstrucaoResumoDTO(corrigidos.size(), corrigidos);
+    }
+}
@@ -0,0 +1,126 @@
+package com.fintech.pagamentos.service;
+
+import com.fintech.pagamentos.batch.AgendaVencimentos;
+import com.fintech.pagamentos.batch.ResultadoParticao;
+import com.fintech.pagamentos.batch.VencimentoFatura;
+import com.fintech.pagamentos.event.FaturaPagaEvent;
+import com.fintech.pagamentos.event.FaturasAtrasadasEvent;
+import com.fintech.pagamentos.repository.FaturaRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Transição automática das faturas de 'B' (Aberta) para 'A' (Atrasada) quando o vencimento passa.
+// As faturas em aberto ficam numa agenda em memória ordenada por vencimento: na virada do dia apenas as que venceram
+// são retiradas e atualizadas em lote, sem varrer a tabela de faturas. Com várias réplicas, a transição do dia roda em
+// um único nó (lease do job, como nos jobs particionados).
+@Service
+public class TransicaoVencimentoService {
+
+    private static final int TAMANHO_LOTE = 1000;
+    private static final String JOB_TRANSICAO = "transicao-vencimento";
+
+    private final FaturaRepository faturaRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JobParticionadoService jobParticionadoService;
+    private final AgendaVencimentos agenda = new AgendaVencimentos();
+
+    public TransicaoVencimentoService(FaturaRepository faturaRepository, ApplicationEventPublisher eventPublisher,
+                                      JobParticionadoService jobParticionadoService) {
+        this.faturaRepository = faturaRepository;
+        this.eventPublisher = eventPublisher;
+        this.jobParticionadoService = jobParticionadoService;
+    }
+
+    // Monta a agenda a partir do banco na inicialização
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(1)
+    @Transactional(readOnly = true)
+    public void reconstruirAgenda() {
+        agenda.limpar();
+        try (Stream<VencimentoFatura> vencimentos = faturaRepository.streamVencimentosEmAberto()) {
+            vencimentos.forEach(v -> agenda.adicionar(v.faturaId(), v.dataVencimento()));
+        }
+        System.out.println("Agenda de vencimentos carregada com " + agenda.tamanho() + " fatura(s) em aberto.");
+    }
+
+    // Executa na virada do dia e também logo após a carga da agenda, para aplicar as transições
+    // que ficaram pendentes enquanto a aplicação estava parada.
+    // Todos os nós retiram as vencidas da própria agenda, mas só o nó que reivindicar o job do dia as marca: a recuperação
+    // pelo banco, no fim, cobre as faturas agendadas nos outros nós.
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(2)
+    @Scheduled(cron = "0 0 0 * * ?")
+    public void transicionarFaturasVencidas() {
+        LocalDate hoje = LocalDate.now();
+        List<VencimentoFatura> vencidas = agenda.retirarVencidasAntesDe(hoje);
+        jobParticionadoService.executarEmUmNo(JOB_TRANSICAO, hoje, () -> transicionar(vencidas, hoje));
+    }
+
+    private ResultadoParticao transicionar(List<VencimentoFatura> vencidas, LocalDate hoje) {
+        int atualizadas = 0;
+        for (int inicio = 0; inicio < vencidas.size(); inicio += TAMANHO_LOTE) {
+            List<VencimentoFatura> lote = vencidas.subList(inicio, Math.min(inicio + TAMANHO_LOTE, vencidas.size()));
+            try {
+                atualizadas += marcarLote(lote);
+            } catch (RuntimeException e) {
+                // O lote volta para a agenda e é tentado novamente na próxima execução
+                lote.forEach(v -> agenda.adicionar(v.faturaId(), v.dataVencimento()));
+                System.out.println("Falha ao marcar lote de " + lote.size() + " fatura(s) como atrasada(s): " + e.getMessage());
+            }
+        }
+
+        // Recuperação: faturas vencidas que continuam em aberto no banco sem terem passado pela agenda deste nó
+        // (ex: inseridas ou com o vencimento alterado depois da carga). Cada lote marcado sai da consulta seguinte.
+        int recuperadas = 0;
+        List<VencimentoFatura> restantes;
+        while (!(restantes = faturaRepository.findVencimentosEmAbertoAntesDe(hoje, Limit.of(TAMANHO_LOTE))).isEmpty()) {
+            int marcadas;
+            try {
+                marcadas = marcarLote(restantes);
+            } catch (RuntimeException e) {
+                System.out.println("Falha ao recuperar faturas vencidas fora da agenda: " + e.getMessage());
+                break;
+            }
+            if (marcadas == 0) {
+                break; // Pagas entre a consulta e a atualização
+            }
+            recuperadas += marcadas;
+        }
+        atualizadas += recuperadas;
+
+        System.out.println(atualizadas + " fatura(s) marcada(s) como atrasada(s) (" + recuperadas + " fora da agenda) em: " + LocalDateTime.now());
+        if (atualizadas > 0) {
+            eventPublisher.publishEvent(new FaturasAtrasadasEvent(atualizadas));
+        }
+        return new ResultadoParticao(vencidas.size() + recuperadas, atualizadas);
+    }
+
+    // Os lotes estão em ordem de vencimento: o primeiro e o último limitam as partições da instrução
+    private int marcarLote(List<VencimentoFatura> lote) {
+        return faturaRepository.marcarComoAtrasadas(lote.stream().map(VencimentoFatura::faturaId).toList(),
+                lote.get(0).dataVencimento(), lote.get(lote.size() - 1).dataVencimento());
+    }
+
+    // Fatura paga não precisa mais da transição (somente após o commit do pagamento)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void aoPagarFatura(FaturaPagaEvent evento) {
+        agenda.remover(evento.faturaId());
+    }
+
+    public int faturasAgendadas() {
+        return agenda.tamanho();
+    }
+}
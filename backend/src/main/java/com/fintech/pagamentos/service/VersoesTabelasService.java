@@ -0,0 +1,171 @@
+package com.fintech.pagamentos.service;
+
+import com.fintech.pagamentos.event.ClienteAlteradoEvent;
+import com.fintech.pagamentos.event.ClienteBloqueadoEvent;
+import com.fintech.pagamentos.event.ClienteDesbloqueadoEvent;
+import com.fintech.pagamentos.event.FaturaPagaEvent;
+import com.fintech.pagamentos.event.FaturasArquivadasEvent;
+import com.fintech.pagamentos.event.FaturasAtrasadasEvent;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Versões das tabelas cliente e fatura, usadas nas chaves dos caches em memória e nas ETags das listagens.
+// A versão compartilhada entre as réplicas fica nas sequências versao_clientes_seq e versao_faturas_seq: depois do commit
+// de uma alteração a tabela conta uma alteração local, e a sincronização (a cada intervalo-ms) avança a sequência da tabela
+// uma vez por ciclo e relê as duas sequências. Uma réplica enxerga as alterações feitas em outra em até dois ciclos.
+// A sequência avança depois do commit, e não dentro da transação: avançada antes, outra réplica poderia guardar os dados
+// antigos já com a versão nova. nextval também não trava, então os pagamentos não disputam uma linha de versão.
+// Com versoes-compartilhadas=false (ex: H2 nos benchmarks, sem as sequências) a versão não muda (um único nó).
+@Service
+public class VersoesTabelasService {
+
+    public enum Tabela {
+        CLIENTES("versao_clientes_seq"), FATURAS("versao_faturas_seq");
+
+        private final String sequencia;
+
+        Tabela(String sequencia) {
+            this.sequencia = sequencia;
+        }
+    }
+
+    private static final class Versao {
+        private volatile long banco; // last_value da sequência na última sincronização
+        private volatile boolean lida; // Já houve uma sincronização com sucesso
+        private final AtomicLong locais = new AtomicLong(); // Alterações commitadas neste nó e ainda não vistas em banco
+        private final AtomicLong externas = new AtomicLong(); // Avanços da sequência feitos por outras réplicas
+    }
+
+    // Diferencia as instâncias (réplicas ou reinício) nas versões que só valem neste nó
+    private final String instancia = Long.toHexString(UUID.randomUUID().getMostSignificantBits());
+
+    // Até o primeiro nextval a sequência tem last_value=1 com is_called=false: a versão inicial é 0
+    private static final String LEITURA = "SELECT"
+            + " (SELECT CASE WHEN is_called THEN last_value ELSE 0 END FROM versao_clientes_seq),"
+            + " (SELECT CASE WHEN is_called THEN last_value ELSE 0 END FROM versao_faturas_seq)";
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean compartilhadas;
+    private final Map<Tabela, Versao> versoes = new EnumMap<>(Tabela.class);
+
+    public VersoesTabelasService(EntityManager entityManager, PlatformTransactionManager transactionManager,
+                                 @Value("${pagamentos.cache.versoes-compartilhadas:true}") boolean compartilhadas) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.compartilhadas = compartilhadas;
+        for (Tabela tabela : Tabela.values()) {
+            versoes.put(tabela, new Versao());
+        }
+    }
+
+    // Versão compartilhada: muda quando a tabela é alterada em qualquer réplica (inclusive esta, após a sincronização)
+    public long versaoBanco(Tabela tabela) {
+        return versoes.get(tabela).banco;
+    }
+
+    // Versão compartilhada, igual em todas as réplicas que já leram a mesma versão do banco. Enquanto houver alterações
+    // locais não sincronizadas (ou antes da primeira leitura), a versão é da instância: muda na hora com as alterações
+    // deste nó e nunca coincide com a de outra réplica, que ainda pode ter os dados anteriores.
+    public String versao(Tabela tabela) {
+        Versao versao = versoes.get(tabela);
+        long banco = versao.banco;
+        long locais = versao.locais.get();
+        if (versao.lida && locais == 0) {
+            return Long.toString(banco);
+        }
+        return banco + "." + instancia + "." + locais;
+    }
+
+    // Contador dos avanços da sequência feitos por outras réplicas desde a inicialização (não inclui os deste nó). Quem mantém
+    // dados da tabela atualizados só pelos eventos locais compara o contador para saber quando precisa reler do banco.
+    public long alteracoesExternas(Tabela tabela) {
+        return versoes.get(tabela).externas.get();
+    }
+
+    void alterada(Tabela tabela) {
+        versoes.get(tabela).locais.incrementAndGet();
+    }
+
+    @Scheduled(fixedDelayString = "${pagamentos.cache.versao-intervalo-ms:1000}")
+    public void sincronizar() {
+        if (!compartilhadas) {
+            return;
+        }
+        Map<Tabela, Long> enviadas = new EnumMap<>(Tabela.class);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Tabela tabela : Tabela.values()) {
+                    long locais = versoes.get(tabela).locais.get();
+                    if (locais > 0) {
+                        enviadas.put(tabela, locais);
+                        entityManager.createNativeQuery("SELECT nextval('" + tabela.sequencia + "')").getSingleResult();
+                    }
+                }
+                Object[] atuais = (Object[]) entityManager.createNativeQuery(LEITURA).getSingleResult();
+                ler(Tabela.CLIENTES, ((Number) atuais[0]).longValue(), enviadas.getOrDefault(Tabela.CLIENTES, 0L));
+                ler(Tabela.FATURAS, ((Number) atuais[1]).longValue(), enviadas.getOrDefault(Tabela.FATURAS, 0L));
+            });
+        } catch (RuntimeException e) {
+            // As alterações não enviadas continuam contadas e vão no próximo ciclo
+            System.out.println("Erro ao sincronizar as versões das tabelas: " + e.getMessage());
+        }
+    }
+
+    // A versão do banco é gravada antes de descontar as alterações enviadas: no intervalo, a versão ainda é da instância,
+    // e nunca a versão compartilhada anterior com os dados já alterados
+    // Cada ciclo avança a sequência uma vez por tabela com alterações enviadas: o restante do avanço veio de outras réplicas.
+    private void ler(Tabela tabela, long banco, long enviadas) {
+        Versao versao = versoes.get(tabela);
+        long externas = banco - versao.banco - (enviadas > 0 ? 1 : 0);
+        if (versao.lida && externas > 0) {
+            versao.externas.addAndGet(externas);
+        }
+        versao.banco = banco;
+        versao.lida = true;
+        versao.locais.addAndGet(-enviadas);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void aoAlterarCliente(ClienteAlteradoEvent evento) {
+        alterada(Tabela.CLIENTES);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void aoBloquearCliente(ClienteBloqueadoEvent evento) {
+        alterada(Tabela.CLIENTES);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void aoDesbloquearCliente(ClienteDesbloqueadoEvent evento) {
+        alterada(Tabela.CLIENTES);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void aoPagarFatura(FaturaPagaEvent evento) {
+        alterada(Tabela.FATURAS);
+    }
+
+    // Publicado depois do commit dos lotes da transição diária
+    @EventListener
+    public void aoMarcarFaturasAtrasadas(FaturasAtrasadasEvent evento) {
+        alterada(Tabela.FATURAS);
+    }
+
+    @EventListener
+    public void aoArquivarFaturas(FaturasArquivadasEvent evento) {
+        alterada(Tabela.FATURAS);
+    }
+}
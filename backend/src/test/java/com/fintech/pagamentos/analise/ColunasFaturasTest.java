@@ -0,0 +1,80 @@
+package com.fintech.pagamentos.analise;
+
+import com.fintech.pagamentos.analise.ColunasFaturas.Dimensao;
+import com.fintech.pagamentos.analise.ColunasFaturas.Filtro;
+import com.fintech.pagamentos.analise.ColunasFaturas.Grupo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColunasFaturasTest {
+
+    private final UUID clienteAtivo = UUID.randomUUID();
+    private final UUID clienteBloqueado = UUID.randomUUID();
+    private final UUID faturaAberta = UUID.randomUUID();
+
+    private ColunasFaturas colunas;
+
+    @BeforeEach
+    void setUp() {
+        colunas = new ColunasFaturas();
+        colunas.adicionar(new LinhaAnaliseFatura(faturaAberta, clienteAtivo, 'A', LocalDate.of(2025, 1, 10), new BigDecimal("100.50"), 'B'));
+        colunas.adicionar(new LinhaAnaliseFatura(UUID.randomUUID(), clienteAtivo, 'A', LocalDate.of(2025, 1, 31), new BigDecimal("20.00"), 'P'));
+        colunas.adicionar(new LinhaAnaliseFatura(UUID.randomUUID(), clienteBloqueado, 'B', LocalDate.of(2025, 3, 1), new BigDecimal("7.25"), 'A'));
+    }
+
+    @Test
+    @DisplayName("agregar - Deve somar quantidade e centavos por status, sem grupos vazios")
+    void agregar_DeveAgruparPorStatus() {
+        colunas.alterarStatus(faturaAberta, 'P');
+
+        assertEquals(List.of(new Grupo("A", 1, 725), new Grupo("P", 2, 12050)), colunas.agregar(Dimensao.STATUS, Filtro.TODAS));
+    }
+
+    @Test
+    @DisplayName("agregar - Deve agrupar por mês de vencimento e situação de bloqueio, com filtros")
+    void agregar_DeveAgruparPorMesEBloqueio() {
+        assertEquals(List.of(new Grupo("2025-01", 2, 12050), new Grupo("2025-03", 1, 725)),
+                colunas.agregar(Dimensao.MES, Filtro.TODAS));
+        assertEquals(List.of(new Grupo("2025-01", 1, 10050)),
+                colunas.agregar(Dimensao.MES, Filtro.de('B', null, null)));
+        assertEquals(List.of(new Grupo("2025-03", 1, 725)),
+                colunas.agregar(Dimensao.MES, Filtro.de(null, LocalDate.of(2025, 2, 1), LocalDate.of(2025, 3, 1))));
+
+        colunas.alterarBloqueio(clienteAtivo, 'B');
+        assertEquals(List.of(new Grupo("B", 3, 12775)), colunas.agregar(Dimensao.BLOQUEIO, Filtro.TODAS));
+    }
+
+    @Test
+    @DisplayName("marcarAtrasadasAntesDe - Deve alterar só as faturas em aberto vencidas antes da data")
+    void marcarAtrasadasAntesDe_DeveAlterarSoEmAbertoVencidas() {
+        assertEquals(0, colunas.marcarAtrasadasAntesDe(LocalDate.of(2025, 1, 10)));
+        assertEquals(1, colunas.marcarAtrasadasAntesDe(LocalDate.of(2025, 1, 11)));
+        assertEquals(List.of(new Grupo("A", 2, 10775), new Grupo("P", 1, 2000)), colunas.agregar(Dimensao.STATUS, Filtro.TODAS));
+    }
+
+    @Test
+    @DisplayName("agregar - Varredura em vários blocos paralelos deve somar todas as linhas")
+    void agregar_DeveSomarTodosOsBlocos() {
+        ColunasFaturas grande = new ColunasFaturas();
+        int linhas = ColunasFaturas.LINHAS_POR_BLOCO * 3 + 17;
+        LocalDate inicio = LocalDate.of(2023, 12, 1);
+        for (int i = 0; i < linhas; i++) {
+            grande.adicionar(new LinhaAnaliseFatura(UUID.randomUUID(), UUID.randomUUID(), 'A', inicio.plusDays(i % 90),
+                    BigDecimal.ONE, 'B'));
+        }
+
+        List<Grupo> porMes = grande.agregar(Dimensao.MES, Filtro.TODAS);
+
+        assertEquals(List.of("2023-12", "2024-01", "2024-02"), porMes.stream().map(Grupo::chave).toList());
+        assertEquals(linhas, porMes.stream().mapToLong(Grupo::quantidade).sum());
+        assertEquals(linhas * 100L, porMes.stream().mapToLong(Grupo::centavos).sum());
+    }
+}
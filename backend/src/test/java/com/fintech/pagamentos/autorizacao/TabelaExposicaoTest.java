@@ -0,0 +1,140 @@
+package com.fintech.pagamentos.autorizacao;
+
+import com.fintech.pagamentos.autorizacao.TabelaExposicao.Cota;
+import com.fintech.pagamentos.autorizacao.TabelaExposicao.Decisao;
+import com.fintech.pagamentos.autorizacao.TabelaExposicao.Resultado;
+import com.fintech.pagamentos.autorizacao.TabelaExposicao.Retirada;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TabelaExposicaoTest {
+
+    private static final long AGORA = 1_000_000;
+    private static final long VALIDA_ATE = AGORA + 15_000;
+
+    private final UUID clienteId = UUID.randomUUID();
+    private final UUID cotaId = UUID.randomUUID();
+
+    private TabelaExposicao tabela;
+
+    @BeforeEach
+    void setUp() {
+        tabela = new TabelaExposicao();
+        tabela.creditar(clienteId, cotaId, 10_000, 50_000, VALIDA_ATE);
+    }
+
+    @Test
+    @DisplayName("autorizar - Deve descontar as compras aprovadas da cota e recusar acima do saldo")
+    void autorizar_DeveDescontarERecusarAcimaDoSaldo() {
+        assertEquals(new Decisao(Resultado.APROVADA, cotaId, 4_000, 50_000), tabela.autorizar(clienteId, 6_000, AGORA));
+        assertEquals(new Decisao(Resultado.COTA_INSUFICIENTE, cotaId, 4_000, 50_000), tabela.autorizar(clienteId, 4_001, AGORA));
+        assertEquals(new Decisao(Resultado.APROVADA, cotaId, 0, 50_000), tabela.autorizar(clienteId, 4_000, AGORA));
+        assertEquals(new Decisao(Resultado.COTA_INSUFICIENTE, null, 0, 0), tabela.autorizar(UUID.randomUUID(), 1, AGORA));
+    }
+
+    @Test
+    @DisplayName("autorizar - Autorizações simultâneas do mesmo cliente nunca devem passar do saldo da cota")
+    void autorizar_DeveRespeitarSaldoEmConcorrencia() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Future<Long>[] aprovadas = IntStream.range(0, 8)
+                    .mapToObj(i -> executor.submit(() -> IntStream.range(0, 1_000)
+                            .filter(j -> tabela.autorizar(clienteId, 7, AGORA).resultado() == Resultado.APROVADA).count()))
+                    .toArray(Future[]::new);
+            long total = 0;
+            for (Future<Long> quantidade : aprovadas) {
+                total += quantidade.get(30, TimeUnit.SECONDS);
+            }
+
+            assertEquals(10_000 / 7, total);
+            assertEquals(OptionalLong.of(10_000 % 7), tabela.saldo(clienteId));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("autorizar - Cota vencida não deve aprovar até ser renovada")
+    void autorizar_DeveRecusarCotaVencidaAteARenovacao() {
+        assertEquals(new Decisao(Resultado.COTA_INSUFICIENTE, cotaId, 0, 50_000), tabela.autorizar(clienteId, 1, VALIDA_ATE));
+
+        tabela.renovar(tabela.cotas(), Set.of(cotaId), VALIDA_ATE + 15_000);
+
+        assertEquals(Resultado.APROVADA, tabela.autorizar(clienteId, 1, VALIDA_ATE).resultado());
+    }
+
+    @Test
+    @DisplayName("creditar - Deve somar à mesma cota e substituir a cota apagada no banco por outra")
+    void creditar_DeveSomarOuSubstituirCota() {
+        tabela.autorizar(clienteId, 8_000, AGORA);
+        tabela.creditar(clienteId, cotaId, 5_000, 45_000, VALIDA_ATE);
+        assertEquals(new Decisao(Resultado.APROVADA, cotaId, 0, 45_000), tabela.autorizar(clienteId, 7_000, AGORA));
+
+        // Linha nova: o saldo da anterior não é somado
+        UUID novaCotaId = UUID.randomUUID();
+        tabela.creditar(clienteId, novaCotaId, 3_000, 42_000, VALIDA_ATE);
+        assertEquals(new Decisao(Resultado.APROVADA, novaCotaId, 1_000, 42_000), tabela.autorizar(clienteId, 2_000, AGORA));
+    }
+
+    @Test
+    @DisplayName("renovar - Deve descartar a cota que não existe mais no banco, mas não uma concedida depois da cópia")
+    void renovar_DeveDescartarCotasApagadasNoBanco() {
+        Map<UUID, Cota> copia = tabela.cotas();
+        assertEquals(1, tabela.renovar(copia, Set.of(), VALIDA_ATE));
+        assertEquals(OptionalLong.empty(), tabela.saldo(clienteId));
+
+        UUID novaCotaId = UUID.randomUUID();
+        tabela.creditar(clienteId, novaCotaId, 2_000, 0, VALIDA_ATE);
+        assertEquals(0, tabela.renovar(copia, Set.of(), VALIDA_ATE));
+        assertEquals(OptionalLong.of(2_000), tabela.saldo(clienteId));
+    }
+
+    @Test
+    @DisplayName("bloquear - Deve recusar tudo, mantendo a cota para o caso de o bloqueio ser desfeito")
+    void bloquear_DeveRecusarAteODesbloqueio() {
+        tabela.bloquear(clienteId);
+        assertEquals(Resultado.CLIENTE_BLOQUEADO, tabela.autorizar(clienteId, 1, AGORA).resultado());
+
+        tabela.desbloquear(clienteId);
+        assertEquals(new Decisao(Resultado.APROVADA, cotaId, 9_999, 50_000), tabela.autorizar(clienteId, 1, AGORA));
+
+        // Cliente sem cota: bloqueado até o banco conceder uma (só concede a cliente ativo)
+        UUID outro = UUID.randomUUID();
+        tabela.bloquear(outro);
+        assertEquals(Resultado.CLIENTE_BLOQUEADO, tabela.autorizar(outro, 1, AGORA).resultado());
+        tabela.creditar(outro, UUID.randomUUID(), 1_000, 0, VALIDA_ATE);
+        assertEquals(Resultado.APROVADA, tabela.autorizar(outro, 1, AGORA).resultado());
+    }
+
+    @Test
+    @DisplayName("retirarOciosas - Deve zerar só as cotas sem uso e devolver o saldo se o banco falhar")
+    void retirarOciosas_DeveZerarCotasSemUso() {
+        UUID ativo = UUID.randomUUID();
+        UUID cotaAtiva = UUID.randomUUID();
+        tabela.creditar(ativo, cotaAtiva, 1_000, 0, Long.MAX_VALUE);
+        tabela.autorizar(ativo, 100, Long.MAX_VALUE - 1);
+
+        List<Retirada> retiradas = tabela.retirarOciosas(Long.MAX_VALUE - 1);
+
+        assertEquals(List.of(new Retirada(clienteId, cotaId, 10_000)), retiradas);
+        assertEquals(OptionalLong.of(0), tabela.saldo(clienteId));
+        assertEquals(OptionalLong.of(900), tabela.saldo(ativo));
+
+        tabela.desfazerRetirada(retiradas.get(0));
+        assertEquals(OptionalLong.of(10_000), tabela.saldo(clienteId));
+    }
+}
@@ -0,0 +1,63 @@
+package com.fintech.pagamentos.batch;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AgendaVencimentosTest {
+
+    private static final LocalDate HOJE = LocalDate.of(2025, 7, 20);
+
+    private final AgendaVencimentos agenda = new AgendaVencimentos();
+
+    @Test
+    @DisplayName("retirarVencidasAntesDe - Deve devolver apenas as vencidas, em ordem de vencimento, e removê-las")
+    void retirarVencidasAntesDe_DeveDevolverApenasVencidasEmOrdem() {
+        UUID vencidaOntem = UUID.randomUUID();
+        UUID vencidaSemanaPassada = UUID.randomUUID();
+        UUID venceHoje = UUID.randomUUID();
+        UUID venceAmanha = UUID.randomUUID();
+        agenda.adicionar(vencidaOntem, HOJE.minusDays(1));
+        agenda.adicionar(venceHoje, HOJE);
+        agenda.adicionar(venceAmanha, HOJE.plusDays(1));
+        agenda.adicionar(vencidaSemanaPassada, HOJE.minusDays(7));
+
+        List<VencimentoFatura> vencidas = agenda.retirarVencidasAntesDe(HOJE);
+
+        assertEquals(List.of(
+                new VencimentoFatura(vencidaSemanaPassada, HOJE.minusDays(7)),
+                new VencimentoFatura(vencidaOntem, HOJE.minusDays(1))), vencidas);
+        assertEquals(2, agenda.tamanho()); // Continuam agendadas as que vencem hoje e amanhã
+        assertTrue(agenda.retirarVencidasAntesDe(HOJE).isEmpty()); // Já foram retiradas
+    }
+
+    @Test
+    @DisplayName("remover - Fatura removida (ex: paga) não deve ser retirada como vencida")
+    void remover_FaturaRemovidaNaoDeveSerRetirada() {
+        UUID paga = UUID.randomUUID();
+        UUID aberta = UUID.randomUUID();
+        agenda.adicionar(paga, HOJE.minusDays(2));
+        agenda.adicionar(aberta, HOJE.minusDays(2));
+
+        assertTrue(agenda.remover(paga));
+        assertFalse(agenda.remover(paga)); // Remover de novo não tem efeito
+
+        assertEquals(List.of(new VencimentoFatura(aberta, HOJE.minusDays(2))), agenda.retirarVencidasAntesDe(HOJE));
+    }
+
+    @Test
+    @DisplayName("adicionar - Deve reagendar a fatura quando o vencimento mudar")
+    void adicionar_DeveReagendarQuandoVencimentoMudar() {
+        UUID faturaId = UUID.randomUUID();
+        agenda.adicionar(faturaId, HOJE.minusDays(1));
+        agenda.adicionar(faturaId, HOJE.plusDays(10));
+
+        assertEquals(1, agenda.tamanho());
+        assertTrue(agenda.retirarVencidasAntesDe(HOJE).isEmpty());
+    }
+}
@@ -0,0 +1,79 @@
+package com.fintech.pagamentos.batch;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntervaloUuidTest {
+
+    // Valor sem sinal de 128 bits, na mesma ordem usada pelo banco
+    private static BigInteger valor(UUID uuid) {
+        return new BigInteger(1, ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array());
+    }
+
+    @Test
+    @DisplayName("particionar - Deve cobrir todo o espaço de UUIDs com faixas contíguas")
+    void particionar_DeveCobrirTodoOEspacoComFaixasContiguas() {
+        List<IntervaloUuid> intervalos = IntervaloUuid.particionar(7);
+
+        assertEquals(7, intervalos.size());
+        assertEquals(new UUID(0, 0), intervalos.get(0).inicio());
+        assertEquals(new UUID(-1L, -1L), intervalos.get(6).fim()); // ffffffff-ffff-ffff-ffff-ffffffffffff
+        for (int i = 0; i < intervalos.size(); i++) {
+            assertTrue(valor(intervalos.get(i).inicio()).compareTo(valor(intervalos.get(i).fim())) < 0);
+            if (i > 0) {
+                // O início de cada faixa é exatamente o fim da anterior + 1 (sem lacunas nem sobreposição)
+                assertEquals(valor(intervalos.get(i - 1).fim()).add(BigInteger.ONE), valor(intervalos.get(i).inicio()));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("particionar - Uma única partição deve abranger todos os IDs")
+    void particionar_UmaParticaoDeveAbrangerTodosOsIds() {
+        IntervaloUuid intervalo = IntervaloUuid.particionar(1).get(0);
+
+        assertEquals(new UUID(0, 0), intervalo.inicio());
+        assertEquals(new UUID(-1L, -1L), intervalo.fim());
+    }
+
+    @Test
+    @DisplayName("particionar - Faixas por limites devem terminar em cada limite e cobrir todo o espaço")
+    void particionar_FaixasPorLimitesDevemTerminarEmCadaLimite() {
+        // UUIDs v7 próximos (mesmo período), como os limites calculados a partir dos IDs existentes
+        UUID primeiro = UUID.fromString("01980000-0000-7000-8000-000000000010");
+        UUID segundo = UUID.fromString("01980000-0000-7000-8000-0000000000ff");
+        UUID ultimo = UUID.fromString("01990000-0000-7000-8000-000000000000");
+
+        List<IntervaloUuid> intervalos = IntervaloUuid.particionar(List.of(primeiro, segundo, ultimo));
+
+        assertEquals(3, intervalos.size());
+        assertEquals(new UUID(0, 0), intervalos.get(0).inicio());
+        assertEquals(primeiro, intervalos.get(0).fim());
+        assertEquals(valor(primeiro).add(BigInteger.ONE), valor(intervalos.get(1).inicio()));
+        assertEquals(segundo, intervalos.get(1).fim());
+        assertEquals(valor(segundo).add(BigInteger.ONE), valor(intervalos.get(2).inicio()));
+        assertEquals(new UUID(-1L, -1L), intervalos.get(2).fim()); // IDs criados depois do cálculo também entram
+    }
+
+    @Test
+    @DisplayName("particionar - Sem limites (tabela vazia) deve gerar uma única faixa")
+    void particionar_SemLimitesDeveGerarUmaFaixa() {
+        assertEquals(IntervaloUuid.particionar(1), IntervaloUuid.particionar(List.of()));
+    }
+
+    @Test
+    @DisplayName("particionar - Deve lançar exceção para quantidade inválida")
+    void particionar_DeveLancarExcecaoParaQuantidadeInvalida() {
+        assertThrows(IllegalArgumentException.class, () -> IntervaloUuid.particionar(0));
+    }
+}
@@ -0,0 +1,36 @@
+package com.fintech.pagamentos.id;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeradorUuidV7Test {
+
+    @Test
+    @DisplayName("gerar - Deve gerar UUID versão 7, variante RFC, com o instante atual nos 48 bits iniciais")
+    void gerar_DeveGerarUuidV7ComInstanteAtual() {
+        long antes = System.currentTimeMillis();
+        UUID uuid = GeradorUuidV7.gerar();
+        long depois = System.currentTimeMillis();
+
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+        long instante = uuid.getMostSignificantBits() >>> 16;
+        assertTrue(instante >= antes && instante <= depois);
+    }
+
+    @Test
+    @DisplayName("gerar - IDs de milissegundos diferentes devem seguir a ordem de criação (ordem do banco)")
+    void gerar_DeveSeguirOrdemDeCriacao() throws InterruptedException {
+        UUID primeiro = GeradorUuidV7.gerar();
+        Thread.sleep(2);
+        UUID segundo = GeradorUuidV7.gerar();
+
+        // Comparação sem sinal dos bits mais significativos, como no PostgreSQL
+        assertTrue(Long.compareUnsigned(primeiro.getMostSignificantBits(), segundo.getMostSignificantBits()) < 0);
+        assertNotEquals(GeradorUuidV7.gerar(), GeradorUuidV7.gerar());
+    }
+}
@@ -0,0 +1,70 @@
+package com.fintech.pagamentos.mapper;
+
+import com.fintech.pagamentos.dto.ClienteRequestDTO;
+import com.fintech.pagamentos.dto.ClienteResponseDTO;
+import com.fintech.pagamentos.entity.Cliente;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClienteMapperTest {
+
+    private final ClienteMapper clienteMapper = new ClienteMapper();
+
+    @Test
+    @DisplayName("toEntity - Deve copiar todos os campos do DTO, sem ID")
+    void toEntity_DeveCopiarCamposDoDTO() {
+        ClienteRequestDTO dto = new ClienteRequestDTO(
+                "Cliente Teste", "11122233344", LocalDate.of(1990, 1, 1), 'A', BigDecimal.valueOf(1500.00)
+        );
+
+        Cliente cliente = clienteMapper.toEntity(dto);
+
+        assertNull(cliente.getId()); // ID é gerado pelo banco
+        assertEquals("Cliente Teste", cliente.getNome());
+        assertEquals("11122233344", cliente.getCpf());
+        assertEquals(LocalDate.of(1990, 1, 1), cliente.getDataNascimento());
+        assertEquals('A', cliente.getStatusBloqueio());
+        assertEquals(BigDecimal.valueOf(1500.00), cliente.getLimiteCredito());
+    }
+
+    @Test
+    @DisplayName("atualizarEntity - Deve manter os campos não informados no DTO")
+    void atualizarEntity_DeveManterCamposNaoInformados() {
+        UUID id = UUID.randomUUID();
+        Cliente cliente = new Cliente(id, "Nome Antigo", "11122233344", LocalDate.of(1990, 1, 1), 'A', BigDecimal.valueOf(5000.00), null, null, 0L);
+        ClienteRequestDTO dto = new ClienteRequestDTO();
+        dto.setNome("Nome Novo");
+        dto.setLimiteCredito(BigDecimal.valueOf(7000.00));
+
+        clienteMapper.atualizarEntity(dto, cliente);
+
+        assertEquals(id, cliente.getId());
+        assertEquals("Nome Novo", cliente.getNome());
+        assertEquals(BigDecimal.valueOf(7000.00), cliente.getLimiteCredito());
+        assertEquals("11122233344", cliente.getCpf()); // Campos nulos no DTO não sobrescrevem
+        assertEquals(LocalDate.of(1990, 1, 1), cliente.getDataNascimento());
+        assertEquals('A', cliente.getStatusBloqueio());
+    }
+
+    @Test
+    @DisplayName("toResponseDTO - Deve copiar todos os campos da entidade")
+    void toResponseDTO_DeveCopiarCamposDaEntidade() {
+        UUID id = UUID.randomUUID();
+        Cliente cliente = new Cliente(id, "Cliente Teste", "11122233344", LocalDate.of(1990, 1, 1), 'B', BigDecimal.ZERO, 'M', null, 0L);
+
+        ClienteResponseDTO dto = clienteMapper.toResponseDTO(cliente);
+
+        assertEquals(id, dto.getId());
+        assertEquals("Cliente Teste", dto.getNome());
+        assertEquals("11122233344", dto.getCpf());
+        assertEquals(LocalDate.of(1990, 1, 1), dto.getDataNascimento());
+        assertEquals('B', dto.getStatusBloqueio());
+        assertEquals(BigDecimal.ZERO, dto.getLimiteCredito());
+    }
+}
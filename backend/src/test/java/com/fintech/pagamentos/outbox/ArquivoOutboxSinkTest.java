@@ -0,0 +1,51 @@
+package com.fintech.pagamentos.outbox;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintech.pagamentos.entity.OutboxEvento;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArquivoOutboxSinkTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    @DisplayName("publicar - Deve acrescentar uma linha JSON por evento, preservando os lotes anteriores")
+    void publicar_DeveAcrescentarUmaLinhaPorEvento() throws Exception {
+        // GIVEN
+        Path arquivo = diretorio.resolve("eventos.ndjson");
+        ArquivoOutboxSink sink = new ArquivoOutboxSink(arquivo, objectMapper);
+        UUID faturaId = UUID.randomUUID();
+        OutboxEvento primeiro = new OutboxEvento(1L, "FATURA_PAGA", faturaId, "{\"faturaId\":\"" + faturaId + "\"}",
+                LocalDateTime.of(2025, 7, 20, 10, 0), null);
+        OutboxEvento segundo = new OutboxEvento(2L, "CLIENTE_BLOQUEADO", UUID.randomUUID(), "{}",
+                LocalDateTime.of(2025, 7, 20, 10, 1), null);
+
+        // WHEN
+        sink.publicar(List.of(primeiro));
+        sink.publicar(List.of(segundo));
+
+        // THEN
+        List<String> linhas = Files.readAllLines(arquivo);
+        assertEquals(2, linhas.size());
+        JsonNode linha = objectMapper.readTree(linhas.get(0));
+        assertEquals(1L, linha.get("id").asLong());
+        assertEquals("FATURA_PAGA", linha.get("tipo").asText());
+        assertEquals(faturaId.toString(), linha.get("agregadoId").asText());
+        assertEquals(faturaId.toString(), linha.get("payload").get("faturaId").asText()); // Payload embutido como objeto
+        assertEquals(2L, objectMapper.readTree(linhas.get(1)).get("id").asLong());
+    }
+}
@@ -0,0 +1,121 @@
+package com.fintech.pagamentos.service;
+
+import com.fintech.pagamentos.analise.LinhaAnaliseFatura;
+import com.fintech.pagamentos.dto.AnaliseFaturasDTO;
+import com.fintech.pagamentos.dto.GrupoAnaliseFaturasDTO;
+import com.fintech.pagamentos.event.FaturaPagaEvent;
+import com.fintech.pagamentos.repository.ClienteRepository;
+import com.fintech.pagamentos.repository.FaturaRepository;
+import com.fintech.pagamentos.service.VersoesTabelasService.Tabela;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AnaliseFaturasServiceTest {
+
+    @Mock
+    private FaturaRepository faturaRepository;
+
+    @Mock
+    private ClienteRepository clienteRepository;
+
+    @Mock
+    private VersoesTabelasService versoesTabelasService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AnaliseFaturasService analiseFaturasService;
+
+    private final UUID clienteId = UUID.randomUUID();
+    private final UUID faturaId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        analiseFaturasService = new AnaliseFaturasService(faturaRepository, clienteRepository, versoesTabelasService, transactionManager);
+    }
+
+    private LinhaAnaliseFatura linha(UUID id, Character status) {
+        return new LinhaAnaliseFatura(id, clienteId, 'A', LocalDate.of(2025, 5, 10), new BigDecimal("10.00"), status);
+    }
+
+    @Test
+    @DisplayName("agregar - Deve responder pelas colunas carregadas e aplicar os pagamentos seguintes")
+    void agregar_DeveUsarColunasEAplicarPagamentos() {
+        // GIVEN
+        when(faturaRepository.streamParaAnalise()).thenReturn(Stream.of(linha(faturaId, 'B'), linha(UUID.randomUUID(), 'A')));
+        analiseFaturasService.recarregar();
+
+        // WHEN
+        analiseFaturasService.aoPagarFatura(new FaturaPagaEvent(faturaId, clienteId, BigDecimal.TEN, 'B'));
+        AnaliseFaturasDTO resultado = analiseFaturasService.agregar("status", null, null, null);
+
+        // THEN
+        assertEquals(2, resultado.getFaturasNaBase());
+        assertEquals(List.of(new GrupoAnaliseFaturasDTO("A", 1, new BigDecimal("10.00")),
+                new GrupoAnaliseFaturasDTO("P", 1, new BigDecimal("10.00"))), resultado.getGrupos());
+        verify(faturaRepository, times(1)).streamParaAnalise(); // A consulta não lê o banco
+    }
+
+    @Test
+    @DisplayName("recarregar - Pagamento recebido durante a carga deve ser aplicado às colunas novas")
+    void recarregar_DeveAplicarAlteracoesRecebidasDuranteACarga() {
+        // GIVEN: o pagamento chega depois que o banco foi lido, antes da troca das colunas
+        when(faturaRepository.streamParaAnalise()).thenAnswer(invocacao -> {
+            analiseFaturasService.aoPagarFatura(new FaturaPagaEvent(faturaId, clienteId, BigDecimal.TEN, 'B'));
+            return Stream.of(linha(faturaId, 'B'));
+        });
+
+        // WHEN
+        analiseFaturasService.recarregar();
+
+        // THEN
+        assertEquals(List.of(new GrupoAnaliseFaturasDTO("P", 1, new BigDecimal("10.00"))),
+                analiseFaturasService.agregar("status", null, null, null).getGrupos());
+    }
+
+    @Test
+    @DisplayName("sincronizarComOutrasReplicas - Deve recarregar só quando outra réplica alterar faturas ou clientes")
+    void sincronizarComOutrasReplicas_DeveRecarregarComAlteracoesExternas() {
+        // GIVEN: carga inicial; depois outra réplica paga a fatura (sem evento neste nó)
+        when(faturaRepository.streamParaAnalise()).thenReturn(Stream.of(linha(faturaId, 'B')), Stream.of(linha(faturaId, 'P')));
+        analiseFaturasService.recarregar();
+
+        // WHEN: sem alterações externas
+        analiseFaturasService.sincronizarComOutrasReplicas();
+
+        // THEN
+        verify(faturaRepository, times(1)).streamParaAnalise();
+
+        // WHEN: a versão compartilhada de faturas avançou em outra réplica
+        when(versoesTabelasService.alteracoesExternas(Tabela.FATURAS)).thenReturn(1L);
+        analiseFaturasService.sincronizarComOutrasReplicas();
+        analiseFaturasService.sincronizarComOutrasReplicas();
+
+        // THEN: uma única recarga, que já contém a alteração
+        verify(faturaRepository, times(2)).streamParaAnalise();
+        assertEquals(List.of(new GrupoAnaliseFaturasDTO("P", 1, new BigDecimal("10.00"))),
+                analiseFaturasService.agregar("status", null, null, null).getGrupos());
+    }
+
+    @Test
+    @DisplayName("agregar - Deve rejeitar agrupamento e status inválidos")
+    void agregar_DeveRejeitarParametrosInvalidos() {
+        assertThrows(IllegalArgumentException.class, () -> analiseFaturasService.agregar("cliente", null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> analiseFaturasService.agregar("status", 'X', null, null));
+    }
+}
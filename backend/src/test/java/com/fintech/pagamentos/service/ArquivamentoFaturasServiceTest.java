@@ -0,0 +1,66 @@
+package com.fintech.pagamentos.service;
+
+import com.fintech.pagamentos.event.FaturasArquivadasEvent;
+import com.fintech.pagamentos.repository.FaturaArquivadaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ArquivamentoFaturasServiceTest {
+
+    private static final int TAMANHO_LOTE = 100;
+
+    @Mock
+    private FaturaArquivadaRepository faturaArquivadaRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private ArquivamentoFaturasService arquivamentoFaturasService;
+
+    @BeforeEach
+    void setUp() {
+        arquivamentoFaturasService = new ArquivamentoFaturasService(faturaArquivadaRepository, eventPublisher, 12, TAMANHO_LOTE);
+    }
+
+    @Test
+    @DisplayName("arquivarFaturasPagas - Deve arquivar em lotes até um lote vir incompleto")
+    void arquivarFaturasPagas_DeveArquivarEmLotes() {
+        // GIVEN
+        LocalDate limite = LocalDate.now().minusMonths(12);
+        when(faturaArquivadaRepository.arquivarLote(limite, TAMANHO_LOTE)).thenReturn(TAMANHO_LOTE, TAMANHO_LOTE, 30);
+
+        // WHEN
+        int arquivadas = arquivamentoFaturasService.arquivarFaturasPagas();
+
+        // THEN
+        assertEquals(230, arquivadas);
+        verify(faturaArquivadaRepository, times(3)).arquivarLote(limite, TAMANHO_LOTE);
+        verify(eventPublisher).publishEvent(new FaturasArquivadasEvent(230));
+    }
+
+    @Test
+    @DisplayName("arquivarFaturasPagas - Sem faturas a arquivar, não deve publicar evento")
+    void arquivarFaturasPagas_SemFaturasNaoDevePublicarEvento() {
+        // GIVEN
+        when(faturaArquivadaRepository.arquivarLote(any(LocalDate.class), eq(TAMANHO_LOTE))).thenReturn(0);
+
+        // WHEN
+        int arquivadas = arquivamentoFaturasService.arquivarFaturasPagas();
+
+        // THEN
+        assertEquals(0, arquivadas);
+        verifyNoInteractions(eventPublisher);
+    }
+}
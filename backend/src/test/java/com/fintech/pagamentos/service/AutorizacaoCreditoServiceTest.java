@@ -0,0 +1,316 @@
+package com.fintech.pagamentos.service;
+
+import com.fintech.pagamentos.autorizacao.LimiteCliente;
+import com.fintech.pagamentos.dto.AutorizacaoResponseDTO;
+import com.fintech.pagamentos.entity.AutorizacaoCredito;
+import com.fintech.pagamentos.entity.CotaCredito;
+import com.fintech.pagamentos.event.ClienteAlteradoEvent;
+import com.fintech.pagamentos.event.ClienteBloqueadoEvent;
+import com.fintech.pagamentos.repository.AutorizacaoCreditoRepository;
+import com.fintech.pagamentos.repository.ClienteRepository;
+import com.fintech.pagamentos.repository.CotaCreditoRepository;
+import com.fintech.pagamentos.repository.CotaCreditoRepository.CotaConcedida;
+import com.fintech.pagamentos.repository.ResumoClienteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AutorizacaoCreditoServiceTest {
+
+    @Mock
+    private ClienteRepository clienteRepository;
+
+    @Mock
+    private ResumoClienteRepository resumoClienteRepository;
+
+    @Mock
+    private CotaCreditoRepository cotaCreditoRepository;
+
+    @Mock
+    private AutorizacaoCreditoRepository autorizacaoCreditoRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AutorizacaoCreditoService autorizacaoCreditoService;
+
+    private final UUID clienteId = UUID.randomUUID();
+    private final UUID cotaId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        autorizacaoCreditoService = new AutorizacaoCreditoService(clienteRepository, resumoClienteRepository,
+                cotaCreditoRepository, autorizacaoCreditoRepository, transactionManager, new BigDecimal("100.00"), 30, 60_000, 7);
+    }
+
+    private static CotaConcedida concedida(UUID id, String concedido, String restante) {
+        return new CotaConcedida() {
+            public UUID getId() {
+                return id;
+            }
+
+            public BigDecimal getConcedido() {
+                return new BigDecimal(concedido);
+            }
+
+            public BigDecimal getRestante() {
+                return new BigDecimal(restante);
+            }
+        };
+    }
+
+    // Limite de 1000.00 com 300.00 em aberto e 100.00 atrasado: 600.00 disponíveis menos as reservas
+    private LimiteCliente limite(Character statusBloqueio, String reservado) {
+        return new LimiteCliente(clienteId, statusBloqueio, new BigDecimal("1000.00"), new BigDecimal("300.00"),
+                new BigDecimal("100.00"), new BigDecimal(reservado));
+    }
+
+    private AutorizacaoResponseDTO autorizar(String valor) {
+        return autorizacaoCreditoService.autorizar(clienteId, new BigDecimal(valor)).orElseThrow();
+    }
+
+    @Test
+    @DisplayName("autorizar - Deve pedir uma cota ao banco na primeira compra e aprovar as seguintes em memória")
+    void autorizar_DeveAprovarDaCotaSemIrAoBanco() {
+        // GIVEN
+        when(cotaCreditoRepository.conceder(eq(clienteId), anyString(), any(), any(), any()))
+                .thenReturn(Optional.of(concedida(cotaId, "100.00", "500.00")));
+
+        // WHEN
+        AutorizacaoResponseDTO primeira = autorizar("30.00");
+        AutorizacaoResponseDTO segunda = autorizar("50.00");
+
+        // THEN
+        assertTrue(primeira.isAprovada());
+        assertEquals(new BigDecimal("570.00"), primeira.getLimiteDisponivel());
+        assertTrue(segunda.isAprovada());
+        assertEquals(new BigDecimal("520.00"), segunda.getLimiteDisponivel());
+        verify(resumoClienteRepository).criarSeNaoExistir(clienteId);
+        verify(cotaCreditoRepository).conceder(eq(clienteId), anyString(), eq(new BigDecimal("30.00")), eq(new BigDecimal("100.00")), any());
+        verify(transactionManager, times(1)).commit(any());
+        verifyNoInteractions(autorizacaoCreditoRepository);
+    }
+
+    @Test
+    @DisplayName("autorizar - Compra maior que o saldo deve pedir ao banco o que falta, ou a compra inteira se maior que a cota")
+    void autorizar_DevePedirOQueFaltaAoBanco() {
+        // GIVEN
+        when(cotaCreditoRepository.conceder(eq(clienteId), anyString(), any(), any(), any()))
+                .thenReturn(Optional.of(concedida(cotaId, "100.00", "500.00")))
+                .thenReturn(Optional.of(concedida(cotaId, "250.00", "250.00")));
+        autorizar("30.00");
+
+        // WHEN
+        AutorizacaoResponseDTO resposta = autorizar("250.00");
+
+        // THEN: saldo de 70.00, mais 250.00 concedidos, menos a compra
+        assertTrue(resposta.isAprovada());
+        assertEquals(new BigDecimal("320.00"), resposta.getLimiteDisponivel());
+        verify(cotaCreditoRepository).conceder(eq(clienteId), anyString(), eq(new BigDecimal("180.00")), eq(new BigDecimal("250.00")), any());
+    }
+
+    @Test
+    @DisplayName("autorizar - Recusa do banco deve informar o disponível lido, o bloqueio ou o cliente inexistente")
+    void autorizar_DeveConfirmarRecusaNoBanco() {
+        // GIVEN: nada concedido (Optional vazio do mock)
+        UUID inexistente = UUID.randomUUID();
+        when(clienteRepository.findLimite(clienteId))
+                .thenReturn(Optional.of(limite('A', "550.00")))
+                .thenReturn(Optional.of(limite('B', "0.00")));
+        when(clienteRepository.findLimite(inexistente)).thenReturn(Optional.empty());
+
+        // WHEN
+        AutorizacaoResponseDTO semLimite = autorizar("50.01");
+        AutorizacaoResponseDTO bloqueado = autorizar("0.01");
+
+        // THEN
+        assertFalse(semLimite.isAprovada());
+        assertEquals("LIMITE_INSUFICIENTE", semLimite.getMotivo());
+        assertEquals(new BigDecimal("50.00"), semLimite.getLimiteDisponivel());
+        assertFalse(bloqueado.isAprovada());
+        assertEquals("CLIENTE_BLOQUEADO", bloqueado.getMotivo());
+        assertEquals(new BigDecimal("0.00"), bloqueado.getLimiteDisponivel());
+        assertTrue(autorizacaoCreditoService.autorizar(inexistente, BigDecimal.ONE).isEmpty());
+    }
+
+    @Test
+    @DisplayName("gravarAutorizacoes - Deve gravar as reservas com validade e descontá-las do saldo da cota")
+    void gravarAutorizacoes_DeveGravarEConsumirCota() {
+        // GIVEN
+        when(cotaCreditoRepository.conceder(eq(clienteId), anyString(), any(), any(), any()))
+                .thenReturn(Optional.of(concedida(cotaId, "100.00", "500.00")));
+        when(cotaCreditoRepository.consumir(cotaId, new BigDecimal("80.00"))).thenReturn(1);
+        autorizar("30.00");
+        autorizar("50.00");
+
+        // WHEN
+        autorizacaoCreditoService.gravarAutorizacoes();
+        autorizacaoCreditoService.gravarAutorizacoes();
+
+        // THEN
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<AutorizacaoCredito>> gravadas = ArgumentCaptor.forClass(List.class);
+        verify(autorizacaoCreditoRepository).saveAll(gravadas.capture());
+        assertEquals(2, gravadas.getValue().size());
+        AutorizacaoCredito primeira = gravadas.getValue().get(0);
+        assertEquals(clienteId, primeira.getClienteId());
+        assertEquals(new BigDecimal("30.00"), primeira.getValor());
+        assertEquals(primeira.getCriadaEm().plusDays(7), primeira.getExpiraEm());
+        verify(resumoClienteRepository, never()).somarReserva(any(), any());
+    }
+
+    @Test
+    @DisplayName("gravarAutorizacoes - Compras de cota já revogada devem voltar ao total reservado; lote com falha volta à fila")
+    void gravarAutorizacoes_DeveReservarComprasDeCotaRevogada() {
+        // GIVEN
+        when(cotaCreditoRepository.conceder(eq(clienteId), anyString(), any(), any(), any()))
+                .thenReturn(Optional.of(concedida(cotaId, "100.00", "500.00")));
+        when(autorizacaoCreditoRepository.saveAll(anyList()))
+                .thenThrow(new RuntimeException("conexão perdida"))
+                .thenReturn(List.of());
+        when(cotaCreditoRepository.consumir(cotaId, new BigDecimal("30.00"))).thenReturn(0);
+        autorizar("30.00");
+
+        // WHEN
+        autorizacaoCreditoService.gravarAutorizacoes();
+        autorizacaoCreditoService.gravarAutorizacoes();
+
+        // THEN
+        verify(autorizacaoCreditoRepository, times(2)).saveAll(anyList());
+        verify(transactionManager).rollback(any());
+        verify(resumoClienteRepository).somarReserva(clienteId, new BigDecimal("30.00"));
+    }
+
+    @Test
+    @DisplayName("renovarCotas - Cota que não foi renovada no banco deve ser descartada e a compra seguinte pede outra")
+    void renovarCotas_DeveDescartarCotaRevogada() {
+        // GIVEN
+        UUID novaCotaId = UUID.randomUUID();
+        when(cotaCreditoRepository.conceder(eq(clienteId), anyString(), any(), any(), any()))
+                .thenReturn(Optional.of(concedida(cotaId, "100.00", "500.00")))
+                .thenReturn(Optional.of(concedida(novaCotaId, "100.00", "400.00")));
+        when(cotaCreditoRepository.renovar(anyString(), any()))
+                .thenReturn(List.of(cotaId))
+                .thenReturn(List.of());
+        autorizar("30.00");
+
+        // WHEN
+        autorizacaoCreditoService.renovarCotas();
+        AutorizacaoResponseDTO renovada = autorizar("30.00");
+        autorizacaoCreditoService.renovarCotas();
+        AutorizacaoResponseDTO aposDescarte = autorizar("30.00");
+
+        // THEN
+        assertEquals(new BigDecimal("540.00"), renovada.getLimiteDisponivel());
+        assertEquals(new BigDecimal("470.00"), aposDescarte.getLimiteDisponivel());
+        verify(cotaCreditoRepository, times(2)).conceder(eq(clienteId), anyString(), any(), any(), any());
+        verify(cotaCreditoRepository, never()).devolver(any(), any()); // Nenhuma cota ociosa
+    }
+
+    @Test
+    @DisplayName("encerrar - Deve gravar as compras aprovadas e devolver o saldo das cotas ao limite")
+    void encerrar_DeveDevolverSaldoDasCotas() {
+        // GIVEN
+        when(cotaCreditoRepository.conceder(eq(clienteId), anyString(), any(), any(), any()))
+                .thenReturn(Optional.of(concedida(cotaId, "100.00", "500.00")));
+        when(cotaCreditoRepository.consumir(cotaId, new BigDecimal("30.00"))).thenReturn(1);
+        autorizar("30.00");
+
+        // WHEN
+        autorizacaoCreditoService.encerrar();
+
+        // THEN
+        verify(autorizacaoCreditoRepository).saveAll(anyList());
+        verify(resumoClienteRepository).travar(clienteId);
+        verify(cotaCreditoRepository).devolver(cotaId, new BigDecimal("70.00"));
+        verify(cotaCreditoRepository).apagarSemSaldo(cotaId);
+    }
+
+    @Test
+    @DisplayName("expirarReservas - Deve apagar as reservas vencidas em lotes e as cotas de réplicas paradas")
+    void expirarReservas_DeveDevolverReservasECotasAoLimite() {
+        // GIVEN
+        CotaCredito expirada = new CotaCredito(cotaId, clienteId, "outra-replica", new BigDecimal("40.00"), LocalDateTime.now().minusMinutes(1));
+        when(autorizacaoCreditoRepository.travarExpiracao()).thenReturn(true);
+        when(autorizacaoCreditoRepository.expirar(any(), anyInt())).thenReturn(1000L).thenReturn(3L);
+        when(cotaCreditoRepository.findExpiradas(any(), any())).thenReturn(List.of(expirada));
+        when(cotaCreditoRepository.apagarExpirada(eq(cotaId), any())).thenReturn(1);
+
+        // WHEN
+        autorizacaoCreditoService.expirarReservas();
+
+        // THEN
+        verify(autorizacaoCreditoRepository, times(2)).expirar(any(), eq(1000));
+        verify(resumoClienteRepository).travar(clienteId);
+        verify(cotaCreditoRepository).apagarExpirada(eq(cotaId), any());
+    }
+
+    @Test
+    @DisplayName("expirarReservas - Não deve apagar reservas enquanto outra réplica faz a expiração")
+    void expirarReservas_DeveRespeitarOutraReplica() {
+        // GIVEN
+        when(autorizacaoCreditoRepository.travarExpiracao()).thenReturn(false);
+
+        // WHEN
+        autorizacaoCreditoService.expirarReservas();
+
+        // THEN
+        verify(autorizacaoCreditoRepository, never()).expirar(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("aoBloquearCliente - Deve recusar as compras logo após o bloqueio, revogar as cotas e voltar se ele for desfeito")
+    void aoBloquearCliente_DeveRecusarERevogarCotas() {
+        // GIVEN
+        when(cotaCreditoRepository.conceder(eq(clienteId), anyString(), any(), any(), any()))
+                .thenReturn(Optional.of(concedida(cotaId, "100.00", "500.00")))
+                .thenReturn(Optional.empty());
+        when(clienteRepository.findLimite(clienteId)).thenReturn(Optional.of(limite('B', "100.00")));
+        autorizar("30.00");
+
+        // WHEN
+        autorizacaoCreditoService.aoBloquearCliente(new ClienteBloqueadoEvent(clienteId));
+        AutorizacaoResponseDTO aposBloqueio = autorizar("0.01");
+        autorizacaoCreditoService.aoDesfazerBloqueio(new ClienteBloqueadoEvent(clienteId));
+        AutorizacaoResponseDTO aposRollback = autorizar("0.01");
+
+        // THEN
+        assertFalse(aposBloqueio.isAprovada());
+        assertEquals("CLIENTE_BLOQUEADO", aposBloqueio.getMotivo());
+        assertEquals(BigDecimal.ZERO.setScale(2), aposBloqueio.getLimiteDisponivel());
+        assertTrue(aposRollback.isAprovada());
+        verify(resumoClienteRepository).travar(clienteId);
+        verify(cotaCreditoRepository).revogar(clienteId);
+    }
+
+    @Test
+    @DisplayName("aoAlterarCliente - Deve revogar as cotas concedidas com o limite anterior")
+    void aoAlterarCliente_DeveRevogarCotas() {
+        // WHEN
+        autorizacaoCreditoService.aoAlterarCliente(new ClienteAlteradoEvent(clienteId));
+
+        // THEN
+        verify(resumoClienteRepository).travar(clienteId);
+        verify(cotaCreditoRepository).revogar(clienteId);
+    }
+}
@@ -0,0 +1,188 @@
+package com.fintech.pagamentos.service;
+
+import com.fintech.pagamentos.batch.ResultadoParticao;
+import com.fintech.pagamentos.event.ClienteBloqueadoEvent;
+import com.fintech.pagamentos.event.ClienteDesbloqueadoEvent;
+import com.fintech.pagamentos.event.FaturaPagaEvent;
+import com.fintech.pagamentos.repository.ClienteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BloqueioClientesServiceTest {
+
+    @Mock
+    private ClienteRepository clienteRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private JobParticionadoService jobParticionadoService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BloqueioClientesService bloqueioService;
+
+    private final UUID clienteId = UUID.randomUUID();
+    private final LocalDate dataLimite = LocalDate.now().minusDays(3);
+
+    @BeforeEach
+    void setUp() {
+        bloqueioService = new BloqueioClientesService(clienteRepository, eventPublisher, jobParticionadoService, transactionManager, 7);
+
+        // Este nó reivindica o job: o trabalho executa na própria chamada
+        lenient().when(jobParticionadoService.executarEmUmNo(any(), any(), any())).thenAnswer(invocacao -> {
+            Supplier<ResultadoParticao> trabalho = invocacao.getArgument(2);
+            trabalho.get();
+            return true;
+        });
+    }
+
+    private FaturaPagaEvent pagamento(Character statusAnterior) {
+        return new FaturaPagaEvent(UUID.randomUUID(), clienteId, new BigDecimal("100.00"), statusAnterior);
+    }
+
+    @Test
+    @DisplayName("desbloquearSeQuitado - Deve desbloquear o cliente ao pagar a última fatura atrasada")
+    void desbloquearSeQuitado_DeveDesbloquearAoQuitarUltimaFaturaAtrasada() {
+        // GIVEN
+        when(clienteRepository.travarStatusBloqueio(clienteId)).thenReturn(Optional.of('B'));
+        when(clienteRepository.desbloquearSemFaturasAtrasadas(clienteId, dataLimite)).thenReturn(1);
+
+        // WHEN
+        bloqueioService.desbloquearSeQuitado(pagamento('A'));
+
+        // THEN: a linha do cliente é travada antes de consultar as faturas restantes
+        InOrder ordem = inOrder(clienteRepository);
+        ordem.verify(clienteRepository).travarStatusBloqueio(clienteId);
+        ordem.verify(clienteRepository).desbloquearSemFaturasAtrasadas(clienteId, dataLimite);
+        verify(eventPublisher).publishEvent(new ClienteDesbloqueadoEvent(clienteId));
+    }
+
+    @Test
+    @DisplayName("desbloquearSeQuitado - Não deve publicar evento se ainda restar fatura atrasada")
+    void desbloquearSeQuitado_NaoDeveDesbloquearComOutraFaturaAtrasada() {
+        // GIVEN
+        when(clienteRepository.travarStatusBloqueio(clienteId)).thenReturn(Optional.of('B'));
+        when(clienteRepository.desbloquearSemFaturasAtrasadas(clienteId, dataLimite)).thenReturn(0);
+
+        // WHEN
+        bloqueioService.desbloquearSeQuitado(pagamento('A'));
+
+        // THEN
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    @DisplayName("desbloquearSeQuitado - Deve ignorar pagamentos de faturas em aberto e clientes ativos")
+    void desbloquearSeQuitado_DeveIgnorarFaturaEmAbertoEClienteAtivo() {
+        // Fatura em aberto: nada a recalcular
+        bloqueioService.desbloquearSeQuitado(pagamento('B'));
+        verifyNoInteractions(clienteRepository);
+
+        // Cliente ativo: a linha é travada (serializa com o bloqueio da virada do dia), mas não há o que desbloquear
+        when(clienteRepository.travarStatusBloqueio(clienteId)).thenReturn(Optional.of('A'));
+        bloqueioService.desbloquearSeQuitado(pagamento('A'));
+        verify(clienteRepository, never()).desbloquearSemFaturasAtrasadas(any(), any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    @DisplayName("bloquearClientesComNovosAtrasos - Deve bloquear apenas os clientes com faturas que passaram do limite")
+    void bloquearClientesComNovosAtrasos_DeveBloquearApenasCandidatos() {
+        // GIVEN
+        UUID pagouAntes = UUID.randomUUID(); // Travado como candidato, mas quitou a fatura antes do bloqueio
+        when(clienteRepository.findAtivosComFaturasAtrasadasVencidasEntre(dataLimite.minusDays(7), dataLimite))
+                .thenReturn(List.of(clienteId, pagouAntes));
+        when(clienteRepository.bloquearClientesComFaturasAtrasadas(dataLimite, List.of(clienteId, pagouAntes)))
+                .thenReturn(List.of(clienteId));
+
+        // WHEN
+        bloqueioService.bloquearClientesComNovosAtrasos();
+
+        // THEN: o lote é travado antes do bloqueio, na mesma transação
+        InOrder ordem = inOrder(transactionManager, clienteRepository);
+        ordem.verify(transactionManager).getTransaction(any());
+        ordem.verify(clienteRepository).travarPorIds(List.of(clienteId, pagouAntes));
+        ordem.verify(clienteRepository).bloquearClientesComFaturasAtrasadas(dataLimite, List.of(clienteId, pagouAntes));
+        ordem.verify(transactionManager).commit(any());
+        verify(eventPublisher).publishEvent(new ClienteBloqueadoEvent(clienteId));
+        verifyNoMoreInteractions(eventPublisher);
+    }
+
+    @Test
+    @DisplayName("bloquearClientesComNovosAtrasos - Cada lote de 1000 clientes deve ser confirmado em uma transação própria")
+    void bloquearClientesComNovosAtrasos_DeveConfirmarCadaLoteSeparadamente() {
+        // GIVEN: 2500 candidatos; o segundo lote falha
+        List<UUID> candidatos = IntStream.range(0, 2500).mapToObj(i -> UUID.randomUUID()).toList();
+        when(clienteRepository.findAtivosComFaturasAtrasadasVencidasEntre(dataLimite.minusDays(7), dataLimite)).thenReturn(candidatos);
+        when(clienteRepository.bloquearClientesComFaturasAtrasadas(dataLimite, candidatos.subList(0, 1000)))
+                .thenReturn(List.of(candidatos.get(0)));
+        when(clienteRepository.bloquearClientesComFaturasAtrasadas(dataLimite, candidatos.subList(1000, 2000)))
+                .thenThrow(new RuntimeException("deadlock detectado"));
+        when(clienteRepository.bloquearClientesComFaturasAtrasadas(dataLimite, candidatos.subList(2000, 2500)))
+                .thenReturn(List.of(candidatos.get(2000)));
+
+        // WHEN: a falha do lote chega ao job, que registra a partição como falha para nova tentativa
+        assertThrows(RuntimeException.class, () -> bloqueioService.bloquearClientesComNovosAtrasos());
+
+        // THEN: os lotes que deram certo foram confirmados, e só o que falhou foi desfeito
+        verify(transactionManager, times(3)).getTransaction(any());
+        verify(transactionManager, times(2)).commit(any());
+        verify(transactionManager).rollback(any());
+        verify(eventPublisher).publishEvent(new ClienteBloqueadoEvent(candidatos.get(0)));
+        verify(eventPublisher).publishEvent(new ClienteBloqueadoEvent(candidatos.get(2000)));
+        verifyNoMoreInteractions(eventPublisher);
+    }
+
+    @Test
+    @DisplayName("bloquearClientesComNovosAtrasos - Com o job do dia em outro nó, não deve consultar os candidatos")
+    void bloquearClientesComNovosAtrasos_JobEmOutroNoNaoExecuta() {
+        // GIVEN
+        doReturn(false).when(jobParticionadoService).executarEmUmNo(any(), any(), any());
+
+        // WHEN
+        bloqueioService.bloquearClientesComNovosAtrasos();
+
+        // THEN
+        verify(jobParticionadoService).executarEmUmNo(eq("bloqueio-incremental"), eq(LocalDate.now()), any());
+        verifyNoInteractions(clienteRepository, eventPublisher);
+    }
+
+    @Test
+    @DisplayName("bloquearClientesComNovosAtrasos - Sem faturas cruzando o limite, não deve executar o bloqueio")
+    void bloquearClientesComNovosAtrasos_SemCandidatosNaoBloqueia() {
+        // GIVEN
+        when(clienteRepository.findAtivosComFaturasAtrasadasVencidasEntre(any(LocalDate.class), any(LocalDate.class)))
+                .thenReturn(Collections.emptyList());
+
+        // WHEN
+        bloqueioService.bloquearClientesComNovosAtrasos();
+
+        // THEN
+        verify(clienteRepository, never()).bloquearClientesComFaturasAtrasadas(any(LocalDate.class), anyList());
+        verifyNoInteractions(eventPublisher);
+    }
+}
@@ -0,0 +1,178 @@
+package com.fintech.pagamentos.service;
+
+import com.fintech.pagamentos.dto.ClienteResponseDTO;
+import com.fintech.pagamentos.dto.FaturaResponseDTO;
+import com.fintech.pagamentos.dto.PaginaDTO;
+import com.fintech.pagamentos.event.ClienteAlteradoEvent;
+import com.fintech.pagamentos.event.ClienteBloqueadoEvent;
+import com.fintech.pagamentos.event.FaturaPagaEvent;
+import com.fintech.pagamentos.event.FaturasAtrasadasEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class CacheConsultasServiceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private Query versoesBanco;
+    private VersoesTabelasService versoes;
+    private CacheConsultasService cache;
+
+    private final UUID clienteId = UUID.randomUUID();
+    private final AtomicInteger consultasCliente = new AtomicInteger();
+    private final AtomicInteger consultasFaturas = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        EntityManager entityManager = mock(EntityManager.class);
+        versoesBanco = mock(Query.class);
+        when(entityManager.createNativeQuery(anyString())).thenReturn(versoesBanco);
+        versoes = new VersoesTabelasService(entityManager, mock(PlatformTransactionManager.class), true);
+        cache = new CacheConsultasService(versoes, meterRegistry, 100, 1000, 10);
+        versoesLidas(1, 1);
+    }
+
+    // Simula a leitura das sequências com as versões de outra réplica
+    private void versoesLidas(long clientes, long faturas) {
+        when(versoesBanco.getSingleResult()).thenReturn(new Object[]{clientes, faturas});
+        versoes.sincronizar();
+    }
+
+    private Optional<ClienteResponseDTO> buscarCliente() {
+        return cache.buscarCliente(clienteId, id -> {
+            consultasCliente.incrementAndGet();
+            return Optional.of(new ClienteResponseDTO(id, "Cliente Teste", "12345678901", LocalDate.of(1990, 1, 1), 'A',
+                    new BigDecimal("1000.00")));
+        });
+    }
+
+    private PaginaDTO<FaturaResponseDTO> buscarFaturas(String next) {
+        return cache.buscarFaturasDoCliente(clienteId, next, 50, () -> {
+            consultasFaturas.incrementAndGet();
+            return new PaginaDTO<>(List.of(), null);
+        });
+    }
+
+    @Test
+    @DisplayName("buscarCliente - Deve consultar o banco só na primeira vez e registrar acertos e falhas")
+    void buscarCliente_DeveConsultarUmaVezERegistrarMetricas() {
+        // WHEN
+        ClienteResponseDTO primeira = buscarCliente().orElseThrow();
+        ClienteResponseDTO segunda = buscarCliente().orElseThrow();
+
+        // THEN
+        assertSame(primeira, segunda);
+        assertEquals(1, consultasCliente.get());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "clientes").tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "clientes").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("buscarCliente - Cliente não encontrado não deve ficar em cache")
+    void buscarCliente_NaoDeveGuardarClienteInexistente() {
+        // WHEN
+        Optional<ClienteResponseDTO> naoEncontrado = cache.buscarCliente(clienteId, id -> Optional.empty());
+
+        // THEN: depois do cadastro, a consulta seguinte chega ao banco
+        assertTrue(naoEncontrado.isEmpty());
+        assertTrue(buscarCliente().isPresent());
+        assertEquals(1, consultasCliente.get());
+    }
+
+    @Test
+    @DisplayName("Invalidação - Alteração e bloqueio do cliente devem descartar o cliente em cache")
+    void invalidacao_DeveDescartarClienteAlteradoOuBloqueado() {
+        // GIVEN
+        buscarCliente();
+
+        // WHEN / THEN
+        cache.aoAlterarCliente(new ClienteAlteradoEvent(clienteId));
+        buscarCliente();
+        assertEquals(2, consultasCliente.get());
+
+        cache.aoBloquearCliente(new ClienteBloqueadoEvent(clienteId));
+        buscarCliente();
+        assertEquals(3, consultasCliente.get());
+
+        cache.aoPagarFatura(new FaturaPagaEvent(UUID.randomUUID(), clienteId, BigDecimal.TEN, 'B'));
+        buscarCliente();
+        assertEquals(3, consultasCliente.get()); // Pagamento não muda os dados do cliente
+    }
+
+    @Test
+    @DisplayName("Invalidação - Pagamento deve descartar todas as páginas de faturas do cliente")
+    void invalidacao_PagamentoDeveDescartarPaginasDoCliente() {
+        // GIVEN
+        buscarFaturas(null);
+        buscarFaturas("cursor-pagina-2");
+        buscarFaturas(null);
+        assertEquals(2, consultasFaturas.get());
+
+        // WHEN
+        cache.aoPagarFatura(new FaturaPagaEvent(UUID.randomUUID(), clienteId, BigDecimal.TEN, 'B'));
+        buscarFaturas(null);
+        buscarFaturas("cursor-pagina-2");
+
+        // THEN
+        assertEquals(4, consultasFaturas.get());
+    }
+
+    @Test
+    @DisplayName("Invalidação - Transição para atrasadas deve descartar as páginas de todos os clientes")
+    void invalidacao_TransicaoDeveDescartarTodasAsPaginas() {
+        // GIVEN
+        buscarFaturas(null);
+        cache.aoBloquearCliente(new ClienteBloqueadoEvent(clienteId));
+        buscarFaturas(null);
+        assertEquals(1, consultasFaturas.get()); // Bloqueio não altera as faturas
+
+        // WHEN
+        cache.aoMarcarFaturasAtrasadas(new FaturasAtrasadasEvent(10));
+        buscarFaturas(null);
+
+        // THEN
+        assertEquals(2, consultasFaturas.get());
+    }
+
+    @Test
+    @DisplayName("Invalidação - Alteração feita em outra réplica deve descartar as entradas quando a versão do banco muda")
+    void invalidacao_VersaoDoBancoDeveDescartarEntradasDeOutrasReplicas() {
+        // GIVEN
+        buscarCliente();
+        buscarFaturas(null);
+
+        // WHEN: outra réplica pagou uma fatura (só a sequência de faturas avançou)
+        versoesLidas(1, 2);
+        buscarCliente();
+        buscarFaturas(null);
+
+        // THEN
+        assertEquals(1, consultasCliente.get());
+        assertEquals(2, consultasFaturas.get());
+
+        // WHEN: outra réplica alterou um cliente (a página traz o status do cliente e também é descartada)
+        versoesLidas(2, 2);
+        buscarCliente();
+        buscarFaturas(null);
+
+        // THEN
+        assertEquals(2, consultasCliente.get());
+        assertEquals(3, consultasFaturas.get());
+    }
+}
@@ -1,11 +1,18 @@
 package com.fintech.pagamentos.service;
 
+import com.fintech.pagamentos.batch.IntervaloUuid;
+import com.fintech.pagamentos.batch.ResultadoParticao;
+import com.fintech.pagamentos.dto.ClienteFiltroDTO;
 import com.fintech.pagamentos.dto.ClienteRequestDTO;
 import com.fintech.pagamentos.dto.ClienteResponseDTO;
+import com.fintech.pagamentos.dto.PaginaDTO;
 import com.fintech.pagamentos.entity.Cliente;
-import com.fintech.pagamentos.entity.Fatura;
+import com.fintech.pagamentos.event.ClienteAlteradoEvent;
+import com.fintech.pagamentos.event.ClienteBloqueadoEvent;
+import com.fintech.pagamentos.mapper.ClienteMapper;
+import com.fintech.pagamentos.pagination.CursorCliente;
 import com.fintech.pagamentos.repository.ClienteRepository;
-import com.fintech.pagamentos.repository.FaturaRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -13,14 +20,22 @@ import org.junit.jupiter.api.extension.ExtendWith;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import org.mockito.ArgumentCaptor;
+import jakarta.persistence.EntityManager;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.modelmapper.ModelMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Function;
 
 import static org.mockito.Mockito.*;
 
@@ -31,10 +46,18 @@ class ClienteServiceTest {
     private ClienteRepository clienteRepository;
 
     @Mock
-    private FaturaRepository faturaRepository; // Mock do FaturaRepository
+    private JobParticionadoService jobParticionadoService;
 
     @Mock
-    private ModelMapper modelMapper;
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy // Mapper real: as conversões são verificadas junto com a lógica do serviço
+    private ClienteMapper clienteMapper = new ClienteMapper();
+
+    @Spy // Cache real (vazio a cada teste): as consultas ainda chegam ao repositório na primeira chamada
+    private CacheConsultasService cacheConsultas = new CacheConsultasService(
+            new VersoesTabelasService(mock(EntityManager.class), mock(PlatformTransactionManager.class), false),
+            new SimpleMeterRegistry(), 100, 1000, 10);
 
     @InjectMocks // Injeta os mocks nas dependências de ClienteService
     private ClienteService clienteService;
@@ -43,8 +66,6 @@ class ClienteServiceTest {
     private Cliente clienteAtivo;
     private Cliente clienteBloqueado;
     private ClienteRequestDTO clienteRequestDTO;
-    private ClienteResponseDTO clienteResponseDTO;
-    private Fatura faturaAtrasada;
 
     @BeforeEach // Executado antes de cada método de teste
     void setUp() {
@@ -54,108 +75,105 @@ class ClienteServiceTest {
 
         clienteAtivo = new Cliente(
                 clienteAtivoId, "Cliente Ativo Teste", "11122233344", LocalDate.of(1990, 1, 1),
-                'A', BigDecimal.valueOf(5000.00)
+                'A', BigDecimal.valueOf(5000.00), null, null, 0L
         );
 
         clienteBloqueado = new Cliente(
                 clienteBloqueadoId, "Cliente Bloqueado Teste", "55566677788", LocalDate.of(1985, 4, 20),
-                'B', BigDecimal.ZERO
+                'B', BigDecimal.ZERO, 'M', null, 0L
         );
 
         clienteRequestDTO = new ClienteRequestDTO(
                 "Novo Cliente Teste", "99988877766", LocalDate.of(1995, 5, 5),
                 'A', BigDecimal.valueOf(2000.00)
         );
+    }
 
-        clienteResponseDTO = new ClienteResponseDTO(
-                UUID.randomUUID(), "Novo Cliente Teste", "99988877766", LocalDate.of(1995, 5, 5),
-                'A', BigDecimal.valueOf(2000.00)
-        );
-
-        // Fatura atrasada para o job de bloqueio, associada a um cliente ATIVO
-        faturaAtrasada = new Fatura(
-                UUID.randomUUID(), clienteAtivo, LocalDate.of(2025, 7, 1), // Vencimento no passado
-                null, BigDecimal.valueOf(100.00), 'A'
-        );
-
-        // Configura o ModelMapper para retornar DTOs de teste quando mapeado
-        // Usamos lenient() para stubs que podem não ser usados em todos os testes
-        lenient().when(modelMapper.map(any(ClienteRequestDTO.class), eq(Cliente.class)))
-                .thenReturn(new Cliente(
-                        null, clienteRequestDTO.getNome(), clienteRequestDTO.getCpf(), clienteRequestDTO.getDataNascimento(),
-                        clienteRequestDTO.getStatusBloqueio(), clienteRequestDTO.getLimiteCredito()
-                )); // Cria uma nova entidade a partir do DTO de Request
-
-        lenient().when(modelMapper.map(any(Cliente.class), eq(ClienteResponseDTO.class)))
-                .thenReturn(new ClienteResponseDTO(
-                        UUID.randomUUID(), null, null, null, null, null // Mapeamento genérico para DTO de Resposta
-                ));
-        // Para testes específicos, podemos mockar o mapeamento de Cliente para ClienteResponseDTO com mais precisão
-        lenient().when(modelMapper.map(clienteAtivo, ClienteResponseDTO.class)).thenReturn(clienteResponseDTO);
-        lenient().when(modelMapper.map(clienteBloqueado, ClienteResponseDTO.class)).thenReturn(
-                new ClienteResponseDTO(clienteBloqueadoId, clienteBloqueado.getNome(), clienteBloqueado.getCpf(),
-                        clienteBloqueado.getDataNascimento(), clienteBloqueado.getStatusBloqueio(), clienteBloqueado.getLimiteCredito())
-        );
+    // Simula a consulta fluente do repositório (findBy), retornando a lista informada em all()
+    @SuppressWarnings("unchecked")
+    private JpaSpecificationExecutor.SpecificationFluentQuery<Cliente> mockConsultaClientes(List<Cliente> resultado) {
+        JpaSpecificationExecutor.SpecificationFluentQuery<Cliente> consulta = mock(JpaSpecificationExecutor.SpecificationFluentQuery.class);
+        lenient().when(consulta.sortBy(any(Sort.class))).thenReturn(consulta);
+        lenient().when(consulta.limit(anyInt())).thenReturn(consulta);
+        lenient().when(consulta.all()).thenReturn(resultado);
+        when(clienteRepository.findBy(any(Specification.class), any())).thenAnswer(invocation -> {
+            Function<JpaSpecificationExecutor.SpecificationFluentQuery<Cliente>, Object> funcao = invocation.getArgument(1);
+            return funcao.apply(consulta);
+        });
+        return consulta;
     }
 
     @Test
-    @DisplayName("listarTodosClientes - Deve retornar todos os clientes com sucesso")
+    @DisplayName("listarClientes - Deve retornar todos os clientes com sucesso")
     void listarTodosClientes_DeveRetornarTodosClientesComSucesso() {
         // GIVEN
         List<Cliente> clientes = Arrays.asList(clienteAtivo, clienteBloqueado);
-        when(clienteRepository.findAll()).thenReturn(clientes);
+        JpaSpecificationExecutor.SpecificationFluentQuery<Cliente> consulta = mockConsultaClientes(clientes);
 
-        // Mockar o mapeamento para cada cliente específico para o ResponseDTO
-        when(modelMapper.map(clienteAtivo, ClienteResponseDTO.class)).thenReturn(
-                new ClienteResponseDTO(clienteAtivo.getId(), clienteAtivo.getNome(), clienteAtivo.getCpf(), clienteAtivo.getDataNascimento(),
-                        clienteAtivo.getStatusBloqueio(), clienteAtivo.getLimiteCredito())
-        );
-        when(modelMapper.map(clienteBloqueado, ClienteResponseDTO.class)).thenReturn(
-                new ClienteResponseDTO(clienteBloqueado.getId(), clienteBloqueado.getNome(), clienteBloqueado.getCpf(), clienteBloqueado.getDataNascimento(),
-                        clienteBloqueado.getStatusBloqueio(), clienteBloqueado.getLimiteCredito())
-        );
+        // WHEN
+        PaginaDTO<ClienteResponseDTO> result = clienteService.listarClientes(new ClienteFiltroDTO(), null, null);
 
+        // THEN
+        assertNotNull(result);
+        assertFalse(result.getItens().isEmpty());
+        assertEquals(2, result.getItens().size());
+        assertEquals(clienteAtivo.getNome(), result.getItens().get(0).getNome());
+        assertEquals(clienteBloqueado.getNome(), result.getItens().get(1).getNome());
+        assertNull(result.getNext());
+        verify(consulta).sortBy(Sort.by("id")); // Ordenação estável para o cursor
+        verify(consulta).limit(51); // Limite padrão + 1 para detectar a próxima página
+        verify(clienteMapper, times(2)).toResponseDTO(any(Cliente.class));
+    }
+
+    @Test
+    @DisplayName("listarClientes - Deve retornar cursor do último cliente quando houver próxima página")
+    void listarClientes_DeveRetornarCursorQuandoHouverProximaPagina() {
+        // GIVEN
+        JpaSpecificationExecutor.SpecificationFluentQuery<Cliente> consulta = mockConsultaClientes(Arrays.asList(clienteAtivo, clienteBloqueado));
 
         // WHEN
-        List<ClienteResponseDTO> result = clienteService.listarTodosClientes();
+        PaginaDTO<ClienteResponseDTO> result = clienteService.listarClientes(new ClienteFiltroDTO(), null, 1);
 
         // THEN
-        assertNotNull(result);
-        assertFalse(result.isEmpty());
-        assertEquals(2, result.size());
-        assertEquals(clienteAtivo.getNome(), result.get(0).getNome());
-        assertEquals(clienteBloqueado.getNome(), result.get(1).getNome());
-        verify(clienteRepository).findAll(); // Verifica se o método findAll foi chamado
-        verify(modelMapper, times(2)).map(any(Cliente.class), eq(ClienteResponseDTO.class));
+        assertEquals(1, result.getItens().size());
+        assertEquals(clienteAtivo.getId(), CursorCliente.decodificar(result.getNext()).id());
+        verify(consulta).limit(2);
+    }
+
+    @Test
+    @DisplayName("listarClientes - Deve lançar exceção para limite inválido")
+    void listarClientes_DeveLancarExcecaoParaLimiteInvalido() {
+        // WHEN & THEN
+        assertThrows(IllegalArgumentException.class, () -> clienteService.listarClientes(new ClienteFiltroDTO(), null, 0));
+        verifyNoInteractions(clienteRepository);
     }
 
     @Test
     @DisplayName("cadastrarCliente - Deve cadastrar um novo cliente Ativo com sucesso")
     void cadastrarCliente_DeveCadastrarNovoClienteAtivoComSucesso() {
         // GIVEN
-        Cliente clienteParaSalvar = new Cliente(
-                null, clienteRequestDTO.getNome(), clienteRequestDTO.getCpf(), clienteRequestDTO.getDataNascimento(),
-                clienteRequestDTO.getStatusBloqueio(), clienteRequestDTO.getLimiteCredito()
-        );
-        Cliente clienteSalvo = new Cliente(
-                UUID.randomUUID(), clienteRequestDTO.getNome(), clienteRequestDTO.getCpf(), clienteRequestDTO.getDataNascimento(),
-                clienteRequestDTO.getStatusBloqueio(), clienteRequestDTO.getLimiteCredito()
-        );
-
-        when(modelMapper.map(clienteRequestDTO, Cliente.class)).thenReturn(clienteParaSalvar);
-        when(clienteRepository.save(any(Cliente.class))).thenReturn(clienteSalvo);
-        when(modelMapper.map(clienteSalvo, ClienteResponseDTO.class)).thenReturn(clienteResponseDTO);
+        UUID idGerado = UUID.randomUUID();
+        when(clienteRepository.save(any(Cliente.class))).thenAnswer(invocation -> {
+            Cliente clienteSalvo = invocation.getArgument(0);
+            clienteSalvo.setId(idGerado); // Simula o ID gerado pelo banco
+            return clienteSalvo;
+        });
 
         // WHEN
         ClienteResponseDTO result = clienteService.cadastrarCliente(clienteRequestDTO);
 
         // THEN
         assertNotNull(result);
+        assertEquals(idGerado, result.getId());
         assertEquals(clienteRequestDTO.getNome(), result.getNome());
+        assertEquals(clienteRequestDTO.getCpf(), result.getCpf());
+        assertEquals(clienteRequestDTO.getDataNascimento(), result.getDataNascimento());
         assertEquals('A', result.getStatusBloqueio()); // Verifica o default ou o que veio do DTO
+        assertEquals(clienteRequestDTO.getLimiteCredito(), result.getLimiteCredito());
         verify(clienteRepository).save(any(Cliente.class)); // Verifica se o save foi chamado
-        verify(modelMapper).map(any(ClienteRequestDTO.class), eq(Cliente.class));
-        verify(modelMapper).map(any(Cliente.class), eq(ClienteResponseDTO.class));
+        verify(clienteMapper).toEntity(clienteRequestDTO);
+        verify(clienteMapper).toResponseDTO(any(Cliente.class));
+        verify(eventPublisher).publishEvent(new ClienteAlteradoEvent(idGerado)); // Cria o resumo e invalida o cache
     }
 
     @Test
@@ -166,22 +184,7 @@ class ClienteServiceTest {
                 "Cliente Bloqueado Inicial", "11122233300", LocalDate.of(1990, 1, 1),
                 'B', BigDecimal.valueOf(1000.00) // Limite inicial diferente de zero
         );
-        Cliente clienteParaSalvar = new Cliente(
-                null, clienteRequestBloqueado.getNome(), clienteRequestBloqueado.getCpf(), clienteRequestBloqueado.getDataNascimento(),
-                clienteRequestBloqueado.getStatusBloqueio(), clienteRequestBloqueado.getLimiteCredito()
-        );
-        Cliente clienteSalvo = new Cliente(
-                UUID.randomUUID(), clienteRequestBloqueado.getNome(), clienteRequestBloqueado.getCpf(), clienteRequestBloqueado.getDataNascimento(),
-                'B', BigDecimal.ZERO // Simula o cliente salvo já com limite zerado
-        );
-        ClienteResponseDTO clienteResponseBloqueado = new ClienteResponseDTO(
-                UUID.randomUUID(), clienteRequestBloqueado.getNome(), clienteRequestBloqueado.getCpf(), clienteRequestBloqueado.getDataNascimento(),
-                'B', BigDecimal.ZERO
-        );
-
-        when(modelMapper.map(clienteRequestBloqueado, Cliente.class)).thenReturn(clienteParaSalvar);
-        when(clienteRepository.save(any(Cliente.class))).thenReturn(clienteSalvo);
-        when(modelMapper.map(clienteSalvo, ClienteResponseDTO.class)).thenReturn(clienteResponseBloqueado);
+        when(clienteRepository.save(any(Cliente.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         // WHEN
         ClienteResponseDTO result = clienteService.cadastrarCliente(clienteRequestBloqueado);
@@ -199,16 +202,16 @@ class ClienteServiceTest {
         // GIVEN
         UUID id = clienteAtivo.getId();
         when(clienteRepository.findById(id)).thenReturn(Optional.of(clienteAtivo));
-        when(modelMapper.map(clienteAtivo, ClienteResponseDTO.class)).thenReturn(clienteResponseDTO);
 
         // WHEN
         Optional<ClienteResponseDTO> result = clienteService.buscarClientePorId(id);
 
         // THEN
         assertTrue(result.isPresent());
-        assertEquals(clienteResponseDTO.getNome(), result.get().getNome());
+        assertEquals(clienteAtivo.getId(), result.get().getId());
+        assertEquals(clienteAtivo.getNome(), result.get().getNome());
         verify(clienteRepository).findById(id);
-        verify(modelMapper).map(any(Cliente.class), eq(ClienteResponseDTO.class));
+        verify(clienteMapper).toResponseDTO(clienteAtivo);
     }
 
     @Test
@@ -224,7 +227,7 @@ class ClienteServiceTest {
         // THEN
         assertFalse(result.isPresent());
         verify(clienteRepository).findById(id);
-        verifyNoInteractions(modelMapper); // Mapper não deve ser chamado se não encontrar
+        verifyNoInteractions(clienteMapper); // Mapper não deve ser chamado se não encontrar
     }
 
     @Test
@@ -238,25 +241,11 @@ class ClienteServiceTest {
         );
         Cliente clienteAtualizado = new Cliente(
                 id, "Nome Atualizado", "11122233344", LocalDate.of(1990, 1, 1),
-                'A', BigDecimal.valueOf(6000.00)
-        );
-        ClienteResponseDTO responseDtoAtualizado = new ClienteResponseDTO(
-                id, "Nome Atualizado", "11122233344", LocalDate.of(1990, 1, 1),
-                'A', BigDecimal.valueOf(6000.00)
+                'A', BigDecimal.valueOf(6000.00), null, null, 0L
         );
 
         when(clienteRepository.findById(id)).thenReturn(Optional.of(clienteAtivo));
-        // Simula o mapeamento do DTO para a entidade existente
-        doAnswer(invocation -> {
-            Cliente target = invocation.getArgument(1);
-            target.setNome(updateDto.getNome());
-            target.setLimiteCredito(updateDto.getLimiteCredito());
-            target.setStatusBloqueio(updateDto.getStatusBloqueio());
-            return null; // ModelMapper map void
-        }).when(modelMapper).map(eq(updateDto), eq(clienteAtivo));
-
         when(clienteRepository.save(any(Cliente.class))).thenReturn(clienteAtualizado);
-        when(modelMapper.map(clienteAtualizado, ClienteResponseDTO.class)).thenReturn(responseDtoAtualizado);
 
         // WHEN
         ClienteResponseDTO result = clienteService.atualizarCliente(id, updateDto);
@@ -267,8 +256,9 @@ class ClienteServiceTest {
         assertEquals(BigDecimal.valueOf(6000.00), result.getLimiteCredito());
         verify(clienteRepository).findById(id);
         verify(clienteRepository).save(any(Cliente.class));
-        verify(modelMapper).map(eq(updateDto), eq(clienteAtivo)); // Verifica se o mapeamento para existente foi chamado
-        verify(modelMapper).map(any(Cliente.class), eq(ClienteResponseDTO.class));
+        verify(clienteMapper).atualizarEntity(updateDto, clienteAtivo); // Verifica se o mapeamento para existente foi chamado
+        assertEquals("Nome Atualizado", clienteAtivo.getNome()); // A entidade existente recebeu os dados do DTO
+        verify(clienteMapper).toResponseDTO(clienteAtualizado);
     }
 
     @Test
@@ -280,26 +270,9 @@ class ClienteServiceTest {
                 "Nome Mudar para Bloqueado", "11122233344", LocalDate.of(1990, 1, 1),
                 'B', BigDecimal.valueOf(100.00) // Tenta setar status 'B', limite 100
         );
-        Cliente clienteAtualizadoBloqueado = new Cliente(
-                id, "Nome Mudar para Bloqueado", "11122233344", LocalDate.of(1990, 1, 1),
-                'B', BigDecimal.ZERO // Após a regra, limite vira 0
-        );
-        ClienteResponseDTO responseDtoBloqueado = new ClienteResponseDTO(
-                id, "Nome Mudar para Bloqueado", "11122233344", LocalDate.of(1990, 1, 1),
-                'B', BigDecimal.ZERO
-        );
-
         when(clienteRepository.findById(id)).thenReturn(Optional.of(clienteAtivo));
-        doAnswer(invocation -> { // Simula o mapeamento do ModelMapper para a entidade existente
-            Cliente target = invocation.getArgument(1);
-            target.setNome(updateDtoBloqueio.getNome());
-            target.setLimiteCredito(updateDtoBloqueio.getLimiteCredito()); // ModelMapper copia o 100.00
-            target.setStatusBloqueio(updateDtoBloqueio.getStatusBloqueio());
-            return null;
-        }).when(modelMapper).map(eq(updateDtoBloqueio), eq(clienteAtivo));
-
-        when(clienteRepository.save(any(Cliente.class))).thenReturn(clienteAtualizadoBloqueado);
-        when(modelMapper.map(clienteAtualizadoBloqueado, ClienteResponseDTO.class)).thenReturn(responseDtoBloqueado);
+        // O mapper copia o limite 100.00 do DTO; a regra do serviço deve zerá-lo antes de salvar
+        when(clienteRepository.save(any(Cliente.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         // WHEN
         ClienteResponseDTO result = clienteService.atualizarCliente(id, updateDtoBloqueio);
@@ -308,9 +281,36 @@ class ClienteServiceTest {
         assertNotNull(result);
         assertEquals('B', result.getStatusBloqueio());
         assertEquals(BigDecimal.ZERO, result.getLimiteCredito()); // Verifica se o limite foi zerado pela lógica do serviço
+        assertEquals('M', clienteAtivo.getOrigemBloqueio()); // Bloqueio do operador não é desfeito automaticamente
         verify(clienteRepository).save(any(Cliente.class));
     }
 
+    @Test
+    @DisplayName("atualizarCliente - Bloqueio do job deve continuar do job se o status não mudar, e acabar no desbloqueio manual")
+    void atualizarCliente_DeveManterOrigemDoBloqueioSemMudancaDeStatus() {
+        // GIVEN: cliente bloqueado pelo job de atraso, com o limite de antes do bloqueio guardado
+        clienteBloqueado.setOrigemBloqueio('J');
+        clienteBloqueado.setLimiteAnterior(BigDecimal.valueOf(3000.00));
+        UUID id = clienteBloqueado.getId();
+        when(clienteRepository.findById(id)).thenReturn(Optional.of(clienteBloqueado));
+        when(clienteRepository.save(any(Cliente.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // WHEN: edição do nome, com o mesmo status
+        clienteService.atualizarCliente(id, new ClienteRequestDTO("Nome Corrigido", null, null, 'B', null));
+
+        // THEN
+        assertEquals('J', clienteBloqueado.getOrigemBloqueio());
+        assertEquals(BigDecimal.valueOf(3000.00), clienteBloqueado.getLimiteAnterior());
+
+        // WHEN: desbloqueio pelo operador
+        clienteService.atualizarCliente(id, new ClienteRequestDTO(null, null, null, 'A', BigDecimal.valueOf(1500.00)));
+
+        // THEN
+        assertNull(clienteBloqueado.getOrigemBloqueio());
+        assertNull(clienteBloqueado.getLimiteAnterior());
+        assertEquals(BigDecimal.valueOf(1500.00), clienteBloqueado.getLimiteCredito());
+    }
+
     @Test
     @DisplayName("atualizarCliente - Deve lançar RuntimeException se cliente não encontrado")
     void atualizarCliente_DeveLancarRuntimeExceptionSeNaoEncontrado() {
@@ -325,107 +325,91 @@ class ClienteServiceTest {
         assertEquals("Cliente não encontrado com o ID: " + id, thrown.getMessage());
         verify(clienteRepository).findById(id);
         verify(clienteRepository, never()).save(any(Cliente.class)); // Garante que save não foi chamado
-        verifyNoInteractions(modelMapper);
+        verifyNoInteractions(clienteMapper);
     }
 
     @Test
     @DisplayName("listarClientesBloqueados - Deve retornar apenas clientes com status 'B'")
     void listarClientesBloqueados_DeveRetornarApenasClientesBloqueados() {
         // GIVEN
-        List<Cliente> clientes = Arrays.asList(clienteAtivo, clienteBloqueado);
-        when(clienteRepository.findByStatusBloqueio('B')).thenReturn(Arrays.asList(clienteBloqueado));
-
-        when(modelMapper.map(clienteBloqueado, ClienteResponseDTO.class)).thenReturn(
-                new ClienteResponseDTO(clienteBloqueado.getId(), clienteBloqueado.getNome(), clienteBloqueado.getCpf(),
-                        clienteBloqueado.getDataNascimento(), clienteBloqueado.getStatusBloqueio(), clienteBloqueado.getLimiteCredito())
-        );
+        mockConsultaClientes(Arrays.asList(clienteBloqueado));
 
         // WHEN
-        List<ClienteResponseDTO> result = clienteService.listarClientesBloqueados();
+        PaginaDTO<ClienteResponseDTO> result = clienteService.listarClientesBloqueados(null, null);
 
         // THEN
         assertNotNull(result);
-        assertFalse(result.isEmpty());
-        assertEquals(1, result.size());
-        assertEquals('B', result.get(0).getStatusBloqueio());
-        verify(clienteRepository).findByStatusBloqueio('B');
-        verify(modelMapper).map(any(Cliente.class), eq(ClienteResponseDTO.class));
+        assertFalse(result.getItens().isEmpty());
+        assertEquals(1, result.getItens().size());
+        assertEquals('B', result.getItens().get(0).getStatusBloqueio());
+        verify(clienteRepository).findBy(any(Specification.class), any()); // Mesmo caminho da listagem filtrada
+        verify(clienteMapper).toResponseDTO(clienteBloqueado);
+    }
+
+    // Executa o job e devolve o trabalho (por partição) entregue ao motor de jobs particionados
+    @SuppressWarnings("unchecked")
+    private Function<IntervaloUuid, ResultadoParticao> capturarTrabalhoDoJob() {
+        ArgumentCaptor<Function<IntervaloUuid, ResultadoParticao>> trabalho = ArgumentCaptor.forClass(Function.class);
+        clienteService.verificarEBloquearClientesAtrasados();
+        verify(jobParticionadoService).executar(eq(ClienteService.JOB_BLOQUEIO), eq(LocalDate.now()), any(), trabalho.capture());
+        return trabalho.getValue();
     }
 
     @Test
-    @DisplayName("verificarEBloquearClientesAtrasados - Deve bloquear clientes com faturas atrasadas")
+    @DisplayName("verificarEBloquearClientesAtrasados - Deve bloquear clientes com faturas atrasadas da partição")
     void verificarEBloquearClientesAtrasados_DeveBloquearClientesComFaturasAtrasadas() {
         // GIVEN
-        // O clienteAtivo tem uma fatura atrasada
-        Cliente clienteParaBloquearNoJob = new Cliente(
-                UUID.randomUUID(), "Job Teste Cliente", "10101010101", LocalDate.of(1990, 1, 1),
-                'A', BigDecimal.valueOf(1000.00)
-        );
-        Fatura faturaCritica = new Fatura(
-                UUID.randomUUID(), clienteParaBloquearNoJob, LocalDate.of(2025, 7, 10), // Vencida antes de 3 dias atrás
-                null, BigDecimal.valueOf(200.00), 'A'
-        );
-
-        // Mocks para o job agendado
-        when(faturaRepository.findByStatusAndDataVencimentoBefore(eq('A'), any(LocalDate.class)))
-                .thenReturn(Arrays.asList(faturaCritica));
-
-        // Simula o cliente salvo após o bloqueio pelo job
-        when(clienteRepository.save(any(Cliente.class))).thenAnswer(invocation -> {
-            Cliente savedClient = invocation.getArgument(0);
-            assertEquals('B', savedClient.getStatusBloqueio());
-            assertEquals(BigDecimal.ZERO, savedClient.getLimiteCredito());
-            return savedClient;
-        });
+        IntervaloUuid intervalo = IntervaloUuid.particionar(4).get(1);
+        when(clienteRepository.countByIdBetween(intervalo.inicio(), intervalo.fim())).thenReturn(10L);
+        // O UPDATE em lote devolve os IDs dos clientes bloqueados
+        when(clienteRepository.bloquearClientesComFaturasAtrasadas(any(LocalDate.class), eq(intervalo.inicio()), eq(intervalo.fim())))
+                .thenReturn(Arrays.asList(clienteAtivo.getId()));
 
         // WHEN
-        clienteService.verificarEBloquearClientesAtrasados();
+        ResultadoParticao resultado = capturarTrabalhoDoJob().apply(intervalo);
 
         // THEN
-        // Verifica se o findByStatusAndDataVencimentoBefore foi chamado
-        verify(faturaRepository).findByStatusAndDataVencimentoBefore(eq('A'), any(LocalDate.class));
-        // Verifica se o clienteRepository.save foi chamado UMA vez (para bloquear o cliente)
-        verify(clienteRepository, times(1)).save(any(Cliente.class));
+        assertEquals(10L, resultado.linhasLidas());
+        assertEquals(1L, resultado.linhasAlteradas());
+        // Faturas vencidas há mais de 3 dias
+        verify(clienteRepository).bloquearClientesComFaturasAtrasadas(LocalDate.now().minusDays(3), intervalo.inicio(), intervalo.fim());
+        verify(clienteRepository, never()).save(any(Cliente.class)); // Sem save por cliente: tudo numa única instrução
+        verify(eventPublisher).publishEvent(new ClienteBloqueadoEvent(clienteAtivo.getId())); // Vai para o outbox
     }
 
     @Test
-    @DisplayName("verificarEBloquearClientesAtrasados - Não deve bloquear cliente já bloqueado")
-    void verificarEBloquearClientesAtrasados_NaoDeveBloquearClienteJaBloqueado() {
+    @DisplayName("verificarEBloquearClientesAtrasados - Não deve alterar nada se não houver clientes a bloquear")
+    void verificarEBloquearClientesAtrasados_NaoDeveFazerNadaSeNaoHouverClientesABloquear() {
         // GIVEN
-        // Cliente já bloqueado
-        Cliente clienteJaBloqueado = new Cliente(
-                UUID.randomUUID(), "Cliente Já Bloqueado", "20202020202", LocalDate.of(1990, 1, 1),
-                'B', BigDecimal.ZERO
-        );
-        Fatura faturaCritica = new Fatura(
-                UUID.randomUUID(), clienteJaBloqueado, LocalDate.of(2025, 7, 10),
-                null, BigDecimal.valueOf(200.00), 'A'
-        );
-
-        when(faturaRepository.findByStatusAndDataVencimentoBefore(eq('A'), any(LocalDate.class)))
-                .thenReturn(Arrays.asList(faturaCritica));
+        IntervaloUuid intervalo = IntervaloUuid.particionar(1).get(0);
+        when(clienteRepository.bloquearClientesComFaturasAtrasadas(any(LocalDate.class), any(UUID.class), any(UUID.class)))
+                .thenReturn(Collections.emptyList()); // Nenhum cliente ativo com fatura crítica
 
         // WHEN
-        clienteService.verificarEBloquearClientesAtrasados();
+        ResultadoParticao resultado = capturarTrabalhoDoJob().apply(intervalo);
 
         // THEN
-        verify(faturaRepository).findByStatusAndDataVencimentoBefore(eq('A'), any(LocalDate.class));
+        assertEquals(0L, resultado.linhasAlteradas());
         verify(clienteRepository, never()).save(any(Cliente.class)); // Garante que save NÃO foi chamado
+        verifyNoInteractions(clienteMapper); // Garante que o mapper não foi chamado
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
-    @DisplayName("verificarEBloquearClientesAtrasados - Não deve fazer nada se não houver faturas críticas")
-    void verificarEBloquearClientesAtrasados_NaoDeveFazerNadaSeNaoHouverFaturasCriticas() {
-        // GIVEN
-        when(faturaRepository.findByStatusAndDataVencimentoBefore(eq('A'), any(LocalDate.class)))
-                .thenReturn(Collections.emptyList()); // Nenhuma fatura crítica
-
+    @DisplayName("retomarBloqueioInterrompido - Deve retomar a última execução não concluída com a data limite dela, sem iniciar uma nova")
+    @SuppressWarnings("unchecked")
+    void retomarBloqueioInterrompido_DeveRetomarComADataDaExecucao() {
         // WHEN
-        clienteService.verificarEBloquearClientesAtrasados();
+        clienteService.retomarBloqueioInterrompido();
 
-        // THEN
-        verify(faturaRepository).findByStatusAndDataVencimentoBefore(eq('A'), any(LocalDate.class));
-        verify(clienteRepository, never()).save(any(Cliente.class)); // Garante que save NÃO foi chamado
-        verifyNoInteractions(modelMapper); // Garante que modelMapper não foi chamado
+        // THEN: o trabalho é montado para a data de referência da execução retomada (ex: interrompida anteontem)
+        ArgumentCaptor<Function<LocalDate, Function<IntervaloUuid, ResultadoParticao>>> trabalhoDaData = ArgumentCaptor.forClass(Function.class);
+        verify(jobParticionadoService).retomar(eq(ClienteService.JOB_BLOQUEIO), any(), trabalhoDaData.capture());
+        verify(jobParticionadoService, never()).executar(any(), any(), any(), any());
+
+        LocalDate anteontem = LocalDate.now().minusDays(2);
+        IntervaloUuid intervalo = IntervaloUuid.particionar(1).get(0);
+        trabalhoDaData.getValue().apply(anteontem).apply(intervalo);
+        verify(clienteRepository).bloquearClientesComFaturasAtrasadas(anteontem.minusDays(3), intervalo.inicio(), intervalo.fim());
     }
 }
@@ -0,0 +1,115 @@
+package com.fintech.pagamentos.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fintech.pagamentos.dto.FaturaResponseDTO;
+import com.fintech.pagamentos.repository.FaturaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExportacaoFaturasServiceTest {
+
+    @Mock
+    private FaturaRepository faturaRepository;
+
+    private ExportacaoFaturasService exportacaoFaturasService;
+
+    private UUID clienteId;
+    private FaturaResponseDTO faturaPaga;
+    private FaturaResponseDTO faturaAberta;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        exportacaoFaturasService = new ExportacaoFaturasService(faturaRepository, objectMapper);
+
+        clienteId = UUID.randomUUID();
+        faturaPaga = new FaturaResponseDTO(
+                UUID.randomUUID(), clienteId, "Silva, João \"Jota\"", LocalDate.of(2025, 6, 1),
+                LocalDate.of(2025, 5, 28), new BigDecimal("200.00"), 'P'
+        );
+        faturaAberta = new FaturaResponseDTO(
+                UUID.randomUUID(), clienteId, "Silva, João \"Jota\"", LocalDate.of(2025, 12, 31),
+                null, new BigDecimal("100.50"), 'B'
+        );
+    }
+
+    @Test
+    @DisplayName("exportar - Deve escrever uma linha JSON por fatura no formato NDJSON")
+    void exportar_DeveEscreverUmaLinhaJsonPorFatura() throws Exception {
+        // GIVEN
+        when(faturaRepository.streamAll()).thenReturn(Stream.of(faturaPaga, faturaAberta));
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+
+        // WHEN
+        long linhas = exportacaoFaturasService.exportar(ExportacaoFaturasService.Formato.NDJSON, saida);
+
+        // THEN
+        String[] resultado = saida.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, linhas);
+        assertEquals(2, resultado.length);
+        assertTrue(resultado[0].startsWith("{\"id\":\"" + faturaPaga.getId() + "\""));
+        assertTrue(resultado[0].contains("\"dataVencimento\":\"2025-06-01\""));
+        assertTrue(resultado[1].contains("\"dataPagamento\":null"));
+    }
+
+    @Test
+    @DisplayName("exportar - Deve escrever cabeçalho e escapar campos no formato CSV")
+    void exportar_DeveEscreverCsvComCabecalhoEEscape() throws Exception {
+        // GIVEN
+        when(faturaRepository.streamAll()).thenReturn(Stream.of(faturaPaga, faturaAberta));
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+
+        // WHEN
+        exportacaoFaturasService.exportar(ExportacaoFaturasService.Formato.CSV, saida);
+
+        // THEN
+        String[] resultado = saida.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, resultado.length);
+        assertEquals("id,clienteId,clienteNome,dataVencimento,dataPagamento,valor,status", resultado[0]);
+        assertEquals(faturaPaga.getId() + "," + clienteId + ",\"Silva, João \"\"Jota\"\"\",2025-06-01,2025-05-28,200.00,P", resultado[1]);
+        assertEquals(faturaAberta.getId() + "," + clienteId + ",\"Silva, João \"\"Jota\"\"\",2025-12-31,,100.50,B", resultado[2]);
+    }
+
+    @Test
+    @DisplayName("exportar - Deve escrever apenas o cabeçalho quando não houver faturas")
+    void exportar_DeveEscreverApenasCabecalhoSemFaturas() throws Exception {
+        // GIVEN
+        when(faturaRepository.streamAll()).thenReturn(Stream.empty());
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+
+        // WHEN
+        long linhas = exportacaoFaturasService.exportar(ExportacaoFaturasService.Formato.CSV, saida);
+
+        // THEN
+        assertEquals(0, linhas);
+        assertEquals("id,clienteId,clienteNome,dataVencimento,dataPagamento,valor,status\n", saida.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Formato.de - Deve aceitar formatos em minúsculas e rejeitar formatos desconhecidos")
+    void formato_DeveAceitarMinusculasERejeitarDesconhecidos() {
+        assertEquals(ExportacaoFaturasService.Formato.CSV, ExportacaoFaturasService.Formato.de("csv"));
+        assertEquals(ExportacaoFaturasService.Formato.NDJSON, ExportacaoFaturasService.Formato.de("ndjson"));
+        assertThrows(IllegalArgumentException.class, () -> ExportacaoFaturasService.Formato.de("xml"));
+    }
+}
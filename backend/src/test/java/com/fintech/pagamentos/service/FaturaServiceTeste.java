@@ -2,17 +2,30 @@ package com.fintech.pagamentos.service;
 
 import com.fintech.pagamentos.dto.FaturaPaymentRequestDTO;
 import com.fintech.pagamentos.dto.FaturaResponseDTO;
+import com.fintech.pagamentos.dto.PaginaDTO;
 import com.fintech.pagamentos.entity.Cliente;
 import com.fintech.pagamentos.entity.Fatura;
+import com.fintech.pagamentos.event.FaturaPagaEvent;
+import com.fintech.pagamentos.exception.FaturaJaPagaException;
+import com.fintech.pagamentos.exception.FaturaNaoEncontradaException;
+import com.fintech.pagamentos.mapper.FaturaMapper;
+import com.fintech.pagamentos.pagination.CursorFatura;
+import com.fintech.pagamentos.repository.FaturaArquivadaRepository;
 import com.fintech.pagamentos.repository.FaturaRepository;
+import com.fintech.pagamentos.repository.FaturaRepository.PagamentoRegistrado;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import jakarta.persistence.EntityManager;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.modelmapper.ModelMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -28,7 +41,18 @@ class FaturaServiceTest {
     private FaturaRepository faturaRepository;
 
     @Mock
-    private ModelMapper modelMapper; // Mock do ModelMapper
+    private FaturaArquivadaRepository faturaArquivadaRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy // Mapper real usado na resposta do pagamento
+    private FaturaMapper faturaMapper = new FaturaMapper();
+
+    @Spy // Cache real (vazio a cada teste): as consultas ainda chegam ao repositório na primeira chamada
+    private CacheConsultasService cacheConsultas = new CacheConsultasService(
+            new VersoesTabelasService(mock(EntityManager.class), mock(PlatformTransactionManager.class), false),
+            new SimpleMeterRegistry(), 100, 1000, 10);
 
     @InjectMocks // Injeta os mocks nas dependências de FaturaService
     private FaturaService faturaService;
@@ -51,25 +75,25 @@ class FaturaServiceTest {
         UUID clienteId = UUID.randomUUID();
         clienteTeste = new Cliente(
                 clienteId, "Cliente Teste", "11122233344", LocalDate.of(1990, 1, 1),
-                'A', BigDecimal.valueOf(5000.00)
+                'A', BigDecimal.valueOf(5000.00), null, null, 0L
         );
 
         UUID faturaAbertaId = UUID.randomUUID();
         faturaAberta = new Fatura(
                 faturaAbertaId, clienteTeste, LocalDate.of(2025, 12, 31),
-                null, BigDecimal.valueOf(100.00), 'B'
+                null, BigDecimal.valueOf(100.00), 'B', 0L
         );
 
         UUID faturaPagaId = UUID.randomUUID();
         faturaPaga = new Fatura(
                 faturaPagaId, clienteTeste, LocalDate.of(2025, 6, 1),
-                LocalDate.of(2025, 5, 28), BigDecimal.valueOf(200.00), 'P'
+                LocalDate.of(2025, 5, 28), BigDecimal.valueOf(200.00), 'P', 0L
         );
 
         UUID faturaAtrasadaId = UUID.randomUUID();
         faturaAtrasada = new Fatura(
                 faturaAtrasadaId, clienteTeste, LocalDate.of(2025, 7, 1), // Data no passado
-                null, BigDecimal.valueOf(150.00), 'A'
+                null, BigDecimal.valueOf(150.00), 'A', 0L
         );
 
         paymentRequestDTO = new FaturaPaymentRequestDTO(LocalDate.now());
@@ -77,13 +101,6 @@ class FaturaServiceTest {
         faturaResponseDTOAberta = createFaturaResponseDTO(faturaAberta);
         faturaResponseDTOPaga = createFaturaResponseDTO(faturaPaga);
         faturaResponseDTOAtrasada = createFaturaResponseDTO(faturaAtrasada);
-
-        // Configura o ModelMapper para retornar DTOs de teste quando mapeado
-        lenient().when(modelMapper.map(any(Fatura.class), eq(FaturaResponseDTO.class)))
-                .thenAnswer(invocation -> {
-                    Fatura sourceFatura = invocation.getArgument(0);
-                    return createFaturaResponseDTO(sourceFatura);
-                });
     }
 
     // Método auxiliar para criar FaturaResponseDTO a partir de Fatura
@@ -104,20 +121,67 @@ class FaturaServiceTest {
     @DisplayName("listarTodasFaturas - Deve retornar todas as faturas com sucesso")
     void listarTodasFaturas_DeveRetornarTodasFaturasComSucesso() {
         // GIVEN
-        List<Fatura> faturas = Arrays.asList(faturaAberta, faturaPaga);
-        when(faturaRepository.findAllWithCliente()).thenReturn(faturas);
+        List<FaturaResponseDTO> faturas = Arrays.asList(faturaResponseDTOAberta, faturaResponseDTOPaga);
+        when(faturaRepository.findPagina(CursorFatura.INICIO.dataVencimento(), CursorFatura.INICIO.id(), Limit.of(51)))
+                .thenReturn(faturas);
 
         // WHEN
-        List<FaturaResponseDTO> result = faturaService.listarTodasFaturas();
+        PaginaDTO<FaturaResponseDTO> result = faturaService.listarTodasFaturas(null, null);
 
         // THEN
         assertNotNull(result);
-        assertFalse(result.isEmpty());
-        assertEquals(2, result.size());
-        assertEquals(faturaAberta.getId(), result.get(0).getId());
-        assertEquals(faturaPaga.getId(), result.get(1).getId());
-        verify(faturaRepository).findAllWithCliente();
-        verify(modelMapper, times(2)).map(any(Fatura.class), eq(FaturaResponseDTO.class));
+        assertFalse(result.getItens().isEmpty());
+        assertEquals(2, result.getItens().size());
+        assertEquals(faturaAberta.getId(), result.getItens().get(0).getId());
+        assertEquals(faturaPaga.getId(), result.getItens().get(1).getId());
+        assertNull(result.getNext()); // Não há próxima página
+        verify(faturaRepository).findPagina(CursorFatura.INICIO.dataVencimento(), CursorFatura.INICIO.id(), Limit.of(51));
+    }
+
+    @Test
+    @DisplayName("listarTodasFaturas - Deve retornar cursor da próxima página quando houver mais faturas que o limite")
+    void listarTodasFaturas_DeveRetornarCursorQuandoHouverMaisFaturas() {
+        // GIVEN
+        // Limite 2: o repositório é consultado com 3 para saber se existe próxima página
+        List<FaturaResponseDTO> faturas = Arrays.asList(faturaResponseDTOPaga, faturaResponseDTOAtrasada, faturaResponseDTOAberta);
+        when(faturaRepository.findPagina(any(LocalDate.class), any(UUID.class), eq(Limit.of(3))))
+                .thenReturn(faturas);
+
+        // WHEN
+        PaginaDTO<FaturaResponseDTO> result = faturaService.listarTodasFaturas(null, 2);
+
+        // THEN
+        assertEquals(2, result.getItens().size());
+        assertNotNull(result.getNext());
+        // O cursor aponta para a última fatura retornada
+        CursorFatura cursor = CursorFatura.decodificar(result.getNext());
+        assertEquals(faturaAtrasada.getDataVencimento(), cursor.dataVencimento());
+        assertEquals(faturaAtrasada.getId(), cursor.id());
+    }
+
+    @Test
+    @DisplayName("listarTodasFaturas - Deve continuar a partir do cursor informado")
+    void listarTodasFaturas_DeveContinuarAPartirDoCursor() {
+        // GIVEN
+        String next = new CursorFatura(faturaPaga.getDataVencimento(), faturaPaga.getId()).codificar();
+        when(faturaRepository.findPagina(faturaPaga.getDataVencimento(), faturaPaga.getId(), Limit.of(51)))
+                .thenReturn(Arrays.asList(faturaResponseDTOAtrasada));
+
+        // WHEN
+        PaginaDTO<FaturaResponseDTO> result = faturaService.listarTodasFaturas(next, null);
+
+        // THEN
+        assertEquals(1, result.getItens().size());
+        assertEquals(faturaAtrasada.getId(), result.getItens().get(0).getId());
+        verify(faturaRepository).findPagina(faturaPaga.getDataVencimento(), faturaPaga.getId(), Limit.of(51));
+    }
+
+    @Test
+    @DisplayName("listarTodasFaturas - Deve lançar exceção para cursor inválido")
+    void listarTodasFaturas_DeveLancarExcecaoParaCursorInvalido() {
+        // WHEN & THEN
+        assertThrows(IllegalArgumentException.class, () -> faturaService.listarTodasFaturas("cursor-invalido", null));
+        verifyNoInteractions(faturaRepository);
     }
 
     @Test
@@ -125,20 +189,21 @@ class FaturaServiceTest {
     void listarFaturasPorClienteId_DeveRetornarFaturasParaClienteEspecificado() {
         // GIVEN
         UUID clienteId = clienteTeste.getId();
-        List<Fatura> faturasDoCliente = Arrays.asList(faturaAberta, faturaPaga);
-        when(faturaRepository.findByClienteIdWithCliente(clienteId)).thenReturn(faturasDoCliente);
+        List<FaturaResponseDTO> faturasDoCliente = Arrays.asList(faturaResponseDTOAberta, faturaResponseDTOPaga);
+        when(faturaRepository.findPaginaByClienteId(eq(clienteId), any(LocalDate.class), any(UUID.class), any(Limit.class)))
+                .thenReturn(faturasDoCliente);
 
         // WHEN
-        List<FaturaResponseDTO> result = faturaService.listarFaturasPorClienteId(clienteId);
+        PaginaDTO<FaturaResponseDTO> result = faturaService.listarFaturasPorClienteId(clienteId, null, null, false);
 
         // THEN
         assertNotNull(result);
-        assertFalse(result.isEmpty());
-        assertEquals(2, result.size());
-        assertEquals(clienteId, result.get(0).getClienteId());
-        assertEquals(clienteId, result.get(1).getClienteId());
-        assertEquals("Cliente Teste", result.get(0).getClienteNome()); // Verifica o nome do cliente
-        verify(faturaRepository).findByClienteIdWithCliente(clienteId);
+        assertFalse(result.getItens().isEmpty());
+        assertEquals(2, result.getItens().size());
+        assertEquals(clienteId, result.getItens().get(0).getClienteId());
+        assertEquals(clienteId, result.getItens().get(1).getClienteId());
+        assertEquals("Cliente Teste", result.getItens().get(0).getClienteNome()); // Verifica o nome do cliente
+        verify(faturaRepository).findPaginaByClienteId(eq(clienteId), any(LocalDate.class), any(UUID.class), any(Limit.class));
     }
 
     @Test
@@ -146,15 +211,31 @@ class FaturaServiceTest {
     void listarFaturasPorClienteId_DeveRetornarListaVaziaSeClienteSemFaturas() {
         // GIVEN
         UUID clienteId = UUID.randomUUID(); // Um ID que não tem faturas
-        when(faturaRepository.findByClienteIdWithCliente(clienteId)).thenReturn(Collections.emptyList());
+        when(faturaRepository.findPaginaByClienteId(eq(clienteId), any(LocalDate.class), any(UUID.class), any(Limit.class)))
+                .thenReturn(Collections.emptyList());
 
         // WHEN
-        List<FaturaResponseDTO> result = faturaService.listarFaturasPorClienteId(clienteId);
+        PaginaDTO<FaturaResponseDTO> result = faturaService.listarFaturasPorClienteId(clienteId, null, null, false);
 
         // THEN
         assertNotNull(result);
-        assertTrue(result.isEmpty());
-        verify(faturaRepository).findByClienteIdWithCliente(clienteId);
+        assertTrue(result.getItens().isEmpty());
+        assertNull(result.getNext());
+        verify(faturaRepository).findPaginaByClienteId(eq(clienteId), any(LocalDate.class), any(UUID.class), any(Limit.class));
+    }
+
+    // Linha retornada pelo UPDATE ... RETURNING do pagamento
+    private PagamentoRegistrado pagamentoRegistrado(Fatura fatura, LocalDate dataPagamento) {
+        return new PagamentoRegistrado() {
+            public UUID getId() { return fatura.getId(); }
+            public UUID getClienteId() { return fatura.getCliente().getId(); }
+            public String getClienteNome() { return fatura.getCliente().getNome(); }
+            public LocalDate getDataVencimento() { return fatura.getDataVencimento(); }
+            public LocalDate getDataPagamento() { return dataPagamento; }
+            public BigDecimal getValor() { return fatura.getValor(); }
+            public Character getStatus() { return 'P'; }
+            public Character getStatusAnterior() { return fatura.getStatus(); }
+        };
     }
 
     @Test
@@ -162,14 +243,9 @@ class FaturaServiceTest {
     void registrarPagamento_DeveRegistrarPagamentoComSucessoParaFaturaAberta() {
         // GIVEN
         UUID faturaId = faturaAberta.getId();
-        // Mock do findByIdWithCliente
-        when(faturaRepository.findByIdWithCliente(faturaId)).thenReturn(Optional.of(faturaAberta));
-        // Mock do save para retornar a fatura atualizada
-        when(faturaRepository.save(any(Fatura.class))).thenAnswer(invocation -> {
-            Fatura savedFatura = invocation.getArgument(0);
-            savedFatura.setId(faturaId); // Garante que o ID da fatura salva é o mesmo
-            return savedFatura;
-        });
+        // O UPDATE condicional altera a fatura e retorna os dados da resposta em uma única instrução
+        when(faturaRepository.registrarPagamento(faturaId, paymentRequestDTO.getDataPagamento()))
+                .thenReturn(Optional.of(pagamentoRegistrado(faturaAberta, paymentRequestDTO.getDataPagamento())));
 
         // WHEN
         FaturaResponseDTO result = faturaService.registrarPagamento(faturaId, paymentRequestDTO);
@@ -179,8 +255,54 @@ class FaturaServiceTest {
         assertEquals(faturaId, result.getId());
         assertEquals('P', result.getStatus()); // Status deve ser 'Paga'
         assertEquals(paymentRequestDTO.getDataPagamento(), result.getDataPagamento()); // Data de pagamento deve ser a do DTO
-        verify(faturaRepository).findByIdWithCliente(faturaId);
-        verify(faturaRepository).save(faturaAberta); // Verifica se o save foi chamado
+        assertEquals(clienteTeste.getNome(), result.getClienteNome());
+        verify(faturaRepository).registrarPagamento(faturaId, paymentRequestDTO.getDataPagamento());
+        verify(faturaRepository, never()).findByIdWithCliente(any()); // Sem leitura prévia
+        verify(faturaRepository, never()).save(any(Fatura.class));
+        // Evento com o status anterior ao pagamento, para os ouvintes (ex: agenda de vencimentos)
+        verify(eventPublisher).publishEvent(new FaturaPagaEvent(faturaId, faturaAberta.getCliente().getId(), faturaAberta.getValor(), 'B'));
+    }
+
+    @Test
+    @DisplayName("listarFaturasPorClienteId - Sem incluirArquivadas, não deve consultar o histórico")
+    void listarFaturasPorClienteId_NaoDeveConsultarHistoricoPorPadrao() {
+        // GIVEN
+        UUID clienteId = clienteTeste.getId();
+        when(faturaRepository.findPaginaByClienteId(eq(clienteId), any(LocalDate.class), any(UUID.class), any(Limit.class)))
+                .thenReturn(List.of(faturaResponseDTOAberta));
+
+        // WHEN
+        faturaService.listarFaturasPorClienteId(clienteId, null, null, false);
+
+        // THEN
+        verifyNoInteractions(faturaArquivadaRepository);
+    }
+
+    @Test
+    @DisplayName("listarFaturasPorClienteId - Com incluirArquivadas, deve juntar as duas consultas em ordem de vencimento")
+    void listarFaturasPorClienteId_DeveJuntarFaturasArquivadasEmOrdem() {
+        // GIVEN
+        UUID clienteId = clienteTeste.getId();
+        FaturaResponseDTO arquivada2023 = new FaturaResponseDTO(UUID.randomUUID(), clienteId, "Cliente Teste",
+                LocalDate.of(2023, 3, 10), LocalDate.of(2023, 3, 1), BigDecimal.TEN, 'P');
+        FaturaResponseDTO arquivada2024 = new FaturaResponseDTO(UUID.randomUUID(), clienteId, "Cliente Teste",
+                LocalDate.of(2024, 3, 10), LocalDate.of(2024, 3, 1), BigDecimal.TEN, 'P');
+        FaturaResponseDTO corrente2024 = new FaturaResponseDTO(UUID.randomUUID(), clienteId, "Cliente Teste",
+                LocalDate.of(2024, 8, 10), LocalDate.of(2024, 8, 1), BigDecimal.TEN, 'P');
+        when(faturaRepository.findPaginaByClienteId(eq(clienteId), any(LocalDate.class), any(UUID.class), eq(Limit.of(3))))
+                .thenReturn(List.of(corrente2024, faturaResponseDTOPaga, faturaResponseDTOAberta));
+        // A mesma fatura nas duas consultas (arquivada entre uma e outra) aparece só uma vez
+        when(faturaArquivadaRepository.findPaginaByClienteId(eq(clienteId), any(LocalDate.class), any(UUID.class), eq(Limit.of(3))))
+                .thenReturn(List.of(arquivada2023, arquivada2024, corrente2024));
+
+        // WHEN
+        PaginaDTO<FaturaResponseDTO> pagina = faturaService.listarFaturasPorClienteId(clienteId, null, 2, true);
+
+        // THEN
+        assertEquals(List.of(arquivada2023, arquivada2024), pagina.getItens());
+        CursorFatura cursor = CursorFatura.decodificar(pagina.getNext());
+        assertEquals(arquivada2024.getDataVencimento(), cursor.dataVencimento());
+        assertEquals(arquivada2024.getId(), cursor.id());
     }
 
     @Test
@@ -188,15 +310,31 @@ class FaturaServiceTest {
     void registrarPagamento_DeveLancarExcecaoSeFaturaJaPaga() {
         // GIVEN
         UUID faturaId = faturaPaga.getId();
-        when(faturaRepository.findByIdWithCliente(faturaId)).thenReturn(Optional.of(faturaPaga));
+        when(faturaRepository.registrarPagamento(faturaId, paymentRequestDTO.getDataPagamento())).thenReturn(Optional.empty());
+        when(faturaRepository.existsById(faturaId)).thenReturn(true);
 
         // WHEN & THEN
-        RuntimeException thrown = assertThrows(RuntimeException.class, () -> {
+        RuntimeException thrown = assertThrows(FaturaJaPagaException.class, () -> {
             faturaService.registrarPagamento(faturaId, paymentRequestDTO);
         });
         assertEquals("Fatura já está paga.", thrown.getMessage());
-        verify(faturaRepository).findByIdWithCliente(faturaId);
         verify(faturaRepository, never()).save(any(Fatura.class)); // Garante que save não foi chamado
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    @DisplayName("registrarPagamento - Deve informar fatura já paga se ela estiver arquivada")
+    void registrarPagamento_DeveLancarExcecaoSeFaturaArquivada() {
+        // GIVEN
+        UUID faturaId = UUID.randomUUID();
+        when(faturaRepository.registrarPagamento(faturaId, paymentRequestDTO.getDataPagamento())).thenReturn(Optional.empty());
+        when(faturaRepository.existsById(faturaId)).thenReturn(false);
+        when(faturaArquivadaRepository.existsById(faturaId)).thenReturn(true);
+
+        // WHEN & THEN
+        RuntimeException thrown = assertThrows(FaturaJaPagaException.class, () -> faturaService.registrarPagamento(faturaId, paymentRequestDTO));
+        assertEquals("Fatura já está paga.", thrown.getMessage());
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -204,15 +342,16 @@ class FaturaServiceTest {
     void registrarPagamento_DeveLancarExcecaoSeFaturaNaoEncontrada() {
         // GIVEN
         UUID faturaId = UUID.randomUUID();
-        when(faturaRepository.findByIdWithCliente(faturaId)).thenReturn(Optional.empty());
+        when(faturaRepository.registrarPagamento(faturaId, paymentRequestDTO.getDataPagamento())).thenReturn(Optional.empty());
+        when(faturaRepository.existsById(faturaId)).thenReturn(false);
 
         // WHEN & THEN
-        RuntimeException thrown = assertThrows(RuntimeException.class, () -> {
+        RuntimeException thrown = assertThrows(FaturaNaoEncontradaException.class, () -> {
             faturaService.registrarPagamento(faturaId, paymentRequestDTO);
         });
         assertEquals("Fatura não encontrada com ID: " + faturaId, thrown.getMessage());
-        verify(faturaRepository).findByIdWithCliente(faturaId);
         verify(faturaRepository, never()).save(any(Fatura.class));
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -220,32 +359,34 @@ class FaturaServiceTest {
     void listarFaturasAtrasadas_DeveRetornarApenasFaturasAtrasadas() {
         // GIVEN
         List<Fatura> todasFaturas = Arrays.asList(faturaAberta, faturaPaga, faturaAtrasada);
-        when(faturaRepository.findByStatusWithCliente('A')).thenReturn(Arrays.asList(faturaAtrasada));
+        when(faturaRepository.findPaginaByStatus(eq('A'), any(LocalDate.class), any(UUID.class), any(Limit.class)))
+                .thenReturn(Arrays.asList(faturaResponseDTOAtrasada));
 
         // WHEN
-        List<FaturaResponseDTO> result = faturaService.listarFaturasAtrasadas();
+        PaginaDTO<FaturaResponseDTO> result = faturaService.listarFaturasAtrasadas(null, null);
 
         // THEN
         assertNotNull(result);
-        assertFalse(result.isEmpty());
-        assertEquals(1, result.size());
-        assertEquals(faturaAtrasada.getId(), result.get(0).getId());
-        assertEquals('A', result.get(0).getStatus());
-        verify(faturaRepository).findByStatusWithCliente('A');
+        assertFalse(result.getItens().isEmpty());
+        assertEquals(1, result.getItens().size());
+        assertEquals(faturaAtrasada.getId(), result.getItens().get(0).getId());
+        assertEquals('A', result.getItens().get(0).getStatus());
+        verify(faturaRepository).findPaginaByStatus(eq('A'), any(LocalDate.class), any(UUID.class), any(Limit.class));
     }
 
     @Test
     @DisplayName("listarFaturasAtrasadas - Deve retornar lista vazia se não houver faturas atrasadas")
     void listarFaturasAtrasadas_DeveRetornarListaVaziaSeNaoHouverAtrasadas() {
         // GIVEN
-        when(faturaRepository.findByStatusWithCliente('A')).thenReturn(Collections.emptyList());
+        when(faturaRepository.findPaginaByStatus(eq('A'), any(LocalDate.class), any(UUID.class), any(Limit.class)))
+                .thenReturn(Collections.emptyList());
 
         // WHEN
-        List<FaturaResponseDTO> result = faturaService.listarFaturasAtrasadas();
+        PaginaDTO<FaturaResponseDTO> result = faturaService.listarFaturasAtrasadas(null, null);
 
         // THEN
         assertNotNull(result);
-        assertTrue(result.isEmpty());
-        verify(faturaRepository).findByStatusWithCliente('A');
+        assertTrue(result.getItens().isEmpty());
+        verify(faturaRepository).findPaginaByStatus(eq('A'), any(LocalDate.class), any(UUID.class), any(Limit.class));
     }
 }
\ No newline at end of file
@@ -0,0 +1,269 @@
+package com.fintech.pagamentos.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fintech.pagamentos.dto.FaturaPaymentRequestDTO;
+import com.fintech.pagamentos.dto.FaturaResponseDTO;
+import com.fintech.pagamentos.entity.IdempotenciaPagamento;
+import com.fintech.pagamentos.exception.PagamentoNaoExecutadoException;
+import com.fintech.pagamentos.repository.IdempotenciaPagamentoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotenciaPagamentoServiceTest {
+
+    private static final String CHAVE = "3f1c9a2e-pagamento-1";
+
+    @Mock
+    private FaturaService faturaService;
+
+    @Mock
+    private IdempotenciaPagamentoRepository idempotenciaRepository;
+
+    @Mock
+    private IngestaoPagamentosService ingestaoPagamentosService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ObjectMapper objectMapper;
+    private IdempotenciaPagamentoService idempotenciaService;
+
+    private UUID faturaId;
+    private FaturaPaymentRequestDTO paymentDTO;
+    private FaturaResponseDTO faturaPaga;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        idempotenciaService = new IdempotenciaPagamentoService(
+                faturaService, ingestaoPagamentosService, idempotenciaRepository, objectMapper, transactionManager,
+                new SimpleMeterRegistry(), 100, 60, 24);
+
+        faturaId = UUID.randomUUID();
+        paymentDTO = new FaturaPaymentRequestDTO(LocalDate.of(2025, 7, 20));
+        faturaPaga = new FaturaResponseDTO(faturaId, UUID.randomUUID(), "Cliente Teste", LocalDate.of(2025, 7, 31),
+                LocalDate.of(2025, 7, 20), new BigDecimal("100.00"), 'P');
+    }
+
+    @Test
+    @DisplayName("registrarPagamento - Deve gravar a primeira resposta e devolvê-la nas repetições sem registrar de novo")
+    void registrarPagamento_DeveDevolverRespostaGravadaNasRepeticoes() {
+        // GIVEN
+        when(idempotenciaRepository.findById(CHAVE)).thenReturn(Optional.empty());
+        when(faturaService.registrarPagamento(faturaId, paymentDTO)).thenReturn(faturaPaga);
+
+        // WHEN
+        FaturaResponseDTO primeira = idempotenciaService.registrarPagamento(CHAVE, faturaId, paymentDTO).join();
+        FaturaResponseDTO repeticao = idempotenciaService.registrarPagamento(CHAVE, faturaId, paymentDTO).join();
+
+        // THEN
+        assertEquals(faturaPaga, primeira);
+        assertEquals(faturaPaga, repeticao);
+        verify(faturaService, times(1)).registrarPagamento(faturaId, paymentDTO);
+        verify(idempotenciaRepository).inserir(eq(CHAVE), eq(faturaId), eq(paymentDTO.getDataPagamento()), anyString(), any(LocalDateTime.class));
+        verify(idempotenciaRepository, times(1)).findById(CHAVE); // A repetição é atendida pelo cache
+    }
+
+    @Test
+    @DisplayName("registrarPagamento - Deve devolver a resposta gravada no banco sem registrar o pagamento")
+    void registrarPagamento_DeveDevolverRespostaGravadaNoBanco() throws Exception {
+        // GIVEN
+        when(idempotenciaRepository.findById(CHAVE)).thenReturn(Optional.of(new IdempotenciaPagamento(
+                CHAVE, faturaId, paymentDTO.getDataPagamento(), objectMapper.writeValueAsString(faturaPaga), LocalDateTime.now())));
+
+        // WHEN
+        FaturaResponseDTO resultado = idempotenciaService.registrarPagamento(CHAVE, faturaId, paymentDTO).join();
+
+        // THEN
+        assertEquals(faturaPaga, resultado);
+        verifyNoInteractions(faturaService, transactionManager);
+    }
+
+    @Test
+    @DisplayName("registrarPagamento - Deve rejeitar a mesma chave usada para outra fatura")
+    void registrarPagamento_DeveRejeitarChaveReutilizadaEmOutraRequisicao() {
+        // GIVEN
+        when(idempotenciaRepository.findById(CHAVE)).thenReturn(Optional.empty());
+        when(faturaService.registrarPagamento(faturaId, paymentDTO)).thenReturn(faturaPaga);
+        idempotenciaService.registrarPagamento(CHAVE, faturaId, paymentDTO).join();
+
+        // WHEN & THEN
+        CompletionException exception = assertThrows(CompletionException.class,
+                () -> idempotenciaService.registrarPagamento(CHAVE, UUID.randomUUID(), paymentDTO).join());
+        assertInstanceOf(IllegalArgumentException.class, exception.getCause());
+        assertEquals("Idempotency-Key já utilizada em uma requisição diferente.", exception.getCause().getMessage());
+    }
+
+    @Test
+    @DisplayName("registrarPagamento - Requisições simultâneas com a mesma chave devem registrar o pagamento uma única vez")
+    void registrarPagamento_RequisicoesSimultaneasDevemAguardarAEmAndamento() throws Exception {
+        // GIVEN
+        CountDownLatch emExecucao = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        when(idempotenciaRepository.findById(CHAVE)).thenReturn(Optional.empty());
+        when(faturaService.registrarPagamento(faturaId, paymentDTO)).thenAnswer(invocation -> {
+            emExecucao.countDown();
+            liberar.await(5, TimeUnit.SECONDS);
+            return faturaPaga;
+        });
+
+        // WHEN
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            Future<FaturaResponseDTO> primeira = executor.submit(() -> idempotenciaService.registrarPagamento(CHAVE, faturaId, paymentDTO).join());
+            assertTrue(emExecucao.await(5, TimeUnit.SECONDS));
+            Future<FaturaResponseDTO> segunda = executor.submit(() -> idempotenciaService.registrarPagamento(CHAVE, faturaId, paymentDTO).join());
+            Thread.sleep(100); // A segunda requisição fica aguardando a primeira
+            liberar.countDown();
+
+            // THEN
+            assertEquals(faturaPaga, primeira.get(5, TimeUnit.SECONDS));
+            assertEquals(faturaPaga, segunda.get(5, TimeUnit.SECONDS));
+        }
+        verify(faturaService, times(1)).registrarPagamento(faturaId, paymentDTO);
+    }
+
+    @Test
+    @DisplayName("registrarPagamento - Deve devolver a resposta de outra réplica que gravou a mesma chave ao mesmo tempo")
+    void registrarPagamento_DeveDevolverRespostaDeOutraReplica() throws Exception {
+        // GIVEN
+        IdempotenciaPagamento gravadaPorOutraReplica = new IdempotenciaPagamento(
+                CHAVE, faturaId, paymentDTO.getDataPagamento(), objectMapper.writeValueAsString(faturaPaga), LocalDateTime.now());
+        when(idempotenciaRepository.findById(CHAVE)).thenReturn(Optional.empty(), Optional.of(gravadaPorOutraReplica));
+        when(faturaService.registrarPagamento(faturaId, paymentDTO)).thenReturn(faturaPaga);
+        doThrow(new DataIntegrityViolationException("idempotencia_pagamento_pkey"))
+                .when(idempotenciaRepository).inserir(any(), any(), any(), any(), any());
+
+        // WHEN
+        FaturaResponseDTO resultado = idempotenciaService.registrarPagamento(CHAVE, faturaId, paymentDTO).join();
+
+        // THEN
+        assertEquals(faturaPaga, resultado);
+        verify(transactionManager).rollback(any()); // O pagamento desta requisição é desfeito
+    }
+
+    @Test
+    @DisplayName("registrarPagamento - Deve propagar o erro quando a requisição original falhar")
+    void registrarPagamento_DevePropagarErroDaRequisicaoOriginal() {
+        // GIVEN
+        when(idempotenciaRepository.findById(CHAVE)).thenReturn(Optional.empty());
+        when(faturaService.registrarPagamento(faturaId, paymentDTO)).thenThrow(new RuntimeException("Fatura não encontrada com ID: " + faturaId));
+
+        // WHEN & THEN
+        CompletionException exception = assertThrows(CompletionException.class,
+                () -> idempotenciaService.registrarPagamento(CHAVE, faturaId, paymentDTO).join());
+        assertEquals("Fatura não encontrada com ID: " + faturaId, exception.getCause().getMessage());
+        verify(idempotenciaRepository, never()).inserir(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("registrarPagamento - Chave gravada por outra réplica enquanto esta aguardava a trava não deve pagar de novo")
+    void registrarPagamento_ChaveGravadaDuranteATravaNaoPaga() throws Exception {
+        // GIVEN
+        IdempotenciaPagamento gravadaPorOutraReplica = new IdempotenciaPagamento(
+                CHAVE, faturaId, paymentDTO.getDataPagamento(), objectMapper.writeValueAsString(faturaPaga), LocalDateTime.now());
+        when(idempotenciaRepository.findById(CHAVE)).thenReturn(Optional.empty(), Optional.of(gravadaPorOutraReplica));
+        when(idempotenciaRepository.existsById(CHAVE)).thenReturn(true);
+
+        // WHEN
+        FaturaResponseDTO resultado = idempotenciaService.registrarPagamento(CHAVE, faturaId, paymentDTO).join();
+
+        // THEN: a chave é travada antes da consulta, e a fatura não é paga
+        assertEquals(faturaPaga, resultado);
+        InOrder ordem = inOrder(idempotenciaRepository);
+        ordem.verify(idempotenciaRepository).travarChave(CHAVE);
+        ordem.verify(idempotenciaRepository).existsById(CHAVE);
+        verifyNoInteractions(faturaService);
+        verify(idempotenciaRepository, never()).inserir(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("registrarPagamento - No modo de pagamento em grupo, deve gravar a chave na transação do grupo")
+    @SuppressWarnings("unchecked")
+    void registrarPagamento_DeveUsarPagamentoEmGrupo() {
+        // GIVEN
+        when(idempotenciaRepository.findById(CHAVE)).thenReturn(Optional.empty());
+        when(ingestaoPagamentosService.isHabilitado()).thenReturn(true);
+        when(ingestaoPagamentosService.enviar(eq(faturaId), eq(paymentDTO.getDataPagamento()), any(), any())).thenAnswer(invocation -> {
+            // O gravador executa o antesDePagar e o aoPagar dentro da transação do grupo
+            assertTrue(invocation.getArgument(2, BooleanSupplier.class).getAsBoolean());
+            invocation.getArgument(3, Consumer.class).accept(faturaPaga);
+            return CompletableFuture.completedFuture(faturaPaga);
+        });
+
+        // WHEN
+        FaturaResponseDTO resultado = idempotenciaService.registrarPagamento(CHAVE, faturaId, paymentDTO).join();
+        FaturaResponseDTO repeticao = idempotenciaService.registrarPagamento(CHAVE, faturaId, paymentDTO).join();
+
+        // THEN
+        assertEquals(faturaPaga, resultado);
+        assertEquals(faturaPaga, repeticao);
+        verify(ingestaoPagamentosService, times(1)).enviar(eq(faturaId), eq(paymentDTO.getDataPagamento()), any(), any());
+        verify(idempotenciaRepository).travarChave(CHAVE);
+        verify(idempotenciaRepository).inserir(eq(CHAVE), eq(faturaId), eq(paymentDTO.getDataPagamento()), anyString(), any(LocalDateTime.class));
+        verifyNoInteractions(faturaService, transactionManager);
+    }
+
+    @Test
+    @DisplayName("registrarPagamento - No modo em grupo, chave já gravada por outra réplica deve falhar só este pedido e devolver a resposta gravada")
+    void registrarPagamento_EmGrupoComChaveGravadaPorOutraReplica() throws Exception {
+        // GIVEN
+        IdempotenciaPagamento gravadaPorOutraReplica = new IdempotenciaPagamento(
+                CHAVE, faturaId, paymentDTO.getDataPagamento(), objectMapper.writeValueAsString(faturaPaga), LocalDateTime.now());
+        when(idempotenciaRepository.findById(CHAVE)).thenReturn(Optional.empty(), Optional.of(gravadaPorOutraReplica));
+        when(idempotenciaRepository.existsById(CHAVE)).thenReturn(true);
+        when(ingestaoPagamentosService.isHabilitado()).thenReturn(true);
+        when(ingestaoPagamentosService.enviar(eq(faturaId), eq(paymentDTO.getDataPagamento()), any(), any())).thenAnswer(invocation -> {
+            // Como o gravador: antesDePagar recusa e o pedido falha sem pagar a fatura
+            assertFalse(invocation.getArgument(2, BooleanSupplier.class).getAsBoolean());
+            return CompletableFuture.failedFuture(new PagamentoNaoExecutadoException(faturaId));
+        });
+
+        // WHEN
+        FaturaResponseDTO resultado = idempotenciaService.registrarPagamento(CHAVE, faturaId, paymentDTO).join();
+
+        // THEN
+        assertEquals(faturaPaga, resultado);
+        verify(idempotenciaRepository, never()).inserir(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("registrarPagamento - Deve rejeitar chave vazia ou longa demais")
+    void registrarPagamento_DeveRejeitarChaveInvalida() {
+        assertThrows(IllegalArgumentException.class, () -> idempotenciaService.registrarPagamento(" ", faturaId, paymentDTO));
+        assertThrows(IllegalArgumentException.class, () -> idempotenciaService.registrarPagamento("x".repeat(101), faturaId, paymentDTO));
+        verifyNoInteractions(faturaService, idempotenciaRepository);
+    }
+}
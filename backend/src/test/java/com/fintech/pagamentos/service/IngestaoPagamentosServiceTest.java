@@ -0,0 +1,184 @@
+package com.fintech.pagamentos.service;
+
+import com.fintech.pagamentos.dto.FaturaResponseDTO;
+import com.fintech.pagamentos.exception.PagamentoNaoExecutadoException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IngestaoPagamentosServiceTest {
+
+    private static final LocalDate DATA_PAGAMENTO = LocalDate.of(2025, 7, 20);
+
+    @Mock
+    private FaturaService faturaService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private IngestaoPagamentosService ingestaoService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ingestaoService = new IngestaoPagamentosService(faturaService, transactionManager, meterRegistry, true, 3, 10, 5);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        ingestaoService.parar();
+    }
+
+    private FaturaResponseDTO faturaPaga(UUID faturaId) {
+        return new FaturaResponseDTO(faturaId, UUID.randomUUID(), "Cliente Teste", LocalDate.of(2025, 7, 31),
+                DATA_PAGAMENTO, new BigDecimal("100.00"), 'P');
+    }
+
+    @Test
+    @DisplayName("enviar - Pagamentos enfileirados juntos devem ser gravados em uma única transação")
+    void enviar_DeveGravarGrupoEmUmaTransacao() throws Exception {
+        // GIVEN
+        UUID fatura1 = UUID.randomUUID();
+        UUID fatura2 = UUID.randomUUID();
+        when(faturaService.pagarSeEmAberto(fatura1, DATA_PAGAMENTO)).thenReturn(Optional.of(faturaPaga(fatura1)));
+        when(faturaService.pagarSeEmAberto(fatura2, DATA_PAGAMENTO)).thenReturn(Optional.of(faturaPaga(fatura2)));
+        CompletableFuture<FaturaResponseDTO> primeiro = ingestaoService.enviar(fatura1, DATA_PAGAMENTO);
+        CompletableFuture<FaturaResponseDTO> segundo = ingestaoService.enviar(fatura2, DATA_PAGAMENTO);
+
+        // WHEN
+        ingestaoService.iniciar();
+
+        // THEN
+        assertEquals(fatura1, primeiro.get(5, TimeUnit.SECONDS).getId());
+        assertEquals(fatura2, segundo.get(5, TimeUnit.SECONDS).getId());
+        verify(transactionManager, times(1)).getTransaction(any());
+        verify(transactionManager, times(1)).commit(any());
+        assertEquals(1, meterRegistry.get("pagamentos.grupo.tamanho").summary().count());
+        assertEquals(2.0, meterRegistry.get("pagamentos.grupo.tamanho").summary().totalAmount());
+        assertEquals(2, meterRegistry.get("pagamentos.grupo.espera").timer().count());
+    }
+
+    @Test
+    @DisplayName("enviar - Fatura já paga deve falhar apenas a própria requisição")
+    void enviar_FaturaJaPagaDeveFalharApenasAPropriaRequisicao() throws Exception {
+        // GIVEN
+        UUID aberta = UUID.randomUUID();
+        UUID jaPaga = UUID.randomUUID();
+        when(faturaService.pagarSeEmAberto(aberta, DATA_PAGAMENTO)).thenReturn(Optional.of(faturaPaga(aberta)));
+        when(faturaService.pagarSeEmAberto(jaPaga, DATA_PAGAMENTO)).thenReturn(Optional.empty());
+        when(faturaService.falhaDePagamento(jaPaga)).thenReturn(new RuntimeException("Fatura já está paga."));
+        CompletableFuture<FaturaResponseDTO> paga = ingestaoService.enviar(aberta, DATA_PAGAMENTO);
+        CompletableFuture<FaturaResponseDTO> recusada = ingestaoService.enviar(jaPaga, DATA_PAGAMENTO);
+
+        // WHEN
+        ingestaoService.iniciar();
+
+        // THEN
+        assertEquals(aberta, paga.get(5, TimeUnit.SECONDS).getId());
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> recusada.get(5, TimeUnit.SECONDS));
+        assertEquals("Fatura já está paga.", exception.getCause().getMessage());
+        verify(transactionManager, times(1)).commit(any()); // A recusa não desfaz o grupo
+    }
+
+    @Test
+    @DisplayName("enviar - aoPagar deve rodar só para as faturas pagas, dentro da transação do grupo")
+    void enviar_AoPagarDeveRodarSoParaFaturasPagas() throws Exception {
+        // GIVEN
+        UUID aberta = UUID.randomUUID();
+        UUID jaPaga = UUID.randomUUID();
+        List<UUID> registradas = new CopyOnWriteArrayList<>();
+        when(faturaService.pagarSeEmAberto(aberta, DATA_PAGAMENTO)).thenReturn(Optional.of(faturaPaga(aberta)));
+        when(faturaService.pagarSeEmAberto(jaPaga, DATA_PAGAMENTO)).thenReturn(Optional.empty());
+        when(faturaService.falhaDePagamento(jaPaga)).thenReturn(new RuntimeException("Fatura já está paga."));
+        CompletableFuture<FaturaResponseDTO> paga = ingestaoService.enviar(aberta, DATA_PAGAMENTO, null, resposta -> registradas.add(resposta.getId()));
+        CompletableFuture<FaturaResponseDTO> recusada = ingestaoService.enviar(jaPaga, DATA_PAGAMENTO, null, resposta -> registradas.add(resposta.getId()));
+
+        // WHEN
+        ingestaoService.iniciar();
+
+        // THEN
+        assertEquals(aberta, paga.get(5, TimeUnit.SECONDS).getId());
+        assertThrows(ExecutionException.class, () -> recusada.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(aberta), registradas);
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    @DisplayName("enviar - Pedido recusado por antesDePagar não deve ser pago nem desfazer o grupo")
+    void enviar_RecusadoAntesDePagarFalhaSoOPedido() throws Exception {
+        // GIVEN: a segunda requisição tem a chave gravada por outra réplica
+        UUID aberta = UUID.randomUUID();
+        UUID repetida = UUID.randomUUID();
+        List<UUID> registradas = new CopyOnWriteArrayList<>();
+        when(faturaService.pagarSeEmAberto(aberta, DATA_PAGAMENTO)).thenReturn(Optional.of(faturaPaga(aberta)));
+        CompletableFuture<FaturaResponseDTO> paga = ingestaoService.enviar(aberta, DATA_PAGAMENTO, () -> true, resposta -> registradas.add(resposta.getId()));
+        CompletableFuture<FaturaResponseDTO> recusada = ingestaoService.enviar(repetida, DATA_PAGAMENTO, () -> false, resposta -> registradas.add(resposta.getId()));
+
+        // WHEN
+        ingestaoService.iniciar();
+
+        // THEN
+        assertEquals(aberta, paga.get(5, TimeUnit.SECONDS).getId());
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> recusada.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(PagamentoNaoExecutadoException.class, exception.getCause());
+        assertEquals(List.of(aberta), registradas);
+        verify(faturaService, never()).pagarSeEmAberto(repetida, DATA_PAGAMENTO);
+        verify(faturaService, never()).falhaDePagamento(any());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    @DisplayName("enviar - Erro na transação do grupo deve falhar todas as requisições do grupo")
+    void enviar_ErroNaTransacaoDeveFalharTodoOGrupo() {
+        // GIVEN
+        when(transactionManager.getTransaction(any())).thenThrow(new CannotCreateTransactionException("Banco indisponível"));
+        CompletableFuture<FaturaResponseDTO> primeiro = ingestaoService.enviar(UUID.randomUUID(), DATA_PAGAMENTO);
+        CompletableFuture<FaturaResponseDTO> segundo = ingestaoService.enviar(UUID.randomUUID(), DATA_PAGAMENTO);
+
+        // WHEN
+        ingestaoService.iniciar();
+
+        // THEN
+        assertThrows(ExecutionException.class, () -> primeiro.get(5, TimeUnit.SECONDS));
+        assertThrows(ExecutionException.class, () -> segundo.get(5, TimeUnit.SECONDS));
+        verifyNoInteractions(faturaService);
+    }
+
+    @Test
+    @DisplayName("enviar - Deve recusar o pagamento quando a fila estiver cheia")
+    void enviar_DeveRecusarComFilaCheia() {
+        // GIVEN (gravador parado, fila com capacidade 3)
+        for (int i = 0; i < 3; i++) {
+            ingestaoService.enviar(UUID.randomUUID(), DATA_PAGAMENTO);
+        }
+
+        // WHEN & THEN
+        assertThrows(RejectedExecutionException.class, () -> ingestaoService.enviar(UUID.randomUUID(), DATA_PAGAMENTO));
+        assertEquals(1.0, meterRegistry.get("pagamentos.grupo.rejeitados").counter().count());
+        assertEquals(3.0, meterRegistry.get("pagamentos.grupo.fila").gauge().value());
+    }
+}
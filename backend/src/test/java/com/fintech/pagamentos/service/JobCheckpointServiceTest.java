@@ -0,0 +1,205 @@
+package com.fintech.pagamentos.service;
+
+import com.fintech.pagamentos.batch.IntervaloUuid;
+import com.fintech.pagamentos.batch.ResultadoParticao;
+import com.fintech.pagamentos.entity.JobExecucao;
+import com.fintech.pagamentos.entity.JobParticao;
+import com.fintech.pagamentos.repository.JobExecucaoRepository;
+import com.fintech.pagamentos.repository.JobParticaoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JobCheckpointServiceTest {
+
+    private static final String NOME = "JOB_TESTE";
+    private static final LocalDate HOJE = LocalDate.of(2025, 7, 20);
+    private static final String NO = "no-1";
+
+    @Mock
+    private JobExecucaoRepository jobExecucaoRepository;
+
+    @Mock
+    private JobParticaoRepository jobParticaoRepository;
+
+    @InjectMocks
+    private JobCheckpointService jobCheckpointService;
+
+    private JobExecucao execucao;
+    private JobParticao particao;
+
+    @BeforeEach
+    void setUp() {
+        execucao = new JobExecucao(UUID.randomUUID(), NOME, HOJE, 'E', LocalDateTime.now(), null);
+        particao = new JobParticao(UUID.randomUUID(), execucao, 0, new UUID(0, 0), new UUID(0, 1), 'P',
+                NO, LocalDateTime.now().plusSeconds(60), 1, null, null, null, null, null);
+    }
+
+    @Test
+    @DisplayName("iniciarOuRetomar - Deve criar a execução com uma partição por faixa de IDs")
+    @SuppressWarnings("unchecked")
+    void iniciarOuRetomar_DeveCriarExecucaoComParticoes() {
+        // GIVEN
+        when(jobExecucaoRepository.findByNomeAndDataReferencia(NOME, HOJE)).thenReturn(Optional.empty());
+        when(jobExecucaoRepository.saveAndFlush(any(JobExecucao.class))).thenReturn(execucao);
+
+        // WHEN
+        JobExecucao resultado = jobCheckpointService.iniciarOuRetomar(NOME, HOJE, () -> IntervaloUuid.particionar(4));
+
+        // THEN
+        assertSame(execucao, resultado);
+        ArgumentCaptor<List<JobParticao>> particoes = ArgumentCaptor.forClass(List.class);
+        verify(jobParticaoRepository).saveAll(particoes.capture());
+        assertEquals(4, particoes.getValue().size());
+        assertTrue(particoes.getValue().stream().allMatch(p -> p.getStatus() == 'P' && p.getJob() == execucao
+                && p.getDono() == null && p.getTentativas() == 0));
+        assertEquals(new UUID(0, 0), particoes.getValue().get(0).getIdInicio());
+        assertEquals(new UUID(-1L, -1L), particoes.getValue().get(3).getIdFim());
+    }
+
+    @Test
+    @DisplayName("iniciarOuRetomar - Deve reaproveitar a execução que falhou, sem criar partições")
+    void iniciarOuRetomar_DeveReaproveitarExecucaoQueFalhou() {
+        // GIVEN
+        execucao.setStatus('F');
+        execucao.setFinalizadaEm(LocalDateTime.now());
+        when(jobExecucaoRepository.findByNomeAndDataReferencia(NOME, HOJE)).thenReturn(Optional.of(execucao));
+
+        // WHEN
+        JobExecucao resultado = jobCheckpointService.iniciarOuRetomar(NOME, HOJE, () -> IntervaloUuid.particionar(4));
+
+        // THEN
+        assertEquals('E', resultado.getStatus());
+        assertNull(resultado.getFinalizadaEm());
+        verify(jobParticaoRepository).reiniciarTentativasDasFalhas(execucao.getId());
+        verify(jobParticaoRepository, never()).saveAll(any());
+    }
+
+    @Test
+    @DisplayName("processarParticao - Deve executar o trabalho e gravar o checkpoint com as métricas")
+    void processarParticao_DeveGravarCheckpointComMetricas() {
+        // GIVEN
+        when(jobParticaoRepository.findByIdParaAtualizacao(particao.getId())).thenReturn(Optional.of(particao));
+        when(jobParticaoRepository.save(any(JobParticao.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // WHEN
+        JobParticao resultado = jobCheckpointService.processarParticao(particao.getId(), NO, intervalo -> {
+            assertEquals(particao.getIdInicio(), intervalo.inicio());
+            assertEquals(particao.getIdFim(), intervalo.fim());
+            return new ResultadoParticao(100, 3);
+        });
+
+        // THEN
+        assertEquals('C', resultado.getStatus());
+        assertEquals(100L, resultado.getLinhasLidas());
+        assertEquals(3L, resultado.getLinhasAlteradas());
+        assertNotNull(resultado.getDuracaoMs());
+        assertNotNull(resultado.getProcessadaEm());
+        assertNull(resultado.getDono()); // Lease liberado junto com o checkpoint
+        assertNull(resultado.getLeaseExpiraEm());
+    }
+
+    @Test
+    @DisplayName("processarParticao - Não deve executar o trabalho se o lease pertencer a outro nó")
+    void processarParticao_NaoDeveExecutarSeLeasePertencerAOutroNo() {
+        // GIVEN
+        particao.setDono("no-2"); // Lease expirou e outro nó assumiu
+        when(jobParticaoRepository.findByIdParaAtualizacao(particao.getId())).thenReturn(Optional.of(particao));
+
+        // WHEN & THEN
+        assertThrows(IllegalStateException.class,
+                () -> jobCheckpointService.processarParticao(particao.getId(), NO, intervalo -> fail("O trabalho não deve ser executado")));
+        verify(jobParticaoRepository, never()).save(any(JobParticao.class));
+    }
+
+    @Test
+    @DisplayName("reivindicarProxima - Deve tentar a próxima candidata quando outro nó vencer a disputa")
+    void reivindicarProxima_DeveTentarProximaCandidata() {
+        // GIVEN
+        JobParticao outra = new JobParticao(UUID.randomUUID(), execucao, 1, new UUID(0, 2), new UUID(0, 3), 'P',
+                null, null, 0, null, null, null, null, null);
+        LocalDateTime expiraEm = LocalDateTime.now().plusSeconds(60);
+        when(jobParticaoRepository.findDisponiveis(eq(execucao.getId()), eq(3), any(LocalDateTime.class), any(Limit.class)))
+                .thenReturn(List.of(particao, outra));
+        when(jobParticaoRepository.reivindicar(eq(particao.getId()), eq(NO), eq(expiraEm), any(LocalDateTime.class), eq(3))).thenReturn(0);
+        when(jobParticaoRepository.reivindicar(eq(outra.getId()), eq(NO), eq(expiraEm), any(LocalDateTime.class), eq(3))).thenReturn(1);
+
+        // WHEN
+        Optional<JobParticao> resultado = jobCheckpointService.reivindicarProxima(execucao.getId(), NO, expiraEm, 3);
+
+        // THEN
+        assertEquals(Optional.of(outra), resultado);
+    }
+
+    @Test
+    @DisplayName("reivindicarProxima - Deve retornar vazio quando não houver partições disponíveis")
+    void reivindicarProxima_DeveRetornarVazioSemParticoesDisponiveis() {
+        // GIVEN
+        when(jobParticaoRepository.findDisponiveis(eq(execucao.getId()), eq(3), any(LocalDateTime.class), any(Limit.class)))
+                .thenReturn(List.of());
+
+        // WHEN & THEN
+        assertTrue(jobCheckpointService.reivindicarProxima(execucao.getId(), NO, LocalDateTime.now(), 3).isEmpty());
+        verify(jobParticaoRepository, never()).reivindicar(any(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("processarParticao - Não deve reprocessar partição já concluída")
+    void processarParticao_NaoDeveReprocessarParticaoConcluida() {
+        // GIVEN
+        particao.setStatus('C');
+        when(jobParticaoRepository.findByIdParaAtualizacao(particao.getId())).thenReturn(Optional.of(particao));
+
+        // WHEN
+        jobCheckpointService.processarParticao(particao.getId(), NO, intervalo -> fail("O trabalho não deve ser executado"));
+
+        // THEN
+        verify(jobParticaoRepository, never()).save(any(JobParticao.class));
+    }
+
+    @Test
+    @DisplayName("registrarFalha - Deve marcar a partição como falha, guardar o erro e liberar o lease")
+    void registrarFalha_DeveMarcarParticaoComoFalha() {
+        // GIVEN
+        when(jobParticaoRepository.findByIdParaAtualizacao(particao.getId())).thenReturn(Optional.of(particao));
+
+        // WHEN
+        jobCheckpointService.registrarFalha(particao.getId(), NO, "x".repeat(600));
+
+        // THEN
+        assertEquals('F', particao.getStatus());
+        assertNull(particao.getDono());
+        assertEquals(500, particao.getErro().length()); // Limitado ao tamanho da coluna
+        verify(jobParticaoRepository).save(particao);
+    }
+
+    @Test
+    @DisplayName("finalizar - Deve concluir a execução apenas se todas as partições estiverem concluídas")
+    void finalizar_DeveConcluirApenasSeTodasParticoesConcluidas() {
+        // GIVEN
+        when(jobExecucaoRepository.findById(execucao.getId())).thenReturn(Optional.of(execucao));
+        when(jobExecucaoRepository.save(any(JobExecucao.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(jobParticaoRepository.countByJobIdAndStatusNot(execucao.getId(), 'C')).thenReturn(1L, 0L);
+
+        // WHEN & THEN
+        assertEquals('F', jobCheckpointService.finalizar(execucao.getId()).getStatus());
+        assertEquals('C', jobCheckpointService.finalizar(execucao.getId()).getStatus());
+    }
+}
@@ -0,0 +1,272 @@
+package com.fintech.pagamentos.service;
+
+import com.fintech.pagamentos.batch.IntervaloUuid;
+import com.fintech.pagamentos.batch.ResultadoParticao;
+import com.fintech.pagamentos.entity.JobExecucao;
+import com.fintech.pagamentos.entity.JobParticao;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JobParticionadoServiceTest {
+
+    private static final String NOME = "JOB_TESTE";
+    private static final LocalDate HOJE = LocalDate.of(2025, 7, 20);
+
+    @Mock
+    private JobCheckpointService jobCheckpointService;
+
+    private JobParticionadoService jobParticionadoService;
+
+    private final Function<IntervaloUuid, ResultadoParticao> trabalho = intervalo -> new ResultadoParticao(1, 0);
+
+    private JobExecucao execucao;
+    private JobParticao particao0;
+    private JobParticao particao1;
+
+    @BeforeEach
+    void setUp() {
+        jobParticionadoService = new JobParticionadoService(jobCheckpointService, 2, 2, 60, 3, 20000);
+
+        execucao = new JobExecucao(UUID.randomUUID(), NOME, HOJE, 'E', LocalDateTime.now(), null);
+        particao0 = new JobParticao(UUID.randomUUID(), execucao, 0, new UUID(0, 0), new UUID(0, 1), 'P',
+                null, null, 0, null, null, null, null, null);
+        particao1 = new JobParticao(UUID.randomUUID(), execucao, 1, new UUID(0, 2), new UUID(0, 3), 'F',
+                null, null, 1, null, null, null, null, "falha anterior");
+    }
+
+    // Simula a disputa pelas partições: cada reivindicação (de qualquer trabalhador) recebe a próxima da fila
+    private void particoesDisponiveis(JobParticao... particoes) {
+        Queue<JobParticao> fila = new ConcurrentLinkedQueue<>(Arrays.asList(particoes));
+        when(jobCheckpointService.reivindicarProxima(eq(execucao.getId()), anyString(), any(LocalDateTime.class), eq(3)))
+                .thenAnswer(invocation -> Optional.ofNullable(fila.poll()));
+    }
+
+    @Test
+    @DisplayName("executar - Deve processar as partições reivindicadas e finalizar a execução")
+    void executar_DeveProcessarParticoesReivindicadasEFinalizar() {
+        // GIVEN
+        when(jobCheckpointService.iniciarOuRetomar(eq(NOME), eq(HOJE), any())).thenReturn(execucao);
+        particoesDisponiveis(particao0, particao1);
+        when(jobCheckpointService.processarParticao(any(UUID.class), anyString(), eq(trabalho))).thenReturn(particao0);
+        when(jobCheckpointService.finalizar(execucao.getId()))
+                .thenReturn(new JobExecucao(execucao.getId(), NOME, HOJE, 'C', execucao.getIniciadaEm(), LocalDateTime.now()));
+
+        // WHEN
+        JobExecucao resultado = jobParticionadoService.executar(NOME, HOJE, IntervaloUuid::particionar, trabalho);
+
+        // THEN
+        assertEquals('C', resultado.getStatus());
+        verify(jobCheckpointService).processarParticao(eq(particao0.getId()), anyString(), eq(trabalho));
+        verify(jobCheckpointService).processarParticao(eq(particao1.getId()), anyString(), eq(trabalho)); // Partição que falhou antes é reprocessada
+        verify(jobCheckpointService, never()).registrarFalha(any(), any(), any());
+        verify(jobCheckpointService).finalizar(execucao.getId());
+    }
+
+    @Test
+    @DisplayName("executar - Falha em uma partição não deve interromper as demais")
+    void executar_FalhaEmUmaParticaoNaoDeveInterromperAsDemais() {
+        // GIVEN
+        when(jobCheckpointService.iniciarOuRetomar(eq(NOME), eq(HOJE), any())).thenReturn(execucao);
+        particoesDisponiveis(particao0, particao1);
+        when(jobCheckpointService.processarParticao(eq(particao0.getId()), anyString(), eq(trabalho))).thenThrow(new RuntimeException("Erro no banco"));
+        when(jobCheckpointService.processarParticao(eq(particao1.getId()), anyString(), eq(trabalho))).thenReturn(particao1);
+        when(jobCheckpointService.finalizar(execucao.getId()))
+                .thenReturn(new JobExecucao(execucao.getId(), NOME, HOJE, 'F', execucao.getIniciadaEm(), LocalDateTime.now()));
+
+        // WHEN
+        JobExecucao resultado = jobParticionadoService.executar(NOME, HOJE, IntervaloUuid::particionar, trabalho);
+
+        // THEN
+        assertEquals('F', resultado.getStatus());
+        verify(jobCheckpointService).registrarFalha(eq(particao0.getId()), anyString(), eq("Erro no banco")); // Libera o lease
+        verify(jobCheckpointService).processarParticao(eq(particao1.getId()), anyString(), eq(trabalho));
+        verify(jobCheckpointService).finalizar(execucao.getId());
+    }
+
+    @Test
+    @DisplayName("executar - Deve aguardar partições com lease de outro nó e assumi-las quando o lease expirar")
+    void executar_DeveAssumirParticaoDeNoParado() {
+        // GIVEN
+        jobParticionadoService = new JobParticionadoService(jobCheckpointService, 2, 1, 60, 3, 20000); // Um trabalhador
+        when(jobCheckpointService.iniciarOuRetomar(eq(NOME), eq(HOJE), any())).thenReturn(execucao);
+        // Primeira tentativa: partição com lease de outro nó; depois o lease expira e ela fica disponível
+        when(jobCheckpointService.reivindicarProxima(eq(execucao.getId()), anyString(), any(LocalDateTime.class), eq(3)))
+                .thenReturn(Optional.empty(), Optional.of(particao0), Optional.empty());
+        when(jobCheckpointService.existemParticoesEmAndamento(execucao.getId(), 3)).thenReturn(true, false);
+        when(jobCheckpointService.processarParticao(eq(particao0.getId()), anyString(), eq(trabalho))).thenReturn(particao0);
+        when(jobCheckpointService.finalizar(execucao.getId())).thenReturn(execucao);
+
+        // WHEN
+        jobParticionadoService.executar(NOME, HOJE, IntervaloUuid::particionar, trabalho);
+
+        // THEN
+        verify(jobCheckpointService, times(3)).reivindicarProxima(eq(execucao.getId()), anyString(), any(LocalDateTime.class), eq(3));
+        verify(jobCheckpointService).processarParticao(eq(particao0.getId()), anyString(), eq(trabalho));
+    }
+
+    @Test
+    @DisplayName("executar - Deve participar da execução criada por outro nó ao mesmo tempo")
+    void executar_DeveParticiparDaExecucaoCriadaPorOutroNo() {
+        // GIVEN
+        when(jobCheckpointService.iniciarOuRetomar(eq(NOME), eq(HOJE), any()))
+                .thenThrow(new DataIntegrityViolationException("uk_job_execucao_nome_data"))
+                .thenReturn(execucao);
+        particoesDisponiveis();
+        when(jobCheckpointService.finalizar(execucao.getId())).thenReturn(execucao);
+
+        // WHEN
+        JobExecucao resultado = jobParticionadoService.executar(NOME, HOJE, IntervaloUuid::particionar, trabalho);
+
+        // THEN
+        assertSame(execucao, resultado);
+        verify(jobCheckpointService, times(2)).iniciarOuRetomar(eq(NOME), eq(HOJE), any());
+    }
+
+    @Test
+    @DisplayName("executar - Não deve reprocessar uma execução já concluída")
+    void executar_NaoDeveReprocessarExecucaoConcluida() {
+        // GIVEN
+        execucao.setStatus('C');
+        when(jobCheckpointService.iniciarOuRetomar(eq(NOME), eq(HOJE), any())).thenReturn(execucao);
+
+        // WHEN
+        JobExecucao resultado = jobParticionadoService.executar(NOME, HOJE, IntervaloUuid::particionar, trabalho);
+
+        // THEN
+        assertSame(execucao, resultado);
+        verify(jobCheckpointService, never()).reivindicarProxima(any(), any(), any(), anyInt());
+        verify(jobCheckpointService, never()).finalizar(any());
+    }
+
+    @Test
+    @DisplayName("retomar - Não deve iniciar execução quando não houver uma em andamento")
+    void retomar_NaoDeveIniciarExecucaoQuandoNaoHouverUmaEmAndamento() {
+        // GIVEN
+        when(jobCheckpointService.buscarUltimaNaoConcluida(NOME)).thenReturn(Optional.empty());
+
+        // WHEN
+        Optional<JobExecucao> resultado = jobParticionadoService.retomar(NOME, IntervaloUuid::particionar, data -> trabalho);
+
+        // THEN
+        assertTrue(resultado.isEmpty());
+        verify(jobCheckpointService, never()).iniciarOuRetomar(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("retomar - Deve retomar a execução interrompida de outro dia com o trabalho montado para a data dela")
+    void retomar_DeveRetomarExecucaoDeOutroDiaComADataDela() {
+        // GIVEN: execução interrompida em 20/07/2025 (HOJE), retomada numa data posterior
+        when(jobCheckpointService.buscarUltimaNaoConcluida(NOME)).thenReturn(Optional.of(execucao));
+        when(jobCheckpointService.iniciarOuRetomar(eq(NOME), eq(HOJE), any())).thenReturn(execucao);
+        when(jobCheckpointService.reivindicarProxima(eq(execucao.getId()), anyString(), any(LocalDateTime.class), eq(3)))
+                .thenReturn(Optional.empty());
+        when(jobCheckpointService.finalizar(execucao.getId()))
+                .thenReturn(new JobExecucao(execucao.getId(), NOME, HOJE, 'C', execucao.getIniciadaEm(), LocalDateTime.now()));
+        List<LocalDate> datas = new ArrayList<>();
+
+        // WHEN
+        Optional<JobExecucao> resultado = jobParticionadoService.retomar(NOME, IntervaloUuid::particionar, data -> {
+            datas.add(data);
+            return trabalho;
+        });
+
+        // THEN
+        assertEquals('C', resultado.orElseThrow().getStatus());
+        assertEquals(List.of(HOJE), datas);
+    }
+
+    @Test
+    @DisplayName("renovarLeases - Deve estender os leases do nó pela validade configurada")
+    void renovarLeases_DeveEstenderLeasesDoNo() {
+        // WHEN
+        LocalDateTime antes = LocalDateTime.now();
+        jobParticionadoService.renovarLeases();
+
+        // THEN
+        ArgumentCaptor<LocalDateTime> expiraEm = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(jobCheckpointService).renovarLeases(anyString(), expiraEm.capture());
+        assertFalse(expiraEm.getValue().isBefore(antes.plusSeconds(60)));
+    }
+
+    @Test
+    @DisplayName("executarEmUmNo - Só o nó que reivindica a partição única deve executar o trabalho")
+    void executarEmUmNo_DeveExecutarSomenteComLease() {
+        // GIVEN
+        when(jobCheckpointService.iniciarOuRetomar(eq(NOME), eq(HOJE), any())).thenReturn(execucao);
+        particoesDisponiveis(particao0); // A segunda chamada encontra a partição com lease de outro nó
+        int[] execucoes = {0};
+
+        // WHEN
+        boolean primeiro = jobParticionadoService.executarEmUmNo(NOME, HOJE, () -> {
+            execucoes[0]++;
+            return new ResultadoParticao(1, 1);
+        });
+        boolean segundo = jobParticionadoService.executarEmUmNo(NOME, HOJE, () -> {
+            execucoes[0]++;
+            return new ResultadoParticao(1, 1);
+        });
+
+        // THEN
+        assertTrue(primeiro);
+        assertFalse(segundo);
+        assertEquals(1, execucoes[0]);
+        verify(jobCheckpointService).processarParticao(eq(particao0.getId()), anyString(), any());
+        verify(jobCheckpointService).finalizar(execucao.getId());
+    }
+
+    @Test
+    @DisplayName("executar - O heartbeat deve renovar os leases enquanto a thread do job está ocupada com uma partição longa")
+    void executar_HeartbeatDeveRodarDuranteJobLongo() {
+        // GIVEN
+        jobParticionadoService = new JobParticionadoService(jobCheckpointService, 2, 1, 60, 3, 10); // Heartbeat a cada 10 ms
+        when(jobCheckpointService.iniciarOuRetomar(eq(NOME), eq(HOJE), any())).thenReturn(execucao);
+        particoesDisponiveis(particao0);
+        CountDownLatch renovacoes = new CountDownLatch(3);
+        when(jobCheckpointService.renovarLeases(anyString(), any(LocalDateTime.class))).thenAnswer(invocation -> {
+            renovacoes.countDown();
+            return 1;
+        });
+        boolean[] renovadoDuranteParticao = {false};
+        when(jobCheckpointService.processarParticao(eq(particao0.getId()), anyString(), eq(trabalho))).thenAnswer(invocation -> {
+            // Partição longa: só termina depois de três renovações do lease (ou desiste em 5 s)
+            renovadoDuranteParticao[0] = renovacoes.await(5, TimeUnit.SECONDS);
+            return particao0;
+        });
+        when(jobCheckpointService.finalizar(execucao.getId()))
+                .thenReturn(new JobExecucao(execucao.getId(), NOME, HOJE, 'C', execucao.getIniciadaEm(), LocalDateTime.now()));
+
+        // WHEN
+        try {
+            jobParticionadoService.executar(NOME, HOJE, IntervaloUuid::particionar, trabalho);
+        } finally {
+            jobParticionadoService.pararHeartbeat();
+        }
+
+        // THEN
+        assertTrue(renovadoDuranteParticao[0]);
+    }
+}
@@ -0,0 +1,216 @@
+package com.fintech.pagamentos.service;
+
+import com.fintech.pagamentos.entity.OutboxEvento;
+import com.fintech.pagamentos.outbox.MemoriaOutboxSink;
+import com.fintech.pagamentos.outbox.OutboxSink;
+import com.fintech.pagamentos.repository.OutboxEventoRepository;
+import jakarta.persistence.SequenceGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayServiceTest {
+
+    private static final int TAMANHO_LOTE = 3;
+
+    @Mock
+    private OutboxEventoRepository outboxEventoRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private MemoriaOutboxSink sink;
+
+    @BeforeEach
+    void setUp() {
+        sink = new MemoriaOutboxSink();
+    }
+
+    private OutboxRelayService relay(OutboxSink outboxSink, int trabalhadores) {
+        return new OutboxRelayService(outboxEventoRepository, outboxSink, transactionManager, TAMANHO_LOTE, trabalhadores, 7);
+    }
+
+    private static List<OutboxEvento> eventos(long primeiroId, int quantidade) {
+        return IntStream.range(0, quantidade)
+                .mapToObj(i -> new OutboxEvento(primeiroId + i, OutboxService.FATURA_PAGA, UUID.randomUUID(), "{}",
+                        LocalDateTime.now(), null))
+                .toList();
+    }
+
+    @Test
+    @DisplayName("publicarLote - Deve publicar o lote no sink e marcá-lo como publicado na mesma transação")
+    void publicarLote_DevePublicarEMarcarComoPublicados() {
+        // GIVEN
+        List<OutboxEvento> lote = eventos(1, 2);
+        when(outboxEventoRepository.travarParticao(0)).thenReturn(true);
+        when(outboxEventoRepository.findPendentesParaPublicacao(1, 0, TAMANHO_LOTE)).thenReturn(lote);
+
+        // WHEN
+        int publicados = relay(sink, 1).publicarLote(0);
+
+        // THEN
+        assertEquals(2, publicados);
+        assertEquals(lote, sink.getPublicados());
+        verify(outboxEventoRepository).marcarComoPublicados(eq(List.of(1L, 2L)), any(LocalDateTime.class));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    @DisplayName("publicarLote - Se o sink falhar, o lote não deve ser marcado e a transação deve ser desfeita")
+    void publicarLote_FalhaNoSinkMantemLotePendente() {
+        // GIVEN
+        when(outboxEventoRepository.travarParticao(0)).thenReturn(true);
+        when(outboxEventoRepository.findPendentesParaPublicacao(1, 0, TAMANHO_LOTE)).thenReturn(eventos(1, 2));
+        OutboxSink indisponivel = eventos -> {
+            throw new RuntimeException("Destino indisponível");
+        };
+
+        // WHEN
+        assertThrows(RuntimeException.class, () -> relay(indisponivel, 1).publicarLote(0));
+
+        // THEN
+        verify(outboxEventoRepository, never()).marcarComoPublicados(any(), any());
+        verify(transactionManager).rollback(any()); // Eventos continuam pendentes para o próximo ciclo
+    }
+
+    @Test
+    @DisplayName("publicarLote - Partição travada por outra réplica não deve ser publicada")
+    void publicarLote_ParticaoTravadaPorOutraReplica() {
+        // GIVEN
+        when(outboxEventoRepository.travarParticao(1)).thenReturn(false);
+
+        // WHEN
+        int publicados = relay(sink, 2).publicarLote(1);
+
+        // THEN
+        assertEquals(0, publicados);
+        verify(outboxEventoRepository, never()).findPendentesParaPublicacao(anyInt(), anyInt(), anyInt());
+        assertTrue(sink.getPublicados().isEmpty());
+    }
+
+    @Test
+    @DisplayName("publicarPendentes - Deve continuar buscando lotes enquanto vierem cheios")
+    void publicarPendentes_DeveEsvaziarPendentesEmLotes() {
+        // GIVEN
+        when(outboxEventoRepository.travarParticao(0)).thenReturn(true);
+        when(outboxEventoRepository.findPendentesParaPublicacao(1, 0, TAMANHO_LOTE))
+                .thenReturn(eventos(1, 3), eventos(4, 3), eventos(7, 1));
+
+        // WHEN
+        relay(sink, 1).publicarPendentes();
+
+        // THEN
+        assertEquals(7, sink.getPublicados().size());
+        verify(outboxEventoRepository, times(3)).findPendentesParaPublicacao(1, 0, TAMANHO_LOTE);
+        verify(outboxEventoRepository, times(3)).marcarComoPublicados(any(), any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("publicarPendentes - Trabalhadores em paralelo devem publicar cada evento uma vez e em ordem por agregado")
+    void publicarPendentes_TrabalhadoresEmParaleloMantemOrdemPorAgregado() {
+        // GIVEN: 5 agregados com 6 eventos cada, intercalados; o agregado i cai na partição i % 4
+        int trabalhadores = 4;
+        List<UUID> agregados = IntStream.range(0, 5).mapToObj(i -> UUID.randomUUID()).toList();
+        List<ConcurrentLinkedQueue<OutboxEvento>> particoes = IntStream.range(0, trabalhadores)
+                .mapToObj(i -> new ConcurrentLinkedQueue<OutboxEvento>()).toList();
+        for (long id = 1; id <= 30; id++) {
+            int agregado = (int) (id % agregados.size());
+            particoes.get(agregado % trabalhadores).add(new OutboxEvento(id, OutboxService.FATURA_PAGA, agregados.get(agregado), "{}",
+                    LocalDateTime.now(), null));
+        }
+        when(outboxEventoRepository.travarParticao(anyInt())).thenReturn(true);
+        when(outboxEventoRepository.findPendentesParaPublicacao(eq(trabalhadores), anyInt(), eq(TAMANHO_LOTE))).thenAnswer(invocacao -> {
+            ConcurrentLinkedQueue<OutboxEvento> pendentes = particoes.get(invocacao.getArgument(1, Integer.class));
+            List<OutboxEvento> lote = new ArrayList<>();
+            OutboxEvento evento;
+            while (lote.size() < TAMANHO_LOTE && (evento = pendentes.poll()) != null) {
+                lote.add(evento);
+            }
+            return lote;
+        });
+
+        // WHEN
+        relay(sink, trabalhadores).publicarPendentes();
+
+        // THEN
+        List<Long> ids = new ArrayList<>(sink.getPublicados().stream().map(OutboxEvento::getId).toList());
+        Collections.sort(ids);
+        assertEquals(LongStream.rangeClosed(1, 30).boxed().toList(), ids);
+        for (UUID agregado : agregados) {
+            List<Long> doAgregado = sink.getPublicados().stream()
+                    .filter(evento -> evento.getAgregadoId().equals(agregado)).map(OutboxEvento::getId).toList();
+            assertEquals(doAgregado.stream().sorted().toList(), doAgregado);
+        }
+    }
+
+    // Alocador de ids de uma réplica sobre a sequência compartilhada, como o otimizador do Hibernate: com
+    // allocationSize > 1 cada nextval reserva um bloco e os ids seguintes saem da memória da réplica
+    private static final class AlocadorIds {
+        private final AtomicLong sequencia;
+        private final int tamanhoBloco;
+        private long proximo;
+        private long fimDoBloco = -1;
+
+        private AlocadorIds(AtomicLong sequencia, int tamanhoBloco) {
+            this.sequencia = sequencia;
+            this.tamanhoBloco = tamanhoBloco;
+        }
+
+        private long gerar() {
+            if (proximo > fimDoBloco) {
+                fimDoBloco = sequencia.addAndGet(tamanhoBloco);
+                proximo = fimDoBloco - tamanhoBloco + 1;
+            }
+            return proximo++;
+        }
+    }
+
+    @Test
+    @DisplayName("publicarLote - Eventos do mesmo agregado gravados por réplicas diferentes devem sair na ordem dos commits")
+    void publicarLote_IdsDeReplicasDiferentesMantemOrdemDoAgregado() throws Exception {
+        // GIVEN: duas réplicas com o alocador configurado em OutboxEvento sobre a mesma sequência
+        int tamanhoBloco = OutboxEvento.class.getDeclaredField("id").getAnnotation(SequenceGenerator.class).allocationSize();
+        AtomicLong sequencia = new AtomicLong();
+        AlocadorIds replicaA = new AlocadorIds(sequencia, tamanhoBloco);
+        AlocadorIds replicaB = new AlocadorIds(sequencia, tamanhoBloco);
+        UUID clienteId = UUID.randomUUID();
+        replicaA.gerar(); // Evento anterior de outro agregado: a réplica A já tem ids alocados
+        replicaB.gerar();
+
+        // WHEN: B bloqueia o cliente e, depois do commit, A o desbloqueia
+        OutboxEvento bloqueio = new OutboxEvento(replicaB.gerar(), OutboxService.CLIENTE_BLOQUEADO, clienteId, "{}",
+                LocalDateTime.now(), null);
+        OutboxEvento desbloqueio = new OutboxEvento(replicaA.gerar(), OutboxService.CLIENTE_DESBLOQUEADO, clienteId, "{}",
+                LocalDateTime.now(), null);
+        List<OutboxEvento> pendentes = new ArrayList<>(List.of(desbloqueio, bloqueio));
+        pendentes.sort(Comparator.comparing(OutboxEvento::getId)); // ORDER BY id da consulta
+        when(outboxEventoRepository.travarParticao(0)).thenReturn(true);
+        when(outboxEventoRepository.findPendentesParaPublicacao(1, 0, TAMANHO_LOTE)).thenReturn(pendentes);
+        relay(sink, 1).publicarLote(0);
+
+        // THEN
+        assertEquals(List.of(OutboxService.CLIENTE_BLOQUEADO, OutboxService.CLIENTE_DESBLOQUEADO),
+                sink.getPublicados().stream().map(OutboxEvento::getTipo).toList());
+    }
+}
@@ -0,0 +1,71 @@
+package com.fintech.pagamentos.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintech.pagamentos.entity.OutboxEvento;
+import com.fintech.pagamentos.event.ClienteBloqueadoEvent;
+import com.fintech.pagamentos.event.FaturaPagaEvent;
+import com.fintech.pagamentos.repository.OutboxEventoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxServiceTest {
+
+    @Mock
+    private OutboxEventoRepository outboxEventoRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private OutboxService outboxService;
+
+    @BeforeEach
+    void setUp() {
+        outboxService = new OutboxService(outboxEventoRepository, objectMapper);
+    }
+
+    @Test
+    @DisplayName("registrarFaturaPaga - Deve gravar o evento pendente com o payload em JSON")
+    void registrarFaturaPaga_DeveGravarEventoPendente() throws Exception {
+        // GIVEN
+        FaturaPagaEvent evento = new FaturaPagaEvent(UUID.randomUUID(), UUID.randomUUID(), new BigDecimal("150.00"), 'A');
+
+        // WHEN
+        outboxService.registrarFaturaPaga(evento);
+
+        // THEN
+        ArgumentCaptor<OutboxEvento> gravado = ArgumentCaptor.forClass(OutboxEvento.class);
+        verify(outboxEventoRepository).save(gravado.capture());
+        assertEquals(OutboxService.FATURA_PAGA, gravado.getValue().getTipo());
+        assertEquals(evento.faturaId(), gravado.getValue().getAgregadoId());
+        assertNotNull(gravado.getValue().getCriadoEm());
+        assertNull(gravado.getValue().getPublicadoEm()); // Pendente até o relay publicar
+        assertEquals(evento, objectMapper.readValue(gravado.getValue().getPayload(), FaturaPagaEvent.class));
+    }
+
+    @Test
+    @DisplayName("registrarClienteBloqueado - Deve gravar o evento com o ID do cliente como agregado")
+    void registrarClienteBloqueado_DeveGravarEventoDoCliente() {
+        // GIVEN
+        UUID clienteId = UUID.randomUUID();
+
+        // WHEN
+        outboxService.registrarClienteBloqueado(new ClienteBloqueadoEvent(clienteId));
+
+        // THEN
+        ArgumentCaptor<OutboxEvento> gravado = ArgumentCaptor.forClass(OutboxEvento.class);
+        verify(outboxEventoRepository).save(gravado.capture());
+        assertEquals(OutboxService.CLIENTE_BLOQUEADO, gravado.getValue().getTipo());
+        assertEquals(clienteId, gravado.getValue().getAgregadoId());
+        assertTrue(gravado.getValue().getPayload().contains(clienteId.toString()));
+    }
+}
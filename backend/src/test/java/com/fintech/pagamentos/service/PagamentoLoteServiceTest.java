@@ -0,0 +1,203 @@
+package com.fintech.pagamentos.service;
+
+import com.fintech.pagamentos.dto.ItemPagamentoLoteDTO;
+import com.fintech.pagamentos.dto.ResultadoPagamentoLoteDTO;
+import com.fintech.pagamentos.dto.ResultadoPagamentoLoteDTO.Resultado;
+import com.fintech.pagamentos.entity.Cliente;
+import com.fintech.pagamentos.entity.Fatura;
+import com.fintech.pagamentos.event.FaturaPagaEvent;
+import com.fintech.pagamentos.repository.FaturaArquivadaRepository;
+import com.fintech.pagamentos.repository.FaturaRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PagamentoLoteServiceTest {
+
+    private static final LocalDate DATA_PAGAMENTO = LocalDate.of(2025, 7, 20);
+
+    @Mock
+    private FaturaRepository faturaRepository;
+
+    @Mock
+    private FaturaArquivadaRepository faturaArquivadaRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private PagamentoLoteService pagamentoLoteService;
+
+    private Cliente cliente;
+    private Fatura faturaAberta;
+    private Fatura faturaAtrasada;
+    private Fatura faturaPaga;
+
+    @BeforeEach
+    void setUp() {
+        cliente = new Cliente(UUID.randomUUID(), "Cliente Teste", "11122233344", LocalDate.of(1990, 1, 1),
+                'A', BigDecimal.valueOf(5000.00), null, null, 0L);
+        faturaAberta = new Fatura(UUID.randomUUID(), cliente, LocalDate.of(2025, 12, 31), null, BigDecimal.valueOf(100.00), 'B', 0L);
+        faturaAtrasada = new Fatura(UUID.randomUUID(), cliente, LocalDate.of(2025, 6, 1), null, BigDecimal.valueOf(50.00), 'A', 0L);
+        faturaPaga = new Fatura(UUID.randomUUID(), cliente, LocalDate.of(2025, 5, 1), LocalDate.of(2025, 5, 1), BigDecimal.valueOf(75.00), 'P', 0L);
+    }
+
+    private ItemPagamentoLoteDTO item(UUID faturaId) {
+        return new ItemPagamentoLoteDTO(faturaId, DATA_PAGAMENTO);
+    }
+
+    @Test
+    @DisplayName("registrarPagamentos - Deve retornar o resultado de cada item na ordem da requisição")
+    void registrarPagamentos_DeveRetornarResultadoDeCadaItem() {
+        // GIVEN
+        UUID inexistente = UUID.randomUUID();
+        when(faturaRepository.findAllByIdParaAtualizacao(anyCollection()))
+                .thenReturn(List.of(faturaAberta, faturaAtrasada, faturaPaga));
+
+        // WHEN
+        List<ResultadoPagamentoLoteDTO> resultados = pagamentoLoteService.registrarPagamentos(List.of(
+                item(faturaAberta.getId()), item(inexistente), item(faturaPaga.getId()), item(faturaAtrasada.getId())));
+
+        // THEN
+        assertEquals(List.of(
+                new ResultadoPagamentoLoteDTO(faturaAberta.getId(), Resultado.PAGA, 0),
+                new ResultadoPagamentoLoteDTO(inexistente, Resultado.NAO_ENCONTRADA, 0),
+                new ResultadoPagamentoLoteDTO(faturaPaga.getId(), Resultado.JA_PAGA, 0),
+                new ResultadoPagamentoLoteDTO(faturaAtrasada.getId(), Resultado.PAGA, 0)), resultados);
+        assertEquals('P', faturaAberta.getStatus());
+        assertEquals(DATA_PAGAMENTO, faturaAberta.getDataPagamento());
+        assertEquals('P', faturaAtrasada.getStatus());
+        assertEquals(LocalDate.of(2025, 5, 1), faturaPaga.getDataPagamento()); // Fatura já paga não é alterada
+
+        // Gravação em lote no flush, antes de publicar os eventos
+        InOrder ordem = inOrder(entityManager, eventPublisher);
+        ordem.verify(entityManager).flush();
+        ordem.verify(entityManager).clear();
+        ArgumentCaptor<FaturaPagaEvent> eventos = ArgumentCaptor.forClass(FaturaPagaEvent.class);
+        ordem.verify(eventPublisher, times(2)).publishEvent(eventos.capture());
+        assertEquals(new FaturaPagaEvent(faturaAberta.getId(), cliente.getId(), BigDecimal.valueOf(100.00), 'B'), eventos.getAllValues().get(0));
+        assertEquals(new FaturaPagaEvent(faturaAtrasada.getId(), cliente.getId(), BigDecimal.valueOf(50.00), 'A'), eventos.getAllValues().get(1));
+        verify(faturaRepository, never()).save(any(Fatura.class));
+    }
+
+    @Test
+    @DisplayName("registrarPagamentos - Fatura repetida no lote deve ser paga apenas uma vez")
+    void registrarPagamentos_FaturaRepetidaDeveSerPagaUmaVez() {
+        // GIVEN
+        when(faturaRepository.findAllByIdParaAtualizacao(anyCollection())).thenReturn(List.of(faturaAberta));
+
+        // WHEN
+        List<ResultadoPagamentoLoteDTO> resultados = pagamentoLoteService.registrarPagamentos(List.of(
+                item(faturaAberta.getId()), item(faturaAberta.getId())));
+
+        // THEN
+        assertEquals(Resultado.PAGA, resultados.get(0).getResultado());
+        assertEquals(Resultado.JA_PAGA, resultados.get(1).getResultado());
+        verify(eventPublisher, times(1)).publishEvent(any(FaturaPagaEvent.class));
+    }
+
+    @Test
+    @DisplayName("registrarPagamentos - Fatura arquivada deve retornar JA_PAGA")
+    void registrarPagamentos_FaturaArquivadaDeveRetornarJaPaga() {
+        // GIVEN
+        UUID arquivada = UUID.randomUUID();
+        UUID inexistente = UUID.randomUUID();
+        when(faturaRepository.findAllByIdParaAtualizacao(anyCollection())).thenReturn(List.of(faturaAberta));
+        when(faturaArquivadaRepository.findIdsArquivados(anyCollection())).thenReturn(List.of(arquivada));
+
+        // WHEN
+        List<ResultadoPagamentoLoteDTO> resultados = pagamentoLoteService.registrarPagamentos(List.of(
+                item(faturaAberta.getId()), item(arquivada), item(inexistente)));
+
+        // THEN
+        assertEquals(List.of(Resultado.PAGA, Resultado.JA_PAGA, Resultado.NAO_ENCONTRADA),
+                resultados.stream().map(ResultadoPagamentoLoteDTO::getResultado).toList());
+        verify(faturaArquivadaRepository).findIdsArquivados(Set.of(arquivada, inexistente));
+    }
+
+    @Test
+    @DisplayName("registrarPagamentos - Deve ler e gravar as faturas em blocos")
+    @SuppressWarnings("unchecked")
+    void registrarPagamentos_DeveProcessarEmBlocos() {
+        // GIVEN
+        List<ItemPagamentoLoteDTO> itens = new ArrayList<>();
+        for (int i = 0; i < PagamentoLoteService.TAMANHO_BLOCO + 1; i++) {
+            itens.add(item(UUID.randomUUID()));
+        }
+        when(faturaRepository.findAllByIdParaAtualizacao(anyCollection())).thenReturn(List.of());
+
+        // WHEN
+        List<ResultadoPagamentoLoteDTO> resultados = pagamentoLoteService.registrarPagamentos(itens);
+
+        // THEN
+        assertEquals(itens.size(), resultados.size());
+        assertTrue(resultados.stream().allMatch(r -> r.getResultado() == Resultado.NAO_ENCONTRADA));
+        ArgumentCaptor<Collection<UUID>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(faturaRepository, times(2)).findAllByIdParaAtualizacao(ids.capture());
+        assertEquals(PagamentoLoteService.TAMANHO_BLOCO, ids.getAllValues().get(0).size());
+        assertEquals(1, ids.getAllValues().get(1).size());
+        verify(entityManager, times(2)).flush();
+        verify(entityManager, times(2)).clear();
+        verifyNoInteractions(eventPublisher);
+        // Uma transação por bloco
+        verify(transactionManager, times(2)).getTransaction(any());
+        verify(transactionManager, times(2)).commit(any());
+        assertEquals(0, resultados.get(0).getBloco());
+        assertEquals(1, resultados.get(itens.size() - 1).getBloco());
+    }
+
+    @Test
+    @DisplayName("registrarPagamentos - Falha em um bloco deve desfazer só esse bloco e seguir com os demais")
+    void registrarPagamentos_FalhaEmUmBlocoDeveSeguirComOsDemais() {
+        // GIVEN
+        List<ItemPagamentoLoteDTO> itens = new ArrayList<>();
+        for (int i = 0; i < PagamentoLoteService.TAMANHO_BLOCO; i++) {
+            itens.add(item(UUID.randomUUID()));
+        }
+        itens.add(item(faturaAberta.getId()));
+        when(faturaRepository.findAllByIdParaAtualizacao(anyCollection()))
+                .thenThrow(new RuntimeException("deadlock detectado"))
+                .thenReturn(List.of(faturaAberta));
+
+        // WHEN
+        List<ResultadoPagamentoLoteDTO> resultados = pagamentoLoteService.registrarPagamentos(itens);
+
+        // THEN
+        assertEquals(itens.size(), resultados.size());
+        assertTrue(resultados.subList(0, PagamentoLoteService.TAMANHO_BLOCO).stream()
+                .allMatch(r -> r.getResultado() == Resultado.FALHA && r.getBloco() == 0));
+        assertEquals(new ResultadoPagamentoLoteDTO(faturaAberta.getId(), Resultado.PAGA, 1), resultados.get(itens.size() - 1));
+        verify(transactionManager).rollback(any());
+        verify(transactionManager).commit(any());
+        verify(eventPublisher).publishEvent(any(FaturaPagaEvent.class));
+    }
+}
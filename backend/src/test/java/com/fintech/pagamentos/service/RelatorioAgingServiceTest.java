@@ -0,0 +1,152 @@
+package com.fintech.pagamentos.service;
+
+import com.fintech.pagamentos.dto.AgingDTO;
+import com.fintech.pagamentos.dto.FaixaAgingDTO;
+import com.fintech.pagamentos.dto.RelatorioAgingDTO;
+import com.fintech.pagamentos.relatorio.FaixaAging;
+import com.fintech.pagamentos.relatorio.FaturaEmAberto;
+import com.fintech.pagamentos.repository.FaturaRepository;
+import com.fintech.pagamentos.repository.FaturaRepository.LinhaAgingCliente;
+import com.fintech.pagamentos.service.RelatorioAgingService.Modo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RelatorioAgingServiceTest {
+
+    private static final LocalDate REFERENCIA = LocalDate.of(2025, 7, 31);
+
+    @Mock
+    private FaturaRepository faturaRepository;
+
+    @InjectMocks
+    private RelatorioAgingService relatorioAgingService;
+
+    private final UUID clienteA = UUID.fromString("00000000-0000-0000-0000-00000000000a");
+    private final UUID clienteB = UUID.fromString("00000000-0000-0000-0000-00000000000b");
+
+    private static List<Long> quantidades(AgingDTO aging) {
+        return aging.getFaixas().stream().map(FaixaAgingDTO::getQuantidade).toList();
+    }
+
+    @Test
+    @DisplayName("FaixaAging.de - Deve classificar pelos dias desde o vencimento, com limites inclusivos")
+    void faixaAging_DeveClassificarPelosLimites() {
+        assertEquals(FaixaAging.A_VENCER, FaixaAging.de(REFERENCIA, REFERENCIA));
+        assertEquals(FaixaAging.DE_1_A_30, FaixaAging.de(REFERENCIA.minusDays(1), REFERENCIA));
+        assertEquals(FaixaAging.DE_1_A_30, FaixaAging.de(REFERENCIA.minusDays(30), REFERENCIA));
+        assertEquals(FaixaAging.DE_31_A_60, FaixaAging.de(REFERENCIA.minusDays(31), REFERENCIA));
+        assertEquals(FaixaAging.DE_61_A_90, FaixaAging.de(REFERENCIA.minusDays(90), REFERENCIA));
+        assertEquals(FaixaAging.MAIS_DE_90, FaixaAging.de(REFERENCIA.minusDays(91), REFERENCIA));
+    }
+
+    @Test
+    @DisplayName("gerar (stream) - Deve agregar por faixa e por cliente, do maior para o menor valor")
+    void gerarComStream_DeveAgregarPorCliente() {
+        // GIVEN
+        AtomicBoolean fechado = new AtomicBoolean();
+        when(faturaRepository.streamFaturasEmAberto()).thenReturn(Stream.of(
+                new FaturaEmAberto(clienteA, "Cliente A", REFERENCIA.plusDays(5), new BigDecimal("10.00")),
+                new FaturaEmAberto(clienteA, "Cliente A", REFERENCIA.minusDays(45), new BigDecimal("20.00")),
+                new FaturaEmAberto(clienteB, "Cliente B", REFERENCIA.minusDays(120), new BigDecimal("100.00"))).onClose(() -> fechado.set(true)));
+
+        // WHEN
+        RelatorioAgingDTO relatorio = relatorioAgingService.gerar(Modo.STREAM, true, REFERENCIA);
+
+        // THEN
+        assertTrue(fechado.get()); // O cursor é liberado antes de montar a resposta
+        assertEquals(3, relatorio.getTotal().getQuantidade());
+        assertEquals(new BigDecimal("130.00"), relatorio.getTotal().getValor());
+        assertEquals(List.of(1L, 0L, 1L, 0L, 1L), quantidades(relatorio.getTotal()));
+        assertEquals(List.of(clienteB, clienteA), relatorio.getClientes().stream().map(AgingDTO::getClienteId).toList());
+        assertEquals("Cliente A", relatorio.getClientes().get(1).getClienteNome());
+        assertEquals(List.of(1L, 0L, 1L, 0L, 0L), quantidades(relatorio.getClientes().get(1)));
+        verify(faturaRepository, never()).agingPorCliente(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("gerar (stream) - Deve combinar os blocos do cursor no total e por cliente")
+    void gerarComStream_DeveCombinarBlocos() {
+        // GIVEN: 2,5 blocos, alternando os clientes e as faixas "a vencer" e "mais de 90"
+        int quantidade = RelatorioAgingService.TAMANHO_BLOCO * 5 / 2;
+        AtomicBoolean fechado = new AtomicBoolean();
+        when(faturaRepository.streamFaturasEmAberto()).then(invocacao -> IntStream.range(0, quantidade)
+                .mapToObj(i -> i % 2 == 0
+                        ? new FaturaEmAberto(clienteA, "Cliente A", REFERENCIA, BigDecimal.ONE)
+                        : new FaturaEmAberto(clienteB, "Cliente B", REFERENCIA.minusDays(100), BigDecimal.TEN))
+                .onClose(() -> fechado.set(true)));
+
+        // WHEN
+        RelatorioAgingDTO total = relatorioAgingService.gerar(Modo.STREAM, false, REFERENCIA);
+        RelatorioAgingDTO porCliente = relatorioAgingService.gerar(Modo.STREAM, true, REFERENCIA);
+
+        // THEN
+        assertTrue(fechado.get());
+        long metade = quantidade / 2;
+        BigDecimal valor = BigDecimal.valueOf(metade * 11);
+        assertEquals(List.of(metade, 0L, 0L, 0L, metade), quantidades(total.getTotal()));
+        assertEquals(0, valor.compareTo(total.getTotal().getValor()));
+        assertNull(total.getClientes());
+        assertEquals(List.of(metade, 0L, 0L, 0L, metade), quantidades(porCliente.getTotal()));
+        assertEquals(0, valor.compareTo(porCliente.getTotal().getValor()));
+        assertEquals(List.of(clienteB, clienteA), porCliente.getClientes().stream().map(AgingDTO::getClienteId).toList());
+        assertEquals(List.of(0L, 0L, 0L, 0L, metade), quantidades(porCliente.getClientes().get(0)));
+        assertEquals(List.of(metade, 0L, 0L, 0L, 0L), quantidades(porCliente.getClientes().get(1)));
+    }
+
+    @Test
+    @DisplayName("gerar (banco) - Deve passar os limites das faixas e somar as linhas por cliente no total")
+    void gerarNoBanco_DeveSomarLinhasPorCliente() {
+        // GIVEN
+        LinhaAgingCliente linhaA = linha(clienteA, 2, "30.00", 1, "5.00");
+        LinhaAgingCliente linhaB = linha(clienteB, 1, "100.00", 0, "0");
+        when(faturaRepository.agingPorCliente(REFERENCIA, REFERENCIA.minusDays(30), REFERENCIA.minusDays(60), REFERENCIA.minusDays(90)))
+                .thenReturn(List.of(linhaA, linhaB));
+
+        // WHEN
+        RelatorioAgingDTO relatorio = relatorioAgingService.gerar(Modo.BANCO, true, REFERENCIA);
+
+        // THEN
+        assertEquals(4, relatorio.getTotal().getQuantidade());
+        assertEquals(new BigDecimal("135.00"), relatorio.getTotal().getValor());
+        assertEquals(List.of(3L, 1L, 0L, 0L, 0L), quantidades(relatorio.getTotal()));
+        assertEquals(List.of(clienteB, clienteA), relatorio.getClientes().stream().map(AgingDTO::getClienteId).toList());
+        verify(faturaRepository, never()).streamFaturasEmAberto();
+    }
+
+    // Linha com valores só nas faixas "a vencer" e "1 a 30"
+    private LinhaAgingCliente linha(UUID clienteId, long quantidadeAVencer, String valorAVencer, long quantidade1a30, String valor1a30) {
+        LinhaAgingCliente linha = mock(LinhaAgingCliente.class);
+        when(linha.getClienteId()).thenReturn(clienteId.toString());
+        when(linha.getQuantidadeAVencer()).thenReturn(quantidadeAVencer);
+        when(linha.getValorAVencer()).thenReturn(new BigDecimal(valorAVencer));
+        when(linha.getQuantidade1a30()).thenReturn(quantidade1a30);
+        when(linha.getValor1a30()).thenReturn(new BigDecimal(valor1a30));
+        when(linha.getValor31a60()).thenReturn(BigDecimal.ZERO);
+        when(linha.getValor61a90()).thenReturn(BigDecimal.ZERO);
+        when(linha.getValorMais90()).thenReturn(BigDecimal.ZERO);
+        return linha;
+    }
+
+    @Test
+    @DisplayName("Modo.de - Deve rejeitar modo desconhecido")
+    void modo_DeveRejeitarValorDesconhecido() {
+        assertEquals(Modo.STREAM, Modo.de(" Stream "));
+        assertThrows(IllegalArgumentException.class, () -> Modo.de("cache"));
+    }
+}
@@ -0,0 +1,130 @@
+package com.fintech.pagamentos.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintech.pagamentos.dto.PaginaDTO;
+import com.fintech.pagamentos.event.ClienteBloqueadoEvent;
+import com.fintech.pagamentos.event.FaturaPagaEvent;
+import com.fintech.pagamentos.event.FaturasAtrasadasEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class RespostasVersionadasServiceTest {
+
+    private Query versoesBanco;
+    private VersoesTabelasService versoes;
+    private RespostasVersionadasService respostas;
+    private final AtomicInteger consultas = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        versoesBanco = mock(Query.class);
+        when(versoesBanco.getSingleResult()).thenReturn(new Object[]{1L, 1L});
+        versoes = novasVersoes();
+        respostas = new RespostasVersionadasService(versoes, new ObjectMapper(), new SimpleMeterRegistry(), 1024 * 1024, 10);
+    }
+
+    // Versões de uma réplica: todas leem as mesmas sequências
+    private VersoesTabelasService novasVersoes() {
+        EntityManager entityManager = mock(EntityManager.class);
+        when(entityManager.createNativeQuery(anyString())).thenReturn(versoesBanco);
+        VersoesTabelasService replica = new VersoesTabelasService(entityManager, mock(PlatformTransactionManager.class), true);
+        replica.sincronizar();
+        return replica;
+    }
+
+    private byte[] listar(String etag, String consulta) {
+        return respostas.serializar(etag, consulta, () -> {
+            consultas.incrementAndGet();
+            return new PaginaDTO<>(List.of("item"), null);
+        });
+    }
+
+    @Test
+    @DisplayName("serializar - Deve consultar e serializar uma vez por ETag e consulta")
+    void serializar_DeveReaproveitarBytesDaMesmaVersao() {
+        // GIVEN
+        String etag = respostas.etagFaturas();
+
+        // WHEN
+        byte[] primeira = listar(etag, "/faturas?next=null&limit=null");
+        byte[] segunda = listar(etag, "/faturas?next=null&limit=null");
+        listar(etag, "/faturas?next=null&limit=10");
+
+        // THEN
+        assertSame(primeira, segunda);
+        assertEquals("{\"itens\":[\"item\"],\"next\":null}", new String(primeira, StandardCharsets.UTF_8));
+        assertEquals(2, consultas.get());
+    }
+
+    @Test
+    @DisplayName("ETag - Pagamento deve trocar só a ETag de faturas; bloqueio deve trocar as duas")
+    void etag_DeveMudarConformeAsTabelasAlteradas() {
+        // GIVEN
+        String clientes = respostas.etagClientes();
+        String faturas = respostas.etagFaturas();
+
+        // WHEN / THEN
+        versoes.aoPagarFatura(new FaturaPagaEvent(UUID.randomUUID(), UUID.randomUUID(), BigDecimal.TEN, 'B'));
+        assertEquals(clientes, respostas.etagClientes());
+        assertNotEquals(faturas, respostas.etagFaturas());
+
+        faturas = respostas.etagFaturas();
+        versoes.aoBloquearCliente(new ClienteBloqueadoEvent(UUID.randomUUID()));
+        assertNotEquals(clientes, respostas.etagClientes());
+        assertNotEquals(faturas, respostas.etagFaturas()); // Faturas retornam o nome do cliente
+    }
+
+    @Test
+    @DisplayName("ETag - Transição para atrasadas deve gerar nova consulta na próxima listagem")
+    void etag_TransicaoDeveInvalidarRespostas() {
+        // GIVEN
+        listar(respostas.etagFaturas(), "/faturas/atrasadas?next=null&limit=null");
+
+        // WHEN
+        versoes.aoMarcarFaturasAtrasadas(new FaturasAtrasadasEvent(5));
+        listar(respostas.etagFaturas(), "/faturas/atrasadas?next=null&limit=null");
+
+        // THEN
+        assertEquals(2, consultas.get());
+    }
+
+    @Test
+    @DisplayName("ETag - Deve valer em todas as réplicas só depois que a alteração chega às sequências")
+    void etag_DeveSerCompartilhadaEntreReplicasDepoisDaSincronizacao() {
+        // GIVEN: outra réplica que já leu a mesma versão do banco
+        VersoesTabelasService versoesOutraReplica = novasVersoes();
+        RespostasVersionadasService outraReplica = new RespostasVersionadasService(versoesOutraReplica, new ObjectMapper(),
+                new SimpleMeterRegistry(), 1024 * 1024, 10);
+        assertEquals(respostas.etagFaturas(), outraReplica.etagFaturas());
+
+        // WHEN: pagamento nesta réplica, ainda não sincronizado
+        versoes.aoPagarFatura(new FaturaPagaEvent(UUID.randomUUID(), UUID.randomUUID(), BigDecimal.TEN, 'B'));
+
+        // THEN: a ETag daqui muda na hora e a da outra réplica (ainda com os dados anteriores) não é aceita aqui
+        assertNotEquals(respostas.etagFaturas(), outraReplica.etagFaturas());
+
+        // WHEN: as duas sincronizam e leem a sequência avançada
+        when(versoesBanco.getSingleResult()).thenReturn(new Object[]{1L, 2L});
+        versoes.sincronizar();
+        versoesOutraReplica.sincronizar();
+
+        // THEN
+        assertEquals("f2-c1", respostas.etagFaturas());
+        assertEquals(respostas.etagFaturas(), outraReplica.etagFaturas());
+    }
+}
@@ -0,0 +1,95 @@
+package com.fintech.pagamentos.service;
+
+import com.fintech.pagamentos.dto.ReconstrucaoResumoDTO;
+import com.fintech.pagamentos.dto.ResumoClienteDTO;
+import com.fintech.pagamentos.entity.ResumoCliente;
+import com.fintech.pagamentos.event.FaturaPagaEvent;
+import com.fintech.pagamentos.repository.FaturaRepository;
+import com.fintech.pagamentos.repository.ResumoClienteRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ResumoClienteServiceTest {
+
+    @Mock
+    private ResumoClienteRepository resumoClienteRepository;
+
+    @Mock
+    private FaturaRepository faturaRepository;
+
+    @InjectMocks
+    private ResumoClienteService resumoClienteService;
+
+    private final UUID clienteId = UUID.randomUUID();
+
+    @Test
+    @DisplayName("buscarResumo - Deve combinar os totais do resumo com o próximo vencimento em aberto")
+    void buscarResumo_DeveRetornarTotaisEProximoVencimento() {
+        // GIVEN
+        LocalDate vencimento = LocalDate.now().plusDays(10);
+        when(resumoClienteRepository.findById(clienteId))
+                .thenReturn(Optional.of(new ResumoCliente(clienteId, new BigDecimal("200.00"), new BigDecimal("550.00"), BigDecimal.ZERO)));
+        when(faturaRepository.findProximoVencimentoEmAberto(clienteId)).thenReturn(Optional.of(vencimento));
+
+        // WHEN
+        ResumoClienteDTO resumo = resumoClienteService.buscarResumo(clienteId).orElseThrow();
+
+        // THEN
+        assertEquals(new BigDecimal("200.00"), resumo.getTotalAberto());
+        assertEquals(new BigDecimal("550.00"), resumo.getTotalAtrasado());
+        assertEquals(vencimento, resumo.getProximoVencimento());
+    }
+
+    @Test
+    @DisplayName("buscarResumo - Cliente inexistente não deve ter resumo")
+    void buscarResumo_ClienteInexistenteRetornaVazio() {
+        when(resumoClienteRepository.findById(clienteId)).thenReturn(Optional.empty());
+
+        assertTrue(resumoClienteService.buscarResumo(clienteId).isEmpty());
+        verifyNoInteractions(faturaRepository);
+    }
+
+    @Test
+    @DisplayName("aoPagarFatura - Deve subtrair o valor do total correspondente ao status anterior da fatura")
+    void aoPagarFatura_DeveAplicarDeltaPeloStatusAnterior() {
+        // WHEN
+        resumoClienteService.aoPagarFatura(new FaturaPagaEvent(UUID.randomUUID(), clienteId, new BigDecimal("200.00"), 'B'));
+        resumoClienteService.aoPagarFatura(new FaturaPagaEvent(UUID.randomUUID(), clienteId, new BigDecimal("550.00"), 'A'));
+
+        // THEN
+        verify(resumoClienteRepository).aplicarDelta(clienteId, new BigDecimal("-200.00"), BigDecimal.ZERO);
+        verify(resumoClienteRepository).aplicarDelta(clienteId, BigDecimal.ZERO, new BigDecimal("-550.00"));
+    }
+
+    @Test
+    @DisplayName("reconstruir - Deve travar os resumos antes de recalcular e informar os clientes corrigidos")
+    void reconstruir_DeveTravarERecalcular() {
+        // GIVEN
+        when(resumoClienteRepository.reconstruir()).thenReturn(List.of(clienteId));
+
+        // WHEN
+        ReconstrucaoResumoDTO resultado = resumoClienteService.reconstruir();
+
+        // THEN
+        InOrder ordem = inOrder(resumoClienteRepository);
+        ordem.verify(resumoClienteRepository).travarParaReconstrucao();
+        ordem.verify(resumoClienteRepository).reconstruir();
+        assertEquals(1, resultado.getClientesCorrigidos());
+        assertEquals(List.of(clienteId), resultado.getClienteIds());
+    }
+}
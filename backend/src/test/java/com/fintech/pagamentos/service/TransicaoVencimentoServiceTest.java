@@ -0,0 +1,143 @@
+package com.fintech.pagamentos.service;
+
+import com.fintech.pagamentos.batch.ResultadoParticao;
+import com.fintech.pagamentos.batch.VencimentoFatura;
+import com.fintech.pagamentos.event.FaturaPagaEvent;
+import com.fintech.pagamentos.event.FaturasAtrasadasEvent;
+import com.fintech.pagamentos.repository.FaturaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransicaoVencimentoServiceTest {
+
+    @Mock
+    private FaturaRepository faturaRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private JobParticionadoService jobParticionadoService;
+
+    @InjectMocks
+    private TransicaoVencimentoService transicaoVencimentoService;
+
+    private final LocalDate hoje = LocalDate.now();
+    private VencimentoFatura vencida;
+    private VencimentoFatura aVencer;
+
+    @BeforeEach
+    void setUp() {
+        vencida = new VencimentoFatura(UUID.randomUUID(), hoje.minusDays(1));
+        aVencer = new VencimentoFatura(UUID.randomUUID(), hoje.plusDays(5));
+        when(faturaRepository.streamVencimentosEmAberto()).thenReturn(Stream.of(vencida, aVencer));
+        transicaoVencimentoService.reconstruirAgenda();
+        // Por padrão este nó reivindica o job do dia e executa o trabalho
+        lenient().when(jobParticionadoService.executarEmUmNo(any(), any(), any())).thenAnswer(invocacao -> {
+            Supplier<ResultadoParticao> trabalho = invocacao.getArgument(2);
+            trabalho.get();
+            return true;
+        });
+    }
+
+    @Test
+    @DisplayName("reconstruirAgenda - Deve carregar todas as faturas em aberto")
+    void reconstruirAgenda_DeveCarregarFaturasEmAberto() {
+        assertEquals(2, transicaoVencimentoService.faturasAgendadas());
+    }
+
+    @Test
+    @DisplayName("transicionarFaturasVencidas - Deve marcar como atrasadas apenas as faturas vencidas")
+    void transicionarFaturasVencidas_DeveMarcarApenasVencidas() {
+        // GIVEN
+        when(faturaRepository.marcarComoAtrasadas(List.of(vencida.faturaId()), vencida.dataVencimento(), vencida.dataVencimento())).thenReturn(1);
+
+        // WHEN
+        transicaoVencimentoService.transicionarFaturasVencidas();
+        transicaoVencimentoService.transicionarFaturasVencidas(); // Segunda execução no mesmo dia não tem o que fazer
+
+        // THEN
+        verify(faturaRepository, times(1)).marcarComoAtrasadas(any(), any(), any());
+        assertEquals(1, transicaoVencimentoService.faturasAgendadas()); // Resta apenas a fatura a vencer
+        verify(eventPublisher).publishEvent(new FaturasAtrasadasEvent(1)); // Descarta as páginas de faturas em cache
+    }
+
+    @Test
+    @DisplayName("transicionarFaturasVencidas - Lote com falha deve voltar para a agenda")
+    void transicionarFaturasVencidas_LoteComFalhaDeveVoltarParaAgenda() {
+        // GIVEN
+        when(faturaRepository.marcarComoAtrasadas(any(), any(), any())).thenThrow(new RuntimeException("Erro no banco"));
+
+        // WHEN
+        transicaoVencimentoService.transicionarFaturasVencidas();
+
+        // THEN
+        assertEquals(2, transicaoVencimentoService.faturasAgendadas());
+    }
+
+    @Test
+    @DisplayName("aoPagarFatura - Fatura paga deve sair da agenda e não ser marcada como atrasada")
+    void aoPagarFatura_DeveRemoverFaturaDaAgenda() {
+        // WHEN
+        transicaoVencimentoService.aoPagarFatura(new FaturaPagaEvent(vencida.faturaId(), UUID.randomUUID(), BigDecimal.TEN, 'B'));
+        transicaoVencimentoService.transicionarFaturasVencidas();
+
+        // THEN
+        assertEquals(1, transicaoVencimentoService.faturasAgendadas());
+        verify(faturaRepository, never()).marcarComoAtrasadas(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("transicionarFaturasVencidas - Deve recuperar pelo banco as faturas vencidas que não estavam na agenda")
+    void transicionarFaturasVencidas_DeveRecuperarFaturasForaDaAgenda() {
+        // GIVEN
+        VencimentoFatura inseridaDepois = new VencimentoFatura(UUID.randomUUID(), hoje.minusDays(2));
+        when(faturaRepository.marcarComoAtrasadas(List.of(vencida.faturaId()), vencida.dataVencimento(), vencida.dataVencimento())).thenReturn(1);
+        when(faturaRepository.findVencimentosEmAbertoAntesDe(hoje, Limit.of(1000)))
+                .thenReturn(List.of(inseridaDepois))
+                .thenReturn(List.of());
+        when(faturaRepository.marcarComoAtrasadas(List.of(inseridaDepois.faturaId()), inseridaDepois.dataVencimento(),
+                inseridaDepois.dataVencimento())).thenReturn(1);
+
+        // WHEN
+        transicaoVencimentoService.transicionarFaturasVencidas();
+
+        // THEN
+        verify(faturaRepository, times(2)).marcarComoAtrasadas(any(), any(), any());
+        verify(eventPublisher).publishEvent(new FaturasAtrasadasEvent(2));
+    }
+
+    @Test
+    @DisplayName("transicionarFaturasVencidas - Com o job do dia em outro nó, não deve marcar nem publicar nada aqui")
+    void transicionarFaturasVencidas_JobEmOutroNoNaoDeveMarcar() {
+        // GIVEN
+        doReturn(false).when(jobParticionadoService).executarEmUmNo(any(), any(), any());
+
+        // WHEN
+        transicaoVencimentoService.transicionarFaturasVencidas();
+
+        // THEN
+        verify(faturaRepository, never()).marcarComoAtrasadas(any(), any(), any());
+        verify(eventPublisher, never()).publishEvent(any());
+        assertEquals(1, transicaoVencimentoService.faturasAgendadas()); // A vencida sai da agenda; o outro nó a recupera pelo banco
+    }
+}
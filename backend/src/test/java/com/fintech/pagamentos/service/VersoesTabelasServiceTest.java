@@ -0,0 +1,127 @@
+package com.fintech.pagamentos.service;
+
+import com.fintech.pagamentos.event.ClienteAlteradoEvent;
+import com.fintech.pagamentos.event.FaturaPagaEvent;
+import com.fintech.pagamentos.service.VersoesTabelasService.Tabela;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VersoesTabelasServiceTest {
+
+    private static final String LEITURA = "SELECT"
+            + " (SELECT CASE WHEN is_called THEN last_value ELSE 0 END FROM versao_clientes_seq),"
+            + " (SELECT CASE WHEN is_called THEN last_value ELSE 0 END FROM versao_faturas_seq)";
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private Query proximoValor;
+
+    @Mock
+    private Query leitura;
+
+    private VersoesTabelasService versoes;
+
+    @BeforeEach
+    void setUp() {
+        versoes = new VersoesTabelasService(entityManager, transactionManager, true);
+    }
+
+    @Test
+    @DisplayName("sincronizar - Deve avançar só as sequências das tabelas alteradas e ler as versões do banco")
+    void sincronizar_DeveAvancarTabelasAlteradasELerVersoes() {
+        // GIVEN
+        when(entityManager.createNativeQuery("SELECT nextval('versao_faturas_seq')")).thenReturn(proximoValor);
+        when(entityManager.createNativeQuery(LEITURA)).thenReturn(leitura);
+        when(leitura.getSingleResult()).thenReturn(new Object[]{3L, 8L});
+        versoes.aoPagarFatura(new FaturaPagaEvent(UUID.randomUUID(), UUID.randomUUID(), BigDecimal.TEN, 'A'));
+
+        // WHEN
+        versoes.sincronizar();
+
+        // THEN
+        verify(entityManager).createNativeQuery("SELECT nextval('versao_faturas_seq')");
+        verify(entityManager, never()).createNativeQuery("SELECT nextval('versao_clientes_seq')");
+        assertEquals(3L, versoes.versaoBanco(Tabela.CLIENTES));
+        assertEquals(8L, versoes.versaoBanco(Tabela.FATURAS));
+
+        // WHEN: sem novas alterações, o ciclo seguinte só lê as versões
+        versoes.sincronizar();
+
+        // THEN
+        verify(entityManager, times(1)).createNativeQuery("SELECT nextval('versao_faturas_seq')");
+        verify(entityManager, times(2)).createNativeQuery(LEITURA);
+    }
+
+    @Test
+    @DisplayName("sincronizar - Falha no banco deve manter a alteração pendente para o próximo ciclo")
+    void sincronizar_FalhaDeveManterAlteracaoPendente() {
+        // GIVEN
+        when(entityManager.createNativeQuery("SELECT nextval('versao_clientes_seq')")).thenReturn(proximoValor);
+        when(entityManager.createNativeQuery(LEITURA)).thenReturn(leitura);
+        when(leitura.getSingleResult()).thenThrow(new RuntimeException("conexão recusada"));
+        versoes.aoAlterarCliente(new ClienteAlteradoEvent(UUID.randomUUID()));
+
+        // WHEN
+        versoes.sincronizar();
+        doReturn(new Object[]{5L, 1L}).when(leitura).getSingleResult();
+        versoes.sincronizar();
+
+        // THEN
+        verify(transactionManager).rollback(any());
+        verify(entityManager, times(2)).createNativeQuery("SELECT nextval('versao_clientes_seq')");
+        assertEquals(5L, versoes.versaoBanco(Tabela.CLIENTES));
+    }
+
+    @Test
+    @DisplayName("alteracoesExternas - Deve contar só os avanços das sequências feitos por outras réplicas")
+    void alteracoesExternas_DeveDescontarAvancosDesteNo() {
+        // GIVEN: primeira leitura (clientes 3, faturas 8) e, no ciclo seguinte, este nó avança faturas uma vez
+        // enquanto outras réplicas avançam faturas duas vezes e clientes uma
+        when(entityManager.createNativeQuery(LEITURA)).thenReturn(leitura);
+        when(leitura.getSingleResult()).thenReturn(new Object[]{3L, 8L}).thenReturn(new Object[]{4L, 11L});
+        versoes.sincronizar();
+        when(entityManager.createNativeQuery("SELECT nextval('versao_faturas_seq')")).thenReturn(proximoValor);
+        versoes.aoPagarFatura(new FaturaPagaEvent(UUID.randomUUID(), UUID.randomUUID(), BigDecimal.TEN, 'A'));
+
+        // WHEN
+        versoes.sincronizar();
+
+        // THEN: a primeira leitura não conta como alteração externa
+        assertEquals(2L, versoes.alteracoesExternas(Tabela.FATURAS));
+        assertEquals(1L, versoes.alteracoesExternas(Tabela.CLIENTES));
+    }
+
+    @Test
+    @DisplayName("sincronizar - Sem versões compartilhadas não deve consultar o banco")
+    void sincronizar_SemVersoesCompartilhadasNaoDeveConsultarBanco() {
+        // GIVEN
+        versoes = new VersoesTabelasService(entityManager, transactionManager, false);
+        versoes.aoAlterarCliente(new ClienteAlteradoEvent(UUID.randomUUID()));
+
+        // WHEN
+        versoes.sincronizar();
+
+        // THEN
+        verifyNoInteractions(entityManager, transactionManager);
+        assertEquals(0L, versoes.versaoBanco(Tabela.CLIENTES));
+    }
+}
@@ -1,25 +1,61 @@
 -- Garante que o banco de dados esteja no estado correto para criação das tabelas
+DROP TABLE IF EXISTS Outbox_Evento;
+DROP SEQUENCE IF EXISTS outbox_evento_seq;
+DROP SEQUENCE IF EXISTS versao_clientes_seq;
+DROP SEQUENCE IF EXISTS versao_faturas_seq;
+DROP TABLE IF EXISTS Idempotencia_Pagamento;
+DROP TABLE IF EXISTS Job_Particao;
+DROP TABLE IF EXISTS Job_Execucao;
+DROP TABLE IF EXISTS Cota_Credito;
+DROP TABLE IF EXISTS Autorizacao_Credito;
+DROP TABLE IF EXISTS Resumo_Cliente;
+DROP TABLE IF EXISTS Fatura_Arquivada;
 DROP TABLE IF EXISTS Fatura;
 DROP TABLE IF EXISTS Cliente;
 
+-- UUID versão 7 (RFC 9562): instante em milissegundos nos 48 bits iniciais e o restante aleatório, no mesmo formato
+-- gerado pela aplicação (GeradorUuidV7). Chaves em ordem de criação mantêm as inserções no fim do índice da chave primária.
+-- O PostgreSQL 17 não tem uuidv7() nativa. Os 12 bits após a versão guardam a fração do milissegundo (método 3 da RFC),
+-- para que as linhas de uma mesma instrução também fiquem em ordem; os 8 bytes finais vêm de um UUID v4.
+CREATE OR REPLACE FUNCTION uuid_generate_v7() RETURNS UUID AS $$
+    SELECT encode(
+        substring(int8send(t.ms) FROM 3)
+            || substring(int4send(x'7000'::INT | t.fracao) FROM 3)
+            || substring(uuid_send(gen_random_uuid()) FROM 9),
+        'hex')::UUID
+    FROM (SELECT a.us / 1000 AS ms, ((a.us % 1000) * 4096 / 1000)::INT AS fracao
+          FROM (SELECT floor(extract(epoch FROM clock_timestamp()) * 1000000)::BIGINT AS us) a) t;
+$$ LANGUAGE sql VOLATILE;
+
 CREATE TABLE Cliente (
-    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    id UUID PRIMARY KEY DEFAULT uuid_generate_v7(),
     nome VARCHAR(100) NOT NULL,
     cpf VARCHAR(11) UNIQUE NOT NULL, -- CPF com 11 dígitos
     data_nascimento DATE NOT NULL,
     status_bloqueio CHAR(1) NOT NULL DEFAULT 'A', -- 'A' para Ativo, 'B' para Bloqueado
     limite_credito NUMERIC(10,2) NOT NULL,
+    origem_bloqueio CHAR(1), -- 'J' bloqueado pelo job de atraso, 'M' bloqueado pelo operador; nulo se ativo
+    limite_anterior NUMERIC(10,2), -- Limite antes do bloqueio pelo job, devolvido no desbloqueio automático
+    versao BIGINT NOT NULL DEFAULT 0, -- Controle de concorrência otimista (@Version)
 
-    CONSTRAINT chk_status_bloqueio CHECK (status_bloqueio IN ('A', 'B'))
+    CONSTRAINT chk_status_bloqueio CHECK (status_bloqueio IN ('A', 'B')),
+    CONSTRAINT chk_origem_bloqueio CHECK (origem_bloqueio IN ('J', 'M'))
 );
 
+-- Particionada por mês de vencimento: consultas com limite de data (transição para atrasada, bloqueio, páginas por cursor)
+-- leem só as partições do período, e o vacuum de cada mês é independente. A chave primária precisa incluir a coluna
+-- de particionamento, então ela sozinha não impede o mesmo id em meses diferentes: o id é gerado (UUID v7) e a trigger
+-- trg_fatura_id_unico, abaixo, recusa um id já existente em qualquer partição.
 CREATE TABLE Fatura (
-    id UUID PRIMARY KEY DEFAULT gen_random_uuid(), 
+    id UUID NOT NULL DEFAULT uuid_generate_v7(),
     cliente_id UUID NOT NULL,
     data_vencimento DATE NOT NULL,
     data_pagamento DATE, 
     valor NUMERIC(10,2) NOT NULL,
     status CHAR(1) NOT NULL DEFAULT 'B', -- 'P'=Paga, 'A'=Atrasada, 'B'=Aberta
+    versao BIGINT NOT NULL DEFAULT 0, -- Controle de concorrência otimista (@Version)
+
+    CONSTRAINT pk_fatura PRIMARY KEY (id, data_vencimento),
 
     CONSTRAINT chk_fatura_status CHECK (status IN ('P', 'A', 'B')),
 
@@ -27,4 +63,216 @@ CREATE TABLE Fatura (
         FOREIGN KEY (cliente_id)
         REFERENCES Cliente (id)
         ON DELETE RESTRICT -- Não pode excluir um cliente se houver faturas associadas a ele
+) PARTITION BY RANGE (data_vencimento);
+
+-- Garante a unicidade do id entre as partições: procura o id pelo índice da chave primária (que começa por id) em cada
+-- partição. O advisory lock do id serializa inserções simultâneas do mesmo id, que não se enxergariam antes do commit.
+-- Definida na tabela particionada, vale para as partições existentes e as anexadas depois.
+CREATE OR REPLACE FUNCTION fatura_id_unico() RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtextextended(NEW.id::TEXT, 0));
+    IF EXISTS (SELECT 1 FROM fatura WHERE id = NEW.id) THEN
+        RAISE EXCEPTION 'Fatura com id % já existe', NEW.id USING ERRCODE = 'unique_violation';
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_fatura_id_unico BEFORE INSERT ON Fatura FOR EACH ROW EXECUTE FUNCTION fatura_id_unico();
+
+-- Recebe as faturas de meses sem partição própria (ex: histórico anterior às partições criadas abaixo)
+CREATE TABLE Fatura_Padrao PARTITION OF Fatura DEFAULT;
+
+-- Cria as partições mensais (fatura_AAAA_MM) que faltam entre os meses de inicio e fim e devolve quantas foram criadas.
+-- Faturas do mês que já estavam na partição padrão são movidas para a nova partição antes de anexá-la.
+-- A aplicação chama a função diariamente para manter partições criadas com antecedência (ParticoesFaturaService);
+-- o advisory lock serializa chamadas simultâneas de várias réplicas.
+CREATE OR REPLACE FUNCTION criar_particoes_fatura(inicio DATE, fim DATE) RETURNS INTEGER AS $$
+DECLARE
+    mes DATE := date_trunc('month', inicio)::DATE;
+    proximo DATE;
+    nome TEXT;
+    criadas INTEGER := 0;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('criar_particoes_fatura'));
+    WHILE mes <= fim LOOP
+        proximo := (mes + INTERVAL '1 month')::DATE;
+        nome := 'fatura_' || to_char(mes, 'YYYY_MM');
+        IF to_regclass(nome) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I (LIKE fatura INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', nome);
+            EXECUTE format('WITH movidas AS (DELETE FROM fatura_padrao WHERE data_vencimento >= %L AND data_vencimento < %L RETURNING *) '
+                           'INSERT INTO %I SELECT * FROM movidas', mes, proximo, nome);
+            EXECUTE format('ALTER TABLE fatura ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)', nome, mes, proximo);
+            criadas := criadas + 1;
+        END IF;
+        mes := proximo;
+    END LOOP;
+    RETURN criadas;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT criar_particoes_fatura((CURRENT_DATE - INTERVAL '12 months')::DATE, (CURRENT_DATE + INTERVAL '3 months')::DATE);
+
+-- Índices para a paginação por cursor (keyset) das listagens de faturas.
+-- Seguem a ordenação (data_vencimento, id) usada pelo token "next" da API.
+-- Criados na tabela particionada, valem para as partições existentes e para as criadas depois.
+CREATE INDEX idx_fatura_vencimento_id ON Fatura (data_vencimento, id);
+CREATE INDEX idx_fatura_cliente_vencimento_id ON Fatura (cliente_id, data_vencimento, id);
+CREATE INDEX idx_fatura_status_vencimento_id ON Fatura (status, data_vencimento, id);
+-- Próximo vencimento em aberto de um cliente (GET /clientes/{id}/resumo) com uma única busca no índice
+CREATE INDEX idx_fatura_cliente_status_vencimento ON Fatura (cliente_id, status, data_vencimento);
+
+-- Histórico das faturas pagas há mais de N meses, movidas em lotes pelo arquivamento (ArquivamentoFaturasService).
+-- Só recebe inserções: sem atualizações nem exclusões, as páginas ficam cheias (fillfactor 100) e a tabela não precisa
+-- de espaço livre para novas versões das linhas. Lida apenas quando o histórico é pedido (?incluirArquivadas=true).
+CREATE TABLE Fatura_Arquivada (
+    id UUID PRIMARY KEY,
+    cliente_id UUID NOT NULL,
+    data_vencimento DATE NOT NULL,
+    data_pagamento DATE NOT NULL,
+    valor NUMERIC(10,2) NOT NULL,
+    status CHAR(1) NOT NULL, -- Sempre 'P': só faturas pagas são arquivadas
+    arquivada_em TIMESTAMP NOT NULL,
+
+    CONSTRAINT chk_fatura_arquivada_status CHECK (status = 'P'),
+
+    CONSTRAINT fk_fatura_arquivada_cliente
+        FOREIGN KEY (cliente_id)
+        REFERENCES Cliente (id)
+        ON DELETE RESTRICT
+) WITH (fillfactor = 100);
+
+-- Mesma ordenação (data_vencimento, id) das páginas de faturas do cliente, para a junção das duas listagens
+CREATE INDEX idx_fatura_arquivada_cliente_vencimento_id ON Fatura_Arquivada (cliente_id, data_vencimento, id);
+
+-- Índice para a listagem paginada de clientes filtrada por status (ex: /clientes/bloqueados), ordenada por id.
+CREATE INDEX idx_cliente_status_id ON Cliente (status_bloqueio, id);
+
+-- Totais por cliente (GET /clientes/{id}/resumo), mantidos com deltas na mesma transação de cada mudança de status
+-- das faturas (pagamento e transição para atrasada). POST /clientes/resumos/reconstrucao recalcula a partir de Fatura,
+-- Autorizacao_Credito e Cota_Credito.
+CREATE TABLE Resumo_Cliente (
+    cliente_id UUID PRIMARY KEY,
+    total_aberto NUMERIC(14,2) NOT NULL DEFAULT 0, -- Soma das faturas com status 'B'
+    total_atrasado NUMERIC(14,2) NOT NULL DEFAULT 0, -- Soma das faturas com status 'A'
+    total_reservado NUMERIC(14,2) NOT NULL DEFAULT 0, -- Compras aprovadas e não expiradas (Autorizacao_Credito) e saldos das cotas (Cota_Credito)
+
+    CONSTRAINT fk_resumo_cliente_cliente
+        FOREIGN KEY (cliente_id)
+        REFERENCES Cliente (id)
+        ON DELETE CASCADE
 );
+
+-- Compras aprovadas no limite de crédito (POST /clientes/{id}/autorizacoes), gravadas em lote pela réplica que as aprovou.
+-- O valor sai da cota da réplica (Cota_Credito) e continua somado em Resumo_Cliente.total_reservado até expira_em:
+-- o faturamento das compras não faz parte desta aplicação, então a reserva vencida é apagada e o valor volta ao limite.
+CREATE TABLE Autorizacao_Credito (
+    id UUID PRIMARY KEY DEFAULT uuid_generate_v7(),
+    cliente_id UUID NOT NULL,
+    valor NUMERIC(12,2) NOT NULL CHECK (valor > 0),
+    criada_em TIMESTAMP NOT NULL,
+    expira_em TIMESTAMP NOT NULL,
+
+    CONSTRAINT fk_autorizacao_credito_cliente
+        FOREIGN KEY (cliente_id)
+        REFERENCES Cliente (id)
+        ON DELETE CASCADE
+);
+
+CREATE INDEX idx_autorizacao_credito_cliente ON Autorizacao_Credito (cliente_id);
+CREATE INDEX idx_autorizacao_credito_expira_em ON Autorizacao_Credito (expira_em);
+
+-- Parte do limite de crédito de um cliente reservada por uma réplica, que aprova compras em memória até o saldo acabar.
+-- O saldo está somado em Resumo_Cliente.total_reservado. A réplica renova expira_em periodicamente; a cota de uma réplica
+-- que parou expira e o saldo volta ao limite. O bloqueio e a alteração do cliente apagam as cotas de todas as réplicas.
+CREATE TABLE Cota_Credito (
+    id UUID PRIMARY KEY DEFAULT uuid_generate_v7(),
+    cliente_id UUID NOT NULL,
+    replica VARCHAR(100) NOT NULL,
+    saldo NUMERIC(14,2) NOT NULL CHECK (saldo >= 0),
+    expira_em TIMESTAMP NOT NULL,
+
+    CONSTRAINT uk_cota_credito_cliente_replica UNIQUE (cliente_id, replica),
+    CONSTRAINT fk_cota_credito_cliente
+        FOREIGN KEY (cliente_id)
+        REFERENCES Cliente (id)
+        ON DELETE CASCADE
+);
+
+CREATE INDEX idx_cota_credito_replica ON Cota_Credito (replica);
+CREATE INDEX idx_cota_credito_expira_em ON Cota_Credito (expira_em);
+
+-- Execuções dos jobs em lote (ex: bloqueio diário de clientes), uma por job e data de referência
+CREATE TABLE Job_Execucao (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    nome VARCHAR(50) NOT NULL,
+    data_referencia DATE NOT NULL,
+    status CHAR(1) NOT NULL, -- 'E'=Em andamento, 'C'=Concluída, 'F'=Falhou
+    iniciada_em TIMESTAMP NOT NULL,
+    finalizada_em TIMESTAMP,
+
+    CONSTRAINT chk_job_execucao_status CHECK (status IN ('E', 'C', 'F')),
+    CONSTRAINT uk_job_execucao_nome_data UNIQUE (nome, data_referencia)
+);
+
+-- Partições (faixas de ID) de cada execução: checkpoint, métricas e lease por partição.
+-- Com várias réplicas da aplicação, cada partição é processada pelo nó que a reivindicar.
+CREATE TABLE Job_Particao (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    job_id UUID NOT NULL,
+    indice INTEGER NOT NULL,
+    id_inicio UUID NOT NULL,
+    id_fim UUID NOT NULL,
+    status CHAR(1) NOT NULL DEFAULT 'P', -- 'P'=Pendente, 'C'=Concluída, 'F'=Falhou
+    dono VARCHAR(100), -- Nó (réplica) que detém o lease da partição
+    lease_expira_em TIMESTAMP, -- Renovado pelo heartbeat do nó; expirado, a partição pode ser assumida por outro nó
+    tentativas INTEGER NOT NULL DEFAULT 0,
+    linhas_lidas BIGINT,
+    linhas_alteradas BIGINT,
+    duracao_ms BIGINT,
+    processada_em TIMESTAMP,
+    erro VARCHAR(500),
+
+    CONSTRAINT chk_job_particao_status CHECK (status IN ('P', 'C', 'F')),
+
+    CONSTRAINT fk_job_particao_execucao
+        FOREIGN KEY (job_id)
+        REFERENCES Job_Execucao (id)
+        ON DELETE CASCADE
+);
+
+CREATE INDEX idx_job_particao_job_status ON Job_Particao (job_id, status, indice);
+
+-- Respostas dos pagamentos registrados com o header Idempotency-Key (retentativas recebem a resposta original).
+-- Chaves mais antigas que a retenção configurada são removidas periodicamente.
+CREATE TABLE Idempotencia_Pagamento (
+    chave VARCHAR(100) PRIMARY KEY,
+    fatura_id UUID NOT NULL,
+    data_pagamento DATE NOT NULL,
+    resposta TEXT NOT NULL, -- FaturaResponseDTO em JSON
+    criada_em TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_idempotencia_pagamento_criada_em ON Idempotencia_Pagamento (criada_em);
+
+-- Outbox transacional: eventos de domínio (fatura paga, cliente bloqueado) gravados na mesma transação da alteração.
+-- O relay publica os pendentes (publicado_em nulo) em ordem de id e remove os publicados após a retenção.
+-- Incremento 1 e sem blocos pré-alocados pela aplicação: o id é obtido dentro da transação que trava o agregado, então
+-- os eventos de um mesmo agregado têm ids na ordem dos commits, mesmo vindos de réplicas diferentes.
+CREATE SEQUENCE outbox_evento_seq INCREMENT BY 1;
+
+CREATE TABLE Outbox_Evento (
+    id BIGINT PRIMARY KEY DEFAULT nextval('outbox_evento_seq'),
+    tipo VARCHAR(50) NOT NULL, -- Ex: FATURA_PAGA, CLIENTE_BLOQUEADO
+    agregado_id UUID NOT NULL, -- ID da fatura ou do cliente
+    payload TEXT NOT NULL, -- Evento em JSON
+    criado_em TIMESTAMP NOT NULL,
+    publicado_em TIMESTAMP
+);
+
+CREATE INDEX idx_outbox_evento_publicado_em ON Outbox_Evento (publicado_em, id);
+
+-- Versões das tabelas de clientes e faturas compartilhadas entre as réplicas (VersoesTabelasService): cada réplica avança
+-- a sequência depois do commit de uma alteração e lê as duas periodicamente para trocar as chaves dos seus caches.
+CREATE SEQUENCE versao_clientes_seq;
+CREATE SEQUENCE versao_faturas_seq;
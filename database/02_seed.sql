@@ -40,4 +40,12 @@ INSERT INTO fatura (cliente_id, data_vencimento, data_pagamento, valor, status)
 -- Cliente: Marcos Lima (Bloqueado, fatura com ATRASO > 3 dias)
 ((SELECT id FROM cliente WHERE cpf = '78901234567'), CURRENT_DATE - INTERVAL '7 days', NULL, 250.00, 'A'), -- Vencida há 7 dias (maior que 3)
 -- Cliente: Ana Pereira (Bloqueado, fatura com ATRASO > 3 dias)
-((SELECT id FROM cliente WHERE cpf = '45678901234'), CURRENT_DATE - INTERVAL '15 days', NULL, 400.00, 'A');  -- Vencida há 15 dias (maior que 3)
\ No newline at end of file
+((SELECT id FROM cliente WHERE cpf = '45678901234'), CURRENT_DATE - INTERVAL '15 days', NULL, 400.00, 'A');  -- Vencida há 15 dias (maior que 3)
+
+-- Resumo por cliente (totais em aberto e atrasado); a partir daqui é mantido pela aplicação
+INSERT INTO resumo_cliente (cliente_id, total_aberto, total_atrasado)
+SELECT c.id,
+       COALESCE(SUM(f.valor) FILTER (WHERE f.status = 'B'), 0),
+       COALESCE(SUM(f.valor) FILTER (WHERE f.status = 'A'), 0)
+FROM cliente c LEFT JOIN fatura f ON f.cliente_id = c.id
+GROUP BY c.id;
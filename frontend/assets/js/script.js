@@ -54,19 +54,44 @@ function exibirMensagem(tipo, mensagem) {
   }, 5000); // Mensagem visível por 5 segundos
 }
 
-// Função para carregar e exibir a lista de clientes
-async function carregarClientes() {
+// A API retorna uma página por vez: { itens: [...], next: "token da próxima página" (null na última) }.
+// As tabelas mostram a primeira página, e o botão "Carregar mais" acrescenta a seguinte usando o next.
+async function buscarPagina(url, next) {
+  const separador = url.includes("?") ? "&" : "?";
+  const resposta = await fetch(
+    next ? `${url}${separador}next=${encodeURIComponent(next)}` : url
+  );
+  if (!resposta.ok) {
+    throw new Error(`HTTP error! status: ${resposta.status}`);
+  }
+  return resposta.json();
+}
+
+// Exibe o botão só quando há próxima página; desabilitado durante a carga para não buscar a mesma página duas vezes
+function configurarCarregarMais(idBotao, next, carregarPagina) {
+  const botao = document.getElementById(idBotao);
+  botao.hidden = !next;
+  botao.onclick = async () => {
+    botao.disabled = true;
+    try {
+      await carregarPagina(next);
+    } finally {
+      botao.disabled = false;
+    }
+  };
+}
+
+// Função para carregar e exibir a lista de clientes (sem next: recarrega a partir da primeira página)
+async function carregarClientes(next = null) {
   const corpoTabela = document.getElementById("clientes-tbody");
-  corpoTabela.innerHTML = ""; // Limpa a tabela
 
   try {
-    const resposta = await fetch(`${API_BASE_URL}/clientes`);
-    if (!resposta.ok) {
-      throw new Error(`HTTP error! status: ${resposta.status}`);
+    const pagina = await buscarPagina(`${API_BASE_URL}/clientes`, next);
+    if (!next) {
+      corpoTabela.innerHTML = ""; // Limpa a tabela
     }
-    const clientes = await resposta.json();
 
-    clientes.forEach((cliente) => {
+    pagina.itens.forEach((cliente) => {
       const linha = corpoTabela.insertRow();
 
       // Nome
@@ -98,6 +123,8 @@ async function carregarClientes() {
         (window.location.href = `faturas.html?clienteId=${cliente.id}`);
       acoesCell.appendChild(verFaturasBtn);
     });
+
+    configurarCarregarMais("clientes-carregar-mais", pagina.next, carregarClientes);
   } catch (error) {
     console.error("Erro ao carregar clientes:", error);
     exibirMensagem("error", "Erro ao carregar clientes. Verifique o console.");
@@ -179,7 +206,7 @@ function configurarFormularioCliente() {
   });
 }
 
-async function carregarFaturasCliente() {
+async function carregarFaturasCliente(next = null) {
   const parametrosURL = new URLSearchParams(window.location.search);
   const clienteId = parametrosURL.get("clienteId");
 
@@ -192,24 +219,22 @@ async function carregarFaturasCliente() {
   document.getElementById("cliente-id").textContent = clienteId;
 
   const corpoTabelaFaturas = document.getElementById("faturas-tbody");
-  corpoTabelaFaturas.innerHTML = ""; // Limpa a tabela
 
   try {
-    const resposta = await fetch(`${API_BASE_URL}/faturas/${clienteId}`);
-    if (!resposta.ok) {
-      throw new Error(`HTTP error! status: ${resposta.status}`);
-    }
-    const faturas = await resposta.json();
-
-    if (faturas.length > 0) {
-      document.getElementById("cliente-nome").textContent =
-        faturas[0].clienteNome || "Cliente Desconhecido";
-    } else {
-      document.getElementById("cliente-nome").textContent =
-        "Cliente sem faturas ou Desconhecido";
+    const pagina = await buscarPagina(`${API_BASE_URL}/faturas/${clienteId}`, next);
+
+    if (!next) {
+      corpoTabelaFaturas.innerHTML = ""; // Limpa a tabela
+      if (pagina.itens.length > 0) {
+        document.getElementById("cliente-nome").textContent =
+          pagina.itens[0].clienteNome || "Cliente Desconhecido";
+      } else {
+        document.getElementById("cliente-nome").textContent =
+          "Cliente sem faturas ou Desconhecido";
+      }
     }
 
-    faturas.forEach((fatura) => {
+    pagina.itens.forEach((fatura) => {
       const linha = corpoTabelaFaturas.insertRow();
 
       // Valor
@@ -252,6 +277,8 @@ async function carregarFaturasCliente() {
         acoesCell.appendChild(pagarBtn);
       }
     });
+
+    configurarCarregarMais("faturas-carregar-mais", pagina.next, carregarFaturasCliente);
   } catch (error) {
     console.error("Erro ao carregar faturas:", error);
     exibirMensagem("error", "Erro ao carregar faturas. Verifique o console.");